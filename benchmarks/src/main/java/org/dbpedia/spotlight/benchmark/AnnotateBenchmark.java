@@ -0,0 +1,32 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.disambiguate.ParagraphDisambiguatorJ;
+import org.dbpedia.spotlight.model.*;
+import org.dbpedia.spotlight.spot.Spotter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * End-to-end annotation of a text with the SpotlightModel: tokenization, spotting and disambiguation,
+ * as done by the annotate endpoint of the server (without the filters and the output).
+ */
+public class AnnotateBenchmark {
+
+    @Benchmark
+    public List<DBpediaResourceOccurrence> annotate(SyntheticModelState state, SyntheticModelState.Cursor cursor) {
+        Text text = new Text(state.texts[cursor.next(state.texts.length)]);
+
+        state.model.tokenizer().tokenizeMaybe(text);
+
+        Spotter spotter = state.model.spotters().get(SpotterConfiguration.SpotterPolicy.Default);
+        List<SurfaceFormOccurrence> spots = spotter.extract(text);
+        if (spots.isEmpty())
+            return Collections.emptyList();
+
+        ParagraphDisambiguatorJ disambiguator = state.model.disambiguators().get(SpotlightConfiguration.DisambiguationPolicy.Default);
+        return disambiguator.disambiguate(Factory.paragraph().fromJ(spots));
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks with the default settings for comparing builds: throughput and average time
+ * of each benchmark and the allocation rate (gc profiler).
+ *
+ * The arguments are the usual JMH command line options, e.g. a regular expression of the benchmarks
+ * to run or -rf json -rff result.json to store the results:
+ *
+ * mvn -Pbenchmarks package -pl benchmarks -am
+ * java -jar benchmarks/target/benchmarks.jar [JMH options]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        //The command line options take precedence over the defaults:
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+
+        if (commandLine.getIncludes().isEmpty())
+            builder.include("org\\.dbpedia\\.spotlight\\..*Benchmark");
+
+        if (commandLine.getBenchModes().isEmpty())
+            builder.mode(Mode.Throughput).mode(Mode.AverageTime);
+
+        if (!commandLine.getTimeUnit().hasValue())
+            builder.timeUnit(TimeUnit.MICROSECONDS);
+
+        if (!commandLine.getForkCount().hasValue())
+            builder.forks(1);
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+
+}
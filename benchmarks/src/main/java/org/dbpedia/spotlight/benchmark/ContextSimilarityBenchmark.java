@@ -0,0 +1,27 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Scoring of the candidates of a text with GenerativeContextSimilarity. The queries (distinct tokens
+ * of the text) and the candidates are created before the benchmark.
+ */
+public class ContextSimilarityBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Queries {
+
+        public ContextSimilarityWorkload workload;
+
+        @Setup(Level.Trial)
+        public void setUp(SyntheticModelState state) {
+            workload = new ContextSimilarityWorkload(state.modelFolder, state.model, state.texts);
+        }
+    }
+
+    @Benchmark
+    public Object score(Queries queries, SyntheticModelState.Cursor cursor) {
+        return queries.workload.score(cursor.next(queries.workload.size()));
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.disambiguate.ParagraphDisambiguatorJ;
+import org.dbpedia.spotlight.exceptions.InputException;
+import org.dbpedia.spotlight.exceptions.ItemNotFoundException;
+import org.dbpedia.spotlight.exceptions.SearchException;
+import org.dbpedia.spotlight.model.DBpediaResourceOccurrence;
+import org.dbpedia.spotlight.model.Paragraph;
+import org.dbpedia.spotlight.model.SpotlightConfiguration;
+import org.dbpedia.spotlight.model.SurfaceFormOccurrence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disambiguation of the spots of a text with the DBTwoStepDisambiguator of the synthetic model.
+ * The texts are tokenized and spotted before the benchmark.
+ */
+public class DisambiguatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Paragraphs {
+
+        @Param({"5"})
+        public int k;
+
+        public ParagraphDisambiguatorJ disambiguator;
+        public Paragraph[] paragraphs;
+
+        @Setup(Level.Trial)
+        public void setUp(SyntheticModelState state) {
+            disambiguator = state.model.disambiguators().get(SpotlightConfiguration.DisambiguationPolicy.Default);
+            paragraphs = Workloads.paragraphs(state.model, state.texts);
+        }
+    }
+
+    @Benchmark
+    public List<DBpediaResourceOccurrence> disambiguate(Paragraphs p, SyntheticModelState.Cursor cursor) {
+        return p.disambiguator.disambiguate(p.paragraphs[cursor.next(p.paragraphs.length)]);
+    }
+
+    @Benchmark
+    public Map<SurfaceFormOccurrence, List<DBpediaResourceOccurrence>> bestK(Paragraphs p, SyntheticModelState.Cursor cursor) throws SearchException, InputException, ItemNotFoundException {
+        return p.disambiguator.bestK(p.paragraphs[cursor.next(p.paragraphs.length)], p.k);
+    }
+
+}
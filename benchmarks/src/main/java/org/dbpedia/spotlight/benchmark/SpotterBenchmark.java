@@ -0,0 +1,34 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.model.SpotterConfiguration;
+import org.dbpedia.spotlight.model.SurfaceFormOccurrence;
+import org.dbpedia.spotlight.model.Text;
+import org.dbpedia.spotlight.spot.Spotter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+
+/**
+ * Spotting with the FSASpotter of the synthetic model. The texts are tokenized before the benchmark.
+ */
+public class SpotterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class TokenizedTexts {
+
+        public Spotter spotter;
+        public Text[] texts;
+
+        @Setup(Level.Trial)
+        public void setUp(SyntheticModelState state) {
+            spotter = state.model.spotters().get(SpotterConfiguration.SpotterPolicy.Default);
+            texts = Workloads.tokenized(state.model, state.texts);
+        }
+    }
+
+    @Benchmark
+    public List<SurfaceFormOccurrence> extract(TokenizedTexts tokenized, SyntheticModelState.Cursor cursor) {
+        return tokenized.spotter.extract(tokenized.texts[cursor.next(tokenized.texts.length)]);
+    }
+
+}
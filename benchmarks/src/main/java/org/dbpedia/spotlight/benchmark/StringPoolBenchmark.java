@@ -0,0 +1,65 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.db.memory.util.StringPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Lookups in a front-coded StringPool compared to the Array[String] and hash map it replaces in the memory
+ * stores. The strings are URI-like with shared prefixes; run with -prof gc to see the allocation per lookup.
+ */
+public class StringPoolBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Strings {
+
+        @Param({"100000"})
+        public int size;
+
+        public String[] strings;
+        public String[] queries;
+        public StringPool pool;
+        public HashMap<String, Integer> idForString;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42L);
+
+            strings = new String[size];
+            idForString = new HashMap<String, Integer>();
+            for (int i = 0; i < size; i++) {
+                strings[i] = "http://dbpedia.org/resource/Entity_" + Integer.toString(random.nextInt(), 36) + "_" + i;
+                idForString.put(strings[i], i);
+            }
+            pool = StringPool.apply(strings);
+
+            //Copies, so that the lookups can not compare references:
+            queries = new String[1000];
+            for (int i = 0; i < queries.length; i++)
+                queries[i] = new String(strings[random.nextInt(size)]);
+        }
+    }
+
+    @Benchmark
+    public int getID(Strings strings, SyntheticModelState.Cursor cursor) {
+        return strings.pool.getID(strings.queries[cursor.next(strings.queries.length)]);
+    }
+
+    @Benchmark
+    public String get(Strings strings, SyntheticModelState.Cursor cursor) {
+        return strings.pool.get(cursor.next(strings.size));
+    }
+
+    @Benchmark
+    public Integer hashMapGetID(Strings strings, SyntheticModelState.Cursor cursor) {
+        return strings.idForString.get(strings.queries[cursor.next(strings.queries.length)]);
+    }
+
+    @Benchmark
+    public String arrayGet(Strings strings, SyntheticModelState.Cursor cursor) {
+        return strings.strings[cursor.next(strings.size)];
+    }
+
+}
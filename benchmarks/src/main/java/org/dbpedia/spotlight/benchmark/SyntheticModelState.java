@@ -0,0 +1,62 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.db.SpotlightModel;
+import org.openjdk.jmh.annotations.*;
+import scala.Tuple2;
+
+import java.io.File;
+
+/**
+ * Generates a synthetic model (see {@link SyntheticModel}) in a temporary folder and loads it once
+ * per trial. The size of the model and of the texts can be changed with JMH parameters, e.g.
+ * -p resources=100000 -p surfaceForms=200000.
+ */
+@State(Scope.Benchmark)
+public class SyntheticModelState {
+
+    @Param({"10000"})
+    public int resources;
+
+    @Param({"20000"})
+    public int surfaceForms;
+
+    @Param({"200"})
+    public int documents;
+
+    @Param({"10"})
+    public int sentences;
+
+    public SyntheticModel syntheticModel;
+    public File modelFolder;
+    public SpotlightModel model;
+    public String[] texts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Tuple2<SyntheticModel, File> created = SyntheticModel.createTemporary(resources, surfaceForms, 42L);
+        syntheticModel = created._1();
+        modelFolder = created._2();
+
+        model = SpotlightModel.fromFolder(modelFolder);
+        texts = syntheticModel.texts(documents, sentences, 7L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticModel.delete(modelFolder);
+    }
+
+    /**
+     * The position of a benchmark thread in the inputs, so that the threads iterate over the inputs independently.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = 0;
+
+        public int next(int size) {
+            position = (position + 1) % size;
+            return position;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.dbpedia.spotlight.benchmark;
+
+import org.dbpedia.spotlight.db.model.TextTokenizer;
+import org.dbpedia.spotlight.model.Text;
+import org.dbpedia.spotlight.model.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+
+/**
+ * Tokenization of the texts with the LanguageIndependentTokenizer of the synthetic model or with the
+ * OpenNLPTokenizer. OpenNLP requires real models: run with -p tokenizer=opennlp and
+ * -Dspotlight.benchmark.opennlp=&lt;folder with token.bin, sent.bin and optionally pos-maxent.bin&gt;.
+ */
+public class TokenizerBenchmark {
+
+    public static final String OPENNLP_FOLDER_PROPERTY = "spotlight.benchmark.opennlp";
+
+    @State(Scope.Benchmark)
+    public static class Tokenizers {
+
+        @Param({"languageIndependent"})
+        public String tokenizer;
+
+        public TextTokenizer textTokenizer;
+
+        @Setup(Level.Trial)
+        public void setUp(SyntheticModelState state) {
+            if (tokenizer.equals("opennlp")) {
+                String folder = System.getProperty(OPENNLP_FOLDER_PROPERTY);
+                if (folder == null)
+                    throw new IllegalStateException("The OpenNLP tokenizer requires the OpenNLP models, set -D" + OPENNLP_FOLDER_PROPERTY + "=<folder>.");
+                textTokenizer = Workloads.openNLPTokenizer(new File(folder), state.modelFolder);
+            } else {
+                textTokenizer = state.model.tokenizer();
+            }
+        }
+    }
+
+    @Benchmark
+    public TokenBuffer tokenize(SyntheticModelState state, Tokenizers tokenizers, SyntheticModelState.Cursor cursor) {
+        return tokenizers.textTokenizer.tokenizeBuffer(new Text(state.texts[cursor.next(state.texts.length)]));
+    }
+
+}
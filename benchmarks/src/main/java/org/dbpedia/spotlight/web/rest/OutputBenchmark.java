@@ -0,0 +1,59 @@
+package org.dbpedia.spotlight.web.rest;
+
+import org.dbpedia.spotlight.benchmark.SyntheticModelState;
+import org.dbpedia.spotlight.benchmark.Workloads;
+import org.dbpedia.spotlight.disambiguate.ParagraphDisambiguatorJ;
+import org.dbpedia.spotlight.exceptions.OutputException;
+import org.dbpedia.spotlight.model.DBpediaResourceOccurrence;
+import org.dbpedia.spotlight.model.Paragraph;
+import org.dbpedia.spotlight.model.SpotlightConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Serialization of annotations by the OutputManager. The annotations of the texts are created before
+ * the benchmark. This benchmark is in the package of the OutputManager, since its methods are protected.
+ */
+public class OutputBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Annotations {
+
+        public OutputManager outputManager;
+        public String[] texts;
+        public List<DBpediaResourceOccurrence>[] occurrences;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp(SyntheticModelState state) {
+            outputManager = new OutputManager();
+
+            ParagraphDisambiguatorJ disambiguator = state.model.disambiguators().get(SpotlightConfiguration.DisambiguationPolicy.Default);
+            Paragraph[] paragraphs = Workloads.paragraphs(state.model, state.texts);
+
+            texts = new String[paragraphs.length];
+            occurrences = new List[paragraphs.length];
+            for (int i = 0; i < paragraphs.length; i++) {
+                texts[i] = paragraphs[i].text().text();
+                occurrences[i] = disambiguator.disambiguate(paragraphs[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public String xml(Annotations a, SyntheticModelState.Cursor cursor) throws OutputException {
+        int i = cursor.next(a.texts.length);
+        return a.outputManager.makeXML(a.texts[i], a.occurrences[i], 0.5, 0, "", "", "whitelist", false);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream json(Annotations a, SyntheticModelState.Cursor cursor) throws OutputException {
+        int i = cursor.next(a.texts.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        a.outputManager.makeJSON(out, a.texts[i], a.occurrences[i], 0.5, 0, "", "", "whitelist", false);
+        return out;
+    }
+
+}
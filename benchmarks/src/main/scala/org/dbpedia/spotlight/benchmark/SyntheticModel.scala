@@ -0,0 +1,237 @@
+package org.dbpedia.spotlight.benchmark
+
+import java.io.{PrintWriter, FileOutputStream, File}
+import java.util.{Locale, Properties}
+import scala.collection.mutable
+import scala.util.Random
+import org.dbpedia.spotlight.db.{FSASpotter, MemoryStoreIndexer}
+import org.dbpedia.spotlight.db.memory.{MemoryQuantizedCountStore, MemoryStore}
+import org.dbpedia.spotlight.db.stem.SnowballStemmer
+import org.dbpedia.spotlight.db.tokenize.LanguageIndependentTokenizer
+import org.dbpedia.spotlight.model.{Factory, TokenType, SurfaceForm, DBpediaResource}
+
+/**
+ * A small random Spotlight model for benchmarks, so that they do not require a downloaded model.
+ *
+ * The vocabulary consists of generated words that are grouped into topics. Every resource belongs to
+ * one topic, its context consists of words of this topic. The surface forms are ambiguous, their
+ * candidates are resources of different topics. texts() generates texts about a topic that mention
+ * surface forms of the resources in the topic, hence the context decides which candidate is correct.
+ *
+ * The model is determined by the parameters and the seed.
+ *
+ * @param resources number of resources
+ * @param surfaceForms number of surface forms
+ * @param topics number of topics
+ * @param seed seed of the random generator
+ */
+
+class SyntheticModel(val resources: Int, val surfaceForms: Int, val topics: Int = 50, val seed: Long = 42L) {
+
+  val MAX_CANDIDATES = 6
+  val WORDS_PER_TOPIC = 200
+  val CONTEXT_SIZE = 100
+
+  val stopwords = Set("the", "of", "and", "in", "a", "to", "is", "was", "on", "for", "with", "by", "as", "at", "from")
+  val stemmer = new SnowballStemmer(SyntheticModel.STEMMER)
+
+  private val random = new Random(seed)
+
+  private val syllables = for (c <- "bdfgklmnprstvz"; v <- "aeiou") yield "" + c + v
+
+  private def word(): String = (1 to 2 + random.nextInt(3)).map(_ => syllables(random.nextInt(syllables.size))).mkString
+
+  val vocabulary: Array[String] = {
+    val words = mutable.LinkedHashSet[String]()
+    while (words.size < topics * WORDS_PER_TOPIC)
+      words += word()
+    words.toArray
+  }
+
+  def topicWords(topic: Int): Array[String] = vocabulary.slice(topic * WORDS_PER_TOPIC, (topic + 1) * WORDS_PER_TOPIC)
+
+  private def capitalize(w: String) = w.substring(0, 1).toUpperCase + w.substring(1)
+
+  //Surface form i consists of 1-3 capitalized words, its candidates are resources in different topics:
+  val surfaceFormNames: Array[String] = {
+    val names = mutable.LinkedHashSet[String]()
+    while (names.size < surfaceForms)
+      names += (1 to 1 + random.nextInt(3)).map(_ => capitalize(vocabulary(random.nextInt(vocabulary.size)))).mkString(" ")
+    names.toArray
+  }
+
+  val resourceTopic: Array[Int] = Array.fill(resources)(random.nextInt(topics))
+  val resourceSupport: Array[Int] = Array.fill(resources)(1 + (1000.0 / (1 + random.nextInt(1000))).toInt)
+
+  val resourceTypes = Array("DBpedia:Person", "DBpedia:Place", "DBpedia:Organisation", "DBpedia:Work")
+
+  //(resource ID, count) of the candidates of each surface form:
+  val candidates: Array[Array[(Int, Int)]] = Array.fill(surfaceForms) {
+    (1 to 1 + random.nextInt(MAX_CANDIDATES)).map(_ => random.nextInt(resources)).distinct.map(r => (r, 1 + random.nextInt(resourceSupport(r)))).toArray
+  }
+
+  //Surface forms of the candidates, by topic:
+  val topicSurfaceForms: Array[Array[Int]] = {
+    val bt = Array.fill(topics)(mutable.ArrayBuffer[Int]())
+    candidates.zipWithIndex.foreach { case (cands, sf) =>
+      cands.foreach { case (r, _) => bt(resourceTopic(r)) += sf }
+    }
+    bt.map(_.toArray)
+  }
+
+  def resourceName(r: Int) = "Resource_%d".format(r)
+
+  /**
+   * Writes the model to the model folder, it can be loaded with SpotlightModel.fromFolder.
+   */
+  def write(modelFolder: File) {
+    val modelDataFolder = new File(modelFolder, "model")
+    modelDataFolder.mkdirs()
+
+    val properties = new Properties()
+    properties.setProperty("stemmer", SyntheticModel.STEMMER)
+    properties.setProperty("namespace", "http://dbpedia.org/resource/")
+    properties.setProperty("locale", SyntheticModel.LOCALE)
+    properties.setProperty("version", "1.0")
+    properties.store(new FileOutputStream(new File(modelFolder, "model.properties")), null)
+
+    writeLines(new File(modelFolder, "stopwords.list"), stopwords.toSeq)
+    writeLines(new File(modelFolder, "spotter_thresholds.txt"), Seq("1.0 0.2 -0.2 0.1"))
+
+    val indexer = new MemoryStoreIndexer(modelDataFolder, new MemoryQuantizedCountStore())
+
+    //Tokens (ID 0 is the unknown token):
+    val stems = vocabulary.map(stemmer.stem).distinct
+    val tokenIDs = stems.zipWithIndex.map { case (s, i) => (s, i + 1) }.toMap
+    val tokenCounts = new java.util.LinkedHashMap[TokenType, Int]()
+    tokenCounts.put(TokenType.UNKNOWN, 1)
+    stems.foreach { s: String => tokenCounts.put(new TokenType(tokenIDs(s), s, 0), 1 + random.nextInt(1000)) }
+    val tokenTypeStore = indexer.buildTokenTypeStore(tokenCounts)
+
+    //Resources (IDs start with 1):
+    val resourceCounts = new java.util.LinkedHashMap[DBpediaResource, Int]()
+    val dbpediaResources = (0 until resources).map { r: Int =>
+      val res = new DBpediaResource(resourceName(r), resourceSupport(r))
+      res.id = r + 1
+      res.types = List(Factory.OntologyType.fromQName(resourceTypes(r % resourceTypes.size)))
+      resourceCounts.put(res, resourceSupport(r))
+      res
+    }
+    indexer.buildResourceStore(resourceCounts)
+
+    //Surface forms (IDs start with 1 in the insertion order of the map):
+    val sfCounts = new java.util.LinkedHashMap[SurfaceForm, (Int, Int)]()
+    val lowercaseCounts = new java.util.HashMap[String, Int]()
+    surfaceFormNames.zipWithIndex.foreach { case (sf, i) =>
+      val annotated = candidates(i).map(_._2).sum
+      sfCounts.put(new SurfaceForm(sf), (annotated, 2 * annotated))
+      lowercaseCounts.put(sf.toLowerCase, annotated)
+    }
+    val sfStore = indexer.buildSurfaceFormStore(sfCounts, lowercaseCounts, 0)
+
+    val candidateCounts = new java.util.HashMap[(Int, Int), Int]()
+    candidates.zipWithIndex.foreach { case (cands, i) =>
+      cands.foreach { case (r, count) => candidateCounts.put((i + 1, r + 1), count) }
+    }
+    indexer.addCandidatesByID(candidateCounts, surfaceForms + 1)
+
+    //Context: words of the topic of the resource:
+    indexer.createContextStore(resources + 1)
+    val occs = new java.util.HashMap[DBpediaResource, java.util.Map[Int, Int]]()
+    dbpediaResources.zipWithIndex.foreach { case (res, r) =>
+      val words = topicWords(resourceTopic(r))
+      val counts = new java.util.HashMap[Int, Int]()
+      random.shuffle((0 until WORDS_PER_TOPIC).toList).take(CONTEXT_SIZE).foreach { w: Int =>
+        val id = tokenIDs(stemmer.stem(words(w)))
+        counts.put(id, (if (counts.containsKey(id)) counts.get(id) else 0) + 1 + random.nextInt(20))
+      }
+      occs.put(res, counts)
+    }
+    indexer.addTokenOccurrences(occs)
+    indexer.writeTokenOccurrences()
+    indexer.writeQuantizedCounts()
+
+    val locale = SyntheticModel.LOCALE.split("_")
+    val tokenizer = new LanguageIndependentTokenizer(stopwords, stemmer, new Locale(locale(0), locale(1)), tokenTypeStore)
+    MemoryStore.dump(FSASpotter.buildDictionary(sfStore, tokenizer), new File(modelFolder, "fsa_dict.mem"))
+  }
+
+  private def writeLines(file: File, lines: Seq[String]) {
+    val out = new PrintWriter(file, "UTF-8")
+    try {
+      lines.foreach { l: String => out.println(l) }
+    } finally {
+      out.close()
+    }
+  }
+
+  /**
+   * Generates n texts about random topics. Every sentence of a text contains words of the topic,
+   * stopwords and in most cases a surface form of a resource in the topic.
+   *
+   * @param n number of texts
+   * @param sentences number of sentences per text
+   * @param textSeed seed of the random generator
+   */
+  def texts(n: Int, sentences: Int, textSeed: Long): Array[String] = {
+    val r = new Random(textSeed)
+    val stopwordList = stopwords.toArray
+
+    Array.fill(n) {
+      val topic = r.nextInt(topics)
+      val words = topicWords(topic)
+      val sfs = topicSurfaceForms(topic)
+
+      (1 to sentences).map { _ =>
+        val sentence = (1 to 8 + r.nextInt(10)).map { _ =>
+          if (r.nextInt(3) == 0) stopwordList(r.nextInt(stopwordList.size)) else words(r.nextInt(words.size))
+        }.toBuffer
+
+        if (!sfs.isEmpty && r.nextInt(5) != 0)
+          sentence.insert(1 + r.nextInt(sentence.size - 1), surfaceFormNames(sfs(r.nextInt(sfs.size))))
+
+        capitalize(sentence.mkString(" ")) + "."
+      }.mkString(" ")
+    }
+  }
+
+}
+
+object SyntheticModel {
+
+  val STEMMER = "EnglishStemmer"
+  val LOCALE = "en_US"
+
+  /**
+   * Writes a synthetic model to a new temporary folder.
+   */
+  def createTemporary(resources: Int, surfaceForms: Int, seed: Long): (SyntheticModel, File) = {
+    val folder = File.createTempFile("spotlight-benchmark", "")
+    folder.delete()
+    folder.mkdirs()
+
+    val model = new SyntheticModel(resources, surfaceForms, seed = seed)
+    model.write(folder)
+    (model, folder)
+  }
+
+  def delete(file: File) {
+    if (file.isDirectory)
+      file.listFiles().foreach(delete)
+    file.delete()
+  }
+
+  def main(args: Array[String]) {
+    if (args.size < 1) {
+      System.err.println("Usage: SyntheticModel <model folder> [<resources> [<surface forms> [<seed>]]]")
+      System.exit(1)
+    }
+
+    val resources = if (args.size > 1) args(1).toInt else 10000
+    val surfaceForms = if (args.size > 2) args(2).toInt else 20000
+    val seed = if (args.size > 3) args(3).toLong else 42L
+
+    new SyntheticModel(resources, surfaceForms, seed = seed).write(new File(args(0)))
+  }
+
+}
@@ -0,0 +1,87 @@
+package org.dbpedia.spotlight.benchmark
+
+import java.io.{FileInputStream, File}
+import java.util.Properties
+import opennlp.tools.tokenize.{TokenizerModel, TokenizerME}
+import opennlp.tools.sentdetect.{SentenceModel, SentenceDetectorME}
+import opennlp.tools.postag.{POSModel, POSTaggerME}
+import org.dbpedia.spotlight.db.{DBCandidateSearcher, SpotlightModel}
+import org.dbpedia.spotlight.db.model.TextTokenizer
+import org.dbpedia.spotlight.db.similarity.GenerativeContextSimilarity
+import org.dbpedia.spotlight.db.stem.SnowballStemmer
+import org.dbpedia.spotlight.db.tokenize.OpenNLPTokenizer
+import org.dbpedia.spotlight.model.SpotterConfiguration.SpotterPolicy
+import org.dbpedia.spotlight.model._
+
+/**
+ * Prepares the inputs of the benchmarks, so that the benchmarks only measure the benchmarked stage.
+ */
+
+object Workloads {
+
+  /**
+   * Tokenizes the texts with the tokenizer of the model (the input of the spotter).
+   */
+  def tokenized(model: SpotlightModel, texts: Array[String]): Array[Text] = texts.map { t: String =>
+    val text = new Text(t)
+    model.tokenizer.tokenizeMaybe(text)
+    text
+  }
+
+  /**
+   * Tokenizes and spots the texts, the paragraphs are the input of the disambiguator. Texts without
+   * spots are skipped.
+   */
+  def paragraphs(model: SpotlightModel, texts: Array[String]): Array[Paragraph] = {
+    val spotter = model.spotters.get(SpotterPolicy.Default)
+    tokenized(model, texts).map( spotter.extract(_) ).filter(!_.isEmpty).map( Factory.paragraph().fromJ(_) )
+  }
+
+  /**
+   * Creates an OpenNLP tokenizer for the model with the OpenNLP models (token.bin, sent.bin and
+   * optionally pos-maxent.bin) in the folder.
+   */
+  def openNLPTokenizer(opennlpFolder: File, modelFolder: File): TextTokenizer = {
+    val properties = new Properties()
+    properties.load(new FileInputStream(new File(modelFolder, "model.properties")))
+
+    val posTagger = new File(opennlpFolder, "pos-maxent.bin")
+    new OpenNLPTokenizer(
+      new TokenizerME(new TokenizerModel(new FileInputStream(new File(opennlpFolder, "token.bin")))),
+      SpotlightModel.loadStopwords(modelFolder),
+      new SnowballStemmer(properties.getProperty("stemmer")),
+      new SentenceDetectorME(new SentenceModel(new FileInputStream(new File(opennlpFolder, "sent.bin")))),
+      if (posTagger.exists()) new POSTaggerME(new POSModel(new FileInputStream(posTagger))) else null,
+      SpotlightModel.storesFromFolder(modelFolder)._1
+    )
+  }
+
+}
+
+/**
+ * The inputs of GenerativeContextSimilarity.score as they are created by DBTwoStepDisambiguator:
+ * the distinct tokens of each text and the top candidates of its spots.
+ */
+class ContextSimilarityWorkload(modelFolder: File, model: SpotlightModel, texts: Array[String]) {
+
+  private val (tokenTypeStore, sfStore, resStore, candMapStore, contextStore) = SpotlightModel.storesFromFolder(modelFolder)
+
+  val similarity = new GenerativeContextSimilarity(tokenTypeStore, contextStore)
+
+  private val searcher = new DBCandidateSearcher(resStore, sfStore, candMapStore)
+  private val paragraphs = Workloads.paragraphs(model, texts)
+
+  val queries: Array[Seq[TokenType]] = paragraphs.map { p: Paragraph =>
+    val tokens = TokenBuffer.of(p.text)
+    tokens.tokenTypes(0, tokens.size).toSeq.distinct.sortBy(_.id)
+  }
+
+  val candidates: Array[Set[DBpediaResource]] = paragraphs.map { p: Paragraph =>
+    p.occurrences.flatMap( occ => searcher.getTopCandidates(occ.surfaceForm, 10).map(_.resource) ).toSet
+  }
+
+  def size: Int = paragraphs.size
+
+  def score(i: Int) = similarity.score(queries(i), candidates(i))
+
+}
@@ -59,6 +59,8 @@ public class SpotlightConfiguration {
     public final static String DEFAULT_SPARQL = "";
     public final static String DEFAULT_POLICY = "whitelist";
     public final static String DEFAULT_COREFERENCE_RESOLUTION = "true";
+    // Time budget of a request in milliseconds, 0 uses the default of the server (see TimeBudget)
+    public final static String DEFAULT_BUDGET = "0";
     @Deprecated
     public static String DEFAULT_NAMESPACE = "http://dbpedia.org/resource/";
     @Deprecated
@@ -89,8 +89,11 @@ public class SpotterConfiguration {
         // Validate CoOccurrenceBasedSelector
         if (spotters.contains(SpotterPolicy.CoOccurrenceBasedSelector)) {
 
-            //Check if all required parameters are there, trim whitespace
-            String[] parameters = {"database.jdbcdriver", "database.connector", "database.user", "database.password",
+            //Check if all required parameters are there, trim whitespace. The database is not required
+            //if the occurrence data is read from an n-gram file.
+            String[] parameters = getCoOcSelectorNGramFile() != null ?
+                    new String[] {"ngrams", "classifier.unigram", "classifier.ngram", "datasource"} :
+                    new String[] {"database.jdbcdriver", "database.connector", "database.user", "database.password",
                     "classifier.unigram", "classifier.ngram", "datasource"};
 
             for(String parameter : parameters) {
@@ -104,7 +107,9 @@ public class SpotterConfiguration {
             }
 
             //Check if all the required files are there:
-            String[] parameterFiles = {"classifier.unigram", "classifier.ngram"};
+            String[] parameterFiles = getCoOcSelectorNGramFile() != null ?
+                    new String[] {"ngrams", "classifier.unigram", "classifier.ngram"} :
+                    new String[] {"classifier.unigram", "classifier.ngram"};
             for(String fileparameter : parameterFiles) {
                 String file = config.getProperty(PREFIX_COOCCURRENCE_SELECTOR + fileparameter);
                 if(!new File(file).isFile()) {
@@ -181,6 +186,17 @@ public class SpotterConfiguration {
         return config.getProperty(PREFIX_COOCCURRENCE_SELECTOR + "database.password");
     }
 
+    /**
+     * Path of the memory-mapped n-gram file with the occurrence data of the co-occurrence based spot
+     * selector, if it is not set, the occurrence data is read from the database.
+     *
+     * @return path of the n-gram file or null
+     */
+    public String getCoOcSelectorNGramFile() {
+        String file = config.getProperty(PREFIX_COOCCURRENCE_SELECTOR + "ngrams", "").trim();
+        return file.length() == 0 ? null : file;
+    }
+
     public String getCoOcSelectorClassifierNGram() {
         return config.getProperty(PREFIX_COOCCURRENCE_SELECTOR + "classifier.ngram");
     }
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.sparql;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.log4j.Logger;
+import org.dbpedia.spotlight.db.model.ResourceStore;
+import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException;
+import org.dbpedia.spotlight.exceptions.SparqlExecutionException;
+import org.dbpedia.spotlight.model.DBpediaResource;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of SPARQL queries used for filtering annotations, so that the SPARQL endpoint
+ * is not queried for every request.
+ *
+ * Queries are cached by their normalized form (see {@link #normalize(String)}). The number of cached
+ * queries is bounded, the least recently used queries are evicted first. After refreshSeconds, the
+ * next request for a query triggers a refresh in the background and is answered with the previous
+ * result, so requests only block on the endpoint when a query is requested for the first time (or after
+ * it has not been requested for expireSeconds). If a refresh fails, the previous result is kept.
+ *
+ * If a resource store is available, the results are stored as bit sets of the resource IDs.
+ */
+public class SparqlResultCache {
+
+    private final static Logger LOG = Logger.getLogger(SparqlResultCache.class);
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 100;
+    public static final long DEFAULT_REFRESH_SECONDS = 60 * 60;
+    public static final long DEFAULT_EXPIRE_SECONDS = 24 * 60 * 60;
+
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("sparql-refresh-%d").build());
+
+    private final SparqlQueryExecuter executer;
+    private final ResourceStore resourceStore;
+    private final LoadingCache<String, Result> cache;
+
+    /**
+     * @param executer executer for the SPARQL queries
+     * @param resourceStore resource store for the IDs of the resources, may be null
+     * @param maximumSize maximum number of cached queries
+     * @param refreshSeconds time after which the result of a query is refreshed
+     * @param expireSeconds time after which a query that was not requested is removed
+     */
+    public SparqlResultCache(SparqlQueryExecuter executer, ResourceStore resourceStore,
+                             int maximumSize, long refreshSeconds, long expireSeconds) {
+        this.executer = executer;
+        this.resourceStore = resourceStore;
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshSeconds, TimeUnit.SECONDS)
+                .expireAfterAccess(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(new CacheLoader<String, Result>() {
+                    @Override
+                    public Result load(String query) throws Exception {
+                        return execute(query);
+                    }
+                }, refreshExecutor));
+    }
+
+    public SparqlResultCache(SparqlQueryExecuter executer, ResourceStore resourceStore) {
+        this(executer, resourceStore, DEFAULT_MAXIMUM_SIZE, DEFAULT_REFRESH_SECONDS, DEFAULT_EXPIRE_SECONDS);
+    }
+
+    public SparqlResultCache(SparqlQueryExecuter executer) {
+        this(executer, null);
+    }
+
+    public SparqlQueryExecuter getExecuter() {
+        return executer;
+    }
+
+    /**
+     * Returns the result of the query, the query is only executed if its result is not in the cache.
+     *
+     * @param query SPARQL query
+     * @return the resources in the result of the query
+     * @throws SparqlExecutionException the query could not be executed
+     */
+    public Result get(String query) throws SparqlExecutionException {
+        try {
+            return cache.get(normalize(query));
+        } catch (ExecutionException e) {
+            throw executionException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw executionException(e.getCause());
+        }
+    }
+
+    private static SparqlExecutionException executionException(Throwable cause) {
+        if (cause instanceof SparqlExecutionException)
+            return (SparqlExecutionException) cause;
+        return new SparqlExecutionException("Could not execute SPARQL query.",
+                cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all results from the cache, e.g. after resources were added to the resource store. The
+     * queries are executed again when they are requested next.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long hits() {
+        return cache.stats().hitCount();
+    }
+
+    public long misses() {
+        return cache.stats().missCount();
+    }
+
+    private Result execute(String query) throws Exception {
+        long start = System.currentTimeMillis();
+
+        BitSet ids = new BitSet();
+        Set<String> uris = new HashSet<String>();
+        for (DBpediaResource resource : executer.query(query)) {
+            int id = resourceStore != null ? resourceID(resource.uri()) : 0;
+            if (id > 0)
+                ids.set(id);
+            else
+                uris.add(resource.uri());
+        }
+
+        LOG.info(String.format("Cached result of SPARQL query (%d resources in the model, %d other resources, %d ms).",
+                ids.cardinality(), uris.size(), System.currentTimeMillis() - start));
+        return new Result(ids, uris);
+    }
+
+    private int resourceID(String uri) {
+        try {
+            return resourceStore.getResourceByName(uri).id();
+        } catch (DBpediaResourceNotFoundException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Normalizes the whitespace of a query outside of string literals: leading and trailing whitespace
+     * is removed, other sequences of whitespace are replaced by a single space (or a single line break
+     * if they contain a line break, which ends comments). Quotes in comments and a '#' in IRIs do not
+     * start a string literal or a comment.
+     *
+     * @param query SPARQL query
+     * @return normalized query
+     */
+    public static String normalize(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        char quote = 0;
+        boolean comment = false;
+        int i = 0;
+        String trimmed = query.trim();
+
+        while (i < trimmed.length()) {
+            char c = trimmed.charAt(i);
+
+            if (quote == 0 && Character.isWhitespace(c)) {
+                boolean lineBreak = false;
+                while (i < trimmed.length() && Character.isWhitespace(trimmed.charAt(i))) {
+                    lineBreak |= trimmed.charAt(i) == '\n';
+                    i++;
+                }
+                sb.append(lineBreak ? '\n' : ' ');
+                comment &= !lineBreak;
+                continue;
+            }
+
+            if (quote != 0 && c == '\\' && i + 1 < trimmed.length()) {
+                //Escaped character in a string literal:
+                sb.append(c).append(trimmed.charAt(i + 1));
+                i += 2;
+                continue;
+            }
+
+            if (quote == 0 && !comment && c == '<') {
+                //IRIs are copied as they are:
+                int end = iriEnd(trimmed, i);
+                if (end > 0) {
+                    sb.append(trimmed, i, end);
+                    i = end;
+                    continue;
+                }
+            }
+
+            if (quote == 0 && !comment && c == '#')
+                comment = true;
+            else if (quote == 0 && !comment && (c == '"' || c == '\''))
+                quote = c;
+            else if (quote != 0 && c == quote)
+                quote = 0;
+
+            sb.append(c);
+            i++;
+        }
+
+        return sb.toString();
+    }
+
+    /* The end of the IRI starting with '<' at start or -1 if it is not an IRI (e.g. the operator in ?x < 5). */
+    private static int iriEnd(String query, int start) {
+        for (int i = start + 1; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '>')
+                return i + 1;
+            if (c <= ' ' || "<\"{}|^`\\".indexOf(c) >= 0)
+                return -1;
+        }
+        return -1;
+    }
+
+
+    /**
+     * The resources in the result of a SPARQL query.
+     */
+    public class Result {
+
+        private final BitSet ids;
+        private final Set<String> uris;
+
+        private Result(BitSet ids, Set<String> uris) {
+            this.ids = ids;
+            this.uris = uris;
+        }
+
+        public int size() {
+            return ids.cardinality() + uris.size();
+        }
+
+        public boolean contains(DBpediaResource resource) {
+            int id = resource.id();
+            if (id <= 0 && resourceStore != null)
+                id = resourceID(resource.uri());
+
+            return id > 0 ? ids.get(id) : uris.contains(resource.uri());
+        }
+
+    }
+
+}
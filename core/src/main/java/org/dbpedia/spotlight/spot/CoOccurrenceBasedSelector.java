@@ -21,11 +21,15 @@ package org.dbpedia.spotlight.spot;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbpedia.spotlight.exceptions.InitializationException;
+import org.dbpedia.spotlight.exceptions.ItemNotFoundException;
 import org.dbpedia.spotlight.model.*;
 import org.dbpedia.spotlight.spot.cooccurrence.ClassifierFactory;
 import org.dbpedia.spotlight.spot.cooccurrence.classification.SpotClass;
 import org.dbpedia.spotlight.spot.cooccurrence.classification.SpotClassification;
 import org.dbpedia.spotlight.spot.cooccurrence.classification.SpotClassifier;
+import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataCache;
+import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProvider;
+import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProviderMapped;
 import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProviderSQL;
 import org.dbpedia.spotlight.spot.cooccurrence.filter.FilterPOS;
 import org.dbpedia.spotlight.spot.cooccurrence.filter.FilterPattern;
@@ -33,6 +37,8 @@ import org.dbpedia.spotlight.spot.cooccurrence.filter.FilterTermsize;
 import org.dbpedia.spotlight.tagging.TaggedToken;
 import org.dbpedia.spotlight.tagging.TaggedTokenProvider;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -46,6 +52,8 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 
 	private final Log LOG = LogFactory.getLog(this.getClass());
 
+	private OccurrenceDataProvider dataProvider;
+
 
 	/**
 	 * Creates a spot selector based on n-gram co-occurrence. A SpotterConfiguration object must be
@@ -63,14 +71,20 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 	public CoOccurrenceBasedSelector(SpotterConfiguration spotterConfiguration) throws InitializationException {
 		
 		LOG.info("Initializing spot occurrence data provider.");
-		OccurrenceDataProviderSQL.initialize(spotterConfiguration);
+		if (spotterConfiguration.getCoOcSelectorNGramFile() != null) {
+			OccurrenceDataProviderMapped.initialize(spotterConfiguration);
+			dataProvider = OccurrenceDataProviderMapped.getInstance();
+		} else {
+			OccurrenceDataProviderSQL.initialize(spotterConfiguration);
+			dataProvider = OccurrenceDataProviderSQL.getInstance();
+		}
 		LOG.info("Done.");
 
 		LOG.info("Initializing spot candidate classifiers.");
 		new ClassifierFactory(spotterConfiguration.getCoOcSelectorClassifierUnigram(),
 				spotterConfiguration.getCoOcSelectorClassifierNGram(),
 				spotterConfiguration.getCoOcSelectorDatasource(),
-				OccurrenceDataProviderSQL.getInstance()
+				dataProvider
 			);
         LOG.info("Done.");
     }
@@ -147,6 +161,8 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 		//unigramClassifier.setVerboseMode(true);
 		List<String> decisions = new LinkedList<String>();
 
+		OccurrenceDataProvider documentData = OccurrenceDataCache.forDocument(dataProvider, tokenSequences(surfaceFormOccurrences));
+
 		for(SurfaceFormOccurrence surfaceFormOccurrence : surfaceFormOccurrences) {
 
             if (surfaceFormOccurrence.surfaceForm().name().trim().length()==0) {
@@ -197,7 +213,7 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 
                     SpotClassification spotClassification;
                     try {
-                        spotClassification = unigramClassifier.classify(surfaceFormOccurrence);
+                        spotClassification = unigramClassifier.classify(surfaceFormOccurrence, documentData);
 
                         if(spotClassification.getCandidateClass() == SpotClass.valid) {
                             selectedOccurrences.add(surfaceFormOccurrence);
@@ -221,7 +237,7 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 
 				SpotClassification spotClassification;
 				try{
-					spotClassification = ngramClassifier.classify(surfaceFormOccurrence);
+					spotClassification = ngramClassifier.classify(surfaceFormOccurrence, documentData);
 				}catch (Exception e) {
                     LOG.error("Exception when classifying ngram candidate: " + e);
                     continue;
@@ -246,4 +262,40 @@ public class CoOccurrenceBasedSelector implements TaggedSpotSelector {
 		return selectedOccurrences;
 	}
 
+
+	/**
+	 * Returns the tokens of each candidate with two tokens of context on both sides, these are the
+	 * tokens for which the instance builders request occurrence data.
+	 *
+	 * @param surfaceFormOccurrences spotted surface form occurrences
+	 * @return token sequences of the candidates in text order
+	 */
+	private List<List<String>> tokenSequences(List<SurfaceFormOccurrence> surfaceFormOccurrences) {
+
+		List<List<String>> sequences = new ArrayList<List<String>>();
+		for(SurfaceFormOccurrence surfaceFormOccurrence : surfaceFormOccurrences) {
+			if (!(surfaceFormOccurrence.context() instanceof TaggedText))
+				continue;
+
+			TaggedTokenProvider tokenProvider = ((TaggedText) surfaceFormOccurrence.context()).taggedTokenProvider();
+			List<TaggedToken> taggedTokens = new ArrayList<TaggedToken>();
+			try {
+				//The left context starts with the token next to the candidate:
+				taggedTokens.addAll(tokenProvider.getLeftContext(surfaceFormOccurrence, 2));
+				Collections.reverse(taggedTokens);
+				taggedTokens.addAll(tokenProvider.getTaggedTokens(surfaceFormOccurrence));
+				taggedTokens.addAll(tokenProvider.getRightContext(surfaceFormOccurrence, 2));
+			} catch (ItemNotFoundException ignored) {
+				//Missing data is retrieved when the instances are built
+			}
+
+			List<String> sequence = new ArrayList<String>(taggedTokens.size());
+			for (TaggedToken taggedToken : taggedTokens)
+				sequence.add(taggedToken.getToken());
+			sequences.add(sequence);
+		}
+
+		return sequences;
+	}
+
 }
@@ -85,7 +85,19 @@ public class SpotClassifier {
 	 * @return a Classification object containing the proposed classification and a confidence value
 	 */
 	public SpotClassification classify(SurfaceFormOccurrence surfaceFormOccurrence) throws Exception {
-		Instance instance = buildInstance(surfaceFormOccurrence);
+		return classify(surfaceFormOccurrence, dataProvider);
+	}
+
+
+	/**
+	 * Classify a surface form candidate with the occurrence data from the specified provider.
+	 *
+	 * @param surfaceFormOccurrence the surface form occurrence
+	 * @param dataProvider provider for occurrence data, e.g. the occurrence data of the document
+	 * @return a Classification object containing the proposed classification and a confidence value
+	 */
+	public SpotClassification classify(SurfaceFormOccurrence surfaceFormOccurrence, OccurrenceDataProvider dataProvider) throws Exception {
+		Instance instance = buildInstance(surfaceFormOccurrence, dataProvider);
 
         double candidateClassification = classifier.classifyInstance(instance);
 
@@ -103,12 +115,13 @@ public class SpotClassifier {
 	 * the serialized classifier.
 	 *
 	 * @param surfaceFormOccurrence surface form occurrence
+	 * @param dataProvider provider for occurrence data
 	 * @return WEKA instance
 	 */
-	protected Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence) {
+	protected Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, OccurrenceDataProvider dataProvider) {
 		Instance instance = new DenseInstance(header.numAttributes());
 		instance.setDataset(header);
-		return instanceBuilder.buildInstance(surfaceFormOccurrence, instance);
+		return instanceBuilder.buildInstance(surfaceFormOccurrence, instance, dataProvider);
 	}
 
 	
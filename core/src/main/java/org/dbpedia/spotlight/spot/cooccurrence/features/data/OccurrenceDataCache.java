@@ -0,0 +1,151 @@
+package org.dbpedia.spotlight.spot.cooccurrence.features.data;
+
+import org.dbpedia.spotlight.exceptions.ItemNotFoundException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occurrence data for a single document. The data is either looked up at once for all n-grams of the
+ * document (see {@link OccurrenceDataProviderMapped#lookup(java.util.List)}) or retrieved from the
+ * underlying provider on the first request. Every word, bigram and trigram is retrieved only once,
+ * including the n-grams for which there is no data.
+ *
+ * A cache is not thread-safe, it should be created for each document.
+ */
+
+public class OccurrenceDataCache implements OccurrenceDataProvider {
+
+	private final OccurrenceDataProvider dataProvider;
+
+	/**
+	 * Cached data, null values represent n-grams without data.
+	 */
+	private final Map<String, CandidateData> words = new HashMap<String, CandidateData>();
+	private final Map<NGram, CoOccurrenceData> bigrams = new HashMap<NGram, CoOccurrenceData>();
+	private final Map<NGram, CoOccurrenceData> trigrams = new HashMap<NGram, CoOccurrenceData>();
+
+	public OccurrenceDataCache(OccurrenceDataProvider dataProvider) {
+		this.dataProvider = dataProvider;
+	}
+
+	/**
+	 * Create the occurrence data for a document, the sequences are the token sequences around
+	 * the candidates in the document.
+	 *
+	 * @param dataProvider the provider of the occurrence data
+	 * @param sequences token sequences
+	 * @return occurrence data for the document
+	 */
+	public static OccurrenceDataProvider forDocument(OccurrenceDataProvider dataProvider, List<List<String>> sequences) {
+		if (dataProvider instanceof OccurrenceDataProviderMapped)
+			return ((OccurrenceDataProviderMapped) dataProvider).lookup(sequences);
+		else
+			return new OccurrenceDataCache(dataProvider);
+	}
+
+	void putCandidateData(String candidate, CandidateData data) {
+		words.put(candidate, data);
+	}
+
+	void putBigramData(long word1, long word2, CoOccurrenceData data) {
+		bigrams.put(new NGram(word1, word2, -1), data);
+	}
+
+	void putTrigramData(long word1, long word2, long word3, CoOccurrenceData data) {
+		trigrams.put(new NGram(word1, word2, word3), data);
+	}
+
+	@Override
+	public CandidateData getCandidateData(String candidate) throws ItemNotFoundException {
+
+		if (!words.containsKey(candidate)) {
+			CandidateData data = null;
+			try {
+				data = dataProvider.getCandidateData(candidate);
+			} catch (ItemNotFoundException ignored) {}
+			words.put(candidate, data);
+		}
+
+		CandidateData data = words.get(candidate);
+		if (data == null)
+			throw new ItemNotFoundException("Could not find information about candidate \"" + candidate + "\".");
+		return data;
+	}
+
+	@Override
+	public CoOccurrenceData getBigramData(CandidateData word1, CandidateData word2) throws ItemNotFoundException {
+
+		NGram bigram = new NGram(word1.getId(), word2.getId(), -1);
+		if (!bigrams.containsKey(bigram)) {
+			CoOccurrenceData data = null;
+			try {
+				data = dataProvider.getBigramData(word1, word2);
+			} catch (ItemNotFoundException ignored) {}
+			bigrams.put(bigram, data);
+		}
+
+		CoOccurrenceData data = bigrams.get(bigram);
+		if (data == null)
+			throw new ItemNotFoundException("Could not find bigram.");
+		return data;
+	}
+
+	@Override
+	public CoOccurrenceData getTrigramData(CandidateData word1, CandidateData word2, CandidateData word3) throws ItemNotFoundException {
+
+		NGram trigram = new NGram(word1.getId(), word2.getId(), word3.getId());
+		if (!trigrams.containsKey(trigram)) {
+			CoOccurrenceData data = null;
+			try {
+				data = dataProvider.getTrigramData(word1, word2, word3);
+			} catch (ItemNotFoundException ignored) {}
+			trigrams.put(trigram, data);
+		}
+
+		CoOccurrenceData data = trigrams.get(trigram);
+		if (data == null)
+			throw new ItemNotFoundException("Could not find trigram.");
+		return data;
+	}
+
+	@Override
+	public List<CoOccurrenceData> getSentenceData(CandidateData candidate, List<String> tokens) {
+		return dataProvider.getSentenceData(candidate, tokens);
+	}
+
+
+	/**
+	 * Word IDs of a bigram or trigram.
+	 */
+	private static final class NGram {
+
+		private final long word1;
+		private final long word2;
+		private final long word3;
+
+		private NGram(long word1, long word2, long word3) {
+			this.word1 = word1;
+			this.word2 = word2;
+			this.word3 = word3;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof NGram))
+				return false;
+
+			NGram other = (NGram) o;
+			return word1 == other.word1 && word2 == other.word2 && word3 == other.word3;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = word1 * 31 * 31 + word2 * 31 + word3;
+			return (int) (h ^ (h >>> 32));
+		}
+
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.dbpedia.spotlight.spot.cooccurrence.features.data;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbpedia.spotlight.db.mapped.MappedNGramStore;
+import org.dbpedia.spotlight.db.mapped.MappedStore;
+import org.dbpedia.spotlight.exceptions.InitializationException;
+import org.dbpedia.spotlight.exceptions.ItemNotFoundException;
+import org.dbpedia.spotlight.model.SpotterConfiguration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides Co-occurrence data for unigrams, bigrams and trigrams from an embedded, read-only
+ * memory-mapped n-gram file, which can be created from the tables of the SQL database with
+ * OccurrenceDataConverter (index module). In contrast to {@link OccurrenceDataProviderSQL}, no
+ * external database is required and lookups do not leave the JVM.
+ *
+ * @see MappedNGramStore
+ */
+
+public class OccurrenceDataProviderMapped implements OccurrenceDataProvider {
+
+	private final Log LOG = LogFactory.getLog(this.getClass());
+
+	private static OccurrenceDataProviderMapped INSTANCE;
+
+	private final MappedNGramStore store;
+
+	public OccurrenceDataProviderMapped(File ngramFile) throws InitializationException {
+		try {
+			this.store = MappedStore.loadNGramStore(ngramFile);
+		} catch (Exception e) {
+			throw new InitializationException("Could not open n-gram file " + ngramFile + ".", e);
+		}
+		LOG.info(String.format("Opened n-gram file with %d words, %d bigrams and %d trigrams.",
+				store.size(), store.bigramKeys().length(), store.trigramKeys().length()));
+	}
+
+	public OccurrenceDataProviderMapped(MappedNGramStore store) {
+		this.store = store;
+	}
+
+	public static OccurrenceDataProviderMapped getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Initialize the occurrence data provider with the n-gram file in the configuration.
+	 *
+	 * @see OccurrenceDataProviderSQL#initialize(SpotterConfiguration)
+	 *
+	 * @param spotterConfiguration SpotterConfiguration with the path of the n-gram file.
+	 * @throws InitializationException the n-gram file could not be opened
+	 */
+	public static void initialize(SpotterConfiguration spotterConfiguration) throws InitializationException {
+
+		INSTANCE = new OccurrenceDataProviderMapped(new File(spotterConfiguration.getCoOcSelectorNGramFile()));
+
+	}
+
+	private CandidateData candidateData(int id, String candidate) {
+		return new CandidateData(id, candidate, store.getCountCorpus(id), store.getCountWeb(id));
+	}
+
+	private CoOccurrenceData bigramData(long i) {
+		return new CoOccurrenceData(0, 0, 0, store.getBigramSignificance(i));
+	}
+
+	private CoOccurrenceData trigramData(long i) {
+		return new CoOccurrenceData(0, store.getTrigramCount(i), 0, 0);
+	}
+
+	@Override
+	public CandidateData getCandidateData(String candidate) throws ItemNotFoundException {
+		int id = store.wordID(candidate);
+		if (id < 0)
+			throw new ItemNotFoundException("Could not find information about candidate \"" + candidate + "\".");
+
+		return candidateData(id, candidate);
+	}
+
+	@Override
+	public CoOccurrenceData getBigramData(CandidateData word1, CandidateData word2) throws ItemNotFoundException {
+		long i = store.bigram((int) word1.getId(), (int) word2.getId());
+		if (i < 0)
+			throw new ItemNotFoundException("Could not find bigram.");
+
+		return bigramData(i);
+	}
+
+	@Override
+	public CoOccurrenceData getTrigramData(CandidateData word1, CandidateData word2, CandidateData word3) throws ItemNotFoundException {
+		long i = store.trigram((int) word1.getId(), (int) word2.getId(), (int) word3.getId());
+		if (i < 0)
+			throw new ItemNotFoundException("Could not find trigram.");
+
+		return trigramData(i);
+	}
+
+	@Override
+	public List<CoOccurrenceData> getSentenceData(CandidateData candidate, List<String> tokens) {
+		return null; //Not available in the SQL database either
+	}
+
+
+	/**
+	 * Look up all words, bigrams and trigrams of the token sequences at once. The bigrams and trigrams
+	 * are searched in sorted order, so that each search only covers the part of the table after
+	 * the previous n-gram.
+	 *
+	 * @param sequences token sequences, e.g. the tokens around each candidate in a document
+	 * @return occurrence data for the n-grams of the sequences, other n-grams are retrieved from this provider
+	 */
+	public OccurrenceDataCache lookup(List<List<String>> sequences) {
+
+		OccurrenceDataCache cache = new OccurrenceDataCache(this);
+
+		Map<String, Integer> ids = new LinkedHashMap<String, Integer>();
+		for (List<String> sequence : sequences) {
+			for (String token : sequence) {
+				if (!ids.containsKey(token)) {
+					int id = store.wordID(token);
+					ids.put(token, id);
+					cache.putCandidateData(token, id < 0 ? null : candidateData(id, token));
+				}
+			}
+		}
+
+		List<int[]> bigrams = new ArrayList<int[]>();
+		List<int[]> trigrams = new ArrayList<int[]>();
+		for (List<String> sequence : sequences) {
+			int[] s = new int[sequence.size()];
+			for (int i = 0; i < s.length; i++)
+				s[i] = ids.get(sequence.get(i));
+
+			for (int i = 0; i + 1 < s.length; i++) {
+				if (s[i] >= 0 && s[i+1] >= 0)
+					bigrams.add(new int[] {s[i], s[i+1]});
+				if (i + 2 < s.length && s[i] >= 0 && s[i+1] >= 0 && s[i+2] >= 0)
+					trigrams.add(new int[] {s[i], s[i+1], s[i+2]});
+			}
+		}
+
+		int[] w1 = new int[bigrams.size()];
+		int[] w2 = new int[bigrams.size()];
+		for (int i = 0; i < w1.length; i++) {
+			w1[i] = bigrams.get(i)[0];
+			w2[i] = bigrams.get(i)[1];
+		}
+		long[] bigramIndices = store.bigrams(w1, w2);
+		for (int i = 0; i < w1.length; i++)
+			cache.putBigramData(w1[i], w2[i], bigramIndices[i] < 0 ? null : bigramData(bigramIndices[i]));
+
+		w1 = new int[trigrams.size()];
+		w2 = new int[trigrams.size()];
+		int[] w3 = new int[trigrams.size()];
+		for (int i = 0; i < w1.length; i++) {
+			w1[i] = trigrams.get(i)[0];
+			w2[i] = trigrams.get(i)[1];
+			w3[i] = trigrams.get(i)[2];
+		}
+		long[] trigramIndices = store.trigrams(w1, w2, w3);
+		for (int i = 0; i < w1.length; i++)
+			cache.putTrigramData(w1[i], w2[i], w3[i], trigramIndices[i] < 0 ? null : trigramData(trigramIndices[i]));
+
+		return cache;
+	}
+
+}
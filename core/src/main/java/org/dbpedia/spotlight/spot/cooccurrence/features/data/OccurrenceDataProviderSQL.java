@@ -51,6 +51,10 @@ public class OccurrenceDataProviderSQL implements OccurrenceDataProvider {
 		this.sqlConnection = sqlConnection;
 	}
 
+	public Connection getConnection() {
+		return sqlConnection;
+	}
+
 	public static OccurrenceDataProviderSQL getInstance() {
 		return INSTANCE;
 	}
@@ -80,7 +80,24 @@ public abstract class InstanceBuilder {
 	 * 			{@link weka.core.DenseInstance} depending on the classifier.
 	 * @return the filled WEKA instance
 	 */
-	public abstract Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance);
+	public Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance) {
+		return buildInstance(surfaceFormOccurrence, instance, dataProvider);
+	}
+
+
+	/**
+	 * Build/fill a WEKA Instance for a surface form occurrence with the occurrence data from
+	 * the specified provider, e.g. the occurrence data of the document.
+	 *
+	 * @see org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataCache
+	 *
+	 * @param surfaceFormOccurrence the surface form occurrence for which the Instance is built
+	 * @param instance the empty WEKA Instance
+	 * @param dataProvider provider for occurrence data
+	 * @return the filled WEKA instance
+	 */
+	public abstract Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance,
+										   OccurrenceDataProvider dataProvider);
 
 
 	/**
@@ -85,7 +85,8 @@ public abstract class InstanceBuilderNGram extends InstanceBuilder {
 
 	@Override
 	/** {@inheritDoc} */
-	public Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance) {
+	public Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance,
+								  OccurrenceDataProvider dataProvider) {
 
 		TaggedText text = (TaggedText) surfaceFormOccurrence.context();
 		List<TaggedToken> candidateTokens = text.taggedTokenProvider().getTaggedTokens(surfaceFormOccurrence);
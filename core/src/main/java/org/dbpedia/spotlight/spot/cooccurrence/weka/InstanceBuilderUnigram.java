@@ -127,7 +127,8 @@ public abstract class InstanceBuilderUnigram extends InstanceBuilder {
 
 	@Override
 	/** {@inheritDoc} */
-	public Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance) {
+	public Instance buildInstance(SurfaceFormOccurrence surfaceFormOccurrence, Instance instance,
+								  OccurrenceDataProvider dataProvider) {
 
 		List<Attribute> attributeList = buildAttributeList();
 
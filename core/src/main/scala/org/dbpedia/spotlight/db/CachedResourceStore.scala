@@ -0,0 +1,112 @@
+package org.dbpedia.spotlight.db
+
+import model.ResourceStore
+import org.dbpedia.spotlight.model.DBpediaResource
+import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException
+import org.dbpedia.spotlight.log.SpotlightLog
+import com.google.common.cache.{Cache, CacheBuilder}
+import java.io.{PrintWriter, File}
+import java.util.concurrent.atomic.AtomicInteger
+import scala.collection.JavaConversions._
+import scala.io.Source
+
+/**
+ * A [[org.dbpedia.spotlight.db.model.ResourceStore]] that caches the materialized DBpedia resources
+ * of another resource store by their ID. The cache is bounded (least recently used resources are evicted
+ * first) and split into concurrencyLevel segments, so that concurrent lookups do not block each other.
+ *
+ * The cached DBpediaResource objects are shared between all callers and must not be modified.
+ *
+ * @param store the resource store that creates the DBpedia resources
+ * @param maximumSize maximum number of cached resources
+ * @param concurrencyLevel number of independently locked segments of the cache
+ */
+
+class CachedResourceStore(val store: ResourceStore, maximumSize: Int, concurrencyLevel: Int = 16) extends ResourceStore {
+
+  /* A cached resource and the number of lookups of it while it was cached. */
+  private class CachedResource(val resource: DBpediaResource) {
+    val accesses = new AtomicInteger()
+  }
+
+  private val cache: Cache[java.lang.Integer, CachedResource] = CacheBuilder.newBuilder()
+    .maximumSize(maximumSize)
+    .concurrencyLevel(concurrencyLevel)
+    .recordStats()
+    .build[java.lang.Integer, CachedResource]()
+
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def getResource(id: Int): DBpediaResource = {
+    val cached = cache.getIfPresent(id)
+    if (cached != null) {
+      cached.accesses.incrementAndGet()
+      cached.resource
+    } else {
+      val res = new CachedResource(store.getResource(id))
+      res.accesses.incrementAndGet()
+      cache.put(id, res)
+      res.resource
+    }
+  }
+
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def getResourceByName(name: String): DBpediaResource = store.getResourceByName(name)
+
+  def size: Long = cache.size()
+
+  /**
+   * Removes all resources from the cache (e.g. after the resources in the store have changed).
+   */
+  def invalidateAll() {
+    cache.invalidateAll()
+  }
+
+  def hits: Long = cache.stats().hitCount()
+  def misses: Long = cache.stats().missCount()
+  def hitRate: Double = cache.stats().hitRate()
+
+  /**
+   * Loads the resources with the specified IDs into the cache.
+   *
+   * @param ids IDs of the resources, most frequent first
+   */
+  def warmUp(ids: Iterator[Int]) {
+    ids.take(maximumSize).foreach { id: Int =>
+      try {
+        cache.put(id, new CachedResource(store.getResource(id)))
+      } catch {
+        case e: DBpediaResourceNotFoundException =>
+      }
+    }
+  }
+
+  /**
+   * Loads the resources with the IDs in the file (one ID per line, as written by writeIDs) into the cache.
+   */
+  def warmUp(file: File) {
+    SpotlightLog.info(this.getClass, "Warming up resource cache from %s...", file)
+    val source = Source.fromFile(file)
+    try {
+      warmUp(source.getLines().map(_.trim).filter(_.nonEmpty).map(_.toInt))
+    } finally {
+      source.close()
+    }
+    SpotlightLog.info(this.getClass, "Done, %d resources in the cache.", size)
+  }
+
+  /**
+   * Writes the IDs of the currently cached resources to a file, most frequently looked up first,
+   * so that the cache can be warmed up with them after a restart (see warmUp).
+   */
+  def writeIDs(file: File) {
+    val out = new PrintWriter(file)
+    try {
+      cache.asMap().toList.sortBy( e => -e._2.accesses.get ).foreach( e => out.println(e._1) )
+    } finally {
+      out.close()
+    }
+  }
+
+  override def toString = "CachedResourceStore[size=%d, hits=%d, misses=%d]".format(size, hits, misses)
+
+}
@@ -1,6 +1,6 @@
 package org.dbpedia.spotlight.db
 
-import model.{ResourceStore, SurfaceFormStore, CandidateMapStore}
+import model.{CandidateList, ResourceStore, SurfaceFormStore, CandidateMapStore}
 import org.dbpedia.spotlight.model._
 import org.dbpedia.spotlight.exceptions.SurfaceFormNotFoundException
 
@@ -25,24 +25,78 @@ class DBCandidateSearcher(val resStore: ResourceStore, val sfStore: SurfaceFormS
    * @return
    */
   def getCandidates(sf: SurfaceForm): Set[Candidate] = {
+    getCandidateLists(sf).foldLeft(Set[Candidate]())( (cands, l) => cands ++ l.toCandidates(resStore) )
+  }
+
+
+  /**
+   * Retrieves the k DBpedia Resources with the highest prior that can be confused with surface form sf.
+   * Only the Candidate objects for these resources are created.
+   *
+   * @param sf the surface form
+   * @param k maximum number of candidates
+   * @return
+   */
+  def getTopCandidates(sf: SurfaceForm, k: Int): Set[Candidate] = {
+    getCandidateLists(sf) match {
+      case Nil => Set[Candidate]()
+      case l :: Nil => l.take(k).toCandidates(resStore)
+      case ls => byPrior(ls).take(k).map{ case (l, i) => l.candidate(i, resStore) }.toSet
+    }
+  }
+
+
+  /**
+   * Retrieves the k DBpedia Resources with the highest prior among the resources that can be confused
+   * with surface form sf and are accepted by the filter (e.g. a type filter). The candidates are created
+   * in the order of their prior until k of them are accepted.
+   *
+   * @param sf the surface form
+   * @param k maximum number of candidates
+   * @param accepts the filter for the resources
+   * @return
+   */
+  def getTopCandidates(sf: SurfaceForm, k: Int, accepts: DBpediaResource => Boolean): Set[Candidate] = {
+    val candidates = getCandidateLists(sf) match {
+      case Nil => Iterator[Candidate]()
+      case l :: Nil => (0 until l.size).iterator.map( i => l.candidate(i, resStore) )
+      case ls => byPrior(ls).iterator.map{ case (l, i) => l.candidate(i, resStore) }
+    }
+
+    candidates.filter( c => accepts(c.resource) ).take(k).toSet
+  }
+
 
-    var cands = Set[Candidate]()
+  /* The candidates of several normalized surface forms, ordered by their prior over all of them. */
+  private def byPrior(ls: List[CandidateList]): List[(CandidateList, Int)] =
+    ls.flatMap( l => (0 until l.size).map(i => (l, i)) ).sortBy{ case (l, i) => -l.prior(i) }
 
-    if(sf.id > 0)
-      cands ++= candidateMap.getCandidates(sf)
+
+  /**
+   * Retrieves the primitive candidate lists for surface form sf. If the surface
+   * form is not known or has no candidates, the candidates of the top normalized surface
+   * forms are returned.
+   *
+   * @param sf the surface form
+   * @return
+   */
+  def getCandidateLists(sf: SurfaceForm): List[CandidateList] = {
+
+    val l = if(sf.id > 0)
+      candidateMap.getCandidateList(sf)
     else
       try {
-        cands ++= candidateMap.getCandidates(sfStore.getSurfaceForm(sf.name))
+        candidateMap.getCandidateList(sfStore.getSurfaceForm(sf.name))
       } catch {
-        case e: SurfaceFormNotFoundException =>
+        case e: SurfaceFormNotFoundException => CandidateList.empty(sf)
       }
 
-    if (cands.size == 0)
-      sfStore.getRankedSurfaceFormCandidates(sf.name).take(ADD_TOP_NORMALIZED_SFS).foreach(p =>
-        cands ++= candidateMap.getCandidates(p._1)
-      )
-
-    cands
+    if (l.isEmpty)
+      sfStore.getRankedSurfaceFormCandidates(sf.name).take(ADD_TOP_NORMALIZED_SFS).map( p =>
+        candidateMap.getCandidateList(p._1)
+      ).filter(!_.isEmpty).toList
+    else
+      List(l)
   }
 
 
@@ -54,7 +108,7 @@ class DBCandidateSearcher(val resStore: ResourceStore, val sfStore: SurfaceFormS
    */
   def getAmbiguity(sf: SurfaceForm): Int = {
     try {
-      candidateMap.getCandidates(sfStore.getSurfaceForm(sf.name)).size
+      candidateMap.getCandidateList(sfStore.getSurfaceForm(sf.name)).size
     } catch {
       case _: Throwable => 0
     }
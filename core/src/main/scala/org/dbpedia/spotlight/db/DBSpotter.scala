@@ -4,7 +4,6 @@ import model.{TextTokenizer, SurfaceFormStore}
 import org.dbpedia.spotlight.spot.Spotter
 import breeze.linalg.DenseVector
 import org.dbpedia.spotlight.model._
-import util.control.Breaks._
 import scala.{None, Some}
 import org.dbpedia.spotlight.exceptions.SurfaceFormNotFoundException
 import collection.mutable.ListBuffer
@@ -13,6 +12,7 @@ import opennlp.tools.namefind.RegexNameFinder
 import java.util.regex.Pattern
 import org.apache.commons.lang.StringUtils
 import org.dbpedia.spotlight.log.SpotlightLog
+import org.dbpedia.spotlight.db.concurrent.IntraDocumentPool
 
 abstract class DBSpotter(
  surfaceFormStore: SurfaceFormStore,
@@ -35,7 +35,22 @@ abstract class DBSpotter(
     case None => None
   }
 
-  def generateCandidates(sentence: List[Token]): Seq[Span]
+  private val spotFeatureWeightArray: Array[Double] = spotFeatureWeights.map(_.toArray).orNull
+
+  /* Index of the surface forms (see SurfaceFormIndex), spans are looked up in the store if it is null. */
+  var surfaceFormIndex: SurfaceFormIndex = null
+
+  /* Pool for spotting the sentences of long texts in parallel, the sentences are spotted sequentially if it is null. */
+  var intraDocumentPool: IntraDocumentPool = null
+
+  /**
+   * Returns the spans of the candidate token sequences in a sentence, relative to the start of the sentence.
+   *
+   * @param tokens the tokens of the text
+   * @param sentence the index of the sentence in tokens
+   * @return
+   */
+  def generateCandidates(tokens: TokenBuffer, sentence: Int): Seq[Span]
 
   val MIN_CONFIDENCE = 0.1
 
@@ -44,62 +59,62 @@ abstract class DBSpotter(
     if (tokenizer != null)
       tokenizer.tokenizeMaybe(text)
 
-    var spots = ListBuffer[SurfaceFormOccurrence]()
-    val sentences: List[List[Token]] = DBSpotter.tokensToSentences(text.featureValue[List[Token]]("tokens").get)
-
-    //Go through all sentences
-    sentences.foreach{ sentence: List[Token] =>
-      val spans = generateCandidates(sentence)
+    val tokens = TokenBuffer.of(text)
+    val confidence = math.max(MIN_CONFIDENCE, text.featureValue[Double]("confidence").getOrElse(0.5))
+    val budget = TimeBudget.of(text)
 
-      val tokenTypes = sentence.map(_.tokenType).toArray
-
-      spans.sorted
-        .foreach(chunkSpan => {
-        breakable {
-
-          val firstToken = chunkSpan.getStart
-          val lastToken = chunkSpan.getEnd-1
-
-          val tokenSeqs = ListBuffer[(Int, Int)]()
-
-          //Taking away a left member in each step, look for the longest sub-chunk in the SF dictionary
-          (firstToken to lastToken).foreach{ startToken =>
-            tokenSeqs += Pair(startToken, lastToken)
-          }
-
-          //Then, do the same in the other direction:
-          (firstToken to lastToken).reverse.foreach{ endToken =>
-            tokenSeqs += Pair(firstToken, endToken)
-          }
-
-          tokenSeqs.foreach{
-            case (startToken: Int, endToken: Int) => {
-              val startOffset = sentence(startToken).offset
-              val endOffset = sentence(endToken).offset + sentence(endToken).token.length
-
-              val spot = text.text.substring(startOffset, endOffset)
-
-              //SpotlightLog.info(this.getClass, spot + ":" + chunkSpan.getType)
+    //Go through all sentences, in parallel for long texts (until the time budget of the text allows no further spotting):
+    val sentenceSpots = IntraDocumentPool.map(intraDocumentPool, tokens.sentenceCount, tokens.sentenceCount) { sentence: Int =>
+      if (budget.exists(_.passed(TimeBudget.STOP_SPOTTING, "spotting")))
+        Seq[SurfaceFormOccurrence]()
+      else
+        spotSentence(text, tokens, sentence, confidence)
+    }
 
-              val confidence = text.featureValue[Double]("confidence").getOrElse(0.5)
-              val sfMatch = surfaceFormMatch(spot, confidence=math.max(MIN_CONFIDENCE, confidence))
+    dropOverlappingSpots(sentenceSpots.flatten)
+  }
 
-              SpotlightLog.debug(this.getClass, "type:"+chunkSpan.getType)
-              if (sfMatch.isDefined) {
-                //The sub-chunk is in the dictionary, finish the processing of this chunk
-                val spotOcc = new SurfaceFormOccurrence(sfMatch.get, text, startOffset, Provenance.Annotation, spotScore(spot)._2)
-                spotOcc.setFeature(new Nominal("spot_type", chunkSpan.getType))
-                spotOcc.setFeature(new Feature("token_types", tokenTypes.slice(startToken, lastToken)))
-                spots += spotOcc
-                break()
-              }
-            }
+  /**
+   * Returns the spots in a sentence. This may be called for several sentences of a text in parallel.
+   */
+  private def spotSentence(text: Text, tokens: TokenBuffer, sentence: Int, confidence: Double): Seq[SurfaceFormOccurrence] = {
+    val spots = ListBuffer[SurfaceFormOccurrence]()
+    val spans = generateCandidates(tokens, sentence)
+
+    val sentenceStart = tokens.sentenceStart(sentence)
+
+    spans.sorted
+      .foreach(chunkSpan => {
+
+        val firstToken = chunkSpan.getStart
+        val lastToken = chunkSpan.getEnd-1
+        val n = lastToken - firstToken + 1
+
+        //Taking away a left member in each step, look for the longest sub-chunk in the SF dictionary,
+        //then do the same in the other direction:
+        var i = 0
+        var found = false
+        while (!found && i < 2 * n) {
+          val startToken = if (i < n) firstToken + i else firstToken
+          val endToken = if (i < n) lastToken else lastToken - (i - n)
+
+          val startOffset = tokens.offset(sentenceStart + startToken)
+          val endOffset = tokens.end(sentenceStart + endToken)
+
+          val sfMatch = spotMatch(text.text, startOffset, endOffset, confidence)
+          if (sfMatch != null) {
+            //The sub-chunk is in the dictionary, finish the processing of this chunk
+            val spotOcc = new SurfaceFormOccurrence(sfMatch._1, text, startOffset, Provenance.Annotation, sfMatch._2)
+            spotOcc.setFeature(new Nominal("spot_type", chunkSpan.getType))
+            spotOcc.setFeature(new Feature("token_types", tokens.tokenTypes(sentenceStart + startToken, sentenceStart + lastToken)))
+            spots += spotOcc
+            found = true
           }
+          i += 1
         }
-      })
-    }
+    })
 
-    dropOverlappingSpots(spots)
+    spots
   }
 
 
@@ -108,54 +123,82 @@ abstract class DBSpotter(
    * which are very general (e.g. based on stems in FSASpotter), we need to find a score
    * for each match. Matches will be filtered out by this score.
    *
-   * @param spot
-   * @return
+   * The span is looked up in the surface form index if there is one, so that spans that are
+   * not surface forms are rejected without creating a substring of the text.
+   *
+   * @param text the text
+   * @param start offset of the span in the text
+   * @param end offset after the span
+   * @return the surface form and its score or null if the span is not a known surface form
    */
-  private def spotScore(spot: String): (Option[SurfaceForm], Double) = {
-    try {
-      spotFeatureWeightVector match {
-        case Some(weights) => {
-
-          val (sf, p) = try {
-            val sf = surfaceFormStore.getSurfaceForm(spot)
-            (sf, sf.annotationProbability)
-          } catch {
-            case e: SurfaceFormNotFoundException => {
-              surfaceFormStore.getRankedSurfaceFormCandidates(spot).headOption match {
-                case Some(p) => p
-                case None => throw e
-              }
-           }
-          }
-
-          sf.name = spot
-          (Some(sf), weights dot DBSpotter.spotFeatures(spot, p))
+  private def spotScore(text: String, start: Int, end: Int): (SurfaceForm, Double) = {
+    var sf = surfaceForm(text, start, end)
+    var p = if (sf != null) sf.annotationProbability else 0.0
+
+    if (spotFeatureWeightArray == null)
+      return if (sf == null) null else (sf, p)
+
+    if (sf == null && mayHaveNormalizedCandidates(text, start, end)) {
+      surfaceFormStore.getRankedSurfaceFormCandidates(text.substring(start, end)).headOption match {
+        case Some((candidate, score)) => {
+          sf = candidate
+          p = score
         }
-        case None => (Some(surfaceFormStore.getSurfaceForm(spot)), surfaceFormStore.getSurfaceForm(spot).annotationProbability)
+        case None =>
       }
-    } catch {
-      case e: Exception => (None, 0.0)
     }
+
+    if (sf == null)
+      return null
+
+    sf.name = text.substring(start, end)
+    (sf, DBSpotter.spotScore(spotFeatureWeightArray, p, text, start, end))
   }
 
-  protected def surfaceFormMatch(spot: String, confidence: Double): Option[SurfaceForm] = {
-    val score: (Option[SurfaceForm], Double) = spotScore(spot)
-    score._1 match {
-      case Some(sf) => SpotlightLog.debug(this.getClass, sf.toString + ":" + score._2)
-      case None => SpotlightLog.debug(this.getClass, "None :" + score._2)
+  /* The surface form of the span or null if it is not a known surface form. */
+  private def surfaceForm(text: String, start: Int, end: Int): SurfaceForm = {
+    if (surfaceFormIndex == null) {
+      return try {
+        surfaceFormStore.getSurfaceForm(text.substring(start, end))
+      } catch {
+        case e: SurfaceFormNotFoundException => null
+      }
     }
 
-    if (spotFeatureWeightVector.isDefined)
-       if(score._2 >= confidence)
-         score._1
-       else
-        None
+    val id = surfaceFormIndex.find(text, start, end)
+    if (id == SurfaceFormIndex.MISS)
+      return null
+
+    val sf = surfaceFormStore.getSurfaceFormByID(id)
+    if (sf != null && sf.name.length == end - start && text.regionMatches(start, sf.name, 0, end - start))
+      sf
     else
-      if(score._2 >= 0.25)
-        score._1
-      else
-        None
+      null
+  }
+
+  private def mayHaveNormalizedCandidates(text: String, start: Int, end: Int): Boolean =
+    surfaceFormIndex == null || surfaceFormStore.isInstanceOf[FuzzySurfaceFormStore] || surfaceFormIndex.containsLowercase(text, start, end)
+
+  /**
+   * Returns the surface form of the span and its score or null if the span is not a known surface form
+   * or its score is below the threshold.
+   */
+  protected def spotMatch(text: String, start: Int, end: Int, confidence: Double): (SurfaceForm, Double) = {
+    //A span that can not be scored (e.g. because of an inconsistent store) is skipped, not the whole text:
+    val score = try {
+      spotScore(text, start, end)
+    } catch {
+      case e: Exception => {
+        SpotlightLog.debug(this.getClass, "Could not score span %d-%d: %s", start, end, e)
+        null
+      }
+    }
 
+    val threshold = if (spotFeatureWeightArray != null) confidence else 0.25
+    if (score != null && score._2 >= threshold)
+      score
+    else
+      null
   }
 
 
@@ -223,6 +266,42 @@ abstract class DBSpotter(
 }
 
 object DBSpotter {
+
+  /**
+   * Returns the score of a spot, i.e. the dot product of the weights and the spotFeatures of the text
+   * between start and end, without creating the feature vector.
+   */
+  def spotScore(weights: Array[Double], spotProbability: Double, text: String, start: Int, end: Int): Double = {
+    val number = isNumber(text, start, end)
+    val abbreviation = !number && end - start < 5 && isUppercase(text, start, end)
+
+    weights(0) * spotProbability +
+    (if (abbreviation) weights(1) else 0.0) +
+    (if (number) weights(2) else 0.0) +
+    weights(3)
+  }
+
+  private def isNumber(text: String, start: Int, end: Int): Boolean = {
+    var i = start
+    while (i < end) {
+      val c = text.charAt(i)
+      if (c < '0' || c > '9')
+        return false
+      i += 1
+    }
+    end > start
+  }
+
+  private def isUppercase(text: String, start: Int, end: Int): Boolean = {
+    var i = start
+    while (i < end) {
+      if (Character.toUpperCase(text.charAt(i)) != text.charAt(i))
+        return false
+      i += 1
+    }
+    true
+  }
+
   def spotFeatures(spot: String, spotProbability: Double): DenseVector[Double] =
     DenseVector(
       //Annotation probability:
@@ -11,7 +11,10 @@ import breeze.linalg
 import scala.collection.JavaConversions._
 import scala.collection.mutable.ArrayBuffer
 import org.dbpedia.spotlight.log.SpotlightLog
+import org.dbpedia.spotlight.metrics.Metrics
 import org.dbpedia.spotlight.util.MathUtil
+import org.dbpedia.spotlight.filter.annotations.TypeFilter
+import org.dbpedia.spotlight.db.concurrent.IntraDocumentPool
 
 
 /**
@@ -38,6 +41,12 @@ class DBTwoStepDisambiguator(
   /* Tokenizer that may be used for tokenization if the text is not already tokenized. */
   var tokenizer: TextTokenizer = null
 
+  /* If true, candidates that can not pass the TypeFilter in the "type_filter" feature of the text are removed before scoring. */
+  var pruneCandidatesByType = false
+
+  /* Pool for disambiguating the context windows of long texts in parallel, the windows are disambiguated sequentially if it is null. */
+  var intraDocumentPool: IntraDocumentPool = null
+
 
   //maximum number of considered candidates
   val MAX_CANDIDATES = 10
@@ -56,39 +65,46 @@ class DBTwoStepDisambiguator(
     //Tokenize the text if it wasn't tokenized before:
     if (tokenizer != null) {
       SpotlightLog.info(this.getClass, "Tokenizing input text...")
-      val tokens = tokenizer.tokenize(paragraph.text)
-      paragraph.text.setFeature(new Feature("tokens", tokens))
+      paragraph.text.setFeature(new Feature("tokens", tokenizer.tokenizeBuffer(paragraph.text)))
     }
 
-    val sentences = DBSpotter.tokensToSentences(paragraph.text.featureValue[List[Token]]("tokens").get)
+    val tokens = TokenBuffer.of(paragraph.text)
 
-    if (sentences.size <= MAX_CONTEXT)
-      bestK_(paragraph, paragraph.getOccurrences().toList, sentences.flatMap(_.map(_.tokenType)), k)
+    if (tokens.sentenceCount <= MAX_CONTEXT) {
+      //All tokens that belong to a sentence:
+      val sentenceTokens = if (tokens.sentenceCount == 0) 0 else tokens.sentenceEnd(tokens.sentenceCount - 1)
+      bestK_(paragraph, paragraph.getOccurrences().toList, tokens.tokenTypes(0, sentenceTokens), k)
+    }
     else {
       val occurrenceStack = paragraph.getOccurrences().toBuffer
-      val currentTokens = ArrayBuffer[Token]()
+      var windowStart = 0
 
-      sentences.flatMap{
-        sentence: List[Token] =>
+      val windows = (0 until tokens.sentenceCount).flatMap{
+        sentence: Int =>
 
-          currentTokens ++= sentence
+          val windowEnd = tokens.sentenceEnd(sentence)
 
-          if (currentTokens.size >= MAX_CONTEXT || sentence.equals(sentences.last)) {
+          if (windowEnd - windowStart >= MAX_CONTEXT || sentence == tokens.sentenceCount - 1) {
 
             //Take all surface form occurrences within the current token window and remove them afterwards.
-            val sliceOccs = occurrenceStack.takeWhile{ occ: SurfaceFormOccurrence => occ.textOffset <= currentTokens.last.offset}.toList
+            val lastOffset = tokens.offset(windowEnd - 1)
+            val sliceOccs = occurrenceStack.takeWhile{ occ: SurfaceFormOccurrence => occ.textOffset <= lastOffset}.toList
             occurrenceStack.remove(0, sliceOccs.size)
 
-            //Remember the tokens and clear the temporary token collection:
-            val sliceTokens = currentTokens.map(_.tokenType)
-            currentTokens.clear()
+            //Take the tokens of the window and start the next window:
+            val sliceTokens = tokens.tokenTypes(windowStart, windowEnd)
+            windowStart = windowEnd
 
-            //Disambiguate all occs in the current window:
-            Some( bestK_(paragraph, sliceOccs, sliceTokens, k) )
+            Some( (sliceOccs, sliceTokens) )
           } else {
             None
           }
-      }.toList.reduce(_ ++ _)
+      }
+
+      //Disambiguate all occs in each window, in parallel for long texts, and merge the windows in their order:
+      IntraDocumentPool.map(intraDocumentPool, windows.size, tokens.sentenceCount) { window: Int =>
+        bestK_(paragraph, windows(window)._1, windows(window)._2, k)
+      }.reduce(_ ++ _)
     }
   }
 
@@ -98,35 +114,54 @@ class DBTwoStepDisambiguator(
     if (occurrences.size == 0)
       return Map[SurfaceFormOccurrence, List[DBpediaResourceOccurrence]]()
 
-    // step1: get candidates for all surface forms
-    var allCandidateResources = Set[DBpediaResource]()
-    val occs = occurrences.foldLeft(
-      Map[SurfaceFormOccurrence, List[Candidate]]())(
-      (acc, sfOcc) => {
+    val typeFilter = if (pruneCandidatesByType) paragraph.text.featureValue[TypeFilter]("type_filter") else None
 
-        SpotlightLog.debug(this.getClass, "Searching...")
+    //Degrade the scoring if the time budget of the text is running out:
+    val budget = TimeBudget.of(paragraph.text)
+    val maxCandidates = if (budget.exists(_.passed(TimeBudget.CAP_CANDIDATES, "candidates"))) TimeBudget.MIN_CANDIDATES else MAX_CANDIDATES
 
-        val candidateRes = {
+    // step1: get candidates for all surface forms, each distinct candidate resource gets a position in
+    // allCandidateResources, which is also its position in the context scores
+    val candidatePositions = scala.collection.mutable.HashMap[DBpediaResource, Int]()
+    val allCandidateResources = ArrayBuffer[DBpediaResource]()
+    val occs = Metrics.timed("candidates") {
+      occurrences.foldLeft(
+        Map[SurfaceFormOccurrence, List[(Candidate, Int)]]())(
+        (acc, sfOcc) => {
 
-          val cands = candidateSearcher.getCandidates(sfOcc.surfaceForm)
-          SpotlightLog.debug(this.getClass, "# candidates for: %s = %s.", sfOcc.surfaceForm, cands.size)
+          SpotlightLog.debug(this.getClass, "Searching...")
 
-          if (cands.size > MAX_CANDIDATES) {
-            SpotlightLog.debug(this.getClass, "Reducing number of candidates to %d.", MAX_CANDIDATES)
-            cands.toList.sortBy( -_.prior ).take(MAX_CANDIDATES).toSet
-          } else {
-            cands
+          //Only the top candidates by prior are materialized, candidates that can not pass the type filter
+          //are skipped before the top candidates are selected:
+          val candidateRes = typeFilter match {
+            case Some(f) => candidateSearcher.getTopCandidates(sfOcc.surfaceForm, maxCandidates, (r: DBpediaResource) => f.accepts(r))
+            case None => candidateSearcher.getTopCandidates(sfOcc.surfaceForm, maxCandidates)
           }
-        }
+          SpotlightLog.debug(this.getClass, "# candidates for: %s = %s.", sfOcc.surfaceForm, candidateRes.size)
 
-        allCandidateResources ++= candidateRes.map(_.resource)
-        acc + (sfOcc -> candidateRes.toList)
-      })
+          val positioned = candidateRes.toList.map{ cand: Candidate =>
+            (cand, candidatePositions.getOrElseUpdate(cand.resource, {
+              allCandidateResources += cand.resource
+              allCandidateResources.size - 1
+            }))
+          }
+          acc + (sfOcc -> positioned)
+        })
+    }
+    Metrics.candidates.labels().record(allCandidateResources.size)
 
     val tokensDistinct = tokens.distinct.sortBy(_.id)
 
     // step2: query once for the paragraph context, get scores for each candidate resource
-    val contextScores = contextSimilarity.score(tokensDistinct, allCandidateResources)
+    val nilContextScore = contextSimilarity.nilScore(tokensDistinct)
+    val contextScores = if (budget.exists(_.passed(TimeBudget.PRIOR_ONLY, "context"))) {
+      //Prior-only scoring: every candidate gets the context score of NIL, so only P(e) and P(s|e) decide
+      Array.fill(allCandidateResources.size)(nilContextScore)
+    } else {
+      Metrics.timed("context") {
+        contextSimilarity.score(tokensDistinct, allCandidateResources.toArray)
+      }
+    }
 
     // pick the best k for each surface form
     occs.keys.foldLeft(Map[SurfaceFormOccurrence, List[DBpediaResourceOccurrence]]())( (acc, aSfOcc) => {
@@ -144,15 +179,13 @@ class DBTwoStepDisambiguator(
         case _ =>
       }
 
-      val nilContextScore = contextSimilarity.nilScore(tokensDistinct)
-
       eNIL.setFeature(new Score("P(c|e)", nilContextScore))
       eNIL.setFeature(new Score("P(e)",   MathUtil.ln( 1 / surfaceFormStore.getTotalAnnotatedCount.toDouble ) )) //surfaceFormStore.getTotalAnnotatedCount = total number of entity mentions
       val nilEntityScore = mixture.getScore(eNIL)
 
       //Get all other entities:
-      val candOccs = occs.getOrElse(aSfOcc, List[Candidate]())
-        .map{ cand: Candidate => {
+      val candOccs = occs.getOrElse(aSfOcc, List[(Candidate, Int)]())
+        .map{ case (cand: Candidate, position: Int) => {
         val resOcc = new DBpediaResourceOccurrence(
           "",
           cand.resource,
@@ -162,7 +195,7 @@ class DBTwoStepDisambiguator(
           Provenance.Undefined,
           0.0,
           0.0,
-          contextScores(cand.resource)
+          contextScores(position)
         )
 
         //Set the scores as features for the resource occurrence:
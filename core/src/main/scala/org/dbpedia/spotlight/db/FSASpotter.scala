@@ -20,9 +20,23 @@ class FSASpotter(
   stopwords: Set[String]
 ) extends DBSpotter(surfaceFormStore, spotFeatureWeights, stopwords) {
 
-  def generateCandidates(sentence: List[Token]): Seq[Span] = {
-    val initialSpans = findUppercaseSequences(sentence.map(_.token).toArray)
-    FSASpotter.generateCandidates(sentence, fsaDictionary, initialSpans = initialSpans)
+  //Dictionary of the surface forms added by model deltas (see org.dbpedia.spotlight.db.delta.ModelUpdater):
+  @volatile
+  var deltaDictionary: FSADictionary = null
+
+  def generateCandidates(tokens: TokenBuffer, sentence: Int): Seq[Span] = {
+    val from = tokens.sentenceStart(sentence)
+    val until = tokens.sentenceEnd(sentence)
+    val tokenTypeIDs = tokens.tokenTypeIDs(from, until)
+
+    val initialSpans = findUppercaseSequences(tokens.tokens(from, until))
+    val spans = FSASpotter.generateCandidates(tokenTypeIDs, fsaDictionary, initialSpans)
+
+    val delta = deltaDictionary
+    if (delta == null)
+      spans
+    else
+      (spans ++ FSASpotter.generateCandidates(tokenTypeIDs, delta, Seq[Span]())).distinct
   }
 
   def typeOrder = Array("Capital_Sequences", "m")
@@ -43,15 +57,17 @@ class AllOccurrencesFSASpotter(
   def extract(text: String): List[(java.lang.String, Int)] = {
 
     var spots = ListBuffer[(String, Int)]()
-    val sentences: List[List[Token]] = DBSpotter.tokensToSentences(tokenizer.tokenize(new Text(text)))
+    val tokens = tokenizer.tokenizeBuffer(new Text(text))
 
     //Go through all sentences
-    sentences.foreach{ sentence: List[Token] =>
-      FSASpotter.generateCandidates(sentence, fsaDictionary).foreach(chunkSpan => {
-        val firstToken = chunkSpan.getStart
-        val lastToken = chunkSpan.getEnd-1
-        val startOffset = sentence(firstToken).offset
-        val endOffset = sentence(lastToken).offset + sentence(lastToken).token.length
+    (0 until tokens.sentenceCount).foreach{ sentence: Int =>
+      val sentenceStart = tokens.sentenceStart(sentence)
+
+      FSASpotter.generateCandidates(tokens.tokenTypeIDs(sentenceStart, tokens.sentenceEnd(sentence)), fsaDictionary, Seq[Span]()).foreach(chunkSpan => {
+        val firstToken = sentenceStart + chunkSpan.getStart
+        val lastToken = sentenceStart + chunkSpan.getEnd-1
+        val startOffset = tokens.offset(firstToken)
+        val endOffset = tokens.end(lastToken)
 
         spots += ((text.substring(startOffset, endOffset), startOffset))
       })
@@ -72,35 +88,46 @@ object FSASpotter {
   //State ID for None
   val REJECTING_STATE = -2
 
-  def generateCandidates(sentence: List[Token], fsaDictionary: FSADictionary, initialSpans: Seq[Span] = Seq[Span]()): Seq[Span] = {
-
-    var spans = initialSpans
-
-    val ids = sentence.map(_.tokenType.id)
-    sentence.zipWithIndex.foreach {
-      case (t: Token, i: Int) => {
+  /**
+   * Returns the spans of all (possibly overlapping) token sequences in the sentence that are accepted
+   * by the dictionary. The sentence is matched in a single pass over its tokens, Aho-Corasick style:
+   * the current state always represents the longest suffix of the tokens seen so far that is a prefix of
+   * an entry, and the failure states of this state represent all shorter such suffixes.
+   *
+   * @param tokenTypeIDs the token type IDs of the tokens of the sentence
+   * @param fsaDictionary the dictionary
+   * @param initialSpans spans that are returned in addition to the matches
+   * @return
+   */
+  def generateCandidates(tokenTypeIDs: Array[Int], fsaDictionary: FSADictionary, initialSpans: Seq[Span]): Seq[Span] = {
 
-        var currentState = FSASpotter.INITIAL_STATE
-        var j = i
+    val spans = ArrayBuffer[Span]()
+    spans ++= initialSpans
 
-        do {
-          //Get the transition for the next token:
-          val (endState, nextState) = fsaDictionary.next(currentState, ids(j))
+    var currentState = FSASpotter.INITIAL_STATE
+    var j = 0
 
-          //Add a span if this is a possible spot:
-          if (endState == FSASpotter.ACCEPTING_STATE)
-            spans :+= new Span(i, j+1, "m")
+    while (j < tokenTypeIDs.length) {
+      val token = tokenTypeIDs(j)
 
-          //Keep traversing the FSA until a rejecting state or the end of the sentence:
-          currentState = nextState
-          j += 1
-        } while ( currentState != FSASpotter.REJECTING_STATE && j < sentence.length )
+      //Add a span for every entry that ends with the current token:
+      var state = currentState
+      while (state != FSASpotter.REJECTING_STATE) {
+        if (fsaDictionary.accepts(state, token))
+          spans += new Span(j - fsaDictionary.depth(state), j+1, "m")
+        state = fsaDictionary.failure(state)
       }
+
+      currentState = fsaDictionary.matchNext(currentState, token)
+      j += 1
     }
 
     spans
   }
 
+  def generateCandidates(sentence: List[Token], fsaDictionary: FSADictionary, initialSpans: Seq[Span] = Seq[Span]()): Seq[Span] =
+    generateCandidates(sentence.map(_.tokenType.id).toArray, fsaDictionary, initialSpans)
+
 
   def buildDictionary(sfStore: SurfaceFormStore, tokenizer: TextTokenizer): FSADictionary = {
     buildDictionaryFromIterable(sfStore.iterateSurfaceForms.filter(_.annotationProbability >= 0.05).map(_.name), tokenizer)
@@ -144,14 +171,14 @@ object FSASpotter {
     iterable.grouped(100000).toList.par.flatMap(_.map{
       sfString: String =>
         //Tokenize all SFs first
-        tokenizer.tokenize(new Text(sfString))
+        tokenizer.tokenizeBuffer(new Text(sfString))
     }).seq.foreach{
-      case tokens: Seq[Token] if tokens.size > 0 =>
+      case tokens: TokenBuffer if tokens.size > 0 =>
         z+=1
         if ((z % 100000) == 0)
           System.err.println("Processed %d SFs.".format(z))
 
-        val ids = tokens.map(_.tokenType.id).toArray
+        val ids = tokens.tokenTypeIDs(0, tokens.size)
 
         //For each token in the SF, add the transitions to the FSA:
         var currentState = INITIAL_STATE
@@ -173,6 +200,7 @@ object FSASpotter {
 
     d.transitionsTokens = pairs.map(_.map(_._1).toArray).toArray
     d.transitionsStates = pairs.map(_.map(_._2).toArray).toArray
+    d.loaded()
 
     d
   }
@@ -211,6 +239,9 @@ class FSADictionary extends MemoryStore {
    * Returns state transitions in the form:
    * (accepting state, next state)
    *
+   * This method works on the transition arrays directly, for spotting use
+   * accepts and nextState, which do not allocate.
+   *
    * @param state
    * @param token
    * @return
@@ -232,6 +263,156 @@ class FSADictionary extends MemoryStore {
     }
   }
 
+  /*
+   * Flat transition table, created from the transition arrays when the dictionary is loaded.
+   *
+   * The transitions of state s are at the positions stateOffsets(s) until stateOffsets(s+1) of
+   * the arrays below, sorted by token. Each position holds the token, the next state (or REJECTING_STATE)
+   * and whether the token finishes an entry. The transitions of the initial state are indexed directly
+   * by the token ID.
+   */
+
+  @transient
+  var stateOffsets: Array[Int] = null
+
+  @transient
+  var tableTokens: Array[Int] = null
+
+  @transient
+  var tableStates: Array[Int] = null
+
+  @transient
+  var tableAccepting: Array[Boolean] = null
+
+  @transient
+  var initialTransitions: Array[Int] = null
+
+  //Failure state and depth (length of the token sequence) of each state, see generateCandidates:
+  @transient
+  var failureStates: Array[Int] = null
+
+  @transient
+  var depths: Array[Int] = null
+
+  override def loaded() {
+    createTransitionTable()
+  }
+
+  def createTransitionTable() {
+    val states = transitionsTokens.length
+
+    stateOffsets = new Array[Int](states + 1)
+    (0 until states).foreach { s: Int =>
+      var n = 0
+      (0 until transitionsTokens(s).length).foreach { i: Int =>
+        if (i == 0 || transitionsTokens(s)(i-1) != transitionsTokens(s)(i))
+          n += 1
+      }
+      stateOffsets(s+1) = stateOffsets(s) + n
+    }
+
+    tableTokens = new Array[Int](stateOffsets(states))
+    tableStates = Array.fill[Int](stateOffsets(states))(FSASpotter.REJECTING_STATE)
+    tableAccepting = new Array[Boolean](stateOffsets(states))
+
+    (0 until states).foreach { s: Int =>
+      var k = stateOffsets(s) - 1
+      (0 until transitionsTokens(s).length).foreach { i: Int =>
+        if (i == 0 || transitionsTokens(s)(i-1) != transitionsTokens(s)(i))
+          k += 1
+
+        tableTokens(k) = transitionsTokens(s)(i)
+        if (transitionsStates(s)(i) == FSASpotter.ACCEPTING_STATE)
+          tableAccepting(k) = true
+        else
+          tableStates(k) = transitionsStates(s)(i)
+      }
+    }
+
+    val maxToken = if (states > 0 && transitionsTokens(FSASpotter.INITIAL_STATE).length > 0) transitionsTokens(FSASpotter.INITIAL_STATE).last else -1
+    initialTransitions = Array.fill[Int](maxToken + 1)(-1)
+    if (states > 0)
+      (stateOffsets(FSASpotter.INITIAL_STATE) until stateOffsets(FSASpotter.INITIAL_STATE + 1)).foreach { k: Int =>
+        if (tableTokens(k) >= 0)
+          initialTransitions(tableTokens(k)) = k
+      }
+
+    //Breadth-first traversal of the states to find the failure state of each state:
+    failureStates = Array.fill[Int](states)(FSASpotter.REJECTING_STATE)
+    depths = new Array[Int](states)
+
+    val queue = new Array[Int](states)
+    var head = 0
+    var tail = 0
+    if (states > 0) {
+      queue(tail) = FSASpotter.INITIAL_STATE
+      tail += 1
+    }
+
+    while (head < tail) {
+      val s = queue(head)
+      head += 1
+
+      (stateOffsets(s) until stateOffsets(s+1)).foreach { k: Int =>
+        val c = tableStates(k)
+        if (c != FSASpotter.REJECTING_STATE && c != FSASpotter.INITIAL_STATE && depths(c) == 0) {
+          depths(c) = depths(s) + 1
+          failureStates(c) = if (s == FSASpotter.INITIAL_STATE) FSASpotter.INITIAL_STATE else matchNext(failureStates(s), tableTokens(k))
+          queue(tail) = c
+          tail += 1
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the transition for token in the flat transition table
+   * or -1 if there is no such transition.
+   */
+  def transition(state: Int, token: Int): Int = {
+    if (state == FSASpotter.INITIAL_STATE) {
+      if (token >= 0 && token < initialTransitions.length) initialTransitions(token) else -1
+    } else {
+      val i = java.util.Arrays.binarySearch(tableTokens, stateOffsets(state), stateOffsets(state+1), token)
+      if (i >= 0) i else -1
+    }
+  }
+
+  /**
+   * Returns true if the token sequence leading to state followed by token is an entry in the dictionary.
+   */
+  def accepts(state: Int, token: Int): Boolean = {
+    val k = transition(state, token)
+    k >= 0 && tableAccepting(k)
+  }
+
+  /**
+   * Returns the state after state and token or REJECTING_STATE if the token sequence leading to state followed
+   * by token is not the prefix of any longer entry.
+   */
+  def nextState(state: Int, token: Int): Int = {
+    val k = transition(state, token)
+    if (k >= 0) tableStates(k) else FSASpotter.REJECTING_STATE
+  }
+
+  /**
+   * Returns the state representing the longest suffix of the token sequence leading to state followed
+   * by token that is the prefix of an entry in the dictionary.
+   */
+  def matchNext(state: Int, token: Int): Int = {
+    var s = state
+    var next = nextState(s, token)
+    while (next == FSASpotter.REJECTING_STATE && s != FSASpotter.INITIAL_STATE) {
+      s = failureStates(s)
+      next = nextState(s, token)
+    }
+    if (next == FSASpotter.REJECTING_STATE) FSASpotter.INITIAL_STATE else next
+  }
+
+  def failure(state: Int): Int = failureStates(state)
+
+  def depth(state: Int): Int = depths(state)
+
   def size = transitionsStates.size
 
 }
@@ -0,0 +1,215 @@
+package org.dbpedia.spotlight.db
+
+import model.SurfaceFormStore
+import memory.util.StringPool
+import org.dbpedia.spotlight.model.SurfaceForm
+import org.dbpedia.spotlight.exceptions.SurfaceFormNotFoundException
+import org.dbpedia.spotlight.log.SpotlightLog
+import it.unimi.dsi.fastutil.longs.LongArrayList
+import scala.collection.mutable
+
+/**
+ * A [[org.dbpedia.spotlight.db.model.SurfaceFormStore]] that finds the normalized candidates of a surface
+ * form (see getRankedSurfaceFormCandidates) with a fuzzy index over the lowercase forms of the surface forms
+ * in another store. Candidates are all surface forms whose lowercase form is within maxDistance edits
+ * of the lowercase query, all other methods are answered by the wrapped store.
+ *
+ * The index is a deletion neighbourhood: each lowercase form is stored under the hash of the form itself
+ * and of every string that can be made from it by deleting up to maxDistance characters. Two strings are
+ * within maxDistance edits if their neighbourhoods intersect, so a query only has to look up the hashes
+ * of its own neighbourhood (a binary search each) and verify the forms found with a bounded edit distance.
+ * Forms shorter than minLength only match queries with the same lowercase form.
+ *
+ * The index holds one long per form and neighbour (roughly 8 bytes times the length of each form), it
+ * is built once when the model is loaded. Surface forms added by model deltas later on are found by
+ * their exact form only, they are neither in the index nor in the lowercase map of the wrapped store
+ * until the store is compacted and loaded again.
+ *
+ * @param store the store that is searched
+ * @param maxDistance maximum number of edits between a query and its candidates
+ * @param minLength minimum length of the forms that can be matched with edits
+ */
+
+class FuzzySurfaceFormStore(val store: SurfaceFormStore, maxDistance: Int = 1, minLength: Int = 4) extends SurfaceFormStore {
+
+  //The distinct lowercase forms of the annotated surface forms:
+  private val forms: StringPool = StringPool(store.iterateSurfaceForms.map(_.name.toLowerCase).distinct.toArray)
+
+  //Hash of a neighbour (high 32 bits) and ID of the form (low 32 bits), sorted:
+  private val keys: Array[Long] = {
+    SpotlightLog.info(this.getClass, "Indexing %d lowercase surface forms within %d edits...", forms.size, maxDistance)
+
+    val keys = new LongArrayList()
+    (0 until forms.size).foreach { id: Int =>
+      neighbourhood(forms.get(id)).foreach { s: String =>
+        keys.add(FuzzySurfaceFormStore.key(s.hashCode, id))
+      }
+    }
+
+    val sorted = keys.toLongArray
+    java.util.Arrays.sort(sorted)
+
+    SpotlightLog.info(this.getClass, "Done (%d keys).", sorted.length)
+    sorted
+  }
+
+  def size: Int = store.size
+
+  /* The form and all strings made from it by deleting up to maxDistance characters. */
+  private def neighbourhood(form: String): mutable.Set[String] = {
+    val all = mutable.HashSet[String](form)
+    if (form.length >= minLength) {
+      var current = Set(form)
+      (1 to maxDistance).foreach { _ =>
+        current = current.flatMap { s: String => (0 until s.length).map( i => s.substring(0, i) + s.substring(i + 1) ) }
+        all ++= current
+      }
+    }
+    all
+  }
+
+  /**
+   * Returns the lowercase forms within maxDistance edits of the lowercase query and their edit distance
+   * to the query. The query itself is always included with distance 0, even if it is not in the index.
+   */
+  def similarForms(query: String): Seq[(String, Int)] = {
+    val lowercase = query.toLowerCase
+    val found = mutable.LinkedHashMap[String, Int](lowercase -> 0)
+
+    if (lowercase.length >= minLength) {
+      neighbourhood(lowercase).foreach { s: String =>
+        val hash = s.hashCode
+        var i = FuzzySurfaceFormStore.firstKey(keys, hash)
+        while (i < keys.length && (keys(i) >> 32).toInt == hash) {
+          val form = forms.get(keys(i).toInt)
+          if (form.length >= minLength && !found.contains(form)) {
+            val d = FuzzySurfaceFormStore.editDistance(lowercase, form, maxDistance)
+            if (d <= maxDistance)
+              found.put(form, d)
+          }
+          i += 1
+        }
+      }
+    }
+
+    found.toSeq
+  }
+
+  /**
+   * Ranks the surface forms of the similar lowercase forms like
+   * [[org.dbpedia.spotlight.db.memory.MemorySurfaceFormStore.rankSurfaceFormCandidates]], but with the
+   * edit distance found by the index.
+   */
+  def getRankedSurfaceFormCandidates(surfaceform: String): Seq[(SurfaceForm, Double)] = {
+    val cLower = store.getLowercaseSurfaceFormCount(surfaceform.toLowerCase)
+
+    similarForms(surfaceform).flatMap { case (form: String, d: Int) =>
+      store.getSurfaceFormsNormalized(form).toSeq.map { candSf: SurfaceForm =>
+        val cTotal = candSf.totalCount
+
+        (candSf,
+          FuzzySurfaceFormStore.editDistanceScore(candSf.name, surfaceform, d) *
+          candSf.annotationProbability *
+          ((2.0 * cTotal.toDouble) / (cLower+cTotal))
+        )
+      }
+    }.sortBy(-_._2)
+  }
+
+  @throws(classOf[SurfaceFormNotFoundException])
+  def getSurfaceForm(surfaceform: String): SurfaceForm = store.getSurfaceForm(surfaceform)
+
+  def getSurfaceFormByID(id: Int): SurfaceForm = store.getSurfaceFormByID(id)
+
+  def getSurfaceFormsNormalized(surfaceform: String): Set[SurfaceForm] = store.getSurfaceFormsNormalized(surfaceform)
+
+  @throws(classOf[SurfaceFormNotFoundException])
+  def getSurfaceFormNormalized(surfaceform: String): SurfaceForm = getRankedSurfaceFormCandidates(surfaceform).headOption match {
+    case Some(p) => p._1
+    case None => throw new SurfaceFormNotFoundException(surfaceform)
+  }
+
+  def getLowercaseSurfaceFormCount(surfaceform: String): Int = store.getLowercaseSurfaceFormCount(surfaceform)
+
+  def getTotalAnnotatedCount: Int = store.getTotalAnnotatedCount
+
+  def getTotalOccurrenceCount: Int = store.getTotalOccurrenceCount
+
+  def iterateSurfaceForms: Seq[SurfaceForm] = store.iterateSurfaceForms
+
+  override def toString = "FuzzySurfaceFormStore[forms=%d, keys=%d]".format(forms.size, keys.length)
+
+}
+
+object FuzzySurfaceFormStore {
+
+  def key(hash: Int, id: Int): Long = (hash.toLong << 32) | (id & 0xffffffffL)
+
+  /* Index of the first key with the hash (or of the next larger key if there is none). */
+  def firstKey(keys: Array[Long], hash: Int): Int = {
+    val i = java.util.Arrays.binarySearch(keys, key(hash, 0))
+    if (i >= 0) i else -(i + 1)
+  }
+
+  /**
+   * Returns the Levenshtein distance of a and b if it is at most max, otherwise a value larger than max.
+   * Only the cells of the dynamic programming table within max of the diagonal are computed.
+   */
+  def editDistance(a: String, b: String, max: Int): Int = {
+    if (math.abs(a.length - b.length) > max)
+      return max + 1
+
+    val inf = max + 1
+    var previous = Array.tabulate(b.length + 1)( j => if (j <= max) j else inf )
+    var current = new Array[Int](b.length + 1)
+
+    var i = 1
+    while (i <= a.length) {
+      val from = math.max(1, i - max)
+      val to = math.min(b.length, i + max)
+
+      current(0) = if (i <= max) i else inf
+      if (from > 1)
+        current(from - 1) = inf
+
+      var rowMin = current(0)
+      var j = from
+      while (j <= to) {
+        val substitution = previous(j - 1) + (if (a.charAt(i - 1) == b.charAt(j - 1)) 0 else 1)
+        current(j) = math.min(math.min(previous(j) + 1, current(j - 1) + 1), math.min(substitution, inf))
+        rowMin = math.min(rowMin, current(j))
+        j += 1
+      }
+      if (to < b.length)
+        current(to + 1) = inf
+
+      if (rowMin > max)
+        return inf
+
+      val t = previous
+      previous = current
+      current = t
+      i += 1
+    }
+
+    previous(b.length)
+  }
+
+  /**
+   * Score of the match of a stored surface form with the queried surface form (see
+   * [[org.dbpedia.spotlight.db.memory.MemorySurfaceFormStore.editDistanceScore]]). If both have the
+   * same lowercase form, the characters that differ in case are counted as edits, otherwise the edit
+   * distance d of the lowercase forms is used.
+   */
+  def editDistanceScore(sData: String, sReal: String, d: Int): Double = {
+    if (sReal.equals(sData))
+      1.0
+    else if (sData.toUpperCase.equals(sReal) || sData.toLowerCase.equals(sReal))
+      0.85
+    else if (d == 0 && sData.length == sReal.length)
+      0.85 * (1.0 - ((0 until sData.length).count( i => sData.charAt(i) != sReal.charAt(i) ) / sReal.length.toDouble))
+    else
+      0.85 * (1.0 - (d / sReal.length.toDouble))
+  }
+
+}
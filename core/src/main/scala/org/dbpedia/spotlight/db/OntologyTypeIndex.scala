@@ -0,0 +1,160 @@
+package org.dbpedia.spotlight.db
+
+import model.{ResourceStore, OntologyTypeStore}
+import org.dbpedia.spotlight.db.memory.MemoryResourceStore
+import org.dbpedia.spotlight.db.mapped.MappedResourceStore
+import org.dbpedia.spotlight.model.{FreebaseType, OntologyType}
+import org.dbpedia.spotlight.log.SpotlightLog
+import it.unimi.dsi.fastutil.ints.IntArrayList
+import java.util.BitSet
+
+/**
+ * An index from ontology types to the IDs of the resources of each type, which is built
+ * when the model is loaded. With the index, testing whether a resource has one of a set
+ * of types does not require the resource's [[org.dbpedia.spotlight.model.OntologyType]]s.
+ *
+ * The resources of a type include the resources of its subtypes as far as they can be derived
+ * from the type itself (a Freebase type belongs to its Freebase domain). The DBpedia and Schema.org
+ * types of the resources in the models already contain all their supertypes.
+ *
+ * Resources that are changed by model deltas after the index was built are looked up by their
+ * current types (see changedTypes).
+ *
+ * @param postings the resources of each type by the type's typeID
+ * @param changedTypes the current types of a resource if they may differ from the index
+ */
+
+class OntologyTypeIndex(postings: java.util.Map[String, ResourceIDSet], changedTypes: Int => Option[Seq[OntologyType]]) {
+
+  def size = postings.size
+
+  /**
+   * Returns the IDs of the resources of the type (empty if no resource has the type).
+   */
+  def resources(ontologyType: OntologyType): ResourceIDSet = postings.get(ontologyType.typeID) match {
+    case null => ResourceIDSet.empty
+    case ids: ResourceIDSet => ids
+  }
+
+  /**
+   * Returns a test for resources that have at least one of the types.
+   */
+  def anyOf(types: Seq[OntologyType]): Int => Boolean = {
+    val typeIDs = types.map(_.typeID).toSet
+    val sets = types.map(resources).filter(_.size > 0).toArray
+
+    (id: Int) => changedTypes(id) match {
+      case Some(current) => current.exists(t => OntologyTypeIndex.withSupertypes(t).exists(typeIDs.contains))
+      case None => sets.exists(_.contains(id))
+    }
+  }
+
+}
+
+object OntologyTypeIndex {
+
+  /**
+   * Returns the typeIDs of the type and of its supertypes that can be derived from the type.
+   */
+  def withSupertypes(ontologyType: OntologyType): Seq[String] = ontologyType match {
+    case t: FreebaseType if t.typeName != null => Seq(t.typeID, new FreebaseType(t.domain, null).typeID)
+    case t: OntologyType => Seq(t.typeID)
+  }
+
+  /**
+   * Builds the type index for a memory or memory-mapped resource store.
+   */
+  def fromStore(store: ResourceStore): Option[OntologyTypeIndex] = store match {
+    case s: MemoryResourceStore => Some(build(
+      s.storedSize,
+      s.ontologyTypeStore,
+      (id: Int) => s.typesForID(id) match {
+        case null => Array[Short]()
+        case t: Array[java.lang.Short] => t.map(_.shortValue())
+      },
+      (id: Int) => s.deltaResources match {
+        case null => None
+        case changes => Option(changes.get(id)).map(_._3.toSeq.map(s.ontologyTypeStore.getOntologyType(_)))
+      }
+    ))
+    case s: MappedResourceStore => Some(build(s.size, s.ontologyTypeStore, s.getTypeIDs, (id: Int) => None))
+    case s: CachedResourceStore => fromStore(s.store)
+    case _ => None
+  }
+
+  def build(size: Int, typeStore: OntologyTypeStore, typeIDs: Int => Array[Short], changedTypes: Int => Option[Seq[OntologyType]]): OntologyTypeIndex = {
+    SpotlightLog.info(this.getClass, "Indexing the ontology types of %d resources...", size)
+
+    val ids = new java.util.HashMap[String, IntArrayList]()
+    val closure = new java.util.HashMap[java.lang.Short, Seq[String]]()
+
+    (0 until size).foreach { id: Int =>
+      typeIDs(id).foreach { typeID: Short =>
+        if (!closure.containsKey(typeID))
+          closure.put(typeID, withSupertypes(typeStore.getOntologyType(typeID)))
+
+        closure.get(typeID).foreach { t: String =>
+          if (!ids.containsKey(t))
+            ids.put(t, new IntArrayList())
+
+          //IDs are added in ascending order, only the last one can be a duplicate:
+          val list = ids.get(t)
+          if (list.isEmpty || list.getInt(list.size - 1) != id)
+            list.add(id)
+        }
+      }
+    }
+
+    val postings = new java.util.HashMap[String, ResourceIDSet]()
+    val it = ids.entrySet().iterator()
+    while (it.hasNext) {
+      val e = it.next()
+      postings.put(e.getKey, ResourceIDSet(e.getValue.toIntArray, size))
+    }
+
+    SpotlightLog.info(this.getClass, "Done (%d types).", postings.size)
+    new OntologyTypeIndex(postings, changedTypes)
+  }
+
+}
+
+
+/**
+ * An immutable set of resource IDs.
+ */
+trait ResourceIDSet {
+  def contains(id: Int): Boolean
+  def size: Int
+}
+
+object ResourceIDSet {
+
+  val empty: ResourceIDSet = new SortedIDSet(Array[Int]())
+
+  /**
+   * Creates the smaller representation of the sorted IDs: an array of the IDs or a
+   * bit set over all IDs in the store.
+   *
+   * @param ids sorted resource IDs
+   * @param universe number of resource IDs in the store
+   */
+  def apply(ids: Array[Int], universe: Int): ResourceIDSet = {
+    if (ids.length.toLong * 32 < universe) {
+      new SortedIDSet(ids)
+    } else {
+      val bits = new BitSet(universe)
+      ids.foreach(id => bits.set(id))
+      new BitSetIDSet(bits, ids.length)
+    }
+  }
+
+  private class SortedIDSet(ids: Array[Int]) extends ResourceIDSet {
+    def contains(id: Int) = java.util.Arrays.binarySearch(ids, id) >= 0
+    def size = ids.length
+  }
+
+  private class BitSetIDSet(bits: BitSet, val size: Int) extends ResourceIDSet {
+    def contains(id: Int) = id >= 0 && bits.get(id)
+  }
+
+}
@@ -37,15 +37,17 @@ class OpenNLPSpotter(
     new NameFinderME(m)
   }
 
-  def generateCandidates(sentence: List[Token]): Seq[Span] = {
+  def generateCandidates(sentenceTokens: TokenBuffer, sentence: Int): Seq[Span] = {
 
-    val tokens = sentence.map(_.token).toArray
+    val from = sentenceTokens.sentenceStart(sentence)
+    val until = sentenceTokens.sentenceEnd(sentence)
+    val tokens = sentenceTokens.tokens(from, until)
 
     var spans = findUppercaseSequences(tokens)
 
     chunker match {
       case Some(c) => {
-        val tags = sentence.map(_.featureValue[String]("pos").get).toArray
+        val tags = sentenceTokens.posTags(from, until)
         this.synchronized {
           spans ++= c.chunkAsSpans(tokens, tags).filter(chunkSpan => phraseTags.contains(chunkSpan.getType))
         }
@@ -1,7 +1,9 @@
 package org.dbpedia.spotlight.db
 
-import concurrent.{TokenizerWrapper, SpotterWrapper}
-import org.dbpedia.spotlight.db.memory.{MemoryContextStore, MemoryStore}
+import concurrent.{IntraDocumentPool, TokenizerWrapper, SpotterWrapper}
+import org.dbpedia.spotlight.db.memory.{MemoryResourceStore, MemorySurfaceFormStore, MemoryCandidateMapStore, MemoryStore}
+import org.dbpedia.spotlight.db.delta.ModelUpdater
+import org.dbpedia.spotlight.db.mapped.{MappedCandidateMapStore, MappedStore}
 import model._
 import opennlp.tools.tokenize.{TokenizerModel, TokenizerME}
 import opennlp.tools.sentdetect.{SentenceModel, SentenceDetectorME}
@@ -18,24 +20,62 @@ import java.util.{Locale, Properties}
 import opennlp.tools.chunker.ChunkerModel
 import opennlp.tools.namefind.TokenNameFinderModel
 import stem.SnowballStemmer
-import tokenize.{OpenNLPTokenizer, LanguageIndependentTokenizer}
+import tokenize.{OpenNLPTokenizer, LanguageIndependentTokenizer, TokenTypeCache}
 import org.dbpedia.spotlight.exceptions.ConfigurationException
 import org.dbpedia.spotlight.util.MathUtil
+import org.dbpedia.spotlight.log.SpotlightLog
 
 
 class SpotlightModel(val tokenizer: TextTokenizer,
                      val spotters: java.util.Map[SpotterPolicy, Spotter],
                      val disambiguators: java.util.Map[DisambiguationPolicy, ParagraphDisambiguatorJ],
-                     val properties: Properties)
+                     val properties: Properties,
+                     val updater: Option[ModelUpdater] = None,
+                     val resourceStore: Option[ResourceStore] = None,
+                     val typeIndex: Option[OntologyTypeIndex] = None)
 
 object SpotlightModel {
 
   def loadStopwords(modelFolder: File): Set[String] = scala.io.Source.fromFile(new File(modelFolder, "stopwords.list")).getLines().map(_.trim()).toSet
   def loadSpotterThresholds(file: File): Seq[Double] = scala.io.Source.fromFile(file).getLines().next().split(" ").map(_.toDouble)
 
-  def storesFromFolder(modelFolder: File): (TokenTypeStore, SurfaceFormStore, ResourceStore, CandidateMapStore, ContextStore) = {
+  def storesFromFolder(modelFolder: File, preferMapped: Boolean = true): (TokenTypeStore, SurfaceFormStore, ResourceStore, CandidateMapStore, ContextStore) = {
     val modelDataFolder = new File(modelFolder, "model")
 
+    //Prefer the memory-mapped stores if the model has been converted (see ConvertToMappedModel):
+    if (preferMapped && new File(modelDataFolder, MappedStore.TOKENS_FILE).exists())
+      mappedStoresFromFolder(modelDataFolder)
+    else
+      memoryStoresFromFolder(modelDataFolder)
+  }
+
+  def mappedStoresFromFolder(modelDataFolder: File): (TokenTypeStore, SurfaceFormStore, ResourceStore, CandidateMapStore, ContextStore) = {
+
+    List(
+      new File(modelDataFolder, MappedStore.TOKENS_FILE),
+      new File(modelDataFolder, MappedStore.SF_FILE),
+      new File(modelDataFolder, MappedStore.RES_FILE),
+      new File(modelDataFolder, MappedStore.CANDMAP_FILE)
+    ).foreach {
+      modelFile: File =>
+        if (!modelFile.exists())
+          throw new IOException("Invalid Spotlight model folder: Could not read required file %s in %s.".format(modelFile.getName, modelFile.getPath))
+    }
+
+    val tokenTypeStore = MappedStore.loadTokenTypeStore(new File(modelDataFolder, MappedStore.TOKENS_FILE))
+    val sfStore = MappedStore.loadSurfaceFormStore(new File(modelDataFolder, MappedStore.SF_FILE))
+    val resStore = MappedStore.loadResourceStore(new File(modelDataFolder, MappedStore.RES_FILE))
+    val candMapStore = MappedStore.loadCandidateMapStore(new File(modelDataFolder, MappedStore.CANDMAP_FILE), resStore)
+    val contextStore = if (new File(modelDataFolder, MappedStore.CONTEXT_FILE).exists())
+      MappedStore.loadContextStore(new File(modelDataFolder, MappedStore.CONTEXT_FILE), tokenTypeStore)
+    else
+      null
+
+    (tokenTypeStore, sfStore, resStore, candMapStore, contextStore)
+  }
+
+  def memoryStoresFromFolder(modelDataFolder: File): (TokenTypeStore, SurfaceFormStore, ResourceStore, CandidateMapStore, ContextStore) = {
+
     List(
       new File(modelDataFolder, "tokens.mem"),
       new File(modelDataFolder, "sf.mem"),
@@ -61,15 +101,65 @@ object SpotlightModel {
     (tokenTypeStore, sfStore, resStore, candMapStore, contextStore)
   }
 
-  def fromFolder(modelFolder: File): SpotlightModel = {
+  /**
+   * Wraps the resource store in a [[org.dbpedia.spotlight.db.CachedResourceStore]] if resource_cache_size
+   * is not 0. If resource_cache_warmup is set, the cache is warmed up with the resource IDs in this file
+   * (relative to the model folder) and the IDs of the cached resources are written to it at shutdown.
+   */
+  def cachedResourceStore(modelFolder: File, store: ResourceStore, properties: Properties): ResourceStore = {
+    val cacheSize = properties.getProperty("resource_cache_size", "100000").toInt
+    if (cacheSize <= 0)
+      return store
+
+    val cache = new CachedResourceStore(store, cacheSize)
+
+    properties.getProperty("resource_cache_warmup") match {
+      case null =>
+      case f: String => {
+        val warmUpFile = new File(modelFolder, f)
+        if (warmUpFile.exists())
+          cache.warmUp(warmUpFile)
+
+        Runtime.getRuntime.addShutdownHook(new Thread() {
+          override def run() {
+            try {
+              cache.writeIDs(warmUpFile)
+            } catch {
+              case e: IOException => SpotlightLog.warn(this.getClass, "Could not write resource cache IDs to %s: %s", warmUpFile, e.getMessage)
+            }
+          }
+        })
+      }
+    }
 
-    val (tokenTypeStore, sfStore, resStore, candMapStore, contextStore) = storesFromFolder(modelFolder)
+    cache
+  }
+
+  def fromFolder(modelFolder: File): SpotlightModel = fromFolder(modelFolder, preferMapped = true)
+
+  def fromFolder(modelFolder: File, preferMapped: Boolean): SpotlightModel = {
+
+    val (tokenTypeStore, storedSfStore, storedResStore, candMapStore, contextStore) = storesFromFolder(modelFolder, preferMapped)
 
     val stopwords = loadStopwords(modelFolder)
 
     val properties = new Properties()
     properties.load(new FileInputStream(new File(modelFolder, "model.properties")))
 
+    val resStore = cachedResourceStore(modelFolder, storedResStore, properties)
+
+    //Find ill-cased and misspelled surface forms with a fuzzy index if fuzzy_surface_form_distance is not 0:
+    val sfStore = properties.getProperty("fuzzy_surface_form_distance", "0").toInt match {
+      case d if d > 0 => new FuzzySurfaceFormStore(storedSfStore, d)
+      case _ => storedSfStore
+    }
+
+    candMapStore match {
+      case store: MemoryCandidateMapStore => store.resourceStore = resStore
+      case store: MappedCandidateMapStore => store.resourceStore = resStore
+      case _ =>
+    }
+
     //Read the version of the model folder. The lowest version supported by this code base is:
     val supportedVersion = 1.0
     val modelVersion = properties.getProperty("version", "0.1").toFloat
@@ -84,10 +174,16 @@ object SpotlightModel {
     }
 
     def contextSimilarity(): ContextSimilarity = contextStore match {
-      case store:MemoryContextStore => new GenerativeContextSimilarity(tokenTypeStore, contextStore)
+      case store: ContextStore => new GenerativeContextSimilarity(tokenTypeStore, contextStore)
       case _ => new NoContextSimilarity(MathUtil.ln(1.0))
     }
 
+    //Cache of the token types of surface tokens shared by all tokenizers, unless token_type_cache_size is 0:
+    val tokenTypeCache = properties.getProperty("token_type_cache_size", "100000").toInt match {
+      case size if size > 0 => new TokenTypeCache(size)
+      case _ => null
+    }
+
     val c = properties.getProperty("opennlp_parallel", Runtime.getRuntime.availableProcessors().toString).toInt
     val cores = (1 to c)
 
@@ -104,7 +200,8 @@ object SpotlightModel {
         stemmer(),
         new SentenceDetectorME(sentenceModel),
         if (posTagger.exists()) new POSTaggerME(new POSModel(new FileInputStream(posTagger))) else null,
-        tokenTypeStore
+        tokenTypeStore,
+        tokenTypeCache
       ).asInstanceOf[TextTokenizer]
 
       if(cores.size == 1)
@@ -114,18 +211,42 @@ object SpotlightModel {
 
     } else {
       val locale = properties.getProperty("locale").split("_")
-      new LanguageIndependentTokenizer(stopwords, stemmer(), new Locale(locale(0), locale(1)), tokenTypeStore)
+      new LanguageIndependentTokenizer(stopwords, stemmer(), new Locale(locale(0), locale(1)), tokenTypeStore, tokenTypeCache)
+    }
+
+    //Index of the resources by their ontology types for type filters, unless type_index is false:
+    val typeIndex = if (properties.getProperty("type_index", "true").toBoolean)
+      OntologyTypeIndex.fromStore(storedResStore)
+    else
+      None
+
+    //Index of the surface forms for spotting, unless surface_form_index is false:
+    val sfIndex = if (properties.getProperty("surface_form_index", "true").toBoolean)
+      SurfaceFormIndex.fromStore(storedSfStore)
+    else
+      None
+
+    //Pool for the sentences and context windows of long texts, unless intra_document_parallelism is 1:
+    val intraDocumentPool = properties.getProperty("intra_document_parallelism", Runtime.getRuntime.availableProcessors().toString).toInt match {
+      case parallelism if parallelism > 1 => new IntraDocumentPool(
+        parallelism,
+        properties.getProperty("intra_document_threshold", IntraDocumentPool.DEFAULT_THRESHOLD.toString).toInt
+      )
+      case _ => null
     }
 
     val searcher      = new DBCandidateSearcher(resStore, sfStore, candMapStore)
-    val disambiguator = new ParagraphDisambiguatorJ(new DBTwoStepDisambiguator(
+    val twoStepDisambiguator = new DBTwoStepDisambiguator(
       tokenTypeStore,
       sfStore,
       resStore,
       searcher,
       new UnweightedMixture(Set("P(e)", "P(c|e)", "P(s|e)")),
       contextSimilarity()
-    ))
+    )
+    twoStepDisambiguator.pruneCandidatesByType = properties.getProperty("prune_candidates_by_type", "false").toBoolean
+    twoStepDisambiguator.intraDocumentPool = intraDocumentPool
+    val disambiguator = new ParagraphDisambiguatorJ(twoStepDisambiguator)
 
     //If there is at least one NE model or a chunker, use the OpenNLP spotter:
     val spotter = if( new File(modelFolder, "opennlp").exists() && new File(modelFolder, "opennlp").list().exists(f => f.startsWith("ner-") || f.startsWith("chunker")) ) {
@@ -139,13 +260,18 @@ object SpotlightModel {
       else
         None
 
-      def createSpotter() = new OpenNLPSpotter(
-        chunkerModel,
-        nerModels,
-        sfStore,
-        stopwords,
-        Some(loadSpotterThresholds(new File(modelFolder, "spotter_thresholds.txt")))
-      ).asInstanceOf[Spotter]
+      def createSpotter() = {
+        val s = new OpenNLPSpotter(
+          chunkerModel,
+          nerModels,
+          sfStore,
+          stopwords,
+          Some(loadSpotterThresholds(new File(modelFolder, "spotter_thresholds.txt")))
+        )
+        s.surfaceFormIndex = sfIndex.orNull
+        s.intraDocumentPool = intraDocumentPool
+        s.asInstanceOf[Spotter]
+      }
 
       if(cores.size == 1)
         createSpotter()
@@ -157,17 +283,39 @@ object SpotlightModel {
     } else {
       val dict = MemoryStore.loadFSADictionary(new FileInputStream(new File(modelFolder, "fsa_dict.mem")))
 
-      new FSASpotter(
+      val fsaSpotter = new FSASpotter(
         dict,
         sfStore,
         Some(loadSpotterThresholds(new File(modelFolder, "spotter_thresholds.txt"))),
         stopwords
-      ).asInstanceOf[Spotter]
+      )
+      fsaSpotter.surfaceFormIndex = sfIndex.orNull
+      fsaSpotter.intraDocumentPool = intraDocumentPool
+      fsaSpotter.asInstanceOf[Spotter]
+    }
+
+    //Changes in the deltas folder can be applied to memory stores (see ModelUpdater):
+    val updater = (storedSfStore, storedResStore, candMapStore) match {
+      case (s: MemorySurfaceFormStore, r: MemoryResourceStore, c: MemoryCandidateMapStore) => {
+        val u = new ModelUpdater(
+          new File(modelFolder, "deltas"),
+          s, r, c, resStore,
+          spotter match {
+            case fsaSpotter: FSASpotter => Some(fsaSpotter)
+            case _ => None
+          },
+          tokenizer,
+          sfIndex
+        )
+        u.update()
+        Some(u)
+      }
+      case _ => None
     }
 
 
     val spotters: java.util.Map[SpotterPolicy, Spotter] = Map(SpotterPolicy.SpotXmlParser -> new SpotXmlParser(), SpotterPolicy.Default -> spotter).asJava
     val disambiguators: java.util.Map[DisambiguationPolicy, ParagraphDisambiguatorJ] = Map(DisambiguationPolicy.Default -> disambiguator).asJava
-    new SpotlightModel(tokenizer, spotters, disambiguators, properties)
+    new SpotlightModel(tokenizer, spotters, disambiguators, properties, updater, Some(resStore), typeIndex)
   }
 }
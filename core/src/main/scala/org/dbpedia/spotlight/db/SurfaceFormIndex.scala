@@ -0,0 +1,134 @@
+package org.dbpedia.spotlight.db
+
+import model.SurfaceFormStore
+import memory.MemorySurfaceFormStore
+import mapped.MappedSurfaceFormStore
+import org.dbpedia.spotlight.log.SpotlightLog
+import it.unimi.dsi.fastutil.longs.{LongOpenHashSet, Long2IntOpenHashMap}
+
+/**
+ * An index of the surface forms of a store for spotting, which is built when the model is loaded.
+ * A span of a text is looked up by a 64 bit hash of its characters, so that spans that are not
+ * surface forms (most of the spans tried by a spotter) can be rejected without creating a substring
+ * of the text or a [[org.dbpedia.spotlight.model.SurfaceForm]].
+ *
+ * The index contains the ID of each surface form by the hash of the surface form and the hashes of
+ * the lowercase surface forms, so that ill-cased spans without normalized candidates are rejected
+ * as well. The lowercase form is built character by character (see lowercaseHash).
+ *
+ * Surface forms added by model deltas are kept in a second, smaller index (see setAddedSurfaceForms).
+ * Removed surface forms stay in the index, they are not found in the store anymore.
+ *
+ * @param ids the IDs of the surface forms by their hash
+ * @param lowercase the hashes of the lowercase surface forms
+ */
+
+class SurfaceFormIndex(ids: Long2IntOpenHashMap, lowercase: LongOpenHashSet) {
+
+  import SurfaceFormIndex.{MISS, hash, lowercaseHash}
+
+  ids.defaultReturnValue(MISS)
+
+  @volatile
+  private var added: Long2IntOpenHashMap = null
+
+  def size: Int = ids.size
+
+  /**
+   * Returns the ID of the surface form whose hash is the hash of the text between start and end or
+   * SurfaceFormIndex.MISS if there is none. The caller has to verify the surface form.
+   */
+  def find(text: String, start: Int, end: Int): Int = {
+    val h = hash(text, start, end)
+
+    val a = added
+    if (a != null) {
+      val id = a.get(h)
+      if (id != MISS)
+        return id
+    }
+
+    ids.get(h)
+  }
+
+  /**
+   * Returns true if the lowercase text between start and end is the lowercase form of a surface form.
+   */
+  def containsLowercase(text: String, start: Int, end: Int): Boolean = lowercase.contains(lowercaseHash(text, start, end))
+
+  /**
+   * Replaces the surface forms added by model deltas.
+   *
+   * @param forms the added surface forms and their IDs
+   */
+  def setAddedSurfaceForms(forms: Seq[(String, Int)]) {
+    added = if (forms.isEmpty) {
+      null
+    } else {
+      val a = new Long2IntOpenHashMap(forms.size)
+      a.defaultReturnValue(MISS)
+      forms.foreach { case (sf: String, id: Int) => a.put(hash(sf, 0, sf.length), id) }
+      a
+    }
+  }
+
+}
+
+object SurfaceFormIndex {
+
+  val MISS = -1
+
+  private val MULTIPLIER = 0x100000001b3L
+
+  /* Polynomial hash (modulo 2^64) of the characters of the text between start and end. */
+  def hash(text: String, start: Int, end: Int): Long = {
+    var h = 0xcbf29ce484222325L
+    var i = start
+    while (i < end) {
+      h = h * MULTIPLIER + text.charAt(i)
+      i += 1
+    }
+    h
+  }
+
+  /* Hash of the characters of the text between start and end converted to lowercase one by one. */
+  def lowercaseHash(text: String, start: Int, end: Int): Long = {
+    var h = 0xcbf29ce484222325L
+    var i = start
+    while (i < end) {
+      h = h * MULTIPLIER + Character.toLowerCase(text.charAt(i))
+      i += 1
+    }
+    h
+  }
+
+  /**
+   * Builds the index for a memory or memory-mapped surface form store.
+   */
+  def fromStore(store: SurfaceFormStore): Option[SurfaceFormIndex] = store match {
+    case s: MemorySurfaceFormStore => Some(build(s.storedSize, s.string))
+    case s: MappedSurfaceFormStore => Some(build(s.size, s.stringForID.get))
+    case s: FuzzySurfaceFormStore => fromStore(s.store)
+    case _ => None
+  }
+
+  def build(size: Int, string: Int => String): SurfaceFormIndex = {
+    SpotlightLog.info(this.getClass, "Indexing %d surface forms for spotting...", size)
+
+    val ids = new Long2IntOpenHashMap(size)
+    val lowercase = new LongOpenHashSet(size)
+
+    //If a string occurs more than once, the highest ID is used like in the stores:
+    (0 until size).foreach { id: Int =>
+      val sf = string(id)
+      if (sf != null) {
+        ids.put(hash(sf, 0, sf.length), id)
+        lowercase.add(lowercaseHash(sf, 0, sf.length))
+      }
+    }
+
+    SpotlightLog.info(this.getClass, "Done (%d surface forms, %d lowercase forms).", ids.size, lowercase.size)
+    new SurfaceFormIndex(ids, lowercase)
+  }
+
+}
@@ -0,0 +1,77 @@
+package org.dbpedia.spotlight.db.concurrent
+
+import scala.concurrent.forkjoin.{ForkJoinTask, RecursiveAction, ForkJoinPool}
+
+/**
+ * A fork-join pool for the parts of a single text that can be processed independently,
+ * e.g. the sentences in spotting and the context windows in disambiguation.
+ *
+ * The parts are split recursively into tasks until each task has at most grain parts. The
+ * results are returned in the order of the parts, independent of the order in which the
+ * tasks finish, so that the output of a text does not depend on the parallelism. Texts below
+ * the threshold are processed sequentially on the calling thread.
+ *
+ * @param parallelism the number of threads of the pool (1 to process all texts sequentially)
+ * @param threshold the minimum size of a text (e.g. in sentences) that is processed in parallel
+ */
+
+class IntraDocumentPool(val parallelism: Int, val threshold: Int) {
+
+  private val pool = if (parallelism > 1) new ForkJoinPool(parallelism) else null
+
+  def isParallel(size: Int): Boolean = pool != null && size >= threshold
+
+  /**
+   * Returns f applied to the parts 0 until n in this order, in parallel if the text is at least
+   * threshold large.
+   *
+   * @param n the number of parts
+   * @param size the size of the text that is compared to the threshold
+   */
+  def map[T](n: Int, size: Int)(f: Int => T): Seq[T] = {
+    val results = new Array[Any](n)
+
+    if (n > 1 && isParallel(size))
+      pool.invoke(new Parts(results, f, 0, n, math.max(1, n / (4 * parallelism))))
+    else
+      (0 until n).foreach(i => results(i) = f(i))
+
+    results.toList.asInstanceOf[List[T]]
+  }
+
+  private class Parts[T](results: Array[Any], f: Int => T, from: Int, until: Int, grain: Int) extends RecursiveAction {
+
+    protected def compute() {
+      if (until - from <= grain) {
+        var i = from
+        while (i < until) {
+          results(i) = f(i)
+          i += 1
+        }
+      } else {
+        val middle = (from + until) >>> 1
+        ForkJoinTask.invokeAll(
+          new Parts(results, f, from, middle, grain),
+          new Parts(results, f, middle, until, grain)
+        )
+      }
+    }
+
+  }
+
+}
+
+object IntraDocumentPool {
+
+  val DEFAULT_THRESHOLD = 100
+
+  /**
+   * Returns f applied to the parts 0 until n in this order, sequentially if there is no pool.
+   */
+  def map[T](pool: IntraDocumentPool, n: Int, size: Int)(f: Int => T): Seq[T] =
+    if (pool == null)
+      (0 until n).map(f)
+    else
+      pool.map(n, size)(f)
+
+}
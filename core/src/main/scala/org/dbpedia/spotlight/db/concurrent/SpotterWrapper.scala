@@ -1,70 +1,32 @@
 package org.dbpedia.spotlight.db.concurrent
 
-import java.io.IOException
 import org.dbpedia.spotlight.model.{SurfaceFormOccurrence, Text}
-import akka.actor.{OneForOneStrategy, Props, ActorSystem, Actor}
-import akka.routing.SmallestMailboxRouter
-import akka.actor.SupervisorStrategy.Restart
 import org.dbpedia.spotlight.spot.Spotter
-import akka.dispatch.Await
-import akka.util.duration._
-import akka.pattern.ask
-import akka.util
 
 /**
- * A Wrapper for Spotter workers.
+ * A Wrapper for Spotter workers. Each request is run on the calling thread
+ * with a spotter from the [[org.dbpedia.spotlight.db.concurrent.WorkerPool]].
  *
  * @author Joachim Daiber
  */
 
 class SpotterWrapper(val spotters: Seq[Spotter]) extends Spotter {
 
-  var requestTimeout = 60
+  val pool = new WorkerPool[Spotter](spotters)
+  pool.registerMetrics("spotter")
 
-  val system = ActorSystem()
-  val workers = spotters.map { spotter: Spotter =>
-    system.actorOf(Props(new SpotterActor(spotter)))
+  def requestTimeout: Int = pool.timeout
+  def requestTimeout_=(seconds: Int) {
+    pool.timeout = seconds
   }
 
   def size: Int = spotters.size
 
-  val router = system.actorOf(Props[SpotterActor].withRouter(
-    SmallestMailboxRouter(routees = workers).withSupervisorStrategy(
-      OneForOneStrategy(maxNrOfRetries = 10) {
-        case _: IOException => Restart
-      })
-  )
-  )
+  def extract(text: Text): java.util.List[SurfaceFormOccurrence] = pool.withWorker(_.extract(text))
 
-  implicit val timeout = util.Timeout(requestTimeout seconds)
-
-  def extract(text: Text): java.util.List[SurfaceFormOccurrence] = {
-    val futureResult = router ? SpotterRequest(text)
-    Await.result(futureResult, timeout.duration).asInstanceOf[java.util.List[SurfaceFormOccurrence]]
-  }
-
-  def close() {
-    system.shutdown()
-  }
+  def close() {}
 
   def getName: String = "SpotterWrapper[%s]".format(spotters.head.getClass.getSimpleName)
 
   def setName(name: String) {}
 }
-
-class SpotterActor(val spotter: Spotter) extends Actor {
-
-  def receive = {
-    case SpotterRequest(text) => {
-      try {
-        sender ! spotter.extract(text)
-
-      } catch {
-        case e: NullPointerException => throw new IOException("Could not tokenize.")
-      }
-    }
-  }
-
-}
-
-case class SpotterRequest(text: Text)
@@ -1,81 +1,45 @@
 package org.dbpedia.spotlight.db.concurrent
 
-import java.io.IOException
-import org.dbpedia.spotlight.model.{Token, Text}
-import akka.actor.{OneForOneStrategy, Props, ActorSystem, Actor}
-import akka.routing.SmallestMailboxRouter
-import akka.actor.SupervisorStrategy.Restart
-import akka.dispatch.Await
-import akka.util
-import akka.util.duration._
-import akka.pattern.ask
+import org.dbpedia.spotlight.model.{Token, TokenBuffer, Text}
 import org.apache.commons.lang.NotImplementedException
-import org.dbpedia.spotlight.db.tokenize.BaseTextTokenizer
 import org.dbpedia.spotlight.db.model.{StringTokenizer, TextTokenizer}
 
 /**
- * A Wrapper for Tokenizer workers.
+ * A Wrapper for Tokenizer workers. Each request is run on the calling thread
+ * with a tokenizer from the [[org.dbpedia.spotlight.db.concurrent.WorkerPool]].
  *
  * @author Joachim Daiber
  */
 
 class TokenizerWrapper(val tokenizers: Seq[TextTokenizer]) extends TextTokenizer {
 
-  var requestTimeout = 60
+  val pool = new WorkerPool[TextTokenizer](tokenizers)
+  pool.registerMetrics("tokenizer")
 
-  val system = ActorSystem()
-  val workers = tokenizers.map { case tokenizer: TextTokenizer =>
-    system.actorOf(Props(new TokenizerActor(tokenizer)))
-  }.seq
+  def requestTimeout: Int = pool.timeout
+  def requestTimeout_=(seconds: Int) {
+    pool.timeout = seconds
+  }
 
   def size: Int = tokenizers.size
 
-  val router = system.actorOf(Props[TokenizerActor].withRouter(
-    SmallestMailboxRouter(routees = workers).withSupervisorStrategy(
-      OneForOneStrategy(maxNrOfRetries = 10) {
-        case _: IOException => Restart
-      })
-  )
-  )
-
-  implicit val timeout = util.Timeout(requestTimeout seconds)
-
   override def tokenizeMaybe(text: Text) {
-    val futureResult = router ? TokenizerRequest(text)
-    Await.result(futureResult, timeout.duration)
+    pool.withWorker(_.tokenizeMaybe(text))
   }
 
-  override def tokenize(text: Text): List[Token] = {
+  override def tokenize(text: Text): List[Token] = tokenizeBuffer(text).toTokens
+
+  override def tokenizeBuffer(text: Text): TokenBuffer = {
     tokenizeMaybe(text)
-    text.featureValue[List[Token]]("tokens").get
+    TokenBuffer.of(text)
   }
 
   def tokenizeRaw(text: String): Seq[String] = {
     throw new NotImplementedException()
   }
 
-  def close() {
-    system.shutdown()
-  }
+  def close() {}
 
   def getStringTokenizer: StringTokenizer = tokenizers.head.getStringTokenizer
 
 }
-
-class TokenizerActor(val tokenizer: TextTokenizer) extends Actor {
-
-  def receive = {
-    case TokenizerRequest(text) => {
-      try {
-        sender ! tokenizer.tokenizeMaybe(text)
-
-      } catch {
-        case e: NullPointerException => throw new IOException("Could not tokenize.")
-      }
-    }
-  }
-
-}
-
-
-case class TokenizerRequest(text: Text)
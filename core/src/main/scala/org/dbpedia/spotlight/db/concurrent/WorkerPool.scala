@@ -0,0 +1,113 @@
+package org.dbpedia.spotlight.db.concurrent
+
+import java.io.IOException
+import java.util.concurrent.{TimeUnit, Semaphore, ConcurrentLinkedQueue}
+import java.util.concurrent.atomic.{AtomicLong, AtomicInteger}
+import org.dbpedia.spotlight.metrics.Metrics
+
+/**
+ * A pool of workers that are not thread-safe (e.g. OpenNLP tokenizers and spotters).
+ *
+ * A worker is checked out by the calling thread, used exclusively by this thread and
+ * returned to the pool afterwards, so there is no hand-off to another thread. If a worker
+ * is free, checking it out does not block (a CAS on the semaphore and a poll on a lock-free
+ * queue). Otherwise, the caller waits for at most timeout seconds.
+ *
+ * @param workers the thread-confined worker instances, the size of the pool
+ */
+
+class WorkerPool[T](val workers: Seq[T]) {
+
+  var timeout = 60
+
+  private val idle = new ConcurrentLinkedQueue[T]()
+  workers.foreach(idle.add)
+
+  private val available = new Semaphore(workers.size)
+
+  private val waitingCount = new AtomicInteger(0)
+  private val maxWaitingCount = new AtomicInteger(0)
+  private val requestCount = new AtomicLong(0)
+  private val contendedCount = new AtomicLong(0)
+
+  def size: Int = workers.size
+
+  /**
+   * Runs f with a worker from the pool on the calling thread.
+   */
+  def withWorker[R](f: T => R): R = {
+    val worker = checkout()
+    try {
+      f(worker)
+    } finally {
+      checkin(worker)
+    }
+  }
+
+  private def checkout(): T = {
+    requestCount.incrementAndGet()
+
+    if (!available.tryAcquire()) {
+      contendedCount.incrementAndGet()
+
+      val waiting = waitingCount.incrementAndGet()
+      var max = maxWaitingCount.get()
+      while (waiting > max && !maxWaitingCount.compareAndSet(max, waiting))
+        max = maxWaitingCount.get()
+
+      try {
+        if (!available.tryAcquire(timeout, TimeUnit.SECONDS))
+          throw new IOException("No worker available after %d seconds.".format(timeout))
+      } catch {
+        case e: InterruptedException => {
+          Thread.currentThread().interrupt()
+          throw new IOException("Interrupted while waiting for a worker.")
+        }
+      } finally {
+        waitingCount.decrementAndGet()
+      }
+    }
+
+    idle.poll()
+  }
+
+  private def checkin(worker: T) {
+    idle.add(worker)
+    available.release()
+  }
+
+  /**
+   * Number of threads currently waiting for a worker.
+   */
+  def queueDepth: Int = waitingCount.get()
+
+  /**
+   * Maximum number of threads that were waiting for a worker at the same time.
+   */
+  def maxQueueDepth: Int = maxWaitingCount.get()
+
+  /**
+   * Total number of requests and number of requests that had to wait for a worker.
+   */
+  def requests: Long = requestCount.get()
+  def contendedRequests: Long = contendedCount.get()
+
+  /**
+   * Exposes the size and the contention of the pool on /metrics (see org.dbpedia.spotlight.metrics.Metrics),
+   * so that the size of the pool can be checked against the load.
+   *
+   * @param name the value of the label "pool"
+   */
+  def registerMetrics(name: String) {
+    Metrics.workerPoolSize.labels(name).set(size)
+    Metrics.workerPoolQueueDepth.labels(name).set(queueDepth)
+    Metrics.workerPoolMaxQueueDepth.labels(name).set(maxQueueDepth)
+    Metrics.workerPoolRequests.labels(name).set(requests)
+    Metrics.workerPoolContendedRequests.labels(name).set(contendedRequests)
+  }
+
+  override def toString = "WorkerPool[size=%d, queueDepth=%d, maxQueueDepth=%d, requests=%d, contended=%d]".format(
+    size, queueDepth, maxQueueDepth, requests, contendedRequests
+  )
+
+}
@@ -0,0 +1,92 @@
+package org.dbpedia.spotlight.db.delta
+
+import java.io.File
+import scala.io.Source
+import org.dbpedia.spotlight.log.SpotlightLog
+
+/**
+ * A segment of changes to a model, read from a delta file in the deltas folder of the model.
+ *
+ * Delta files are UTF-8 text files with one change per line, the fields are separated by tabs.
+ * Empty lines and lines starting with # are ignored. Counts are absolute (they replace the
+ * existing count), not increments:
+ *
+ * {{{
+ * +sf        <surface form>  <annotated count>  <total count>
+ * -sf        <surface form>
+ * +res       <resource>      <support>          [<type>,<type>,...]
+ * -res       <resource>
+ * +cand      <surface form>  <resource>         <count>
+ * -cand      <surface form>  <resource>
+ * redirect   <resource>      <target resource>
+ * }}}
+ *
+ * Resources are identified by their name (the URI without the namespace), types by their
+ * qualified name (e.g. DBpedia:Person).
+ */
+
+class ModelDelta(val name: String, val changes: Seq[ModelDelta.Change])
+
+object ModelDelta {
+
+  val FILE_SUFFIX = ".delta"
+
+  sealed abstract class Change
+  case class AddSurfaceForm(sf: String, annotatedCount: Int, totalCount: Int) extends Change
+  case class RemoveSurfaceForm(sf: String) extends Change
+  case class AddResource(uri: String, support: Int, types: Seq[String]) extends Change
+  case class RemoveResource(uri: String) extends Change
+  case class AddCandidate(sf: String, uri: String, count: Int) extends Change
+  case class RemoveCandidate(sf: String, uri: String) extends Change
+  case class Redirect(uri: String, targetURI: String) extends Change
+
+  def parse(line: String): Option[Change] = {
+    line.trim.split('\t') match {
+      case Array("+sf", sf, annotatedCount, totalCount)  => Some(AddSurfaceForm(sf, annotatedCount.toInt, totalCount.toInt))
+      case Array("-sf", sf)                              => Some(RemoveSurfaceForm(sf))
+      case Array("+res", uri, support)                   => Some(AddResource(uri, support.toInt, Seq()))
+      case Array("+res", uri, support, types)            => Some(AddResource(uri, support.toInt, types.split(",").map(_.trim).filter(_.nonEmpty)))
+      case Array("-res", uri)                            => Some(RemoveResource(uri))
+      case Array("+cand", sf, uri, count)                => Some(AddCandidate(sf, uri, count.toInt))
+      case Array("-cand", sf, uri)                       => Some(RemoveCandidate(sf, uri))
+      case Array("redirect", uri, targetURI)             => Some(Redirect(uri, targetURI))
+      case _ => None
+    }
+  }
+
+  def fromFile(file: File): ModelDelta = {
+    val source = Source.fromFile(file, "UTF-8")
+    try {
+      var invalid = 0
+      val changes = source.getLines().filter(l => !l.trim.isEmpty && !l.startsWith("#")).flatMap { line: String =>
+        val change = try {
+          parse(line)
+        } catch {
+          case e: NumberFormatException => None
+        }
+        if (change.isEmpty)
+          invalid += 1
+        change
+      }.toList
+
+      if (invalid > 0)
+        SpotlightLog.warn(this.getClass, "Ignored %d invalid lines in %s.", invalid, file.getName)
+
+      new ModelDelta(file.getName, changes)
+    } finally {
+      source.close()
+    }
+  }
+
+  /**
+   * Returns the delta files in the folder in the order in which they must be applied (by file name).
+   */
+  def segments(deltaFolder: File): Seq[File] = {
+    val files = deltaFolder.listFiles()
+    if (files == null)
+      Seq()
+    else
+      files.filter(f => f.isFile && f.getName.endsWith(FILE_SUFFIX)).sortBy(_.getName).toSeq
+  }
+
+}
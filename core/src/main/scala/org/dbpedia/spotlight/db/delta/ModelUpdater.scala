@@ -0,0 +1,170 @@
+package org.dbpedia.spotlight.db.delta
+
+import java.io.{PrintWriter, File}
+import scala.collection.mutable
+import org.dbpedia.spotlight.db.{SurfaceFormIndex, CachedResourceStore, FSASpotter}
+import org.dbpedia.spotlight.db.memory._
+import org.dbpedia.spotlight.db.model.{TextTokenizer, ResourceStore}
+import org.dbpedia.spotlight.exceptions.{DBpediaResourceNotFoundException, SurfaceFormNotFoundException}
+import org.dbpedia.spotlight.log.SpotlightLog
+import org.dbpedia.spotlight.model.Factory
+import ModelDelta._
+
+/**
+ * Applies the model deltas (see [[org.dbpedia.spotlight.db.delta.ModelDelta]]) in the deltas folder of a
+ * model to its memory stores while the model is in use.
+ *
+ * The changes are kept in overlays of the stores, hence applying a delta does not require a second copy
+ * of the model. Each delta file is applied once, new files in the folder are applied by update().
+ * compact() writes the stores including all changes to the model folder, so that the overlays are empty
+ * when the model is loaded again.
+ *
+ * @param deltaFolder folder containing the delta files
+ * @param resourceStore the resource store used by the model (e.g. a cache of resStore)
+ * @param spotter the FSA spotter of the model, it spots the added surface forms with an additional dictionary
+ * @param tokenizer the tokenizer of the model, required to create the dictionary of added surface forms
+ * @param sfIndex the surface form index of the spotters, the added surface forms are indexed separately
+ */
+
+class ModelUpdater(
+  val deltaFolder: File,
+  sfStore: MemorySurfaceFormStore,
+  resStore: MemoryResourceStore,
+  candMapStore: MemoryCandidateMapStore,
+  resourceStore: ResourceStore,
+  spotter: Option[FSASpotter],
+  tokenizer: TextTokenizer,
+  sfIndex: Option[SurfaceFormIndex] = None
+) {
+
+  private val applied = mutable.LinkedHashSet[String]()
+  private val addedSurfaceForms = mutable.LinkedHashMap[String, Int]()
+
+  def appliedSegments: Seq[String] = synchronized {
+    applied.toList
+  }
+
+  /**
+   * Applies all delta files that have not been applied yet.
+   *
+   * @return the number of applied delta files
+   */
+  def update(): Int = synchronized {
+    val segments = ModelDelta.segments(deltaFolder).filter(f => !applied.contains(f.getName))
+
+    segments.foreach { segment: File =>
+      applyDelta(ModelDelta.fromFile(segment))
+      applied += segment.getName
+    }
+
+    if (!segments.isEmpty) {
+      resourceStore match {
+        case cache: CachedResourceStore => cache.invalidateAll()
+        case _ =>
+      }
+
+      spotter.foreach { s: FSASpotter =>
+        s.deltaDictionary = if (addedSurfaceForms.isEmpty)
+          null
+        else
+          FSASpotter.buildDictionaryFromIterable(addedSurfaceForms.keys.toList, tokenizer)
+      }
+
+      sfIndex.foreach( _.setAddedSurfaceForms(addedSurfaceForms.toList) )
+    }
+
+    segments.size
+  }
+
+  private def typeIDs(types: Seq[String]): Array[java.lang.Short] = resStore.ontologyTypeStore match {
+    case store: MemoryOntologyTypeStore => types.map(Factory.OntologyType.fromQName(_).typeID).filter(store.idFromName.containsKey).map(store.idFromName.get).toArray
+    case _ => Array[java.lang.Short]()
+  }
+
+  def applyDelta(delta: ModelDelta) {
+    SpotlightLog.info(this.getClass, "Applying model delta %s (%d changes)...", delta.name, delta.changes.size)
+
+    var notFound = 0
+    val removedResources = new java.util.HashSet[Integer]()
+
+    delta.changes.foreach { change: Change =>
+      try {
+        change match {
+          case AddSurfaceForm(sf, annotatedCount, totalCount) => {
+            val id = sfStore.putSurfaceForm(sf, annotatedCount, totalCount)
+            if (id >= sfStore.storedSize)
+              addedSurfaceForms.put(sf, id)
+          }
+          case RemoveSurfaceForm(sf) => {
+            candMapStore.removeCandidates(sfStore.removeSurfaceForm(sf))
+            addedSurfaceForms -= sf
+          }
+          case AddResource(uri, support, types) =>
+            removedResources.remove(resStore.putResource(uri, support, typeIDs(types)))
+          case RemoveResource(uri) =>
+            removedResources.add(resStore.removeResource(uri))
+          case AddCandidate(sf, uri, count) =>
+            candMapStore.putCandidate(sfStore.getSurfaceForm(sf).id, resStore.getResourceByName(uri).id, count)
+          case RemoveCandidate(sf, uri) =>
+            candMapStore.putCandidate(sfStore.getSurfaceForm(sf).id, resStore.getResourceByName(uri).id, 0)
+          case Redirect(uri, targetURI) =>
+            resStore.putRedirect(uri, targetURI)
+        }
+      } catch {
+        case e: SurfaceFormNotFoundException => notFound += 1
+        case e: DBpediaResourceNotFoundException => notFound += 1
+      }
+    }
+
+    if (!removedResources.isEmpty)
+      candMapStore.removeResources(removedResources)
+
+    if (notFound > 0)
+      SpotlightLog.warn(this.getClass, "%d changes in %s refer to unknown surface forms or resources.", notFound, delta.name)
+  }
+
+  /**
+   * Writes the stores including all applied changes to the model folder and moves the applied
+   * delta files to the subfolder compacted of the delta folder. Redirects can not be stored in the
+   * resource store, they are written to a new delta file.
+   *
+   * @param modelFolder the model folder
+   */
+  def compact(modelFolder: File) {
+    synchronized {
+      val modelDataFolder = new File(modelFolder, "model")
+      val quantizedCountStore = sfStore.quantizedCountStore
+
+      val compactedSFStore = sfStore.compacted()
+      MemoryStore.dump(resStore.compacted(), new File(modelDataFolder, "res.mem"))
+      MemoryStore.dump(candMapStore.compacted(compactedSFStore.size), new File(modelDataFolder, "candmap.mem"))
+      MemoryStore.dump(compactedSFStore, new File(modelDataFolder, "sf.mem"))
+      MemoryStore.dump(quantizedCountStore, new File(modelDataFolder, "quantized_counts.mem"))
+
+      if (spotter.isDefined) {
+        compactedSFStore.quantizedCountStore = quantizedCountStore
+        compactedSFStore.loaded()
+        MemoryStore.dump(FSASpotter.buildDictionary(compactedSFStore, tokenizer), new File(modelFolder, "fsa_dict.mem"))
+      }
+
+      val compactedFolder = new File(deltaFolder, "compacted")
+      compactedFolder.mkdirs()
+      applied.foreach { segment: String =>
+        new File(deltaFolder, segment).renameTo(new File(compactedFolder, segment))
+      }
+
+      val redirects = resStore.redirects
+      if (!redirects.isEmpty) {
+        val out = new PrintWriter(new File(deltaFolder, "00000000-redirects" + FILE_SUFFIX), "UTF-8")
+        try {
+          redirects.foreach { case (uri, targetURI) => out.println("redirect\t%s\t%s".format(uri, targetURI)) }
+        } finally {
+          out.close()
+        }
+      }
+
+      SpotlightLog.info(this.getClass, "Compacted %d model deltas.", applied.size)
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+package org.dbpedia.spotlight.db.mapped
+
+import org.dbpedia.spotlight.db.model.{CandidateList, ResourceStore, CandidateMapStore}
+import org.dbpedia.spotlight.model.{Candidate, SurfaceForm}
+
+/**
+ * A candidate map backed by a memory-mapped model file. The candidates of all
+ * surface forms are stored in one contiguous array, the candidates of the surface form
+ * with ID i are in the range offsets(i) until offsets(i+1), sorted by count.
+ *
+ * @see org.dbpedia.spotlight.db.memory.MemoryCandidateMapStore
+ */
+
+class MappedCandidateMapStore(
+  offsets: MappedIntArray,
+  candidates: MappedIntArray,
+  candidateCounts: MappedIntArray,
+  var resourceStore: ResourceStore
+) extends CandidateMapStore {
+
+  def size = (offsets.length - 1).toInt
+
+  def getCandidateList(surfaceform: SurfaceForm): CandidateList = {
+    if (surfaceform.id < 0 || surfaceform.id >= size)
+      return CandidateList.empty(surfaceform)
+
+    val start = offsets(surfaceform.id)
+    val n = offsets(surfaceform.id + 1) - start
+
+    val ids = new Array[Int](n)
+    val counts = new Array[Int](n)
+    var i = 0
+    while (i < n) {
+      ids(i) = candidates(start + i)
+      counts(i) = candidateCounts(start + i)
+      i += 1
+    }
+
+    new CandidateList(surfaceform, ids, counts, 0, n)
+  }
+
+  def getCandidates(surfaceform: SurfaceForm): Set[Candidate] = getCandidateList(surfaceform).toCandidates(resourceStore)
+
+}
@@ -0,0 +1,79 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.util.{Map, HashMap}
+import org.dbpedia.spotlight.db.model.{TokenTypeStore, ContextStore}
+import org.dbpedia.spotlight.model.{TokenType, DBpediaResource}
+
+/**
+ * A context store backed by a memory-mapped model file. The context of the resource
+ * with ID i is in the range offsets(i) until offsets(i+1) of tokens and counts, sorted
+ * by token ID. Counts are stored quantized, countForQuantized is indexed by
+ * (quantized count - Short.MinValue).
+ *
+ * @see org.dbpedia.spotlight.db.memory.MemoryContextStore
+ */
+
+class MappedContextStore(
+  val offsets: MappedLongArray,
+  val tokens: MappedIntArray,
+  val counts: MappedShortArray,
+  val totalTokenCounts: MappedIntArray,
+  countForQuantized: Array[Int],
+  var tokenStore: TokenTypeStore
+) extends ContextStore {
+
+  def size = (offsets.length - 1).toInt
+
+  def qc(quantizedCount: Short): Int = countForQuantized(quantizedCount - Short.MinValue)
+
+  //Binary search for the token in the sorted context of the resource:
+  def getContextCount(resource: DBpediaResource, token: TokenType): Int = {
+    if (resource.id < 0 || resource.id >= size)
+      return 0
+
+    var low = offsets(resource.id)
+    var high = offsets(resource.id + 1) - 1
+    while (low <= high) {
+      val mid = (low + high) >>> 1
+      val t = tokens(mid)
+      if (t < token.id)
+        low = mid + 1
+      else if (t > token.id)
+        high = mid - 1
+      else
+        return qc(counts(mid))
+    }
+    0
+  }
+
+  def getTotalTokenCount(resource: DBpediaResource): Int = totalTokenCounts(resource.id)
+
+  def getContextCounts(resource: DBpediaResource): Map[TokenType, Int] = {
+    val contextCounts = new HashMap[TokenType, Int]()
+
+    var j = offsets(resource.id)
+    while (j < offsets(resource.id + 1)) {
+      contextCounts.put(tokenStore.getTokenTypeByID(tokens(j)), qc(counts(j)))
+      j += 1
+    }
+
+    contextCounts
+  }
+
+  def getRawContextCounts(resource: DBpediaResource): (Seq[Int], Seq[Int]) = {
+    val start = offsets(resource.id)
+    val n = (offsets(resource.id + 1) - start).toInt
+
+    val t = new Array[Int](n)
+    val c = new Array[Int](n)
+    var j = 0
+    while (j < n) {
+      t(j) = tokens(start + j)
+      c(j) = qc(counts(start + j))
+      j += 1
+    }
+
+    (t, c)
+  }
+
+}
@@ -0,0 +1,247 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io.{FileOutputStream, RandomAccessFile, File}
+import java.nio.{ByteOrder, ByteBuffer, MappedByteBuffer}
+import java.nio.channels.FileChannel
+
+
+/**
+ * A read-only, memory-mapped model file.
+ *
+ * A single [[java.nio.MappedByteBuffer]] is limited to 2GB, hence larger files
+ * are mapped in several chunks. All values in the file are aligned to their size
+ * (see [[org.dbpedia.spotlight.db.mapped.MappedFileWriter]]), so that no value crosses
+ * the boundary between two chunks.
+ *
+ * Only absolute reads are used, so a MappedFile can be shared by any number of threads.
+ */
+
+class MappedFile(val file: File) {
+
+  private val channel = new RandomAccessFile(file, "r").getChannel
+
+  val length: Long = channel.size()
+
+  private val chunks: Array[ByteBuffer] = {
+    val n = ((length + MappedFile.CHUNK_SIZE - 1) / MappedFile.CHUNK_SIZE).toInt
+    (0 until n).map { i: Int =>
+      val start = i.toLong * MappedFile.CHUNK_SIZE
+      val chunk: MappedByteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, start, math.min(MappedFile.CHUNK_SIZE, length - start))
+      chunk.order(ByteOrder.LITTLE_ENDIAN)
+    }.toArray
+  }
+
+  @inline private def chunk(pos: Long): ByteBuffer = chunks((pos >>> MappedFile.CHUNK_BITS).toInt)
+  @inline private def index(pos: Long): Int = (pos & MappedFile.CHUNK_MASK).toInt
+
+  def getByte(pos: Long): Byte   = chunk(pos).get(index(pos))
+  def getShort(pos: Long): Short = chunk(pos).getShort(index(pos))
+  def getInt(pos: Long): Int     = chunk(pos).getInt(index(pos))
+  def getLong(pos: Long): Long   = chunk(pos).getLong(index(pos))
+
+  def close() {
+    channel.close()
+  }
+
+}
+
+object MappedFile {
+
+  val CHUNK_BITS = 30
+  val CHUNK_SIZE = 1L << CHUNK_BITS
+  val CHUNK_MASK = CHUNK_SIZE - 1
+
+  //Every section (and every long value) starts at a multiple of ALIGNMENT bytes.
+  val ALIGNMENT = 8
+
+}
+
+
+/**
+ * Sequential reader for the sections of a [[org.dbpedia.spotlight.db.mapped.MappedFile]].
+ * Arrays are not copied, the returned objects are views on the mapped file.
+ */
+
+class MappedFileReader(val file: MappedFile) {
+
+  private var position = 0L
+
+  private def align() {
+    position = (position + MappedFile.ALIGNMENT - 1) / MappedFile.ALIGNMENT * MappedFile.ALIGNMENT
+  }
+
+  def readInt(): Int = {
+    val i = file.getInt(position)
+    position += 4
+    i
+  }
+
+  def readLong(): Long = {
+    align()
+    val l = file.getLong(position)
+    position += 8
+    l
+  }
+
+  def readDouble(): Double = java.lang.Double.longBitsToDouble(readLong())
+
+  def readByteArray(): MappedByteArray = {
+    val n = readLong()
+    val a = new MappedByteArray(file, position, n)
+    position += n
+    a
+  }
+
+  def readShortArray(): MappedShortArray = {
+    val n = readLong()
+    val a = new MappedShortArray(file, position, n)
+    position += 2 * n
+    a
+  }
+
+  def readIntArray(): MappedIntArray = {
+    val n = readLong()
+    val a = new MappedIntArray(file, position, n)
+    position += 4 * n
+    a
+  }
+
+  def readLongArray(): MappedLongArray = {
+    val n = readLong()
+    val a = new MappedLongArray(file, position, n)
+    position += 8 * n
+    a
+  }
+
+  def readStringTable(): MappedStringTable = {
+    new MappedStringTable(readLongArray(), readByteArray(), readIntArray())
+  }
+
+}
+
+
+/**
+ * Sequential writer for memory-mapped model files. All values are written in little endian
+ * byte order, arrays are written as their length (a long) followed by their elements.
+ */
+
+class MappedFileWriter(val file: File) {
+
+  private val channel = new FileOutputStream(file).getChannel
+  private val buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN)
+  private var position = 0L
+
+  private def ensure(n: Int) {
+    if (buffer.remaining() < n)
+      flush()
+  }
+
+  private def flush() {
+    buffer.flip()
+    while (buffer.hasRemaining)
+      channel.write(buffer)
+    buffer.clear()
+  }
+
+  def align() {
+    while (position % MappedFile.ALIGNMENT != 0)
+      writeByte(0)
+  }
+
+  def writeByte(b: Byte) {
+    ensure(1)
+    buffer.put(b)
+    position += 1
+  }
+
+  def writeShort(s: Short) {
+    ensure(2)
+    buffer.putShort(s)
+    position += 2
+  }
+
+  def writeInt(i: Int) {
+    ensure(4)
+    buffer.putInt(i)
+    position += 4
+  }
+
+  def writeLong(l: Long) {
+    align()
+    ensure(8)
+    buffer.putLong(l)
+    position += 8
+  }
+
+  def writeDouble(d: Double) {
+    writeLong(java.lang.Double.doubleToLongBits(d))
+  }
+
+  /**
+   * Starts an array of the specified length. The caller is responsible for writing
+   * exactly length elements of the correct type.
+   */
+  def startArray(length: Long) {
+    writeLong(length)
+  }
+
+  def writeByteArray(a: Array[Byte]) {
+    startArray(a.length)
+    var i = 0
+    while (i < a.length) {
+      writeByte(a(i))
+      i += 1
+    }
+  }
+
+  def writeShortArray(a: Array[Short]) {
+    startArray(a.length)
+    var i = 0
+    while (i < a.length) {
+      writeShort(a(i))
+      i += 1
+    }
+  }
+
+  def writeIntArray(a: Array[Int]) {
+    startArray(a.length)
+    var i = 0
+    while (i < a.length) {
+      writeInt(a(i))
+      i += 1
+    }
+  }
+
+  def writeLongArray(a: Array[Long]) {
+    startArray(a.length)
+    var i = 0
+    while (i < a.length) {
+      writeLong(a(i))
+      i += 1
+    }
+  }
+
+  def close() {
+    align()
+    flush()
+    channel.close()
+  }
+
+}
+
+
+class MappedByteArray(file: MappedFile, offset: Long, val length: Long) {
+  def apply(i: Long): Byte = file.getByte(offset + i)
+}
+
+class MappedShortArray(file: MappedFile, offset: Long, val length: Long) {
+  def apply(i: Long): Short = file.getShort(offset + (i << 1))
+}
+
+class MappedIntArray(file: MappedFile, offset: Long, val length: Long) {
+  def apply(i: Long): Int = file.getInt(offset + (i << 2))
+}
+
+class MappedLongArray(file: MappedFile, offset: Long, val length: Long) {
+  def apply(i: Long): Long = file.getLong(offset + (i << 3))
+}
@@ -0,0 +1,169 @@
+package org.dbpedia.spotlight.db.mapped
+
+/**
+ * Read-only n-gram occurrence data (words, bigrams and trigrams) backed by a memory-mapped file,
+ * this is the embedded replacement for the n-gram database of the co-occurrence based spot selector.
+ *
+ * Words are identified by their ID in the string table. Bigrams are stored as a sorted array of keys
+ * (w1 << 32 | w2), trigrams as an array of keys for the first two words that is sorted by
+ * (key, w3) and an array of the third words. The keys are roughly uniformly distributed, hence they
+ * are searched with interpolation search (alternating with bisection steps to bound the worst case).
+ *
+ * @see org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProviderMapped
+ */
+
+class MappedNGramStore(
+  val words: MappedStringTable,
+  val countCorpus: MappedLongArray,
+  val countWeb: MappedLongArray,
+  val bigramKeys: MappedLongArray,
+  val bigramSignificance: MappedIntArray,
+  val trigramKeys: MappedLongArray,
+  val trigramThird: MappedIntArray,
+  val trigramCounts: MappedLongArray
+) {
+
+  import MappedNGramStore._
+
+  def size = words.size
+
+  /**
+   * Returns the ID of the word or -1 if the word is unknown.
+   */
+  def wordID(word: String): Int = words.getID(word)
+
+  def getCountCorpus(id: Int): Long = countCorpus(id)
+
+  def getCountWeb(id: Int): Long = countWeb(id)
+
+  def getBigramSignificance(i: Long): Float = java.lang.Float.intBitsToFloat(bigramSignificance(i))
+
+  def getTrigramCount(i: Long): Long = trigramCounts(i)
+
+  /**
+   * Returns the index of the bigram or -1 if there is no data for the bigram.
+   */
+  def bigram(w1: Int, w2: Int): Long = findBigram(key(w1, w2), 0L)._1
+
+  /**
+   * Returns the index of the trigram or -1 if there is no data for the trigram.
+   */
+  def trigram(w1: Int, w2: Int, w3: Int): Long = findTrigram(key(w1, w2), w3, 0L)._1
+
+  /**
+   * Returns the indices of the bigrams (-1 for missing bigrams). The bigrams are looked up in
+   * sorted order, so that every lookup only searches the part of the table behind the previous bigram.
+   *
+   * @param w1 IDs of the first words
+   * @param w2 IDs of the second words
+   */
+  def bigrams(w1: Array[Int], w2: Array[Int]): Array[Long] = {
+    val keys = (0 until w1.length).map(i => key(w1(i), w2(i))).toArray
+    val result = new Array[Long](keys.length)
+
+    var from = 0L
+    (0 until keys.length).sortBy(keys(_)).foreach { i: Int =>
+      val (index, next) = findBigram(keys(i), from)
+      result(i) = index
+      from = next
+    }
+    result
+  }
+
+  /**
+   * Returns the indices of the trigrams (-1 for missing trigrams), see bigrams.
+   */
+  def trigrams(w1: Array[Int], w2: Array[Int], w3: Array[Int]): Array[Long] = {
+    val keys = (0 until w1.length).map(i => key(w1(i), w2(i))).toArray
+    val result = new Array[Long](keys.length)
+
+    var from = 0L
+    (0 until keys.length).sortBy(i => (keys(i), w3(i))).foreach { i: Int =>
+      val (index, next) = findTrigram(keys(i), w3(i), from)
+      result(i) = index
+      from = next
+    }
+    result
+  }
+
+  //Both find methods return the index of the n-gram (or -1) and the position from which
+  //larger n-grams can be searched.
+
+  private def findBigram(k: Long, from: Long): (Long, Long) = {
+    val i = lowerBound(bigramKeys, from, bigramKeys.length, k)
+    (if (i < bigramKeys.length && bigramKeys(i) == k) i else -1L, i)
+  }
+
+  private def findTrigram(k: Long, w3: Int, from: Long): (Long, Long) = {
+    val start = lowerBound(trigramKeys, from, trigramKeys.length, k)
+    if (start == trigramKeys.length || trigramKeys(start) != k)
+      return (-1L, start)
+
+    val end = lowerBound(trigramKeys, start, trigramKeys.length, k + 1)
+    val i = lowerBound(trigramThird, start, end, w3)
+    (if (i < end && trigramThird(i) == w3) i else -1L, i)
+  }
+
+}
+
+object MappedNGramStore {
+
+  //Ranges of at most this size are scanned linearly:
+  private val LINEAR_SCAN = 8
+
+  def key(w1: Int, w2: Int): Long = (w1.toLong << 32) | (w2 & 0xffffffffL)
+
+  /**
+   * Returns the index of the first key >= k in the sorted range [from, to) of keys (to if there is no such key).
+   * The keys must be non-negative.
+   */
+  def lowerBound(keys: MappedLongArray, from: Long, to: Long, k: Long): Long = {
+    var lo = from
+    var hi = to
+    var interpolate = true
+
+    //The result is in [lo, hi]:
+    while (hi - lo > LINEAR_SCAN) {
+      val kl = keys(lo)
+      if (kl >= k)
+        return lo
+      val kh = keys(hi - 1)
+      if (kh < k)
+        return hi
+
+      //kl < k <= kh, hence the result is in [lo + 1, hi - 1]:
+      val mid =
+        if (interpolate)
+          lo + 1 + ((k - kl).toDouble / (kh - kl) * (hi - lo - 2)).toLong
+        else
+          (lo + hi) >>> 1
+      interpolate = !interpolate
+
+      if (keys(mid) < k)
+        lo = mid + 1
+      else
+        hi = mid
+    }
+
+    while (lo < hi && keys(lo) < k)
+      lo += 1
+    lo
+  }
+
+  /**
+   * Binary search for the first value >= v in the sorted range [from, to) of values.
+   */
+  def lowerBound(values: MappedIntArray, from: Long, to: Long, v: Int): Long = {
+    var lo = from
+    var hi = to
+    while (lo < hi) {
+      val mid = (lo + hi) >>> 1
+      if (values(mid) < v)
+        lo = mid + 1
+      else
+        hi = mid
+    }
+    lo
+  }
+
+}
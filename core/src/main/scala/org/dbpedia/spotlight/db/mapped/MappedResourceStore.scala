@@ -0,0 +1,74 @@
+package org.dbpedia.spotlight.db.mapped
+
+import org.dbpedia.spotlight.db.model.{OntologyTypeStore, ResourceStore}
+import org.dbpedia.spotlight.model.{OntologyType, DBpediaResource}
+import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException
+import scala.collection.mutable.ListBuffer
+import scala.collection.JavaConversions._
+
+/**
+ * A resource store backed by a memory-mapped model file. The ontology types of the resource
+ * with ID i are in the range typeOffsets(i) until typeOffsets(i+1) of typeIDs.
+ *
+ * @see org.dbpedia.spotlight.db.memory.MemoryResourceStore
+ */
+
+class MappedResourceStore(
+  val uriForID: MappedStringTable,
+  val supportForID: MappedIntArray,
+  typeOffsets: MappedIntArray,
+  typeIDs: MappedShortArray,
+  val ontologyTypeStore: OntologyTypeStore,
+  val totalSupport: Double
+) extends ResourceStore {
+
+  def size = uriForID.size
+
+  def getTypes(id: Int): List[OntologyType] = {
+    val types = ListBuffer[OntologyType]()
+    var i = typeOffsets(id)
+    while (i < typeOffsets(id + 1)) {
+      types += ontologyTypeStore.getOntologyType(typeIDs(i))
+      i += 1
+    }
+    types.toList
+  }
+
+  def getTypeIDs(id: Int): Array[Short] = {
+    val start = typeOffsets(id)
+    val ids = new Array[Short](typeOffsets(id + 1) - start)
+    var i = 0
+    while (i < ids.length) {
+      ids(i) = typeIDs(start + i)
+      i += 1
+    }
+    ids
+  }
+
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def getResource(id: Int): DBpediaResource = {
+    val uri = uriForID.get(id)
+
+    if (uri == null)
+      throw new DBpediaResourceNotFoundException("DBpediaResource %s not found.".format(id))
+
+    val res = new DBpediaResource(uri, supportForID(id))
+    res.uri = uri
+
+    res.id = id
+    res.setTypes(getTypes(id))
+
+    res.setPrior(res.support / totalSupport)
+
+    res
+  }
+
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def getResourceByName(name: String): DBpediaResource = {
+    uriForID.getID(name) match {
+      case id: Int if id > 0 => getResource(id)
+      case _ => throw new DBpediaResourceNotFoundException("Could not find %s".format(name))
+    }
+  }
+
+}
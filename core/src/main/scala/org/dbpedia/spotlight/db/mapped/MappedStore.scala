@@ -0,0 +1,381 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io._
+import it.unimi.dsi.fastutil.Swapper
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator
+import scala.collection.JavaConversions._
+import org.dbpedia.spotlight.log.SpotlightLog
+import org.dbpedia.spotlight.db.memory._
+import org.dbpedia.spotlight.db.model.{OntologyTypeStore, ResourceStore, TokenTypeStore}
+
+/**
+ * Utility object for writing and loading memory-mapped stores.
+ *
+ * Memory-mapped stores use a flat, versioned binary layout: a header (magic number, format version,
+ * store type) followed by the sections of the store, i.e. packed primitive arrays and prebuilt
+ * string hash tables. Opening a store only maps the file, nothing is deserialized, so startup is
+ * near-instant, the stores do not live on the heap and the OS page cache is shared by
+ * all JVMs on the same machine that use the same model.
+ *
+ * The files are created from the Kryo-serialized memory stores (see [[org.dbpedia.spotlight.db.ConvertToMappedModel]]).
+ */
+
+object MappedStore {
+
+  val MAGIC   = 0x4d4d5053 //"SPMM"
+  val VERSION = 2
+
+  val TOKEN_TYPE_STORE    = 1
+  val SURFACE_FORM_STORE  = 2
+  val RESOURCE_STORE      = 3
+  val CANDIDATE_MAP_STORE = 4
+  val CONTEXT_STORE       = 5
+  val NGRAM_STORE         = 6
+
+  //File names of the memory-mapped stores in the model folder:
+  val TOKENS_FILE  = "tokens.mmap"
+  val SF_FILE      = "sf.mmap"
+  val RES_FILE     = "res.mmap"
+  val CANDMAP_FILE = "candmap.mmap"
+  val CONTEXT_FILE = "context.mmap"
+  val NGRAM_FILE   = "ngrams.mmap"
+
+  private def create(out: File, storeType: Int): MappedFileWriter = {
+    val writer = new MappedFileWriter(out)
+    writer.writeInt(MAGIC)
+    writer.writeInt(VERSION)
+    writer.writeInt(storeType)
+    writer
+  }
+
+  private def open(in: File, storeType: Int): MappedFileReader = {
+    val reader = new MappedFileReader(new MappedFile(in))
+
+    if (reader.readInt() != MAGIC)
+      throw new IOException("%s is not a memory-mapped Spotlight store.".format(in))
+
+    val version = reader.readInt()
+    if (version != VERSION)
+      throw new IOException("Incompatible version %d of memory-mapped store %s, expected version %d.".format(version, in, VERSION))
+
+    if (reader.readInt() != storeType)
+      throw new IOException("Unexpected store type in %s.".format(in))
+
+    reader
+  }
+
+  private def timed[T](name: String)(body: => T): T = {
+    SpotlightLog.info(this.getClass, "Opening %s...".format(name))
+    val sStart = System.currentTimeMillis()
+    val s = body
+    SpotlightLog.info(this.getClass, "Done (%d ms)".format(System.currentTimeMillis() - sStart))
+    s
+  }
+
+
+  //Loading
+
+  def loadTokenTypeStore(in: File): MappedTokenTypeStore = timed(in.getName) {
+    val reader = open(in, TOKEN_TYPE_STORE)
+    val totalTokenCount = reader.readDouble()
+    new MappedTokenTypeStore(reader.readStringTable(), reader.readIntArray(), totalTokenCount)
+  }
+
+  def loadSurfaceFormStore(in: File): MappedSurfaceFormStore = timed(in.getName) {
+    val reader = open(in, SURFACE_FORM_STORE)
+    //The totals are stored as Long but the SurfaceFormStore totals are Int, larger totals are capped:
+    val totalAnnotatedCount  = math.min(reader.readLong(), Int.MaxValue).toInt
+    val totalOccurrenceCount = math.min(reader.readLong(), Int.MaxValue).toInt
+
+    new MappedSurfaceFormStore(
+      reader.readStringTable(),
+      reader.readIntArray(),
+      reader.readIntArray(),
+      reader.readStringTable(),
+      reader.readIntArray(),
+      reader.readIntArray(),
+      totalAnnotatedCount,
+      totalOccurrenceCount
+    )
+  }
+
+  def loadResourceStore(in: File): MappedResourceStore = timed(in.getName) {
+    val reader = open(in, RESOURCE_STORE)
+    val totalSupport = reader.readDouble()
+
+    val uris = reader.readStringTable()
+    val support = reader.readIntArray()
+    val typeOffsets = reader.readIntArray()
+    val typeIDs = reader.readShortArray()
+
+    //The ontology type store is tiny, it is Java-serialized and deserialized onto the heap:
+    val otBytes = reader.readByteArray()
+    val otHeapBytes = new Array[Byte](otBytes.length.toInt)
+    (0 until otHeapBytes.length).foreach( i => otHeapBytes(i) = otBytes(i) )
+    val ontologyTypeStore = new ObjectInputStream(new ByteArrayInputStream(otHeapBytes)).readObject().asInstanceOf[OntologyTypeStore]
+
+    new MappedResourceStore(uris, support, typeOffsets, typeIDs, ontologyTypeStore, totalSupport)
+  }
+
+  def loadCandidateMapStore(in: File, resourceStore: ResourceStore): MappedCandidateMapStore = timed(in.getName) {
+    val reader = open(in, CANDIDATE_MAP_STORE)
+    new MappedCandidateMapStore(reader.readIntArray(), reader.readIntArray(), reader.readIntArray(), resourceStore)
+  }
+
+  def loadContextStore(in: File, tokenStore: TokenTypeStore): MappedContextStore = timed(in.getName) {
+    val reader = open(in, CONTEXT_STORE)
+
+    val offsets = reader.readLongArray()
+    val tokens = reader.readIntArray()
+    val counts = reader.readShortArray()
+    val totalTokenCounts = reader.readIntArray()
+
+    val quantized = reader.readIntArray()
+    val countForQuantized = new Array[Int](quantized.length.toInt)
+    (0 until countForQuantized.length).foreach( i => countForQuantized(i) = quantized(i) )
+
+    new MappedContextStore(offsets, tokens, counts, totalTokenCounts, countForQuantized, tokenStore)
+  }
+
+  def loadNGramStore(in: File): MappedNGramStore = timed(in.getName) {
+    val reader = open(in, NGRAM_STORE)
+
+    new MappedNGramStore(
+      reader.readStringTable(),
+      reader.readLongArray(),
+      reader.readLongArray(),
+      reader.readLongArray(),
+      reader.readIntArray(),
+      reader.readLongArray(),
+      reader.readIntArray(),
+      reader.readLongArray()
+    )
+  }
+
+
+  //Writing
+
+  def dumpTokenTypeStore(store: MemoryTokenTypeStore, out: File) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    store.dumping()
+    val writer = create(out, TOKEN_TYPE_STORE)
+
+    writer.writeDouble(store.counts.map(_.toDouble).sum)
+    MappedStringTable.write(writer, store.tokenForId)
+    writer.writeIntArray(store.counts)
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  def dumpSurfaceFormStore(store: MemorySurfaceFormStore, out: File) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    store.dumping()
+    val writer = create(out, SURFACE_FORM_STORE)
+
+    //The totals are summed as Long, the sum of all counts can exceed Int.MaxValue:
+    writer.writeLong(store.annotatedCountForID.foldLeft(0L)(_ + store.qc(_)))
+    writer.writeLong(store.totalCountForID.foldLeft(0L)(_ + store.qc(_)))
+
+    MappedStringTable.write(writer, store.stringForID)
+    writer.writeIntArray(store.annotatedCountForID.map(q => store.qc(q)))
+    writer.writeIntArray(store.totalCountForID.map(q => store.qc(q)))
+
+    //Lowercase map:
+    val lowercaseForms = store.lowercaseMap.keySet().toArray(new Array[String](0))
+    MappedStringTable.write(writer, lowercaseForms)
+
+    val lowercaseOffsets = new Array[Int](lowercaseForms.length + 1)
+    (0 until lowercaseForms.length).foreach { i: Int =>
+      lowercaseOffsets(i+1) = lowercaseOffsets(i) + store.lowercaseMap.get(lowercaseForms(i)).length
+    }
+    writer.writeIntArray(lowercaseOffsets)
+    writer.writeIntArray(lowercaseForms.flatMap(store.lowercaseMap.get(_)))
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  def dumpResourceStore(store: MemoryResourceStore, out: File) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    store.dumping()
+    val writer = create(out, RESOURCE_STORE)
+
+    writer.writeDouble(store.supportForID.foldLeft(0L)(_ + store.qc(_)).toDouble)
+
+    MappedStringTable.write(writer, store.uriForID)
+    writer.writeIntArray(store.supportForID.map(q => store.qc(q)))
+
+    val types = store.typesForID.map( t => if (t == null) Array[java.lang.Short]() else t )
+    val typeOffsets = new Array[Int](types.length + 1)
+    (0 until types.length).foreach { i: Int =>
+      typeOffsets(i+1) = typeOffsets(i) + types(i).length
+    }
+    writer.writeIntArray(typeOffsets)
+    writer.writeShortArray(types.flatMap(_.map(_.shortValue())))
+
+    val otBytes = new ByteArrayOutputStream()
+    val otOut = new ObjectOutputStream(otBytes)
+    otOut.writeObject(store.ontologyTypeStore)
+    otOut.close()
+    writer.writeByteArray(otBytes.toByteArray)
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  def dumpCandidateMapStore(store: MemoryCandidateMapStore, out: File) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    val writer = create(out, CANDIDATE_MAP_STORE)
+
+    //The candidates of the loaded store are already sorted by count:
+    writer.writeIntArray(store.candidateOffsets)
+    writer.writeIntArray(store.candidateIDs)
+    writer.writeIntArray(store.candidateSupport)
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  def dumpContextStore(store: MemoryContextStore, out: File) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    val writer = create(out, CONTEXT_STORE)
+    val n = store.size
+
+    def contextSize(i: Int) = store.contextSize(i)
+
+    //Offsets:
+    writer.startArray(n + 1)
+    var offset = 0L
+    (0 until n).foreach { i: Int =>
+      writer.writeLong(offset)
+      offset += contextSize(i)
+    }
+    writer.writeLong(offset)
+
+    //Tokens and quantized counts, written without materializing the full arrays:
+    writer.startArray(offset)
+    (0 until n).foreach { i: Int =>
+      val tokens = store.contextTokens(i)
+      (0 until contextSize(i)).foreach( j => writer.writeInt(tokens(j)) )
+    }
+
+    writer.startArray(offset)
+    (0 until n).foreach { i: Int =>
+      val counts = store.contextCounts(i)
+      (0 until contextSize(i)).foreach( j => writer.writeShort(counts(j)) )
+    }
+
+    writer.startArray(n)
+    (0 until n).foreach { i: Int =>
+      val counts = store.contextCounts(i)
+      writer.writeInt( (0 until contextSize(i)).map( j => store.qc(counts(j)) ).sum )
+    }
+
+    //Table for decoding the quantized counts:
+    val countForQuantized = new Array[Int](1 << 16)
+    store.quantizedCountStore.countMap.foreach {
+      case (q, count) => countForQuantized(q - Short.MinValue) = count
+    }
+    writer.writeIntArray(countForQuantized)
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  /**
+   * Writes n-gram occurrence data, the bigram and trigram arrays are sorted in place.
+   *
+   * @param words the words indexed by their ID
+   * @param countCorpus corpus count of each word
+   * @param countWeb web count of each word
+   * @param bigramWord1 ID of the first word of each bigram
+   * @param bigramWord2 ID of the second word of each bigram
+   * @param bigramSignificance significance (web) of each bigram
+   * @param trigramWord1 ID of the first word of each trigram
+   * @param trigramWord2 ID of the second word of each trigram
+   * @param trigramWord3 ID of the third word of each trigram
+   * @param trigramCounts count (web) of each trigram
+   */
+  def dumpNGramStore(
+    words: Array[String], countCorpus: Array[Long], countWeb: Array[Long],
+    bigramWord1: Array[Int], bigramWord2: Array[Int], bigramSignificance: Array[Float],
+    trigramWord1: Array[Int], trigramWord2: Array[Int], trigramWord3: Array[Int], trigramCounts: Array[Long],
+    out: File
+  ) {
+    SpotlightLog.info(this.getClass, "Writing %s...".format(out.getName))
+    val writer = create(out, NGRAM_STORE)
+
+    MappedStringTable.write(writer, words)
+    writer.writeLongArray(countCorpus)
+    writer.writeLongArray(countWeb)
+
+    val bigramKeys = (0 until bigramSignificance.length).map(i => MappedNGramStore.key(bigramWord1(i), bigramWord2(i))).toArray
+    sortInPlace(bigramKeys.length,
+      (a: Int, b: Int) => java.lang.Long.signum(bigramKeys(a) - bigramKeys(b)),
+      (a: Int, b: Int) => { swap(bigramKeys, a, b); swap(bigramSignificance, a, b) }
+    )
+    writer.writeLongArray(bigramKeys)
+    writer.writeIntArray(bigramSignificance.map(java.lang.Float.floatToIntBits))
+
+    val trigramKeys = (0 until trigramCounts.length).map(i => MappedNGramStore.key(trigramWord1(i), trigramWord2(i))).toArray
+    val trigramThird = trigramWord3
+    sortInPlace(trigramKeys.length,
+      (a: Int, b: Int) => if (trigramKeys(a) != trigramKeys(b)) java.lang.Long.signum(trigramKeys(a) - trigramKeys(b)) else trigramThird(a).compare(trigramThird(b)),
+      (a: Int, b: Int) => { swap(trigramKeys, a, b); swap(trigramThird, a, b); swap(trigramCounts, a, b) }
+    )
+    writer.writeLongArray(trigramKeys)
+    writer.writeIntArray(trigramThird)
+    writer.writeLongArray(trigramCounts)
+
+    writer.close()
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  //Sorts parallel arrays without boxing the elements:
+  private def sortInPlace(n: Int, comparison: (Int, Int) => Int, swapper: (Int, Int) => Unit) {
+    it.unimi.dsi.fastutil.Arrays.quickSort(0, n,
+      new AbstractIntComparator {
+        def compare(a: Int, b: Int): Int = comparison(a, b)
+      },
+      new Swapper {
+        def swap(a: Int, b: Int) { swapper(a, b) }
+      }
+    )
+  }
+
+  private def swap[T](a: Array[T], i: Int, j: Int) {
+    val t = a(i)
+    a(i) = a(j)
+    a(j) = t
+  }
+
+
+  /**
+   * Converts the Kryo-serialized memory stores in a model data folder (e.g. model/en/model) to
+   * memory-mapped stores in the same folder.
+   *
+   * @param modelDataFolder the folder containing the .mem files
+   */
+  def convert(modelDataFolder: File) {
+    val quantizedCountStore = MemoryStore.loadQuantizedCountStore(new FileInputStream(new File(modelDataFolder, "quantized_counts.mem")))
+
+    val tokenTypeStore = MemoryStore.loadTokenTypeStore(new FileInputStream(new File(modelDataFolder, "tokens.mem")))
+    dumpTokenTypeStore(tokenTypeStore, new File(modelDataFolder, TOKENS_FILE))
+
+    val sfStore = MemoryStore.loadSurfaceFormStore(new FileInputStream(new File(modelDataFolder, "sf.mem")), quantizedCountStore)
+    dumpSurfaceFormStore(sfStore, new File(modelDataFolder, SF_FILE))
+
+    val resStore = MemoryStore.loadResourceStore(new FileInputStream(new File(modelDataFolder, "res.mem")), quantizedCountStore)
+    dumpResourceStore(resStore, new File(modelDataFolder, RES_FILE))
+
+    val candMapStore = MemoryStore.loadCandidateMapStore(new FileInputStream(new File(modelDataFolder, "candmap.mem")), resStore, quantizedCountStore)
+    dumpCandidateMapStore(candMapStore, new File(modelDataFolder, CANDMAP_FILE))
+
+    if (new File(modelDataFolder, "context.mem").exists()) {
+      val contextStore = MemoryStore.loadContextStore(new FileInputStream(new File(modelDataFolder, "context.mem")), tokenTypeStore, quantizedCountStore)
+      dumpContextStore(contextStore, new File(modelDataFolder, CONTEXT_FILE))
+    }
+  }
+
+}
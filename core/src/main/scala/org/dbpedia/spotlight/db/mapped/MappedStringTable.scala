@@ -0,0 +1,148 @@
+package org.dbpedia.spotlight.db.mapped
+
+
+/**
+ * A memory-mapped table of strings indexed by their ID with a prebuilt hash table for
+ * the reverse lookup (string to ID).
+ *
+ * The strings are stored as UTF-8 bytes, offsets(i) is the start of the string with ID i.
+ * The hash table is an open-addressing table (linear probing), each slot contains ID + 1 or 0 if
+ * the slot is empty. Strings of length 0 are treated as missing, this corresponds to
+ * unused (null) IDs in the Kryo-serialized stores.
+ */
+
+class MappedStringTable(offsets: MappedLongArray, bytes: MappedByteArray, slots: MappedIntArray) {
+
+  private val mask = (slots.length - 1).toInt
+
+  def size: Int = (offsets.length - 1).toInt
+
+  /**
+   * Returns the String for the ID or null if there is no String with this ID.
+   *
+   * @param id the string ID
+   * @return
+   */
+  def get(id: Int): String = {
+    if (id < 0 || id >= size)
+      return null
+
+    val start = offsets(id)
+    val length = (offsets(id + 1) - start).toInt
+
+    if (length == 0)
+      return null
+
+    val b = new Array[Byte](length)
+    var i = 0
+    while (i < length) {
+      b(i) = bytes(start + i)
+      i += 1
+    }
+    new String(b, "UTF-8")
+  }
+
+  /**
+   * Returns the ID of the String or -1 if it is not in the table.
+   *
+   * @param s the string
+   * @return
+   */
+  def getID(s: String): Int = {
+    if (s == null || s.isEmpty)
+      return -1
+
+    val b = s.getBytes("UTF-8")
+    var slot = MappedStringTable.hash(b) & mask
+
+    while (slots(slot) != 0) {
+      val id = slots(slot) - 1
+      if (equalsAt(id, b))
+        return id
+      slot = (slot + 1) & mask
+    }
+    -1
+  }
+
+  private def equalsAt(id: Int, b: Array[Byte]): Boolean = {
+    val start = offsets(id)
+    if (offsets(id + 1) - start != b.length)
+      return false
+
+    var i = 0
+    while (i < b.length) {
+      if (bytes(start + i) != b(i))
+        return false
+      i += 1
+    }
+    true
+  }
+
+}
+
+object MappedStringTable {
+
+  /**
+   * FNV-1a hash of the UTF-8 bytes of a String, the hash must be stable across JVMs
+   * since the table is built once when the model is written.
+   */
+  def hash(b: Array[Byte]): Int = {
+    var h = 0x811c9dc5
+    var i = 0
+    while (i < b.length) {
+      h ^= (b(i) & 0xff)
+      h *= 0x01000193
+      i += 1
+    }
+    h ^ (h >>> 16)
+  }
+
+  /**
+   * Writes the table for strings, where the position of a string in the array is its ID.
+   *
+   * @param writer the file writer
+   * @param strings strings indexed by ID, may contain null
+   */
+  def write(writer: MappedFileWriter, strings: Array[String]) {
+
+    val encoded = strings.map{ s: String => if (s == null) new Array[Byte](0) else s.getBytes("UTF-8") }
+
+    //Offsets:
+    writer.startArray(encoded.length + 1)
+    var offset = 0L
+    encoded.foreach { b: Array[Byte] =>
+      writer.writeLong(offset)
+      offset += b.length
+    }
+    writer.writeLong(offset)
+
+    //UTF-8 bytes:
+    writer.startArray(offset)
+    encoded.foreach { b: Array[Byte] =>
+      var i = 0
+      while (i < b.length) {
+        writer.writeByte(b(i))
+        i += 1
+      }
+    }
+
+    //Hash table with a load factor <= 0.5:
+    var tableSize = 2
+    while (tableSize < 2L * encoded.length)
+      tableSize *= 2
+
+    val slots = new Array[Int](tableSize)
+    var id = 0
+    while (id < encoded.length) {
+      if (encoded(id).length > 0) {
+        var slot = hash(encoded(id)) & (tableSize - 1)
+        while (slots(slot) != 0)
+          slot = (slot + 1) & (tableSize - 1)
+        slots(slot) = id + 1
+      }
+      id += 1
+    }
+    writer.writeIntArray(slots)
+  }
+
+}
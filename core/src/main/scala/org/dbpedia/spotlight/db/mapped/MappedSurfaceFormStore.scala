@@ -0,0 +1,91 @@
+package org.dbpedia.spotlight.db.mapped
+
+import org.dbpedia.spotlight.db.model.SurfaceFormStore
+import org.dbpedia.spotlight.model.SurfaceForm
+import org.dbpedia.spotlight.exceptions.SurfaceFormNotFoundException
+import org.dbpedia.spotlight.db.memory.MemorySurfaceFormStore
+
+/**
+ * A surface form store backed by a memory-mapped model file.
+ *
+ * The lowercase map of the Kryo store is stored as a string table of the lowercased
+ * surface forms and one contiguous array of values: for the lowercased surface form with ID i,
+ * lowercaseValues(lowercaseOffsets(i)) is the count of the lowercase form, the following values
+ * until lowercaseOffsets(i+1) are the IDs of the surface forms with the same lowercase form.
+ *
+ * @see org.dbpedia.spotlight.db.memory.MemorySurfaceFormStore
+ */
+
+class MappedSurfaceFormStore(
+  val stringForID: MappedStringTable,
+  val annotatedCountForID: MappedIntArray,
+  val totalCountForID: MappedIntArray,
+  lowercaseForms: MappedStringTable,
+  lowercaseOffsets: MappedIntArray,
+  lowercaseValues: MappedIntArray,
+  totalAnnotatedCount: Int,
+  totalOccurrenceCount: Int
+) extends SurfaceFormStore {
+
+  def size = stringForID.size
+
+  def getTotalAnnotatedCount: Int = totalAnnotatedCount
+  def getTotalOccurrenceCount: Int = totalOccurrenceCount
+
+  def iterateSurfaceForms: Seq[SurfaceForm] = {
+    (0 until size).filter(id => annotatedCountForID(id) > 0).map(sfForID)
+  }
+
+  private def sfForID(id: Int) = new SurfaceForm(stringForID.get(id), id, annotatedCountForID(id), totalCountForID(id))
+
+  def getSurfaceFormByID(id: Int): SurfaceForm = stringForID.get(id) match {
+    case null => null
+    case name: String => new SurfaceForm(name, id, annotatedCountForID(id), totalCountForID(id))
+  }
+
+  @throws(classOf[SurfaceFormNotFoundException])
+  def getSurfaceForm(surfaceform: String): SurfaceForm = {
+    val id = stringForID.getID(surfaceform)
+
+    if (id < 0)
+      throw new SurfaceFormNotFoundException("SurfaceForm %s not found.".format(surfaceform))
+
+    sfForID(id)
+  }
+
+  def getSurfaceFormsNormalized(surfaceform: String): Set[SurfaceForm] = {
+    val lowercaseID = lowercaseForms.getID(surfaceform.toLowerCase)
+
+    if (lowercaseID < 0)
+      Set[SurfaceForm]()
+    else
+      (lowercaseOffsets(lowercaseID) + 1 until lowercaseOffsets(lowercaseID + 1)).map( i => sfForID(lowercaseValues(i)) ).toSet
+  }
+
+  @throws(classOf[SurfaceFormNotFoundException])
+  def getSurfaceFormNormalized(surfaceform: String): SurfaceForm = {
+    val sfs = getRankedSurfaceFormCandidates(surfaceform)
+
+    if (sfs.isEmpty)
+      throw new SurfaceFormNotFoundException(surfaceform)
+    else
+      sfs.head._1
+  }
+
+  def getRankedSurfaceFormCandidates(surfaceform: String): Seq[(SurfaceForm, Double)] =
+    MemorySurfaceFormStore.rankSurfaceFormCandidates(
+      surfaceform,
+      getSurfaceFormsNormalized(surfaceform),
+      getLowercaseSurfaceFormCount(surfaceform.toLowerCase)
+    )
+
+  def getLowercaseSurfaceFormCount(surfaceform: String): Int = {
+    val lowercaseID = lowercaseForms.getID(surfaceform)
+
+    if (lowercaseID < 0 || lowercaseOffsets(lowercaseID) == lowercaseOffsets(lowercaseID + 1))
+      0
+    else
+      lowercaseValues(lowercaseOffsets(lowercaseID))
+  }
+
+}
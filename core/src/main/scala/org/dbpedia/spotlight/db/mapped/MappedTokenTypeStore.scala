@@ -0,0 +1,48 @@
+package org.dbpedia.spotlight.db.mapped
+
+import org.dbpedia.spotlight.db.model.TokenTypeStore
+import org.dbpedia.spotlight.model.TokenType
+
+/**
+ * A token type store backed by a memory-mapped model file.
+ *
+ * @see org.dbpedia.spotlight.db.memory.MemoryTokenTypeStore
+ */
+
+class MappedTokenTypeStore(
+  val tokenForId: MappedStringTable,
+  val counts: MappedIntArray,
+  totalTokenCount: Double
+) extends TokenTypeStore {
+
+  def size = tokenForId.size
+
+  //Canonical TokenType object of each ID, created on first use:
+  private val tokenTypes = new Array[TokenType](counts.length.toInt)
+
+  def getTokenType(token: String): TokenType = {
+    val id = tokenForId.getID(token)
+
+    if (id < 0)
+      TokenType.UNKNOWN
+    else
+      getTokenTypeByID(id)
+  }
+
+  def getTokenTypeByID(id: Int): TokenType = {
+    //TokenTypes are immutable, so concurrent calls may at worst create the same TokenType twice:
+    val cached = tokenTypes(id)
+    if (cached != null) {
+      cached
+    } else {
+      val tokenType = new TokenType(id, tokenForId.get(id), counts(id))
+      tokenTypes(id) = tokenType
+      tokenType
+    }
+  }
+
+  def getTotalTokenCount: Double = totalTokenCount
+
+  def getVocabularySize: Int = counts.length.toInt
+
+}
@@ -1,11 +1,19 @@
 package org.dbpedia.spotlight.db.memory
 
 import org.dbpedia.spotlight.model.{Candidate, SurfaceForm}
-import org.dbpedia.spotlight.db.model.{ResourceStore, CandidateMapStore}
+import org.dbpedia.spotlight.db.model.{CandidateList, ResourceStore, CandidateMapStore}
+import org.dbpedia.spotlight.log.SpotlightLog
 import scala.Array
+import java.util.concurrent.ConcurrentHashMap
+import scala.collection.JavaConversions._
 
 /**
+ * Candidate map for surface forms.
  *
+ * The candidates are serialized as one array per surface form. After loading, they are
+ * stored in one contiguous array (candidateIDs, candidateSupport) sorted by count for each
+ * surface form, the candidates of the surface form with ID i are in the range
+ * candidateOffsets(i) until candidateOffsets(i+1).
  *
  * @author Joachim Daiber
  */
@@ -18,19 +26,169 @@ class MemoryCandidateMapStore
   var candidates      = Array[Array[Int]]()
   var candidateCounts = Array[Array[Short]]()
 
-  def size = candidates.size
+  @transient
+  var candidateOffsets: Array[Int] = null
+
+  @transient
+  var candidateIDs: Array[Int] = null
+
+  @transient
+  var candidateSupport: Array[Int] = null
+
+  def size = if (candidateOffsets != null) candidateOffsets.length - 1 else candidates.size
 
   @transient
   var resourceStore: ResourceStore = null
 
-  def getCandidates(surfaceform: SurfaceForm): Set[Candidate] = {
-    try {
-      candidates(surfaceform.id).zip(candidateCounts(surfaceform.id)).map {
-            case (resID, count) => new Candidate(surfaceform, resourceStore.getResource(resID), qc(count))
-      }.toSet
-    } catch {
-      case e: NullPointerException => Set[Candidate]()
+  /*
+   * Candidates of surface forms that were changed by model deltas (see org.dbpedia.spotlight.db.delta.ModelUpdater),
+   * they replace the candidates in the contiguous arrays. The pairs of resource IDs and supports are sorted
+   * like the contiguous arrays. They are not serialized, compacted() creates a store that contains them.
+   */
+  @transient
+  var deltaCandidates: ConcurrentHashMap[Integer, (Array[Int], Array[Int])] = null
+
+  override def loaded() {
+    createCandidateArrays()
+  }
+
+  /**
+   * Moves the candidates into the contiguous arrays, sorts them by count and decodes the
+   * quantized counts. The per-surface form arrays are not required after this.
+   */
+  def createCandidateArrays() {
+    SpotlightLog.info(this.getClass, "Creating contiguous candidate arrays...")
+
+    candidateOffsets = new Array[Int](candidates.length + 1)
+    var i = 0
+    while (i < candidates.length) {
+      candidateOffsets(i+1) = candidateOffsets(i) + (if (candidates(i) == null) 0 else candidates(i).length)
+      i += 1
     }
+
+    candidateIDs = new Array[Int](candidateOffsets(candidates.length))
+    candidateSupport = new Array[Int](candidateOffsets(candidates.length))
+
+    i = 0
+    while (i < candidates.length) {
+      if (candidates(i) != null) {
+        val counts = candidateCounts(i).map(qc)
+        var j = candidateOffsets(i)
+        (0 until counts.length).sortBy(-counts(_)).foreach { k: Int =>
+          candidateIDs(j) = candidates(i)(k)
+          candidateSupport(j) = counts(k)
+          j += 1
+        }
+      }
+      i += 1
+    }
+
+    candidates = null
+    candidateCounts = null
+    SpotlightLog.info(this.getClass, "Done.")
+  }
+
+  def getCandidateList(surfaceform: SurfaceForm): CandidateList = {
+    if (deltaCandidates != null) {
+      val changed = deltaCandidates.get(surfaceform.id)
+      if (changed != null)
+        return new CandidateList(surfaceform, changed._1, changed._2, 0, changed._1.length)
+    }
+
+    if (surfaceform.id < 0 || surfaceform.id >= size)
+      CandidateList.empty(surfaceform)
+    else
+      new CandidateList(
+        surfaceform,
+        candidateIDs,
+        candidateSupport,
+        candidateOffsets(surfaceform.id),
+        candidateOffsets(surfaceform.id + 1) - candidateOffsets(surfaceform.id)
+      )
+  }
+
+  def getCandidates(surfaceform: SurfaceForm): Set[Candidate] = getCandidateList(surfaceform).toCandidates(resourceStore)
+
+  private def candidatesOf(sfID: Int): (Array[Int], Array[Int]) = {
+    val l = getCandidateList(new SurfaceForm("", sfID, 0, 0))
+    ((0 until l.size).map(l.resourceID).toArray, (0 until l.size).map(l.support).toArray)
+  }
+
+  private def putCandidates(sfID: Int, resourceIDs: Array[Int], supports: Array[Int]) {
+    if (deltaCandidates == null)
+      deltaCandidates = new ConcurrentHashMap[Integer, (Array[Int], Array[Int])]()
+
+    val order = (0 until resourceIDs.length).sortBy(-supports(_))
+    deltaCandidates.put(sfID, (order.map(resourceIDs).toArray, order.map(supports).toArray))
+  }
+
+  /**
+   * Sets the support of a candidate of a surface form, the candidate is removed if the support is 0.
+   */
+  def putCandidate(sfID: Int, resourceID: Int, support: Int) {
+    synchronized {
+      val (ids, supports) = candidatesOf(sfID)
+      val i = ids.indexOf(resourceID)
+
+      if (i >= 0 && support > 0) {
+        supports(i) = support
+        putCandidates(sfID, ids, supports)
+      } else if (i >= 0) {
+        putCandidates(sfID, ids.take(i) ++ ids.drop(i + 1), supports.take(i) ++ supports.drop(i + 1))
+      } else if (support > 0) {
+        putCandidates(sfID, ids :+ resourceID, supports :+ support)
+      }
+    }
+  }
+
+  /**
+   * Removes all candidates of a surface form.
+   */
+  def removeCandidates(sfID: Int) {
+    synchronized {
+      putCandidates(sfID, Array[Int](), Array[Int]())
+    }
+  }
+
+  /**
+   * Removes the resources from the candidates of all surface forms.
+   */
+  def removeResources(resourceIDs: java.util.Set[Integer]) {
+    synchronized {
+      val sfIDs = (0 until size).filter { sfID: Int =>
+        val l = getCandidateList(new SurfaceForm("", sfID, 0, 0))
+        (0 until l.size).exists(i => resourceIDs.contains(l.resourceID(i)))
+      } ++ (if (deltaCandidates == null) Seq() else deltaCandidates.keySet().toSeq.map(_.intValue()).filter(_ >= size))
+
+      sfIDs.distinct.foreach { sfID: Int =>
+        val (ids, supports) = candidatesOf(sfID)
+        val keep = (0 until ids.length).filter(i => !resourceIDs.contains(ids(i)))
+        if (keep.length < ids.length)
+          putCandidates(sfID, keep.map(ids).toArray, keep.map(supports).toArray)
+      }
+    }
+  }
+
+  /**
+   * Returns a new store that contains all candidates including the changes from model deltas,
+   * in the serialized form.
+   *
+   * @param numberOfSurfaceForms the number of surface forms (including the ones added by deltas)
+   */
+  def compacted(numberOfSurfaceForms: Int): MemoryCandidateMapStore = {
+    val store = new MemoryCandidateMapStore()
+    store.candidates = new Array[Array[Int]](numberOfSurfaceForms)
+    store.candidateCounts = new Array[Array[Short]](numberOfSurfaceForms)
+
+    (0 until numberOfSurfaceForms).foreach { sfID: Int =>
+      val (ids, supports) = candidatesOf(sfID)
+      if (ids.length > 0) {
+        store.candidates(sfID) = ids
+        store.candidateCounts(sfID) = supports.map(quantizedCountStore.addCount)
+      }
+    }
+
+    store
   }
 
 }
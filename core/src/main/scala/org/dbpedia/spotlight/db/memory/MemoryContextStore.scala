@@ -7,13 +7,18 @@ import com.esotericsoftware.kryo.io.{Input, Output}
 import org.apache.commons.lang.{SerializationException, NotImplementedException}
 import com.esotericsoftware.kryo.{KryoException, Kryo, KryoSerializable}
 import org.dbpedia.spotlight.model.{TokenType, Token, DBpediaResource}
+import org.dbpedia.spotlight.log.SpotlightLog
+import util.ContextPostings
 
 
 /**
- * @author Joachim Daiber
- *
- *
+ * The context of each resource: the sorted IDs of the tokens that occur with the resource and
+ * their quantized counts. The contexts are stored either as one array of token IDs and one array
+ * of counts per resource (tokens and counts) or, after compress(), as compressed postings.
+ * A compressed store is also written compressed, so a model whose context.mem has been compressed
+ * offline (see MemoryStore.compressContextStore) is loaded without the uncompressed arrays.
  *
+ * @author Joachim Daiber
  */
 
 @SerialVersionUID(1007001)
@@ -31,40 +36,111 @@ class MemoryContextStore
   var tokens: Array[Array[Int]] = null
   var counts: Array[Array[Short]] = null
 
-  def size = tokens.length
+  //The compressed contexts (tokens and counts are null if the store is compressed):
+  var postings: ContextPostings = null
+
+  def size = if (postings != null) postings.size else tokens.length
+
+  def isCompressed: Boolean = postings != null
+
+  /* Number of tokens in the context of the resource with the ID. */
+  def contextSize(i: Int): Int =
+    if (i >= size) 0
+    else if (postings != null) postings.contextSize(i)
+    else if (tokens(i) == null) 0
+    else tokens(i).length
+
+  /* Token IDs of the context of the resource with the ID or null if it has no context. */
+  def contextTokens(i: Int): Array[Int] =
+    if (i >= size) null
+    else if (postings != null) postings.tokens(i)
+    else tokens(i)
+
+  /* Quantized counts of the context of the resource with the ID or null if it has no context. */
+  def contextCounts(i: Int): Array[Short] =
+    if (i >= size) null
+    else if (postings != null) postings.counts(i)
+    else counts(i)
+
+  /**
+   * Replaces the token and count arrays with compressed postings. The arrays of each resource
+   * are released as soon as they are encoded.
+   */
+  def compress() {
+    if (postings != null)
+      return
+
+    SpotlightLog.info(this.getClass, "Compressing the contexts of %d resources...", tokens.length)
+
+    var min = Short.MaxValue
+    var max = Short.MinValue
+    counts.foreach { c: Array[Short] =>
+      if (c != null)
+        c.foreach { q: Short =>
+          if (q < min) min = q
+          if (q > max) max = q
+        }
+    }
+    if (min > max)
+      min = max
+
+    val builder = new ContextPostings.Builder(tokens.length, min, ContextPostings.bitsFor(min, max))
+    var i = 0
+    while (i < tokens.length) {
+      builder.add(i, tokens(i), counts(i))
+      tokens(i) = null
+      counts(i) = null
+      i += 1
+    }
+
+    postings = builder.build()
+    tokens = null
+    counts = null
+
+    SpotlightLog.info(this.getClass, "Done (%d bytes).", postings.bytes)
+  }
 
   def getContextCount(resource: DBpediaResource, token: TokenType): Int = {
     throw new NotImplementedException()
   }
 
-  def getTotalTokenCount(resource: DBpediaResource): Int = totalTokenCounts(resource.id)
+  //Resources that were added after the context store was created (e.g. by a model delta) have no context:
+  def getTotalTokenCount(resource: DBpediaResource): Int = if (resource.id < totalTokenCounts.length) totalTokenCounts(resource.id) else 0
 
   def getContextCounts(resource: DBpediaResource): Map[TokenType, Int] = {
 
-    val contextCounts = new HashMap[TokenType, Int]()
-    val i = resource.id
+    val tokenCounts = new HashMap[TokenType, Int]()
+    val t = contextTokens(resource.id)
 
-    if (tokens(i) != null) {
-      val t = tokens(i)
-      val c = counts(i)
+    if (t != null) {
+      val c = contextCounts(resource.id)
 
       (0 to t.length-1) foreach { j =>
-        contextCounts.put(tokenStore.getTokenTypeByID(t(j)), qc(c(j)))
+        tokenCounts.put(tokenStore.getTokenTypeByID(t(j)), qc(c(j)))
       }
     }
 
-    contextCounts
+    tokenCounts
   }
 
 
   def getRawContextCounts(resource: DBpediaResource): (Seq[Int], Seq[Int]) = {
-    if(tokens(resource.id) == null)
+    val t = contextTokens(resource.id)
+    if(t == null)
       (Seq[Int](), Seq[Int]())
     else
-      (tokens(resource.id), counts(resource.id).map(qc))
+      (t, contextCounts(resource.id).map(qc))
   }
 
   def write(kryo: Kryo, output: Output) {
+    //Compressed stores are marked by a negative size:
+    if (postings != null) {
+      output.writeInt(-1)
+      postings.write(output)
+      output.writeChar('#')
+      return
+    }
+
     output.writeInt(tokens.length)
 
     (0 to tokens.length-1).foreach { i =>
@@ -88,6 +164,18 @@ class MemoryContextStore
   * Calculates totalTokenCounts once kryo has read the Serialized Object
   * */
   def calculateTotalTokenCounts(){
+    if (postings != null) {
+      val cursor = postings.cursor(0)
+      var i = 0
+      while (i < postings.size) {
+        cursor.reset(i)
+        while (cursor.next())
+          totalTokenCounts(i) += qc(cursor.count)
+        i += 1
+      }
+      return
+    }
+
     var i = 0
     while(i < counts.size){
 
@@ -108,6 +196,15 @@ class MemoryContextStore
   def read(kryo: Kryo, input: Input) {
     val size = input.readInt()
 
+    if (size < 0) {
+      postings = ContextPostings.read(input)
+      totalTokenCounts = new Array[Int](postings.size)
+
+      if(input.readChar() != '#')
+        throw new KryoException("Error in deserializing context store...")
+      return
+    }
+
     tokens = new Array[Array[Int]](size)
     counts = new Array[Array[Short]](size)
     totalTokenCounts = new Array[Int](size)
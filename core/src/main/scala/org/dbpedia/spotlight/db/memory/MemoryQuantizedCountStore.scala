@@ -2,6 +2,7 @@ package org.dbpedia.spotlight.db.memory
 
 import org.dbpedia.spotlight.db.model.QuantizedCountStore
 import scala.collection.mutable
+import scala.collection.JavaConversions._
 
 class MemoryQuantizedCountStore extends MemoryStore with QuantizedCountStore {
 
@@ -12,11 +13,15 @@ class MemoryQuantizedCountStore extends MemoryStore with QuantizedCountStore {
   @transient
   var countLookup: mutable.HashMap[Int, Short] = null
 
-  def addCount(count: Int): Short = {
+  def addCount(count: Int): Short = synchronized {
 
-    if(countLookup == null)
+    if(countLookup == null) {
       countLookup = mutable.HashMap[Int, Short]()
 
+      //Counts may be added to a store that has been loaded (e.g. when a model is compacted):
+      countMap.foreach { case (s, c) => countLookup.put(c, s) }
+    }
+
     countLookup.get(count) match {
       case Some(s) => s
       case None => {
@@ -8,7 +8,8 @@ import scala.{throws, transient}
 import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException
 import org.dbpedia.spotlight.db.model.{OntologyTypeStore, ResourceStore}
 import java.lang.Integer
-import util.StringToIDMapFactory
+import util.StringPool
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * @author Joachim Daiber
@@ -25,12 +26,33 @@ class MemoryResourceStore
   var uriForID: Array[String] = null
   var typesForID: Array[Array[java.lang.Short]] = null
 
+  //The URIs (replaces uriForID once the store is loaded):
   @transient
-  var idFromURI: java.util.Map[String, Integer] = null
+  var uris: StringPool = null
 
   @transient
   var totalSupport = 0.0
 
+  /*
+   * Changes from model deltas (see org.dbpedia.spotlight.db.delta.ModelUpdater). They are not
+   * serialized, compacted() creates a store that contains them (except for the redirects).
+   *
+   * deltaIDFromURI contains the resources that were added and the redirects, deltaResources
+   * contains the support and the types of all added or changed resources by their ID.
+   */
+
+  @transient
+  var deltaIDFromURI: ConcurrentHashMap[String, Integer] = null
+
+  @transient
+  var deltaResources: ConcurrentHashMap[Integer, (String, Int, Array[java.lang.Short])] = null
+
+  @transient
+  var removedIDs: java.util.Set[Integer] = null
+
+  @transient
+  var nextID = 0
+
   override def loaded() {
     createReverseLookup()
     SpotlightLog.info(this.getClass, "Counting total support...")
@@ -38,38 +60,48 @@ class MemoryResourceStore
     SpotlightLog.info(this.getClass, "Done.")
   }
 
-  def size = uriForID.size
+  def size = if (deltaIDFromURI == null) storedSize else nextID
+
+  /* Number of resources in the store without the ones added by model deltas. */
+  def storedSize: Int = if (uris != null) uris.size else uriForID.size
+
+  def uri(id: Int): String = if (uris != null) uris.get(id) else uriForID(id)
 
   def createReverseLookup() {
     if (uriForID != null) {
-      SpotlightLog.info(this.getClass, "Creating reverse-lookup for DBpedia resources.")
-      idFromURI = StringToIDMapFactory.createDefault(uriForID.size)
-
-      var i = 0
-      uriForID foreach { uri => {
-        idFromURI.put(uri, i)
-        i += 1
-      }
-      }
+      SpotlightLog.info(this.getClass, "Creating string pool for DBpedia resources.")
+      uris = StringPool(uriForID)
+      uriForID = null
     }
   }
 
+  override def dumping() {
+    if (uriForID == null && uris != null)
+      uriForID = uris.toArray
+  }
+
   @throws(classOf[DBpediaResourceNotFoundException])
   def getResource(id: Int): DBpediaResource = {
 
-    val uri = try {
-      uriForID(id)
-    } catch {
-      case e: java.lang.ArrayIndexOutOfBoundsException => null
+    val changed = if (deltaResources == null) null else deltaResources.get(id)
+
+    val uri = if (changed != null) {
+      changed._1
+    } else {
+      try {
+        uri(id)
+      } catch {
+        case e: java.lang.ArrayIndexOutOfBoundsException => null
+      }
     }
 
-    if (uri == null)
+    if (uri == null || (removedIDs != null && removedIDs.contains(id)))
       throw new DBpediaResourceNotFoundException("DBpediaResource %s not found.".format(uri))
 
-    val support = supportForID(id)
-    val typeIDs = typesForID(id)
+    val support = if (changed != null) changed._2 else qc(supportForID(id))
+    val typeIDs = if (changed != null) changed._3 else typesForID(id)
 
-    val res = new DBpediaResource(uri, qc(support))
+    val res = new DBpediaResource(uri, support)
     res.uri = uri
 
     res.id = id
@@ -82,12 +114,128 @@ class MemoryResourceStore
 
   @throws(classOf[DBpediaResourceNotFoundException])
   def getResourceByName(name: String): DBpediaResource = {
-    idFromURI.get(name) match {
-      case id: Integer if id > 0 => getResource(id)
+    idForName(name) match {
+      case id: Integer => getResource(id)
       case _ => throw new DBpediaResourceNotFoundException("Could not find %s".format(name))
     }
   }
 
+  private def initDelta() {
+    if (deltaIDFromURI == null) {
+      nextID = storedSize
+      deltaResources = new ConcurrentHashMap[Integer, (String, Int, Array[java.lang.Short])]()
+      removedIDs = java.util.Collections.newSetFromMap(new ConcurrentHashMap[Integer, java.lang.Boolean]())
+      deltaIDFromURI = new ConcurrentHashMap[String, Integer]()
+    }
+  }
+
+  private def idForName(name: String): Integer = {
+    val id: Integer = if (deltaIDFromURI != null && deltaIDFromURI.containsKey(name)) deltaIDFromURI.get(name) else uris.getID(name)
+    if (id != null && id > 0) id else null
+  }
+
+  /**
+   * Adds a DBpedia resource or changes the support and types of an existing resource.
+   *
+   * @param name name of the resource (without namespace)
+   * @param support the support of the resource
+   * @param typeIDs IDs of the ontology types of the resource in the ontologyTypeStore
+   * @return the ID of the resource
+   */
+  def putResource(name: String, support: Int, typeIDs: Array[java.lang.Short]): Int = synchronized {
+    initDelta()
+
+    var id = idForName(name)
+    if (id == null) {
+      id = nextID
+      nextID += 1
+      deltaIDFromURI.put(name, id)
+    } else if (!removedIDs.contains(id)) {
+      totalSupport -= getResource(id).support
+    }
+
+    deltaResources.put(id, (name, support, typeIDs))
+    removedIDs.remove(id)
+    totalSupport += support
+    id
+  }
+
+  /**
+   * Removes a DBpedia resource.
+   *
+   * @return the ID of the removed resource
+   */
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def removeResource(name: String): Int = synchronized {
+    val res = getResourceByName(name)
+
+    initDelta()
+    removedIDs.add(res.id)
+    totalSupport -= res.support
+    res.id
+  }
+
+  /**
+   * Makes the name refer to the target resource.
+   */
+  @throws(classOf[DBpediaResourceNotFoundException])
+  def putRedirect(name: String, target: String): Int = synchronized {
+    val res = getResourceByName(target)
+
+    initDelta()
+    deltaIDFromURI.put(name, res.id)
+    res.id
+  }
+
+  /**
+   * Returns the redirects from model deltas as pairs of name and target name.
+   */
+  def redirects: Seq[(String, String)] = {
+    if (deltaIDFromURI == null)
+      Seq()
+    else
+      deltaIDFromURI.entrySet().toSeq.flatMap { e =>
+        try {
+          val target = getResource(e.getValue).uri
+          if (target != e.getKey) Some((e.getKey, target)) else None
+        } catch {
+          case ex: DBpediaResourceNotFoundException => None
+        }
+      }
+  }
+
+  /**
+   * Returns a new store that contains all resources including the changes from model deltas.
+   * Removed resources keep their ID but are not found anymore.
+   */
+  def compacted(): MemoryResourceStore = {
+    val store = new MemoryResourceStore()
+    store.ontologyTypeStore = ontologyTypeStore
+    store.uriForID = new Array[String](size)
+    store.supportForID = new Array[Short](size)
+    store.typesForID = new Array[Array[java.lang.Short]](size)
+
+    (0 until size).foreach { id: Int =>
+      val removed = removedIDs != null && removedIDs.contains(id)
+      val changed = if (deltaResources == null) null else deltaResources.get(id)
+
+      if (removed) {
+        store.supportForID(id) = quantizedCountStore.addCount(0)
+        store.typesForID(id) = Array[java.lang.Short]()
+      } else if (changed != null) {
+        store.uriForID(id) = changed._1
+        store.supportForID(id) = quantizedCountStore.addCount(changed._2)
+        store.typesForID(id) = changed._3
+      } else {
+        store.uriForID(id) = uri(id)
+        store.supportForID(id) = supportForID(id)
+        store.typesForID(id) = typesForID(id)
+      }
+    }
+
+    store
+  }
+
 
 
 }
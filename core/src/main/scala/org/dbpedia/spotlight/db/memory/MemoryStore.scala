@@ -41,6 +41,12 @@ abstract class MemoryStore extends Serializable {
    */
   def loaded() {}
 
+  /**
+   * Method called before the store is serialized. Implementations may override this
+   * method in order to restore fields that were replaced when the store was loaded.
+   */
+  def dumping() {}
+
   def size: Int
 }
 
@@ -197,11 +203,36 @@ object MemoryStore {
     load[MemoryQuantizedCountStore](in, classOf[MemoryQuantizedCountStore].getSimpleName)
   }
 
+  /**
+   * Replaces context.mem in the model data folder with the compressed postings of the contexts (see
+   * MemoryContextStore.compress). This is done once offline, the compressed file is read directly when
+   * the model is loaded, which requires much less memory and time than reading the uncompressed arrays.
+   */
+  def compressContextStore(modelDataFolder: File) {
+    val contextFile = new File(modelDataFolder, "context.mem")
+    val quantizedCountStore = loadQuantizedCountStore(new FileInputStream(new File(modelDataFolder, "quantized_counts.mem")))
+    val store = loadContextStore(new FileInputStream(contextFile), null, quantizedCountStore)
+
+    if (store.isCompressed) {
+      SpotlightLog.info(this.getClass, "%s is already compressed.", contextFile)
+      return
+    }
+
+    store.compress()
+
+    //Replace the file only after the compressed store has been written completely:
+    val compressedFile = new File(modelDataFolder, "context.mem.compressed")
+    dump(store, compressedFile)
+    if (!contextFile.delete() || !compressedFile.renameTo(contextFile))
+      throw new IOException("Could not replace %s with %s.".format(contextFile, compressedFile))
+  }
+
   def dump(store: MemoryStore, out: File) {
     val kryo = kryos.get(store.getClass.getSimpleName).get
 
     //The QC store may not be serialized as part of the store, it is serialized separately
     store.quantizedCountStore = null
+    store.dumping()
 
     SpotlightLog.info(this.getClass, "Writing %s...".format(store.getClass.getSimpleName))
     val output = new Output(new FileOutputStream(out))
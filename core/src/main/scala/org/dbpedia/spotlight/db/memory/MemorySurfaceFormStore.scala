@@ -6,9 +6,11 @@ import org.dbpedia.spotlight.db.model.SurfaceFormStore
 import org.dbpedia.spotlight.exceptions.SurfaceFormNotFoundException
 import scala.Array
 import java.lang.Integer
-import util.StringToIDMapFactory
+import util.StringPool
 import scala.collection.mutable
 import org.apache.commons.lang.StringUtils
+import java.util.concurrent.ConcurrentHashMap
+import scala.collection.JavaConversions._
 
 /**
  * @author Joachim Daiber
@@ -22,8 +24,9 @@ class MemorySurfaceFormStore
   extends MemoryStore
   with SurfaceFormStore {
 
+  //The surface forms (replaces stringForID once the store is loaded):
   @transient
-  var idForString: java.util.Map[String, Integer] = null
+  var strings: StringPool = null
 
   var lowercaseMap: java.util.HashMap[String, Array[Int]] = null
   var stringForID: Array[String]      = null
@@ -40,23 +43,51 @@ class MemorySurfaceFormStore
   @transient
   var stopWords: Set[String] = Set("the", "an", "a")
 
+  /*
+   * Changes from model deltas (see org.dbpedia.spotlight.db.delta.ModelUpdater). They are not
+   * serialized, compacted() creates a store that contains them.
+   *
+   * deltaIDForString contains the surface forms that were added, deltaSurfaceForms contains the
+   * counts of all added or changed surface forms by their ID.
+   */
+
+  @transient
+  var deltaIDForString: ConcurrentHashMap[String, Integer] = null
+
+  @transient
+  var deltaSurfaceForms: ConcurrentHashMap[Integer, SurfaceForm] = null
+
+  @transient
+  var removedIDs: java.util.Set[Integer] = null
+
+  @transient
+  var nextID = 0
+
   def normalize(sf: String): String = sf.replaceAll("[\\p{Punct}]+", " ").toLowerCase.split(" ").filter({lcSF: String => !stopWords.contains(lcSF)}).mkString(" ")
 
   override def loaded() {
     createReverseLookup()
   }
 
-  def size = stringForID.size
+  def size = if (deltaIDForString == null) storedSize else nextID
+
+  /* Number of surface forms in the store without the ones added by model deltas. */
+  def storedSize: Int = if (strings != null) strings.size else stringForID.size
+
+  def string(id: Int): String = if (strings != null) strings.get(id) else stringForID(id)
+
+  private def idForString(surfaceform: String): Integer = {
+    val id = strings.getID(surfaceform)
+    if (id < 0) null else id
+  }
 
   def getTotalAnnotatedCount: Int = totalAnnotatedCount
   def getTotalOccurrenceCount: Int = totalOccurrenceCount
 
 
+  /* The annotated surface forms, including the changes from model deltas. */
   def iterateSurfaceForms: Seq[SurfaceForm] = {
-    annotatedCountForID.zipWithIndex.flatMap{
-      case (count: Short, id: Int) if qc(count) > 0 => Some(sfForID(id))
-      case _ => None
-    }
+    (0 until size).filter(exists).map(sfForID).filter(_.annotatedCount > 0)
   }
 
 
@@ -68,37 +99,50 @@ class MemorySurfaceFormStore
 
 
     if (stringForID != null) {
-      SpotlightLog.info(this.getClass, "Creating reverse-lookup for surface forms, adding normalized surface forms.")
-      idForString = StringToIDMapFactory.createDefault(stringForID.size * 2)
-
-      var i = 0
-      stringForID foreach { sf =>
-        if (sf != null) {
-          idForString.put(sf, i)
-        }
-        i += 1
-      }
+      SpotlightLog.info(this.getClass, "Creating string pool for surface forms.")
+      strings = StringPool(stringForID)
+      stringForID = null
     }
   }
 
+  override def dumping() {
+    if (stringForID == null && strings != null)
+      stringForID = strings.toArray
+  }
+
+
+  /* True if there is a surface form with the ID that was not removed. */
+  private def exists(id: Int): Boolean =
+    id >= 0 && id < size && (removedIDs == null || !removedIDs.contains(id)) &&
+      ((deltaSurfaceForms != null && deltaSurfaceForms.containsKey(id)) || (id < storedSize && string(id) != null))
+
+  private def sfForID(id: Int): SurfaceForm = {
+    if (deltaSurfaceForms != null) {
+      val sf = deltaSurfaceForms.get(id)
+      if (sf != null)
+        return new SurfaceForm(sf.name, id, sf.annotatedCount, sf.totalCount)
+    }
 
-  private def sfForID(id: Int) = {
     val annotatedCount = qc(annotatedCountForID(id))
     val totalCount = qc(totalCountForID(id))
 
-    new SurfaceForm(stringForID(id), id, annotatedCount, totalCount)
+    new SurfaceForm(string(id), id, annotatedCount, totalCount)
   }
 
   @throws(classOf[SurfaceFormNotFoundException])
   def getSurfaceForm(surfaceform: String): SurfaceForm = {
-    val id = idForString.get(surfaceform)
+    var id = idForString(surfaceform)
+    if (id == null && deltaIDForString != null)
+      id = deltaIDForString.get(surfaceform)
 
-    if (id == null)
+    if (id == null || (removedIDs != null && removedIDs.contains(id)))
       throw new SurfaceFormNotFoundException("SurfaceForm %s not found.".format(surfaceform))
 
     sfForID(id)
   }
 
+  def getSurfaceFormByID(id: Int): SurfaceForm = if (exists(id)) sfForID(id) else null
+
   private def getLowercaseCandidateList(surfaceform: String): Array[Int] = {
     val cs = lowercaseMap.get(surfaceform.toLowerCase)
 
@@ -110,7 +154,7 @@ class MemorySurfaceFormStore
 
   def getSurfaceFormsNormalized(surfaceform: String): Set[SurfaceForm] = {
     val ls = getLowercaseCandidateList(surfaceform)
-    ls.map( id => sfForID(id) ).toSet
+    ls.filter(exists).map( id => sfForID(id) ).toSet
   }
 
   @throws(classOf[SurfaceFormNotFoundException])
@@ -124,7 +168,137 @@ class MemorySurfaceFormStore
   }
 
 
-  private def editDistanceScore(sData: String, sReal: String): Double = {
+  def getRankedSurfaceFormCandidates(surfaceform: String): Seq[(SurfaceForm, Double)] =
+    MemorySurfaceFormStore.rankSurfaceFormCandidates(
+      surfaceform,
+      getSurfaceFormsNormalized(surfaceform),
+      getLowercaseSurfaceFormCount(surfaceform.toLowerCase)
+    )
+
+
+  private def initDelta() {
+    if (deltaIDForString == null) {
+      nextID = storedSize
+      deltaSurfaceForms = new ConcurrentHashMap[Integer, SurfaceForm]()
+      removedIDs = java.util.Collections.newSetFromMap(new ConcurrentHashMap[Integer, java.lang.Boolean]())
+      deltaIDForString = new ConcurrentHashMap[String, Integer]()
+    }
+  }
+
+  /**
+   * Adds a surface form or changes the counts of an existing surface form. Surface forms that are
+   * added are not in the lowercase map until the store is compacted.
+   *
+   * @return the ID of the surface form
+   */
+  def putSurfaceForm(surfaceform: String, annotatedCount: Int, totalCount: Int): Int = synchronized {
+    initDelta()
+
+    var id = idForString(surfaceform)
+    if (id == null)
+      id = deltaIDForString.get(surfaceform)
+
+    if (id == null) {
+      id = nextID
+      deltaSurfaceForms.put(id, new SurfaceForm(surfaceform, id, annotatedCount, totalCount))
+      deltaIDForString.put(surfaceform, id)
+      nextID += 1
+      totalAnnotatedCount += annotatedCount
+      totalOccurrenceCount += totalCount
+    } else {
+      val previous = sfForID(id)
+      totalAnnotatedCount += annotatedCount - previous.annotatedCount
+      totalOccurrenceCount += totalCount - previous.totalCount
+      deltaSurfaceForms.put(id, new SurfaceForm(surfaceform, id, annotatedCount, totalCount))
+    }
+
+    removedIDs.remove(id)
+    id
+  }
+
+  /**
+   * Removes a surface form.
+   *
+   * @return the ID of the removed surface form
+   */
+  @throws(classOf[SurfaceFormNotFoundException])
+  def removeSurfaceForm(surfaceform: String): Int = synchronized {
+    val sf = getSurfaceForm(surfaceform)
+
+    initDelta()
+    removedIDs.add(sf.id)
+    sf.id
+  }
+
+  /**
+   * Returns a new store that contains all surface forms including the changes from model deltas.
+   * Removed surface forms keep their ID but are not found anymore.
+   */
+  def compacted(): MemorySurfaceFormStore = {
+    val store = new MemorySurfaceFormStore()
+    store.lowercaseMap = compactedLowercaseMap()
+    store.stringForID = new Array[String](size)
+    store.annotatedCountForID = new Array[Short](size)
+    store.totalCountForID = new Array[Short](size)
+
+    (0 until size).foreach { id: Int =>
+      if (exists(id)) {
+        val sf = sfForID(id)
+        store.stringForID(id) = sf.name
+        store.annotatedCountForID(id) = quantizedCountStore.addCount(sf.annotatedCount)
+        store.totalCountForID(id) = quantizedCountStore.addCount(sf.totalCount)
+      } else {
+        store.annotatedCountForID(id) = quantizedCountStore.addCount(0)
+        store.totalCountForID(id) = quantizedCountStore.addCount(0)
+      }
+    }
+
+    store
+  }
+
+  /**
+   * Returns the lowercase map without the removed surface forms and with the surface forms added by
+   * model deltas. Lowercase forms without any remaining surface form are dropped. Deltas contain no
+   * lowercase counts, so the count of a lowercase form that only exists because of added surface
+   * forms is 0.
+   */
+  private def compactedLowercaseMap(): java.util.HashMap[String, Array[Int]] = {
+    val map = new java.util.HashMap[String, Array[Int]]()
+
+    if (lowercaseMap != null)
+      lowercaseMap.entrySet().foreach { e =>
+        val ids = e.getValue.tail.filter(exists)
+        if (!ids.isEmpty)
+          map.put(e.getKey, e.getValue.head +: ids)
+      }
+
+    (storedSize until size).filter(exists).foreach { id: Int =>
+      val lowercase = sfForID(id).name.toLowerCase
+      map.get(lowercase) match {
+        case null => map.put(lowercase, Array(0, id))
+        case cs: Array[Int] => map.put(lowercase, cs :+ id)
+      }
+    }
+
+    map
+  }
+
+  /**
+   * Get the count of the lowercase version of a surface form (for working with ill-cased text).
+   *
+   * @param surfaceform the queried surface form
+   * @return
+   */
+  def getLowercaseSurfaceFormCount(surfaceform: String): Int = lowercaseMap.get(surfaceform) match {
+    case null => 0
+    case cs: Array[Int] => cs.headOption.getOrElse(0)
+  }
+
+}
+
+object MemorySurfaceFormStore {
+
+  def editDistanceScore(sData: String, sReal: String): Double = {
     val ed = StringUtils.getLevenshteinDistance(sData, sReal)
 
     if (sReal.equals(sData))
@@ -135,10 +309,17 @@ class MemorySurfaceFormStore
       0.85 * (1.0 - (ed / sReal.length.toDouble))
   }
 
-  def getRankedSurfaceFormCandidates(surfaceform: String): Seq[(SurfaceForm, Double)] = {
+  /**
+   * Ranks the normalized candidates for a surface form found in ill-cased text.
+   *
+   * @param surfaceform the queried surface form
+   * @param candidates the candidate surface forms (e.g. with the same lowercase form)
+   * @param cLower count of the lowercase version of the queried surface form
+   * @return
+   */
+  def rankSurfaceFormCandidates(surfaceform: String, candidates: Set[SurfaceForm], cLower: Int): Seq[(SurfaceForm, Double)] = {
 
-    getSurfaceFormsNormalized(surfaceform).map{ candSf: SurfaceForm =>
-      val cLower = getLowercaseSurfaceFormCount(surfaceform.toLowerCase)
+    candidates.map{ candSf: SurfaceForm =>
       val cTotal = candSf.totalCount
 
       SpotlightLog.debug(this.getClass, surfaceform + " p: "+ candSf.annotationProbability)
@@ -155,16 +336,4 @@ class MemorySurfaceFormStore
 
   }
 
-
-  /**
-   * Get the count of the lowercase version of a surface form (for working with ill-cased text).
-   *
-   * @param surfaceform the queried surface form
-   * @return
-   */
-  def getLowercaseSurfaceFormCount(surfaceform: String): Int = lowercaseMap.get(surfaceform).headOption match {
-    case Some(c) => c
-    case _ => 0
-  }
-
 }
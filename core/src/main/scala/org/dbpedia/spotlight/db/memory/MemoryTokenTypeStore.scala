@@ -5,7 +5,7 @@ import org.dbpedia.spotlight.db.model.TokenTypeStore
 import java.lang.String
 import org.dbpedia.spotlight.model.TokenType
 import scala.transient
-import util.StringToIDMapFactory
+import util.StringPool
 
 /**
  * A memory-based store for
@@ -22,8 +22,9 @@ class MemoryTokenTypeStore
   var tokenForId: Array[String] = null
   var counts: Array[Int] = null
 
+  //The tokens (replaces tokenForId once the store is loaded):
   @transient
-  var idFromToken: java.util.Map[String, java.lang.Integer] = null
+  var tokens: StringPool = null
 
   @transient
   var totalTokenCount: Double = 0.0
@@ -31,6 +32,10 @@ class MemoryTokenTypeStore
   @transient
   var vocabularySize: Int = 0
 
+  //Canonical TokenType object of each ID, created on first use:
+  @transient
+  var tokenTypes: Array[TokenType] = null
+
 
   override def loaded() {
     counts.foreach( c =>
@@ -40,36 +45,45 @@ class MemoryTokenTypeStore
     createReverseLookup()
   }
 
-  def size = tokenForId.size
+  def size = if (tokens != null) tokens.size else tokenForId.size
 
   def createReverseLookup() {
     if (tokenForId != null) {
-      SpotlightLog.info(this.getClass, "Creating reverse-lookup for Tokens.")
-      idFromToken = StringToIDMapFactory.createDefault(tokenForId.size)
-
-      var id = 0
-      tokenForId foreach { token => {
-        idFromToken.put(token, id)
-        id += 1
-       }
-      }
+      SpotlightLog.info(this.getClass, "Creating string pool for Tokens.")
+      tokens = StringPool(tokenForId)
+      tokenTypes = new Array[TokenType](tokens.size)
+      tokenForId = null
     }
   }
 
+  override def dumping() {
+    if (tokenForId == null && tokens != null)
+      tokenForId = tokens.toArray
+  }
+
+  def token(id: Int): String = if (tokens != null) tokens.get(id) else tokenForId(id)
+
   def getTokenType(token: String): TokenType = {
 
-    val id = idFromToken.get(token)
+    val id = tokens.getID(token)
 
-    if (id == null)
+    if (id < 0)
       TokenType.UNKNOWN
     else
-      new TokenType(id, token, counts(id))
+      getTokenTypeByID(id)
   }
 
   def getTokenTypeByID(id: Int): TokenType = {
-    val token = tokenForId(id)
-    val count = counts(id)
-    new TokenType(id, token, count)
+    //TokenTypes are immutable, so concurrent calls may at worst create the same TokenType twice:
+    val cached = if (tokenTypes != null) tokenTypes(id) else null
+    if (cached != null) {
+      cached
+    } else {
+      val tokenType = new TokenType(id, token(id), counts(id))
+      if (tokenTypes != null)
+        tokenTypes(id) = tokenType
+      tokenType
+    }
   }
 
   def getTotalTokenCount: Double = totalTokenCount
@@ -0,0 +1,326 @@
+package org.dbpedia.spotlight.db.memory.util
+
+import com.esotericsoftware.kryo.io.{Input, Output}
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Compressed context postings of all resources (see [[org.dbpedia.spotlight.db.memory.MemoryContextStore]]).
+ *
+ * The postings of a resource are stored as one entry in a block of bytes:
+ *
+ *  - the number of tokens n (variable-byte encoded)
+ *  - the number of bytes of the token IDs (variable-byte encoded)
+ *  - the sorted token IDs as variable-byte encoded differences to the previous token ID
+ *  - the n quantized counts minus countBase, bit-packed with countBits bits per count
+ *
+ * The offset table holds the block and position of the entry of each resource (or -1 if the resource
+ * has no context). Entries never span blocks, blocks are at most 2^30 bytes.
+ */
+
+class ContextPostings(blocks: Array[Array[Byte]], offsets: Array[Long], val countBase: Short, val countBits: Int) {
+
+  def size: Int = offsets.length
+
+  /* Number of bytes of the encoded postings. */
+  def bytes: Long = blocks.map(_.length.toLong).sum
+
+  def contextSize(resource: Int): Int = if (resource >= size || offsets(resource) < 0) 0 else cursor(resource).remaining
+
+  /**
+   * Returns a cursor over the postings of the resource. The cursor decodes the token IDs one by one,
+   * so that the postings can be merged with a sorted query without decoding them first.
+   */
+  def cursor(resource: Int): Cursor = {
+    val c = new Cursor()
+    c.reset(resource)
+    c
+  }
+
+  /* Decoded token IDs of the resource or null if the resource has no context. */
+  def tokens(resource: Int): Array[Int] = {
+    val c = cursor(resource)
+    if (c.remaining == 0)
+      return null
+
+    val t = new Array[Int](c.remaining)
+    var j = 0
+    while (c.next()) {
+      t(j) = c.token
+      j += 1
+    }
+    t
+  }
+
+  /* Quantized counts of the resource or null if the resource has no context. */
+  def counts(resource: Int): Array[Short] = {
+    val c = cursor(resource)
+    if (c.remaining == 0)
+      return null
+
+    val counts = new Array[Short](c.remaining)
+    var j = 0
+    while (c.next()) {
+      counts(j) = c.count
+      j += 1
+    }
+    counts
+  }
+
+  def write(output: Output) {
+    output.writeShort(countBase)
+    output.writeInt(countBits)
+
+    output.writeInt(offsets.length)
+    offsets.foreach(output.writeLong(_))
+
+    output.writeInt(blocks.length)
+    blocks.foreach { block: Array[Byte] =>
+      output.writeInt(block.length)
+      output.writeBytes(block)
+    }
+  }
+
+
+  class Cursor {
+
+    private var block: Array[Byte] = null
+    private var position = 0
+    private var countsStart = 0
+    private var index = -1
+    private var left = 0
+
+    /* The current token ID (after next() returned true). */
+    var token = 0
+
+    /* Number of tokens of the resource that have not been read yet. */
+    def remaining: Int = left
+
+    def reset(resource: Int) {
+      index = -1
+      token = 0
+      left = 0
+
+      if (resource < offsets.length && offsets(resource) >= 0) {
+        block = blocks((offsets(resource) >>> ContextPostings.BLOCK_BITS).toInt)
+        position = (offsets(resource) & ContextPostings.BLOCK_MASK).toInt
+
+        left = readVByte()
+        val tokenBytes = readVByte()
+        countsStart = position + tokenBytes
+      }
+    }
+
+    /**
+     * Moves to the next token.
+     *
+     * @return false if there are no more tokens
+     */
+    def next(): Boolean = {
+      if (left == 0) {
+        false
+      } else {
+        token += readVByte()
+        index += 1
+        left -= 1
+        true
+      }
+    }
+
+    /* The quantized count of the current token. */
+    def count: Short = {
+      if (countBits == 0)
+        return countBase
+
+      val bit = index * countBits
+      var p = countsStart + (bit >>> 3)
+      val shift = bit & 7
+
+      var v = (block(p) & 0xff) >>> shift
+      var read = 8 - shift
+      while (read < countBits) {
+        p += 1
+        v |= (block(p) & 0xff) << read
+        read += 8
+      }
+
+      (countBase + (v & ((1 << countBits) - 1))).toShort
+    }
+
+    private def readVByte(): Int = {
+      var v = 0
+      var shift = 0
+      var b = block(position)
+      position += 1
+      while (b < 0) {
+        v |= (b & 0x7f) << shift
+        shift += 7
+        b = block(position)
+        position += 1
+      }
+      v | (b << shift)
+    }
+
+  }
+
+}
+
+
+object ContextPostings {
+
+  val BLOCK_BITS = 30
+  val BLOCK_MASK = (1L << BLOCK_BITS) - 1
+  val MAX_BLOCK_SIZE = 1 << BLOCK_BITS
+
+  def read(input: Input): ContextPostings = {
+    val countBase = input.readShort()
+    val countBits = input.readInt()
+
+    val offsets = new Array[Long](input.readInt())
+    var i = 0
+    while (i < offsets.length) {
+      offsets(i) = input.readLong()
+      i += 1
+    }
+
+    val blocks = new Array[Array[Byte]](input.readInt())
+    i = 0
+    while (i < blocks.length) {
+      blocks(i) = input.readBytes(input.readInt())
+      i += 1
+    }
+
+    new ContextPostings(blocks, offsets, countBase, countBits)
+  }
+
+  /**
+   * Number of bits required for the quantized counts between min and max.
+   */
+  def bitsFor(min: Short, max: Short): Int = 32 - Integer.numberOfLeadingZeros(max - min)
+
+
+  /**
+   * Encodes the postings of the resources.
+   *
+   * @param size number of resources
+   * @param countBase smallest quantized count
+   * @param countBits number of bits per count (see bitsFor)
+   */
+  class Builder(size: Int, countBase: Short, countBits: Int) {
+
+    private val offsets = Array.fill[Long](size)(-1L)
+    private val blocks = ArrayBuffer[Array[Byte]]()
+    private val block = new ByteArray(1 << 16)
+    private val entry = new ByteArray(1 << 10)
+    private val tokenBytes = new ByteArray(1 << 10)
+
+    /**
+     * Adds the postings of a resource.
+     *
+     * @param tokens sorted token IDs
+     * @param counts quantized counts of the tokens
+     */
+    def add(resource: Int, tokens: Array[Int], counts: Array[Short]) {
+      if (tokens == null || tokens.length == 0)
+        return
+
+      val n = tokens.length
+
+      tokenBytes.clear()
+      var previous = 0
+      var j = 0
+      while (j < n) {
+        tokenBytes.addVByte(tokens(j) - previous)
+        previous = tokens(j)
+        j += 1
+      }
+
+      entry.clear()
+      entry.addVByte(n)
+      entry.addVByte(tokenBytes.length)
+      entry.add(tokenBytes)
+
+      val countsStart = entry.length
+      entry.addZeros((n.toLong * countBits + 7).toInt / 8)
+      j = 0
+      while (j < n) {
+        entry.setBits(countsStart, j * countBits, countBits, counts(j) - countBase)
+        j += 1
+      }
+
+      if (block.length + entry.length > MAX_BLOCK_SIZE)
+        finishBlock()
+
+      offsets(resource) = (blocks.size.toLong << BLOCK_BITS) | block.length
+      block.add(entry)
+    }
+
+    private def finishBlock() {
+      blocks += block.toArray
+      block.clear()
+    }
+
+    def build(): ContextPostings = {
+      finishBlock()
+      new ContextPostings(blocks.toArray, offsets, countBase, countBits)
+    }
+
+  }
+
+
+  /* A growable array of bytes for encoding the postings. */
+  private class ByteArray(initialCapacity: Int) {
+
+    private var data = new Array[Byte](initialCapacity)
+    var length = 0
+
+    private def ensureCapacity(capacity: Int) {
+      if (capacity > data.length)
+        data = java.util.Arrays.copyOf(data, math.min(math.max(capacity, data.length * 2L), Int.MaxValue - 8).toInt)
+    }
+
+    def clear() {
+      length = 0
+    }
+
+    def addVByte(value: Int) {
+      var v = value
+      while ((v & ~0x7f) != 0) {
+        ensureCapacity(length + 1)
+        data(length) = ((v & 0x7f) | 0x80).toByte
+        length += 1
+        v >>>= 7
+      }
+      ensureCapacity(length + 1)
+      data(length) = v.toByte
+      length += 1
+    }
+
+    def add(other: ByteArray) {
+      ensureCapacity(length + other.length)
+      System.arraycopy(other.data, 0, data, length, other.length)
+      length += other.length
+    }
+
+    def addZeros(n: Int) {
+      ensureCapacity(length + n)
+      java.util.Arrays.fill(data, length, length + n, 0.toByte)
+      length += n
+    }
+
+    def setBits(start: Int, offset: Int, bits: Int, value: Int) {
+      var b = 0
+      while (b < bits) {
+        if (((value >>> b) & 1) != 0) {
+          val bit = offset + b
+          val p = start + (bit >>> 3)
+          data(p) = (data(p) | (1 << (bit & 7))).toByte
+        }
+        b += 1
+      }
+    }
+
+    def toArray: Array[Byte] = java.util.Arrays.copyOf(data, length)
+
+  }
+
+}
@@ -0,0 +1,289 @@
+package org.dbpedia.spotlight.db.memory.util
+
+import it.unimi.dsi.fastutil.ints.{AbstractIntComparator, IntArrays}
+
+/**
+ * A compact, immutable table of strings indexed by their ID, used by the memory stores instead of an
+ * Array[String] and a hash map for the reverse lookup.
+ *
+ * The strings are sorted by their UTF-8 bytes and front-coded in blocks of BLOCK_SIZE strings: the first
+ * string of a block is stored completely, each following string as the length of the prefix it shares with
+ * the previous string and the remaining bytes. Since most URIs and many surface forms share long prefixes
+ * with their neighbours, this is much smaller than one String object per entry.
+ *
+ * The string of an ID is decoded from the start of its block, the ID of a string is found by a binary search
+ * over the first strings of the blocks and a scan of the block. Lookups decode into a buffer of the calling
+ * thread and compare the queried string with the decoded bytes char by char, so they allocate nothing but
+ * the returned string.
+ *
+ * @param bytes the front-coded blocks
+ * @param blockOffsets the position of each block in bytes
+ * @param rankForID the position of the string with the ID in the sorted order or -1 for IDs without a string
+ * @param idForRank the ID of the string at each position in the sorted order
+ * @param maxLength the length in bytes of the longest string
+ */
+
+class StringPool private (
+  bytes: Array[Byte],
+  blockOffsets: Array[Int],
+  rankForID: Array[Int],
+  idForRank: Array[Int],
+  maxLength: Int
+) {
+
+  import StringPool.BLOCK_SIZE
+
+  //The cursor of each thread, lookups do not allocate a buffer:
+  private val cursors = new ThreadLocal[Cursor] {
+    override def initialValue() = new Cursor()
+  }
+
+  def size: Int = rankForID.length
+
+  /* Number of bytes used by the pool. */
+  def memorySize: Long = bytes.length + 4L * (blockOffsets.length + rankForID.length + idForRank.length)
+
+  /**
+   * Returns the string with the ID or null if there is no string with this ID.
+   */
+  def get(id: Int): String = {
+    if (id < 0 || id >= rankForID.length || rankForID(id) < 0)
+      return null
+
+    val rank = rankForID(id)
+    val cursor = cursors.get()
+    cursor.seek(rank / BLOCK_SIZE)
+    var i = rank % BLOCK_SIZE
+    cursor.next()
+    while (i > 0) {
+      cursor.next()
+      i -= 1
+    }
+    new String(cursor.current, 0, cursor.length, "UTF-8")
+  }
+
+  /**
+   * Returns the ID of the string or -1 if it is not in the pool. If the pool contains the string more
+   * than once, the highest ID is returned.
+   */
+  def getID(s: String): Int = {
+    if (s == null || idForRank.length == 0)
+      return -1
+
+    //Find the last block whose first string is smaller than the key:
+    var low = 0
+    var high = blockOffsets.length - 1
+    while (low < high) {
+      val mid = (low + high + 1) >>> 1
+      if (compareFirst(mid, s) < 0)
+        low = mid
+      else
+        high = mid - 1
+    }
+
+    //Scan until the first string that is not smaller than the key (which may be in the following block):
+    val cursor = cursors.get()
+    cursor.seek(low)
+    var rank = low * BLOCK_SIZE
+    while (rank < idForRank.length) {
+      cursor.next()
+      val c = StringPool.compare(cursor.current, 0, cursor.length, s)
+      if (c == 0)
+        return idForRank(rank)
+      if (c > 0)
+        return -1
+      rank += 1
+    }
+    -1
+  }
+
+  /**
+   * Returns the strings as an array indexed by their ID.
+   */
+  def toArray: Array[String] = {
+    val strings = new Array[String](size)
+    val cursor = new Cursor()
+    var rank = 0
+    while (rank < idForRank.length) {
+      cursor.next()
+      strings(idForRank(rank)) = new String(cursor.current, 0, cursor.length, "UTF-8")
+      rank += 1
+    }
+    strings
+  }
+
+  private def compareFirst(block: Int, key: String): Int = {
+    var p = blockOffsets(block)
+    var length = 0
+    var shift = 0
+    var b = bytes(p)
+    p += 1
+    while (b < 0) {
+      length |= (b & 0x7f) << shift
+      shift += 7
+      b = bytes(p)
+      p += 1
+    }
+    length |= b << shift
+
+    StringPool.compare(bytes, p, length, key)
+  }
+
+
+  /* Decodes the strings in sorted order, starting with the first string of a block (see seek). */
+  private class Cursor {
+
+    val current = new Array[Byte](maxLength)
+    var length = 0
+
+    private var position = 0
+    private var index = 0
+
+    def seek(block: Int) {
+      position = blockOffsets(block)
+      index = block * BLOCK_SIZE
+      length = 0
+    }
+
+    def next() {
+      val prefix = if (index % BLOCK_SIZE == 0) 0 else readVByte()
+      val suffix = readVByte()
+      System.arraycopy(bytes, position, current, prefix, suffix)
+      position += suffix
+      length = prefix + suffix
+      index += 1
+    }
+
+    private def readVByte(): Int = {
+      var v = 0
+      var shift = 0
+      var b = bytes(position)
+      position += 1
+      while (b < 0) {
+        v |= (b & 0x7f) << shift
+        shift += 7
+        b = bytes(position)
+        position += 1
+      }
+      v | (b << shift)
+    }
+
+  }
+
+}
+
+object StringPool {
+
+  val BLOCK_SIZE = 16
+
+  /**
+   * Builds a pool of the strings, where the position of a string in the array is its ID.
+   *
+   * @param strings strings indexed by ID, may contain null
+   */
+  def apply(strings: Array[String]): StringPool = {
+    val encoded = strings.map { s: String => if (s == null) null else s.getBytes("UTF-8") }
+
+    //Sort the IDs of the strings by their bytes (equal strings by descending ID):
+    val ids = (0 until encoded.length).filter(encoded(_) != null).toArray
+    IntArrays.quickSort(ids, new AbstractIntComparator {
+      def compare(a: Int, b: Int): Int = {
+        val c = StringPool.compare(encoded(a), encoded(a).length, encoded(b))
+        if (c != 0) c else b - a
+      }
+    })
+
+    val rankForID = Array.fill[Int](encoded.length)(-1)
+    (0 until ids.length).foreach( rank => rankForID(ids(rank)) = rank )
+
+    val out = new java.io.ByteArrayOutputStream()
+    val blockOffsets = new Array[Int]((ids.length + BLOCK_SIZE - 1) / BLOCK_SIZE)
+    var maxLength = 0
+    var previous: Array[Byte] = null
+
+    (0 until ids.length).foreach { rank: Int =>
+      val current = encoded(ids(rank))
+      maxLength = math.max(maxLength, current.length)
+
+      if (rank % BLOCK_SIZE == 0) {
+        blockOffsets(rank / BLOCK_SIZE) = out.size()
+        writeVByte(out, current.length)
+        out.write(current, 0, current.length)
+      } else {
+        var prefix = 0
+        while (prefix < current.length && prefix < previous.length && current(prefix) == previous(prefix))
+          prefix += 1
+
+        writeVByte(out, prefix)
+        writeVByte(out, current.length - prefix)
+        out.write(current, prefix, current.length - prefix)
+      }
+
+      previous = current
+    }
+
+    new StringPool(out.toByteArray, blockOffsets, rankForID, ids, maxLength)
+  }
+
+  /* Compares the first length bytes of a with b as unsigned bytes. */
+  private def compare(a: Array[Byte], length: Int, b: Array[Byte]): Int = {
+    var i = 0
+    while (i < length && i < b.length) {
+      val c = (a(i) & 0xff) - (b(i) & 0xff)
+      if (c != 0)
+        return c
+      i += 1
+    }
+    length - b.length
+  }
+
+  /**
+   * Compares length bytes of a from offset with the UTF-8 bytes of s as unsigned bytes, like compare but
+   * without encoding s. Unpaired surrogates are compared as '?', which is how String.getBytes encodes them.
+   */
+  private def compare(a: Array[Byte], offset: Int, length: Int, s: String): Int = {
+    var i = 0
+    var j = 0
+    while (j < s.length) {
+      val ch = s.charAt(j)
+      val codePoint =
+        if (Character.isHighSurrogate(ch) && j + 1 < s.length && Character.isLowSurrogate(s.charAt(j + 1)))
+          Character.toCodePoint(ch, s.charAt(j + 1))
+        else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE)
+          '?'.toInt
+        else
+          ch.toInt
+      j += (if (codePoint >= 0x10000) 2 else 1)
+
+      val n = if (codePoint < 0x80) 1 else if (codePoint < 0x800) 2 else if (codePoint < 0x10000) 3 else 4
+      var k = 0
+      while (k < n) {
+        if (i == length)
+          return -1
+
+        val shift = 6 * (n - 1 - k)
+        val b =
+          if (n == 1) codePoint
+          else if (k == 0) ((0xff00 >> n) & 0xff) | (codePoint >> shift)
+          else 0x80 | ((codePoint >> shift) & 0x3f)
+
+        val c = (a(offset + i) & 0xff) - b
+        if (c != 0)
+          return c
+        i += 1
+        k += 1
+      }
+    }
+    length - i
+  }
+
+  private def writeVByte(out: java.io.ByteArrayOutputStream, value: Int) {
+    var v = value
+    while ((v & ~0x7f) != 0) {
+      out.write((v & 0x7f) | 0x80)
+      v >>>= 7
+    }
+    out.write(v)
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.dbpedia.spotlight.db.model
+
+import org.dbpedia.spotlight.model.{Candidate, SurfaceForm}
+
+/**
+ * A primitive view on the candidates of a surface form: the IDs of the candidate DBpedia resources
+ * and their co-occurrence counts with the surface form, sorted by count (i.e. by the prior P(e|s))
+ * in descending order. The view does not copy the candidate arrays of the store.
+ *
+ * [[org.dbpedia.spotlight.model.Candidate]] objects (and the DBpedia resources) are only created
+ * when they are requested, hence selecting the top candidates of a surface form is a slice.
+ *
+ * @param surfaceForm the surface form of the candidates
+ * @param resourceIDs resource IDs array of the store
+ * @param counts counts array of the store
+ * @param offset position of the first candidate in resourceIDs and counts
+ * @param size number of candidates
+ */
+
+class CandidateList(val surfaceForm: SurfaceForm, resourceIDs: Array[Int], counts: Array[Int], offset: Int, val size: Int) {
+
+  def isEmpty: Boolean = size == 0
+
+  def resourceID(i: Int): Int = resourceIDs(offset + i)
+
+  def support(i: Int): Int = counts(offset + i)
+
+  def prior(i: Int): Double = support(i) / surfaceForm.annotatedCount.toDouble
+
+  /**
+   * Returns the view on the k candidates with the highest prior.
+   */
+  def take(k: Int): CandidateList = {
+    if (k >= size)
+      this
+    else
+      new CandidateList(surfaceForm, resourceIDs, counts, offset, math.max(k, 0))
+  }
+
+  def candidate(i: Int, resourceStore: ResourceStore): Candidate =
+    new Candidate(surfaceForm, resourceStore.getResource(resourceID(i)), support(i))
+
+  def toCandidates(resourceStore: ResourceStore): Set[Candidate] =
+    (0 until size).map(candidate(_, resourceStore)).toSet
+
+}
+
+object CandidateList {
+
+  def empty(surfaceForm: SurfaceForm) = new CandidateList(surfaceForm, Array[Int](), Array[Int](), 0, 0)
+
+}
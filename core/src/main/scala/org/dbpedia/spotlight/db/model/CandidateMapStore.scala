@@ -20,4 +20,13 @@ trait CandidateMapStore {
    */
   def getCandidates(surfaceform: SurfaceForm): Set[Candidate]
 
+  /**
+   * Returns a primitive view on the candidates for a surface form, sorted
+   * by their co-occurrence count with the surface form in descending order.
+   *
+   * @param surfaceform the surface form object
+   * @return candidate list (IDs of the DBpedia resources and the co-occurrence counts)
+   */
+  def getCandidateList(surfaceform: SurfaceForm): CandidateList
+
 }
@@ -23,6 +23,15 @@ trait SurfaceFormStore {
   @throws(classOf[SurfaceFormNotFoundException])
   def getSurfaceForm(surfaceform: String): SurfaceForm
 
+  /**
+   * Get the [[org.dbpedia.spotlight.model.SurfaceForm]] with the ID. Unlike getSurfaceForm,
+   * no exception is thrown if there is no such surface form.
+   *
+   * @param id the ID of the surface form
+   * @return the surface form or null if there is no surface form with this ID
+   */
+  def getSurfaceFormByID(id: Int): SurfaceForm
+
 
   def getSurfaceFormsNormalized(surfaceform: String): Set[SurfaceForm]
 
@@ -64,4 +73,12 @@ trait SurfaceFormStore {
 
   def iterateSurfaceForms: Seq[SurfaceForm]
 
+  /**
+   * Returns the number of [[org.dbpedia.spotlight.model.SurfaceForm]] IDs in the store, all IDs
+   * are smaller than this.
+   *
+   * @return
+   */
+  def size: Int
+
 }
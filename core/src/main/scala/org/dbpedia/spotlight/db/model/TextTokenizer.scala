@@ -1,12 +1,14 @@
 package org.dbpedia.spotlight.db.model
 
-import org.dbpedia.spotlight.model.{Token, Text}
+import org.dbpedia.spotlight.model.{Token, TokenBuffer, Text}
 
 /**
  * A Tokenizer splits a [[org.dbpedia.spotlight.model.Text]] into its [[org.dbpedia.spotlight.model.Token]]s.
  * Tokens may have additional information, e.g. part-of-speech tags and the [[org.dbpedia.spotlight.model.Text]]
  * may be assigned features like the sentence boundaries.
  *
+ * The tokens of a text are stored in a [[org.dbpedia.spotlight.model.TokenBuffer]] as its "tokens" feature.
+ *
  * @author Joachim Daiber
  */
 
@@ -14,6 +16,8 @@ trait TextTokenizer {
 
   def tokenize(text: Text): List[Token]
 
+  def tokenizeBuffer(text: Text): TokenBuffer
+
   def tokenizeMaybe(text: Text)
 
   def getStringTokenizer: StringTokenizer
@@ -23,6 +23,17 @@ trait ContextSimilarity {
   def score(query: Seq[TokenType], candidates: Set[DBpediaResource]): mutable.Map[DBpediaResource, Double]
 
 
+  /**
+   * Calculate the context score for all DBpedia resources in the given text, the scores are returned
+   * in the order of the candidates. The query must be sorted by token ID and must not contain duplicates.
+   *
+   * @param query the sorted, distinct query tokens
+   * @param candidates the DBpedia resource candidates
+   * @return the context scores, scores(i) is the score of candidates(i)
+   */
+  def score(query: Seq[TokenType], candidates: Array[DBpediaResource]): Array[Double]
+
+
   /**
    * Calculate the context score for the context alone, not assuming that there is any entity generating it.
    *
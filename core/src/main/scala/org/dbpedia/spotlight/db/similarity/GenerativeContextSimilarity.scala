@@ -6,6 +6,8 @@ import org.dbpedia.spotlight.db.model.{ContextStore, TokenTypeStore}
 import scala.collection.JavaConversions._
 import org.dbpedia.spotlight.util.MathUtil
 import org.apache.commons.logging.LogFactory
+import org.dbpedia.spotlight.db.memory.MemoryContextStore
+import org.dbpedia.spotlight.db.mapped.MappedContextStore
 
 /**
  * Generative context similarity based on Han et. al
@@ -81,21 +83,154 @@ class GenerativeContextSimilarity(tokenTypeStore: TokenTypeStore, contextStore:
 
 
   def score(query: Seq[TokenType], candidates: Set[DBpediaResource]): mutable.Map[DBpediaResource, Double] = {
-    val contextScores = mutable.HashMap[DBpediaResource, Double]()
+    val candidateArray = candidates.toArray
+    val scores = score(query, candidateArray)
 
-    candidates.map( res => {
-      contextScores.put(
-        res,
-        MathUtil.lnproduct(
-          intersect(query, res).map({ case(token: TokenType, cResAndToken: Int) =>p(token, res, cResAndToken) })
-            .filter(s => !MathUtil.isLogZero(s))
-        )
-      )
-    })
+    val contextScores = mutable.HashMap[DBpediaResource, Double]()
+    var i = 0
+    while (i < candidateArray.length) {
+      contextScores.put(candidateArray(i), scores(i))
+      i += 1
+    }
     contextScores
   }
 
 
+  /**
+   * Calculate the context score for each candidate. The query must be sorted by token ID
+   * and must not contain duplicates.
+   *
+   * The language model part of the score only depends on the query token, hence it is
+   * calculated once per query and the contexts of the candidates are merged directly
+   * against the query token IDs.
+   *
+   * @param query the sorted, distinct query tokens
+   * @param candidates the DBpedia resource candidates
+   * @return the context scores, scores(i) is the score of candidates(i)
+   */
+  def score(query: Seq[TokenType], candidates: Array[DBpediaResource]): Array[Double] = {
+    val queryIDs = new Array[Int](query.size)
+    val queryLM  = new Array[Double](query.size)
+
+    var i = 0
+    query.foreach { t: TokenType =>
+      queryIDs(i) = t.id
+      queryLM(i) = MathUtil.lnproduct(logOneMinusLambda, pLM(t))
+      i += 1
+    }
+
+    val scores = new Array[Double](candidates.length)
+    i = 0
+    while (i < candidates.length) {
+      scores(i) = contextStore match {
+        case store: MemoryContextStore => scoreMemory(store, candidates(i), queryIDs, queryLM)
+        case store: MappedContextStore => scoreMapped(store, candidates(i), queryIDs, queryLM)
+        case _ => scoreRaw(candidates(i), queryIDs, queryLM)
+      }
+      i += 1
+    }
+    scores
+  }
+
+  private val logLambda = MathUtil.ln(lambda)
+  private val logOneMinusLambda = MathUtil.ln(1-lambda)
+
+  /**
+   * Log probability of a single query token given its smoothed LM probability (lm), its count in the
+   * context of the resource and the total number of tokens in the context of the resource.
+   */
+  @inline
+  private def tokenScore(lm: Double, cResAndToken: Int, cRes: Int): Double = {
+    if (cResAndToken == 0 || cRes == 0)
+      lm
+    else
+      MathUtil.lnsum(lm, logLambda + MathUtil.ln(cResAndToken.toDouble / cRes))
+  }
+
+  @inline
+  private def addScore(sum: Double, s: Double): Double = if (MathUtil.isLogZero(s)) sum else sum + s
+
+  private def scoreMemory(store: MemoryContextStore, res: DBpediaResource, queryIDs: Array[Int], queryLM: Array[Double]): Double = {
+    if (store.isCompressed)
+      return scoreCompressed(store, res, queryIDs, queryLM)
+
+    val tokens = if (res.id < store.size) store.tokens(res.id) else null
+    val counts = if (res.id < store.size) store.counts(res.id) else null
+    val cRes = store.getTotalTokenCount(res)
+
+    var sum = 0.0
+    var i = 0
+    var j = 0
+    while (i < queryIDs.length) {
+      while (tokens != null && j < tokens.length && tokens(j) < queryIDs(i))
+        j += 1
+
+      val c = if (tokens != null && j < tokens.length && tokens(j) == queryIDs(i)) store.qc(counts(j)) else 0
+      sum = addScore(sum, tokenScore(queryLM(i), c, cRes))
+      i += 1
+    }
+    sum
+  }
+
+  /**
+   * Merges the query with the compressed context of the resource, decoding the context tokens
+   * only up to the last query token and the counts only for the tokens in the query.
+   */
+  private def scoreCompressed(store: MemoryContextStore, res: DBpediaResource, queryIDs: Array[Int], queryLM: Array[Double]): Double = {
+    val cursor = store.postings.cursor(res.id)
+    val cRes = store.getTotalTokenCount(res)
+
+    var sum = 0.0
+    var i = 0
+    var hasToken = cursor.next()
+    while (i < queryIDs.length) {
+      while (hasToken && cursor.token < queryIDs(i))
+        hasToken = cursor.next()
+
+      val c = if (hasToken && cursor.token == queryIDs(i)) store.qc(cursor.count) else 0
+      sum = addScore(sum, tokenScore(queryLM(i), c, cRes))
+      i += 1
+    }
+    sum
+  }
+
+  private def scoreMapped(store: MappedContextStore, res: DBpediaResource, queryIDs: Array[Int], queryLM: Array[Double]): Double = {
+    val end = store.offsets(res.id + 1)
+    val cRes = store.getTotalTokenCount(res)
+
+    var sum = 0.0
+    var i = 0
+    var j = store.offsets(res.id)
+    while (i < queryIDs.length) {
+      while (j < end && store.tokens(j) < queryIDs(i))
+        j += 1
+
+      val c = if (j < end && store.tokens(j) == queryIDs(i)) store.qc(store.counts(j)) else 0
+      sum = addScore(sum, tokenScore(queryLM(i), c, cRes))
+      i += 1
+    }
+    sum
+  }
+
+  private def scoreRaw(res: DBpediaResource, queryIDs: Array[Int], queryLM: Array[Double]): Double = {
+    val (tokens, counts) = contextStore.getRawContextCounts(res)
+    val cRes = contextStore.getTotalTokenCount(res)
+
+    var sum = 0.0
+    var i = 0
+    var j = 0
+    while (i < queryIDs.length) {
+      while (j < tokens.length && tokens(j) < queryIDs(i))
+        j += 1
+
+      val c = if (j < tokens.length && tokens(j) == queryIDs(i)) counts(j) else 0
+      sum = addScore(sum, tokenScore(queryLM(i), c, cRes))
+      i += 1
+    }
+    sum
+  }
+
+
   def nilScore(query: Seq[TokenType]): Double = {
     MathUtil.lnproduct(
       query.map{ t: TokenType =>
@@ -16,6 +16,10 @@ class NoContextSimilarity(val defaultScoreValue:Double) extends ContextSimilarit
     contextScores
   }
 
+  def score(query: Seq[TokenType], candidates: Array[DBpediaResource]): Array[Double] ={
+    Array.fill(candidates.length)(defaultScoreValue)
+  }
+
   def nilScore(query: Seq[TokenType]): Double ={
     MathUtil.LOGZERO
   }
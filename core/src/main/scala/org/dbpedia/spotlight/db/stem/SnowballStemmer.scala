@@ -3,24 +3,27 @@ package org.dbpedia.spotlight.db.stem
 import org.dbpedia.spotlight.db.model.Stemmer
 import org.tartarus.snowball.SnowballProgram
 
+/**
+ * A stemmer using a Snowball stemming program. Snowball programs keep the current word as state,
+ * so if the stemmer is thread-safe, each thread stems with its own instance of the program.
+ */
+
 class SnowballStemmer(stemmer: SnowballProgram) extends Stemmer {
 
   def this(s: String) {
     this(Class.forName("org.tartarus.snowball.ext.%s".format(s)).newInstance().asInstanceOf[SnowballProgram])
   }
 
+  private val threadStemmer = new ThreadLocal[SnowballProgram] {
+    override def initialValue(): SnowballProgram = stemmer.getClass.newInstance()
+  }
+
   override def stem(token: String): String = {
-    if (isThreadSafe) {
-      this.synchronized {
-        stemmer.setCurrent(token.toLowerCase)
-        stemmer.stem()
-        stemmer.getCurrent
-      }
-    } else {
-      stemmer.setCurrent(token.toLowerCase)
-      stemmer.stem()
-      stemmer.getCurrent
-    }
+    val program = if (isThreadSafe) threadStemmer.get() else stemmer
+
+    program.setCurrent(token.toLowerCase)
+    program.stem()
+    program.getCurrent
   }
 
 }
@@ -1,19 +1,31 @@
 package org.dbpedia.spotlight.db.tokenize
 
-import org.dbpedia.spotlight.model.{TokenType, Feature, Token, Text}
+import org.dbpedia.spotlight.model.{TokenType, Feature, Token, TokenBuffer, Text}
 import org.dbpedia.spotlight.db.model.{StringTokenizer, TextTokenizer, Stemmer, TokenTypeStore}
 
 
-abstract class BaseTextTokenizer(tokenTypeStore: TokenTypeStore, stemmer: Stemmer) extends TextTokenizer {
+/**
+ * @param tokenTypeCache cache of the token types of surface tokens, may be shared by several tokenizers (optional)
+ */
 
-  def tokenize(text: Text): List[Token]
+abstract class BaseTextTokenizer(tokenTypeStore: TokenTypeStore, stemmer: Stemmer, tokenTypeCache: TokenTypeCache = null) extends TextTokenizer {
+
+  def tokenizeBuffer(text: Text): TokenBuffer
+
+  def tokenize(text: Text): List[Token] = tokenizeBuffer(text).toTokens
 
   def tokenizeMaybe(text: Text) {
     if(text.feature("tokens").isEmpty)
-      text.setFeature(new Feature("tokens", tokenize(text)))
+      text.setFeature(new Feature("tokens", tokenizeBuffer(text)))
   }
 
-  protected def getStemmedTokenType(token: String): TokenType = tokenTypeStore.getTokenType(stemmer.stem(token))
+  private val lookupTokenType = (token: String) => tokenTypeStore.getTokenType(stemmer.stem(token))
+
+  protected def getStemmedTokenType(token: String): TokenType =
+    if (tokenTypeCache == null)
+      lookupTokenType(token)
+    else
+      tokenTypeCache.get(token, lookupTokenType)
 
   def getStringTokenizer: StringTokenizer
 
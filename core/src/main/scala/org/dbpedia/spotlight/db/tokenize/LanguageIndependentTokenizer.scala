@@ -5,7 +5,7 @@ import java.util.Locale
 
 import opennlp.tools.util.Span
 import org.dbpedia.spotlight.db.model.{Stemmer, TokenTypeStore}
-import org.dbpedia.spotlight.model.{Feature, Text, Token, TokenType}
+import org.dbpedia.spotlight.model.{Text, TokenBuffer, TokenType}
 
 import scala.collection.mutable.ArrayBuffer
 
@@ -18,35 +18,36 @@ class LanguageIndependentTokenizer(
   stopWords: Set[String],
   stemmer: Stemmer,
   locale: Locale,
-  var tokenTypeStore: TokenTypeStore
-) extends BaseTextTokenizer(tokenTypeStore, stemmer) {
+  var tokenTypeStore: TokenTypeStore,
+  tokenTypeCache: TokenTypeCache = null
+) extends BaseTextTokenizer(tokenTypeStore, stemmer, tokenTypeCache) {
 
   val baseTokenizer = new BaseLanguageIndependentTokenizer(locale)
 
   def getStringTokenizer: BaseStringTokenizer = new LanguageIndependentStringTokenizer(locale, stemmer, stopWords)
 
-  def tokenize(text: Text): List[Token] = {
+  def tokenizeBuffer(text: Text): TokenBuffer = {
+    val tokens = new TokenBuffer(text.text)
 
-    baseTokenizer.tokenizeSentences(locale, text.text).map{ sentencePos: Span =>
+    baseTokenizer.tokenizeSentences(locale, text.text).foreach{ sentencePos: Span =>
 
       val sentence = text.text.substring(sentencePos.getStart, sentencePos.getEnd)
 
-      val sentenceTokenPos = baseTokenizer.tokenizeWords(locale, sentence)
-      val sentenceTokens   = sentenceTokenPos.map(s => sentence.substring(s.getStart, s.getEnd))
+      baseTokenizer.tokenizeWords(locale, sentence).foreach{ tokenPos: Span =>
+        val token = sentence.substring(tokenPos.getStart, tokenPos.getEnd)
 
-      (0 to sentenceTokens.size-1).map{ i: Int =>
-        val token = if (stopWords contains sentenceTokens(i)) {
-          new Token(sentenceTokens(i), sentencePos.getStart + sentenceTokenPos(i).getStart, TokenType.STOPWORD)
-        } else {
-          new Token(sentenceTokens(i), sentencePos.getStart + sentenceTokenPos(i).getStart, getStemmedTokenType(sentenceTokens(i)))
-        }
+        val tokenType = if (stopWords contains token)
+          TokenType.STOPWORD
+        else
+          getStemmedTokenType(token)
 
-        if(i == sentenceTokens.size-1)
-          token.setFeature(new Feature("end-of-sentence", true))
-
-        token
+        tokens.add(sentencePos.getStart + tokenPos.getStart, token.length, tokenType)
       }
-    }.flatten.toList
+
+      tokens.endSentence()
+    }
+
+    tokens
   }
 }
 
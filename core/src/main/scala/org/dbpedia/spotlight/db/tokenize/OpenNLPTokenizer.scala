@@ -2,7 +2,7 @@ package org.dbpedia.spotlight.db.tokenize
 
 import opennlp.tools.sentdetect.SentenceDetector
 import opennlp.tools.postag.POSTagger
-import org.dbpedia.spotlight.model.{Feature, TokenType, Token, Text}
+import org.dbpedia.spotlight.model.{TokenBuffer, TokenType, Text}
 import opennlp.tools.util.Span
 import org.dbpedia.spotlight.db.model.{TokenTypeStore, Stemmer}
 
@@ -16,34 +16,36 @@ class OpenNLPTokenizer(
   stemmer: Stemmer,
   sentenceDetector: SentenceDetector,
   var posTagger: POSTagger,
-  tokenTypeStore: TokenTypeStore
-) extends BaseTextTokenizer(tokenTypeStore, stemmer) {
+  tokenTypeStore: TokenTypeStore,
+  tokenTypeCache: TokenTypeCache = null
+) extends BaseTextTokenizer(tokenTypeStore, stemmer, tokenTypeCache) {
 
-  def tokenize(text: Text): List[Token] = this.synchronized {
-    sentenceDetector.sentPosDetect(text.text).map{ sentencePos: Span =>
+  def tokenizeBuffer(text: Text): TokenBuffer = this.synchronized {
+    val tokens = new TokenBuffer(text.text)
+
+    sentenceDetector.sentPosDetect(text.text).foreach{ sentencePos: Span =>
 
       val sentence = text.text.substring(sentencePos.getStart, sentencePos.getEnd)
 
-      val sentenceTokens   = tokenizer.tokenize(sentence)
       val sentenceTokenPos = tokenizer.tokenizePos(sentence)
-      val posTags          = if(posTagger != null) posTagger.tag(sentenceTokens) else Array[String]()
-
-      (0 to sentenceTokens.size-1).map{ i: Int =>
-        val token = if (stopWords contains sentenceTokens(i)) {
-          new Token(sentenceTokens(i), sentencePos.getStart + sentenceTokenPos(i).getStart, TokenType.STOPWORD)
-        } else {
-          new Token(sentenceTokens(i), sentencePos.getStart + sentenceTokenPos(i).getStart, getStemmedTokenType(sentenceTokens(i)))
-        }
-
-        if(posTagger != null)
-          token.setFeature(new Feature("pos", posTags(i)))
+      val sentenceTokens   = Span.spansToStrings(sentenceTokenPos, sentence)
+      val posTags          = if(posTagger != null) posTagger.tag(sentenceTokens) else null
+
+      var i = 0
+      while (i < sentenceTokens.length) {
+        val tokenType = if (stopWords contains sentenceTokens(i))
+          TokenType.STOPWORD
+        else
+          getStemmedTokenType(sentenceTokens(i))
+
+        tokens.add(sentencePos.getStart + sentenceTokenPos(i).getStart, sentenceTokens(i).length, tokenType, if (posTags != null) posTags(i) else null)
+        i += 1
+      }
 
-        if(i == sentenceTokens.size-1)
-          token.setFeature(new Feature("end-of-sentence", true))
+      tokens.endSentence()
+    }
 
-        token
-      }
-    }.flatten.toList
+    tokens
   }
 
   def getStringTokenizer: BaseStringTokenizer = new OpenNLPStringTokenizer(tokenizer, stemmer)
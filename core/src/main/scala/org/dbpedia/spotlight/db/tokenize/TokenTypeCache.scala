@@ -0,0 +1,54 @@
+package org.dbpedia.spotlight.db.tokenize
+
+import org.dbpedia.spotlight.model.TokenType
+import org.dbpedia.spotlight.metrics.Metrics
+import com.google.common.cache.{Cache, CacheBuilder}
+
+/**
+ * A cache of the token types of surface tokens (before stemming), so that frequent tokens are not
+ * stemmed and looked up in the token type store every time they occur. Token types that are not in
+ * the store (TokenType.UNKNOWN) are cached as well.
+ *
+ * The cache is bounded (least recently used tokens are evicted first) and can be shared by several
+ * tokenizers. Hits and misses are counted in the metric spotlight_token_type_cache_total.
+ *
+ * @param maximumSize maximum number of cached tokens
+ * @param concurrencyLevel number of independently locked segments of the cache
+ */
+
+class TokenTypeCache(maximumSize: Int, concurrencyLevel: Int = 16) {
+
+  private val cache: Cache[String, TokenType] = CacheBuilder.newBuilder()
+    .maximumSize(maximumSize)
+    .concurrencyLevel(concurrencyLevel)
+    .recordStats()
+    .build[String, TokenType]()
+
+  private val hitCount = Metrics.tokenTypeCache.labels("hit")
+  private val missCount = Metrics.tokenTypeCache.labels("miss")
+
+  /**
+   * Returns the cached token type of the token or the token type created by lookup.
+   */
+  def get(token: String, lookup: String => TokenType): TokenType = {
+    val cached = cache.getIfPresent(token)
+    if (cached != null) {
+      hitCount.incrementAndGet()
+      cached
+    } else {
+      missCount.incrementAndGet()
+      val tokenType = lookup(token)
+      cache.put(token, tokenType)
+      tokenType
+    }
+  }
+
+  def size: Long = cache.size()
+
+  def hits: Long = cache.stats().hitCount()
+  def misses: Long = cache.stats().missCount()
+  def hitRate: Double = cache.stats().hitRate()
+
+  override def toString = "TokenTypeCache[size=%d, hits=%d, misses=%d]".format(size, hits, misses)
+
+}
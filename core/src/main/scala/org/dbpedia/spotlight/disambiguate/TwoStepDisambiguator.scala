@@ -85,7 +85,8 @@ class TwoStepDisambiguator(val candidateSearcher: CandidateSearcher,
 
     //If you want us to extract allCandidates from occs while we're generating it, you have to pass in the allCandidates parameter
     //If you don't pass anything down, we will just fill in a dummy hashset and let the garbage collector deal with it
-    def getCandidates(paragraph: Paragraph, allCandidates: CompactHashSet[DBpediaResource] = CompactHashSet[DBpediaResource]()) = {
+    //With maxCandidates, only the candidates with the highest support are kept for each surface form
+    def getCandidates(paragraph: Paragraph, allCandidates: CompactHashSet[DBpediaResource] = CompactHashSet[DBpediaResource](), maxCandidates: Int = Int.MaxValue) = {
         val s1 = System.nanoTime()
         // step1: get candidates for all surface forms (TODO here building allCandidates directly, but could extract from occs)
         val occs = paragraph.occurrences
@@ -95,6 +96,8 @@ class TwoStepDisambiguator(val candidateSearcher: CandidateSearcher,
                 var candidates = new java.util.HashSet[DBpediaResource]().asScala
                 try {
                     candidates = candidateSearcher.getCandidates(sfOcc.surfaceForm).asScala //.map(r => r.uri)
+                    if (candidates.size > maxCandidates)
+                        candidates = new java.util.HashSet[DBpediaResource](candidates.toList.sortBy(r => -r.support).take(maxCandidates).asJava).asScala
                 } catch {
                     case e: ItemNotFoundException => SpotlightLog.debug(this.getClass, "%s\n%s", e.getMessage, e.getStackTraceString)
                 }
@@ -121,16 +124,23 @@ class TwoStepDisambiguator(val candidateSearcher: CandidateSearcher,
 //        val m1 = if (candLuceneManager.getDBpediaResourceFactory == null) "lucene" else "jdbc"
 //        val m2 = if (contextLuceneManager.getDBpediaResourceFactory == null) "lucene" else "jdbc"
 
+        // degrade if the time budget of the text is running out (see TimeBudget): the candidates are capped
+        // before the context query, so that only the capped candidates are queried
+        val budget = TimeBudget.of(paragraph.text)
+        val maxCandidates = if (budget.exists(_.passed(TimeBudget.CAP_CANDIDATES, "candidates"))) TimeBudget.MIN_CANDIDATES else Int.MaxValue
+
         // step1: get candidates for all surface forms
         //       (TODO here building allCandidates directly, but could extract from occs)
         var allCandidates = CompactHashSet[DBpediaResource]()
-        val occs = getCandidates(paragraph,allCandidates)
+        val occs = getCandidates(paragraph,allCandidates,maxCandidates)
+
+        val priorOnly = budget.exists(_.passed(TimeBudget.PRIOR_ONLY, "context"))
 
         val s2 = System.nanoTime()
         // step2: query once for the paragraph context, get scores for each candidate resource
         var hits : Array[ScoreDoc] = null
         try {
-            hits = query(paragraph.text, allCandidates.toArray)
+            hits = if (priorOnly) Array[ScoreDoc]() else query(paragraph.text, allCandidates.toArray)
         } catch {
             case e: Exception => throw new SearchException(e)
             case r: RuntimeException => throw new SearchException(r)
@@ -165,7 +175,7 @@ class TwoStepDisambiguator(val candidateSearcher: CandidateSearcher,
                             resource, //TODO this resource may contain the c(s,r) that can be used for conditional prob.
                             supportConfidence)
                     })
-                    .sortBy(o => -o.contextualScore) //TODO should be final score
+                    .sortBy(o => if (priorOnly) -o.resource.support.toDouble else -o.similarityScore)
                 .take(k)
             acc + (aSfOcc -> candOccs)
         })
@@ -20,28 +20,34 @@ package org.dbpedia.spotlight.filter.annotations
 
 import org.dbpedia.spotlight.log.SpotlightLog
 import org.dbpedia.spotlight.model.{DBpediaResource, DBpediaResourceOccurrence}
-import org.dbpedia.spotlight.sparql.SparqlQueryExecuter
+import org.dbpedia.spotlight.sparql.{SparqlResultCache, SparqlQueryExecuter}
 import org.dbpedia.spotlight.filter.visitor.{FilterOccsVisitor, FilterElement}
-import scala.collection.JavaConverters._
 import java.util
 import scala.collection.JavaConversions._
 
 
-class SparqlFilter(val executer : SparqlQueryExecuter, val sparqlQuery: String, val listColor : FilterPolicy.ListColor) extends AnnotationFilter with FilterElement  {
+/**
+ * Keeps (whitelist) or removes (blacklist) the resources in the result of a SPARQL query. The result
+ * is taken from the cache, hence the endpoint is only queried if the query is not in the cache.
+ */
+class SparqlFilter(val cache: SparqlResultCache, val sparqlQuery: String, val listColor : FilterPolicy.ListColor) extends AnnotationFilter with FilterElement  {
+
+    def this(executer : SparqlQueryExecuter, sparqlQuery: String, listColor : FilterPolicy.ListColor) =
+        this(new SparqlResultCache(executer), sparqlQuery, listColor)
 
-    val uriSet =
+    private val result =
         if(sparqlQuery != null && sparqlQuery != "") {
-            val s = executer.query(sparqlQuery).asScala.map( r => r.uri ).toSet
-            SpotlightLog.debug(this.getClass, "SPARQL %s:%s", listColor, s)
-            s
+            val r = cache.get(sparqlQuery)
+            SpotlightLog.debug(this.getClass, "SPARQL %s: %d resources", listColor, r.size)
+            r
         }
         else {
-            Set[String]()
+            null
         }
 
     private val acceptable = listColor match {
-        case FilterPolicy.Whitelist => (resource : DBpediaResource) =>  uriSet.contains(resource.uri)
-        case FilterPolicy.Blacklist => (resource : DBpediaResource) => !uriSet.contains(resource.uri)
+        case FilterPolicy.Whitelist => (resource : DBpediaResource) =>  result.contains(resource)
+        case FilterPolicy.Blacklist => (resource : DBpediaResource) => !result.contains(resource)
     }
 
     override def touchOcc(occ : DBpediaResourceOccurrence) : Option[DBpediaResourceOccurrence] = {
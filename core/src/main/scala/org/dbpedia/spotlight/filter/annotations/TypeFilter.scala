@@ -19,10 +19,19 @@ package org.dbpedia.spotlight.filter.annotations
 import org.dbpedia.spotlight.log.SpotlightLog
 import org.dbpedia.spotlight.model.{OntologyType, DBpediaResource, DBpediaType, DBpediaResourceOccurrence}
 import org.dbpedia.spotlight.filter.visitor.{FilterElement, FilterOccsVisitor}
+import org.dbpedia.spotlight.db.OntologyTypeIndex
 import scala.collection.JavaConversions._
 import java.util
 
-class TypeFilter(var ontologyTypes : List[OntologyType], val blacklistOrWhitelist : FilterPolicy.ListColor) extends AnnotationFilter  with FilterElement {
+/**
+ * Filters resource occurrences by the ontology types of their resources.
+ *
+ * If the model has an [[org.dbpedia.spotlight.db.OntologyTypeIndex]], resources with an ID are
+ * tested by their ID, otherwise by their types.
+ */
+class TypeFilter(var ontologyTypes : List[OntologyType], val blacklistOrWhitelist : FilterPolicy.ListColor, typeIndex: OntologyTypeIndex) extends AnnotationFilter  with FilterElement {
+
+    def this(ontologyTypes : List[OntologyType], blacklistOrWhitelist : FilterPolicy.ListColor) = this(ontologyTypes, blacklistOrWhitelist, null)
 
     if (ontologyTypes==null)
         ontologyTypes = List[OntologyType]()
@@ -31,12 +40,18 @@ class TypeFilter(var ontologyTypes : List[OntologyType], val blacklistOrWhitelis
 
     if(ontologyTypes.isEmpty) SpotlightLog.info(this.getClass, "types are empty: showing all types")  // see comment below
 
+    private val hasListedTypeID = if (typeIndex == null) null else typeIndex.anyOf(ontologyTypes)
 
-    private val acceptable = blacklistOrWhitelist match {
-        case FilterPolicy.Whitelist => (resource : DBpediaResource) =>
+    private def hasListedType(resource : DBpediaResource) : Boolean = {
+        if (hasListedTypeID != null && resource.id > 0)
+            hasListedTypeID(resource.id)
+        else
             resource.types.filter(given => ontologyTypes.find(listed => given equals listed) != None).nonEmpty
-        case FilterPolicy.Blacklist => (resource : DBpediaResource) =>
-            resource.types.filter(given => ontologyTypes.find(listed => given equals listed) != None).isEmpty
+    }
+
+    private val acceptable = blacklistOrWhitelist match {
+        case FilterPolicy.Whitelist => (resource : DBpediaResource) => hasListedType(resource)
+        case FilterPolicy.Blacklist => (resource : DBpediaResource) => !hasListedType(resource)
     }
 
     private val showUntyped = ontologyTypes.find(t => DBpediaType.UNKNOWN equals t) != None
@@ -58,6 +73,13 @@ class TypeFilter(var ontologyTypes : List[OntologyType], val blacklistOrWhitelis
         }
     }
 
+    /**
+     * Returns true if occurrences of the resource pass this filter.
+     */
+    def accepts(resource : DBpediaResource) : Boolean = {
+        ontologyTypes.isEmpty || (showUntyped && resource.types.isEmpty) || acceptable(resource)
+    }
+
 
   def accept(visitor: FilterOccsVisitor, occs: util.List[DBpediaResourceOccurrence]): java.util.List[DBpediaResourceOccurrence]= {
     visitor.visit(this, occs)
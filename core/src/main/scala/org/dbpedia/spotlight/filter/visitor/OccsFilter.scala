@@ -17,14 +17,16 @@ package org.dbpedia.spotlight.filter.visitor
 import org.dbpedia.spotlight.model.DBpediaResourceOccurrence
 import org.dbpedia.spotlight.filter.annotations._
 import org.dbpedia.spotlight.model.Factory._
-import org.dbpedia.spotlight.sparql.SparqlQueryExecuter
+import org.dbpedia.spotlight.sparql.SparqlResultCache
+import org.dbpedia.spotlight.db.OntologyTypeIndex
 import scala.collection.JavaConverters._
 import java.util.{Comparator, Collections}
 
 
 class OccsFilter(confidence: Double, support: Int,
                  ontologyTypes: String, sparqlQuery: String, blacklist: Boolean, coreferenceResolution: Boolean,
-                 simThresholds: java.util.List[java.lang.Double], sparqlExecuter: SparqlQueryExecuter) extends FilterElement {
+                 simThresholds: java.util.List[java.lang.Double], sparqlCache: SparqlResultCache,
+                 typeIndex: OntologyTypeIndex) extends FilterElement {
 
   //Converting thresholds to scala list
   private val thresholds: List[Double] = simThresholds.asScala.map(v => v.toDouble).toList
@@ -57,11 +59,12 @@ class OccsFilter(confidence: Double, support: Int,
    *
    * @param ontologyTypes
    * @param listColor
+   * @param typeIndex
    * @return
    */
-  private def typeFilter(ontologyTypes: String, listColor: FilterPolicy.ListColor) = {
+  private def typeFilter(ontologyTypes: String, listColor: FilterPolicy.ListColor, typeIndex: OntologyTypeIndex) = {
     val dbpediaTypes = ontologyType.fromCSVString(ontologyTypes)
-    new TypeFilter(dbpediaTypes.toList, listColor)
+    new TypeFilter(dbpediaTypes.toList, listColor, typeIndex)
   }
 
 
@@ -69,13 +72,13 @@ class OccsFilter(confidence: Double, support: Int,
    *
    * Create/return a SparqlFilter instance
    *
-   * @param sparqlExecuter
+   * @param sparqlCache
    * @param sparqlQuery
    * @param listColor
    * @return
    */
-  private def sparqlFilter(sparqlExecuter: SparqlQueryExecuter, sparqlQuery: String,
-                           listColor: FilterPolicy.ListColor) = new SparqlFilter(sparqlExecuter, sparqlQuery, listColor)
+  private def sparqlFilter(sparqlCache: SparqlResultCache, sparqlQuery: String,
+                           listColor: FilterPolicy.ListColor) = new SparqlFilter(sparqlCache, sparqlQuery, listColor)
 
   /**
    *
@@ -89,20 +92,26 @@ class OccsFilter(confidence: Double, support: Int,
 
   private val listColor = if (blacklist) FilterPolicy.Blacklist else FilterPolicy.Whitelist
 
+  /**
+   * The type filter, which can also be used to prune candidates before disambiguation
+   * (see DBTwoStepDisambiguator).
+   */
+  val ontologyTypeFilter: TypeFilter = typeFilter(ontologyTypes, listColor, typeIndex)
+
 
   /**
    * List of available filters
    */
   private val elements: List[FilterElement] = if (thresholds.size == 0)
     List(supportFilter(support),
-      typeFilter(ontologyTypes, listColor),
-      sparqlFilter(sparqlExecuter, sparqlQuery, listColor),
+      ontologyTypeFilter,
+      sparqlFilter(sparqlCache, sparqlQuery, listColor),
       confidenceFilter(thresholds, confidence),
       percentageOfSecondFilter(confidence))
   else
     List(supportFilter(support),
-      typeFilter(ontologyTypes, listColor),
-      sparqlFilter(sparqlExecuter, sparqlQuery, listColor),
+      ontologyTypeFilter,
+      sparqlFilter(sparqlCache, sparqlQuery, listColor),
       percentageOfSecondFilter(confidence))
 
 
@@ -0,0 +1,104 @@
+package org.dbpedia.spotlight.metrics
+
+import java.util.concurrent.atomic.{AtomicLongArray, AtomicLong}
+
+/**
+ * A histogram of non-negative values (e.g. durations in nanoseconds) with exponentially growing buckets:
+ * bucket i contains the values in (GROWTH^(i-1), GROWTH^i], hence quantiles have a relative error of
+ * at most GROWTH - 1.
+ *
+ * Count and sum are cumulative. Quantiles are calculated over the values of the current and the
+ * previous time window, so that they follow changes of the latency.
+ *
+ * @param window length of a time window in milliseconds
+ */
+
+class Histogram(window: Long = Histogram.DEFAULT_WINDOW) {
+
+  import Histogram._
+
+  private val count = new AtomicLong()
+  private val sum = new AtomicLong()
+
+  @volatile private var current = new AtomicLongArray(BUCKETS)
+  @volatile private var previous = new AtomicLongArray(BUCKETS)
+  @volatile private var windowStart = System.currentTimeMillis()
+
+  def record(value: Long) {
+    rotate(System.currentTimeMillis())
+    current.incrementAndGet(bucket(value))
+    count.incrementAndGet()
+    sum.addAndGet(value)
+  }
+
+  /**
+   * Records the time since start (from System.nanoTime).
+   */
+  def recordSince(start: Long) {
+    record(System.nanoTime() - start)
+  }
+
+  def getCount: Long = count.get()
+
+  def getSum: Long = sum.get()
+
+  private def rotate(now: Long) {
+    if (now - windowStart >= window) synchronized {
+      if (now - windowStart >= window) {
+        previous = if (now - windowStart >= 2 * window) new AtomicLongArray(BUCKETS) else current
+        current = new AtomicLongArray(BUCKETS)
+        windowStart = now
+      }
+    }
+  }
+
+  /**
+   * Returns the q-quantiles of the values in the current and the previous time window
+   * (NaN if there are no values).
+   */
+  def quantiles(qs: Seq[Double]): Seq[Double] = {
+    rotate(System.currentTimeMillis())
+
+    val (c, p) = (current, previous)
+    val counts = (0 until BUCKETS).map(i => c.get(i) + p.get(i))
+    val total = counts.sum
+
+    qs.map { q: Double =>
+      if (total == 0)
+        Double.NaN
+      else {
+        val rank = math.max(1L, math.ceil(q * total).toLong)
+        var seen = 0L
+        var i = 0
+        while (seen + counts(i) < rank) {
+          seen += counts(i)
+          i += 1
+        }
+        upperBound(i)
+      }
+    }
+  }
+
+  def quantile(q: Double): Double = quantiles(Seq(q)).head
+
+}
+
+object Histogram {
+
+  val DEFAULT_WINDOW = 60 * 1000L
+
+  val GROWTH = 1.1
+  private val LOG_GROWTH = math.log(GROWTH)
+
+  //The last bucket (GROWTH^319 ns > 1 hour) contains all larger values:
+  val BUCKETS = 320
+
+  def bucket(value: Long): Int =
+    if (value <= 1)
+      0
+    else
+      math.min(BUCKETS - 1, math.ceil(math.log(value) / LOG_GROWTH).toInt)
+
+  def upperBound(bucket: Int): Double = math.pow(GROWTH, bucket)
+
+}
@@ -0,0 +1,227 @@
+package org.dbpedia.spotlight.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import scala.annotation.varargs
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+import org.dbpedia.spotlight.util.Profiling
+
+/**
+ * A metric with one child (e.g. a histogram) for each combination of label values.
+ */
+abstract class Metric[T](val name: String, val help: String, val labelNames: Seq[String]) {
+
+  private val children = new ConcurrentHashMap[List[String], T]()
+
+  protected def newChild(): T
+
+  @varargs def labels(values: String*): T = {
+    require(values.size == labelNames.size, "Metric %s requires the labels %s.".format(name, labelNames.mkString(", ")))
+
+    val key = values.toList
+    val child = children.get(key)
+    if (child != null)
+      child
+    else {
+      children.putIfAbsent(key, newChild())
+      children.get(key)
+    }
+  }
+
+  def metricType: String
+
+  protected def writeChild(out: StringBuilder, labels: Seq[(String, String)], child: T)
+
+  /**
+   * Writes the metric in the Prometheus text format.
+   */
+  def write(out: StringBuilder) {
+    out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n')
+    out.append("# TYPE ").append(name).append(' ').append(metricType).append('\n')
+
+    children.entrySet().toList.sortBy(_.getKey.mkString("\t")).foreach { e =>
+      writeChild(out, labelNames.zip(e.getKey), e.getValue)
+    }
+  }
+
+  protected def sample(out: StringBuilder, name: String, labels: Seq[(String, String)], value: Double) {
+    out.append(name)
+    if (!labels.isEmpty)
+      out.append(labels.map { case (l, v) => "%s=\"%s\"".format(l, Metrics.escape(v)) }.mkString("{", ",", "}"))
+    out.append(' ').append(Metrics.format(value)).append('\n')
+  }
+
+}
+
+/**
+ * Histograms written as a Prometheus summary with the quantiles in Metrics.QUANTILES.
+ *
+ * @param scale factor from the recorded values to the unit of the metric (e.g. from nanoseconds to seconds)
+ */
+class Summary(name: String, help: String, labelNames: Seq[String], scale: Double) extends Metric[Histogram](name, help, labelNames) {
+
+  protected def newChild() = new Histogram()
+
+  def metricType = "summary"
+
+  protected def writeChild(out: StringBuilder, labels: Seq[(String, String)], histogram: Histogram) {
+    Metrics.QUANTILES.zip(histogram.quantiles(Metrics.QUANTILES)).foreach { case (q, v) =>
+      sample(out, name, labels :+ ("quantile", q.toString), v * scale)
+    }
+    sample(out, name + "_sum", labels, histogram.getSum * scale)
+    sample(out, name + "_count", labels, histogram.getCount)
+  }
+
+  /**
+   * Records the duration of body in the histogram for the label values.
+   */
+  def timed[T](values: String*)(body: => T): T = Profiling.timed(labels(values: _*).record)(body)
+
+}
+
+class Counter(name: String, help: String, labelNames: Seq[String]) extends Metric[AtomicLong](name, help, labelNames) {
+
+  protected def newChild() = new AtomicLong()
+
+  def metricType = "counter"
+
+  protected def writeChild(out: StringBuilder, labels: Seq[(String, String)], counter: AtomicLong) {
+    sample(out, name, labels, counter.get())
+  }
+
+}
+
+/**
+ * Values that are read from their source when the metrics are written (e.g. the number of waiting threads
+ * of a pool). Values that only increase are exposed as counters, all others as gauges.
+ */
+class Gauge(name: String, help: String, labelNames: Seq[String], val metricType: String) extends Metric[GaugeValue](name, help, labelNames) {
+
+  protected def newChild() = new GaugeValue()
+
+  protected def writeChild(out: StringBuilder, labels: Seq[(String, String)], gauge: GaugeValue) {
+    sample(out, name, labels, gauge.get)
+  }
+
+}
+
+class GaugeValue {
+
+  @volatile
+  private var value: () => Double = () => 0.0
+
+  /**
+   * Sets the function that returns the current value.
+   */
+  def set(f: => Double) {
+    value = () => f
+  }
+
+  def get: Double = value()
+
+}
+
+
+/**
+ * Metrics of the annotation pipeline. They are exposed by the server in the Prometheus text format (see write).
+ *
+ * Durations are recorded in nanoseconds and exposed in seconds.
+ */
+object Metrics {
+
+  val QUANTILES = Seq(0.5, 0.95, 0.99)
+
+  val NANOSECONDS = 1e-9
+
+  private val metrics = mutable.LinkedHashMap[String, Metric[_]]()
+
+  private def register[M <: Metric[_]](metric: M): M = synchronized {
+    metrics.getOrElseUpdate(metric.name, metric).asInstanceOf[M]
+  }
+
+  @varargs def summary(name: String, help: String, scale: Double, labelNames: String*): Summary =
+    register(new Summary(name, help, labelNames, scale))
+
+  @varargs def counter(name: String, help: String, labelNames: String*): Counter =
+    register(new Counter(name, help, labelNames))
+
+  @varargs def gauge(name: String, help: String, labelNames: String*): Gauge =
+    register(new Gauge(name, help, labelNames, "gauge"))
+
+  /**
+   * A counter whose value is read from its source, e.g. a count kept by a pool.
+   */
+  @varargs def counterFunction(name: String, help: String, labelNames: String*): Gauge =
+    register(new Gauge(name, help, labelNames, "counter"))
+
+  /**
+   * Duration of the stages of the annotation: tokenize, spot, candidates, context, disambiguate, filter.
+   */
+  val stageDuration = summary("spotlight_stage_duration_seconds", "Duration of the annotation stages.", NANOSECONDS, "stage")
+
+  val requestDuration = summary("spotlight_request_duration_seconds", "Duration of the annotation of a text (without the output).", NANOSECONDS, "api", "spotter", "disambiguator")
+
+  val outputDuration = summary("spotlight_output_duration_seconds", "Duration of the serialization of the annotations.", NANOSECONDS, "format")
+
+  val textLength = summary("spotlight_request_text_length_chars", "Length of the texts in characters.", 1.0, "api")
+
+  val spots = summary("spotlight_request_spots", "Number of spots per text.", 1.0, "api")
+
+  val candidates = summary("spotlight_disambiguation_candidates", "Number of candidate resources per disambiguated context window.", 1.0)
+
+  val requests = counter("spotlight_requests_total", "Number of annotated texts.", "api")
+
+  val errors = counter("spotlight_request_errors_total", "Number of texts that could not be annotated.", "api")
+
+  val tokenTypeCache = counter("spotlight_token_type_cache_total", "Lookups in the token type cache of the tokenizer.", "result")
+
+  val resultCache = counter("spotlight_result_cache_total", "Lookups in the result cache of the REST server.", "result")
+
+  val schedulerWait = summary("spotlight_scheduler_wait_seconds", "Time the admitted requests waited in the queue of the request scheduler.", NANOSECONDS, "lane")
+
+  val schedulerRejections = counter("spotlight_scheduler_rejections_total", "Requests rejected by the request scheduler.", "lane", "reason")
+
+  val workerPoolSize = gauge("spotlight_worker_pool_size", "Number of workers of the tokenizer and spotter pools.", "pool")
+
+  val workerPoolQueueDepth = gauge("spotlight_worker_pool_queue_depth", "Number of threads waiting for a worker.", "pool")
+
+  val workerPoolMaxQueueDepth = gauge("spotlight_worker_pool_max_queue_depth", "Maximum number of threads that were waiting for a worker at the same time.", "pool")
+
+  val workerPoolRequests = counterFunction("spotlight_worker_pool_requests_total", "Requests for a worker.", "pool")
+
+  val workerPoolContendedRequests = counterFunction("spotlight_worker_pool_contended_requests_total", "Requests that had to wait for a worker.", "pool")
+
+  val degradations = counter("spotlight_degradations_total", "Texts whose annotation was degraded in a step because their time budget ran out.", "step")
+
+  /**
+   * Records the duration of body as the duration of the stage.
+   */
+  def timed[T](stage: String)(body: => T): T = stageDuration.timed(stage)(body)
+
+  def write(out: StringBuilder) {
+    synchronized(metrics.values.toList).foreach(_.write(out))
+  }
+
+  /**
+   * Returns all metrics in the Prometheus text format (version 0.0.4).
+   */
+  def text: String = {
+    val out = new StringBuilder()
+    write(out)
+    out.toString()
+  }
+
+  def escape(value: String): String = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+
+  def format(value: Double): String =
+    if (value.isNaN)
+      "NaN"
+    else if (value.isPosInfinity)
+      "+Inf"
+    else if (value == math.rint(value) && math.abs(value) < 1e15)
+      value.toLong.toString
+    else
+      value.toString
+
+}
@@ -0,0 +1,77 @@
+package org.dbpedia.spotlight.model
+
+import java.util.concurrent.ConcurrentSkipListSet
+import org.dbpedia.spotlight.metrics.Metrics
+import scala.collection.JavaConversions._
+
+/**
+ * The time a request may take to annotate its text. The budget is set as the feature
+ * TimeBudget.FEATURE of the [[org.dbpedia.spotlight.model.Text]] and starts when it is created,
+ * so that the time the request waited before the annotation is included.
+ *
+ * The stages of the pipeline check the fraction of the budget that is used up and degrade in
+ * defined steps instead of failing the request:
+ *
+ *  - after STOP_SPOTTING, no further sentences are spotted
+ *  - after CAP_CANDIDATES, only the MIN_CANDIDATES best candidates (by prior) of each surface form are scored
+ *  - after PRIOR_ONLY, the context is not scored and the candidates are ranked by their priors only
+ *
+ * Each step that was taken is recorded (see degradations), the result of the request is partial if
+ * there is any.
+ *
+ * @param millis the budget in milliseconds
+ */
+class TimeBudget(val millis: Long) {
+
+  private val start = System.nanoTime()
+  private val nanos = math.max(1L, millis * 1000000L)
+
+  private val steps = new ConcurrentSkipListSet[String]()
+
+  /**
+   * Returns the fraction of the budget that is used up (larger than 1.0 if the budget is exceeded).
+   */
+  def used: Double = (System.nanoTime() - start).toDouble / nanos
+
+  def exhausted: Boolean = used >= 1.0
+
+  /**
+   * Returns true if the given fraction of the budget is used up. In that case, the step is
+   * recorded as a degradation of the result.
+   */
+  def passed(fraction: Double, step: String): Boolean = {
+    if (used >= fraction) {
+      if (steps.add(step))
+        Metrics.degradations.labels(step).incrementAndGet()
+      true
+    } else {
+      false
+    }
+  }
+
+  def isPartial: Boolean = !steps.isEmpty
+
+  def degradations: Seq[String] = steps.toList
+
+  /**
+   * Returns the feature that sets this budget for a text.
+   */
+  def feature: Feature = new Feature(TimeBudget.FEATURE, this)
+
+  override def toString = "TimeBudget[%dms, used=%.2f, degradations=%s]".format(millis, used, degradations.mkString(","))
+
+}
+
+object TimeBudget {
+
+  val FEATURE = "time_budget"
+
+  val STOP_SPOTTING = 0.4
+  val CAP_CANDIDATES = 0.6
+  val PRIOR_ONLY = 0.8
+
+  val MIN_CANDIDATES = 3
+
+  def of(text: Text): Option[TimeBudget] = text.featureValue[TimeBudget](FEATURE)
+
+}
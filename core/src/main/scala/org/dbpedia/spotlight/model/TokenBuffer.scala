@@ -0,0 +1,181 @@
+package org.dbpedia.spotlight.model
+
+/**
+ * The tokens of a text as parallel arrays: offset, length, token type and part-of-speech tag of each
+ * token, and the sentence boundaries. Unlike a List of [[org.dbpedia.spotlight.model.Token]]s, the
+ * buffer does not create any objects per token. The token types are the objects of the token type
+ * store and the tags are the tag strings of the POS tagger.
+ *
+ * The arrays grow as tokens are added. A buffer can be reused for another text after clear().
+ *
+ * Code that works with Tokens can convert between both representations with toTokens and
+ * TokenBuffer.fromTokens.
+ *
+ * @param source the text of the tokens
+ * @param initialCapacity initial number of tokens the buffer can hold
+ */
+
+class TokenBuffer(private var source: String, initialCapacity: Int) {
+
+  def this(source: String) = this(source, math.max(16, source.length / 5))
+
+  private var offsets = new Array[Int](initialCapacity)
+  private var lengths = new Array[Int](initialCapacity)
+  private var typeIDs = new Array[Int](initialCapacity)
+  private var types = new Array[TokenType](initialCapacity)
+  private var tags: Array[String] = null
+
+  //Index after the last token of each sentence:
+  private var sentenceEnds = new Array[Int](16)
+
+  private var tokenCount = 0
+  private var sentences = 0
+
+  def text: String = source
+
+  def size: Int = tokenCount
+
+  def sentenceCount: Int = sentences
+
+  /**
+   * Adds a token to the current sentence.
+   *
+   * @return the index of the token
+   */
+  def add(offset: Int, length: Int, tokenType: TokenType, posTag: String = null): Int = {
+    if (tokenCount == offsets.length)
+      grow()
+
+    offsets(tokenCount) = offset
+    lengths(tokenCount) = length
+    typeIDs(tokenCount) = tokenType.id
+    types(tokenCount) = tokenType
+
+    if (posTag != null) {
+      if (tags == null)
+        tags = new Array[String](offsets.length)
+      tags(tokenCount) = posTag
+    }
+
+    tokenCount += 1
+    tokenCount - 1
+  }
+
+  /**
+   * Ends the current sentence. Tokens after the end of the last sentence do not belong to any sentence.
+   */
+  def endSentence() {
+    if (tokenCount > (if (sentences == 0) 0 else sentenceEnds(sentences - 1))) {
+      if (sentences == sentenceEnds.length)
+        sentenceEnds = java.util.Arrays.copyOf(sentenceEnds, sentences * 2)
+
+      sentenceEnds(sentences) = tokenCount
+      sentences += 1
+    }
+  }
+
+  private def grow() {
+    val capacity = math.max(16, offsets.length * 2)
+    offsets = java.util.Arrays.copyOf(offsets, capacity)
+    lengths = java.util.Arrays.copyOf(lengths, capacity)
+    typeIDs = java.util.Arrays.copyOf(typeIDs, capacity)
+    types = java.util.Arrays.copyOf(types.asInstanceOf[Array[AnyRef]], capacity).asInstanceOf[Array[TokenType]]
+    if (tags != null)
+      tags = java.util.Arrays.copyOf(tags.asInstanceOf[Array[AnyRef]], capacity).asInstanceOf[Array[String]]
+  }
+
+  /**
+   * Removes all tokens, so that the buffer can be used for the tokens of another text.
+   */
+  def clear(text: String) {
+    source = text
+    java.util.Arrays.fill(types.asInstanceOf[Array[AnyRef]], 0, tokenCount, null)
+    if (tags != null)
+      java.util.Arrays.fill(tags.asInstanceOf[Array[AnyRef]], 0, tokenCount, null)
+    tokenCount = 0
+    sentences = 0
+  }
+
+  def offset(i: Int): Int = offsets(i)
+
+  def length(i: Int): Int = lengths(i)
+
+  /* Offset after the last character of the token. */
+  def end(i: Int): Int = offsets(i) + lengths(i)
+
+  def tokenType(i: Int): TokenType = types(i)
+
+  def tokenTypeID(i: Int): Int = typeIDs(i)
+
+  /* The part-of-speech tag of the token or null if the text was not tagged. */
+  def posTag(i: Int): String = if (tags == null) null else tags(i)
+
+  def token(i: Int): String = source.substring(offsets(i), end(i))
+
+  def sentenceStart(s: Int): Int = if (s == 0) 0 else sentenceEnds(s - 1)
+
+  def sentenceEnd(s: Int): Int = sentenceEnds(s)
+
+  def isEndOfSentence(i: Int): Boolean = java.util.Arrays.binarySearch(sentenceEnds, 0, sentences, i + 1) >= 0
+
+
+  /* Copies of the values of the tokens with the indices from (inclusive) to until (exclusive): */
+
+  def tokens(from: Int, until: Int): Array[String] = Range(from, until).map(token).toArray
+
+  def tokenTypes(from: Int, until: Int): Array[TokenType] = java.util.Arrays.copyOfRange(types.asInstanceOf[Array[AnyRef]], from, until).asInstanceOf[Array[TokenType]]
+
+  def tokenTypeIDs(from: Int, until: Int): Array[Int] = java.util.Arrays.copyOfRange(typeIDs, from, until)
+
+  def posTags(from: Int, until: Int): Array[String] = Range(from, until).map(posTag).toArray
+
+
+  /**
+   * Creates a Token for each token in the buffer, with the features "pos" and "end-of-sentence"
+   * as they were set by the tokenizers.
+   */
+  def toTokens: List[Token] = {
+    (0 until tokenCount).map { i: Int =>
+      val t = new Token(token(i), offsets(i), types(i))
+
+      if (posTag(i) != null)
+        t.setFeature(new Feature("pos", posTag(i)))
+
+      if (isEndOfSentence(i))
+        t.setFeature(new Feature("end-of-sentence", true))
+
+      t
+    }.toList
+  }
+
+}
+
+object TokenBuffer {
+
+  /**
+   * Creates a buffer from Tokens with the features "pos" and "end-of-sentence".
+   */
+  def fromTokens(text: String, tokens: Seq[Token]): TokenBuffer = {
+    val buffer = new TokenBuffer(text, math.max(16, tokens.size))
+
+    tokens.foreach { t: Token =>
+      buffer.add(t.offset, t.token.length, t.tokenType, t.featureValue[String]("pos").orNull)
+
+      if (t.feature("end-of-sentence").isDefined)
+        buffer.endSentence()
+    }
+
+    buffer
+  }
+
+  /**
+   * Returns the tokens of the text (the "tokens" feature set by the tokenizer) or null if the text was
+   * not tokenized. Lists of Tokens set by older code are converted.
+   */
+  def of(text: Text): TokenBuffer = text.featureValue[AnyRef]("tokens") match {
+    case Some(buffer: TokenBuffer) => buffer
+    case Some(tokens: Seq[_]) => fromTokens(text.text, tokens.asInstanceOf[Seq[Token]])
+    case _ => null
+  }
+
+}
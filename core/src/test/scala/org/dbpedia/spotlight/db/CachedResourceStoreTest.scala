@@ -0,0 +1,84 @@
+package org.dbpedia.spotlight.db
+
+import java.io.File
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertSame}
+import org.dbpedia.spotlight.db.model.ResourceStore
+import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException
+import org.dbpedia.spotlight.model.DBpediaResource
+import scala.io.Source
+
+class CachedResourceStoreTest {
+
+  //Counts the created resources, there is no resource with ID 99:
+  class CountingStore extends ResourceStore {
+    var created = 0
+
+    def getResource(id: Int): DBpediaResource = {
+      if (id == 99)
+        throw new DBpediaResourceNotFoundException("No resource with ID 99")
+      created += 1
+      val res = new DBpediaResource("Resource_" + id, 1)
+      res.id = id
+      res
+    }
+
+    def getResourceByName(name: String): DBpediaResource = getResource(name.stripPrefix("Resource_").toInt)
+  }
+
+  @Test
+  def testCache() {
+    val store = new CountingStore()
+    val cache = new CachedResourceStore(store, 2)
+
+    val berlin = cache.getResource(1)
+    assertSame(berlin, cache.getResource(1))
+    assertEquals(1, store.created)
+    assertEquals(1, cache.hits)
+    assertEquals(1, cache.misses)
+
+    //The least recently used resource is evicted:
+    cache.getResource(2)
+    cache.getResource(3)
+    cache.getResource(1)
+    assertEquals(4, store.created)
+    assertEquals(2, cache.size)
+
+    //The cache is empty after the store changed:
+    cache.invalidateAll()
+    assertEquals(0, cache.size)
+    cache.getResource(3)
+    assertEquals(5, store.created)
+  }
+
+  @Test
+  def testWarmUp() {
+    val file = File.createTempFile("resource-cache", ".txt")
+    file.deleteOnExit()
+
+    val cache = new CachedResourceStore(new CountingStore(), 10)
+    cache.getResource(1)
+    cache.getResource(7)
+    cache.getResource(7)
+    cache.writeIDs(file)
+
+    //The most frequently looked up resources are written first:
+    val source = Source.fromFile(file)
+    assertEquals(List("7", "1"), source.getLines().toList)
+    source.close()
+
+    //Unknown IDs are skipped, the others are cached before the first lookup:
+    val store = new CountingStore()
+    val warm = new CachedResourceStore(store, 10)
+    warm.warmUp(Iterator(99))
+    warm.warmUp(file)
+    assertEquals(2, warm.size)
+    assertEquals(2, store.created)
+
+    warm.getResource(1)
+    warm.getResource(7)
+    assertEquals(2, store.created)
+    assertEquals(2, warm.hits)
+  }
+
+}
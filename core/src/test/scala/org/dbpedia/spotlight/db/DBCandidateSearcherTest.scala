@@ -0,0 +1,84 @@
+package org.dbpedia.spotlight.db
+
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.dbpedia.spotlight.db.memory.{MemorySurfaceFormStore, MemoryQuantizedCountStore, MemoryCandidateMapStore}
+import org.dbpedia.spotlight.db.model.ResourceStore
+import org.dbpedia.spotlight.filter.annotations.{FilterPolicy, TypeFilter}
+import org.dbpedia.spotlight.model.{OntologyType, DBpediaType, DBpediaResource, SurfaceForm}
+import scala.collection.JavaConversions._
+
+class DBCandidateSearcherTest {
+
+  val person = new DBpediaType("Person")
+  val place = new DBpediaType("Place")
+
+  //Resources 10 and 11 are places, all others are persons:
+  val resourceStore = new ResourceStore {
+    def getResource(id: Int): DBpediaResource = {
+      val res = new DBpediaResource("Resource_" + id, 1)
+      res.id = id
+      res.setTypes(List[OntologyType](if (id == 10 || id == 11) place else person))
+      res
+    }
+
+    def getResourceByName(name: String): DBpediaResource = getResource(name.stripPrefix("Resource_").toInt)
+  }
+
+  val berlin = new SurfaceForm("Berlin", 1, 100, 200)
+
+  val candidateMap = {
+    val qc = new MemoryQuantizedCountStore()
+    val store = new MemoryCandidateMapStore()
+    store.candidates = Array(null, Array(13, 10, 12, 11))
+    store.candidateCounts = Array(null, Array(qc.addCount(5), qc.addCount(40), qc.addCount(10), qc.addCount(30)))
+    store.quantizedCountStore = qc
+    store.resourceStore = resourceStore
+    store.loaded()
+    store
+  }
+
+  @Test
+  def testTypeFilter() {
+    val searcher = new DBCandidateSearcher(resourceStore, null, candidateMap)
+    val persons = new TypeFilter(List(person), FilterPolicy.Whitelist)
+
+    assertEquals(Set(10, 11), searcher.getTopCandidates(berlin, 2).map(_.resource.id))
+
+    //The two best candidates are places, the candidates of the right type below them are selected:
+    assertEquals(Set(12, 13), searcher.getTopCandidates(berlin, 2, (r: DBpediaResource) => persons.accepts(r)).map(_.resource.id))
+    assertEquals(Set(12), searcher.getTopCandidates(berlin, 1, (r: DBpediaResource) => persons.accepts(r)).map(_.resource.id))
+  }
+
+  @Test
+  def testNormalizedSurfaceForms() {
+    val qc = new MemoryQuantizedCountStore()
+
+    val sfStore = new MemorySurfaceFormStore()
+    sfStore.stringForID = Array("Berlin", "Paris", "paris")
+    sfStore.annotatedCountForID = Array(qc.addCount(100), qc.addCount(50), qc.addCount(60))
+    sfStore.totalCountForID = Array(qc.addCount(200), qc.addCount(100), qc.addCount(120))
+    sfStore.lowercaseMap = new java.util.HashMap[String, Array[Int]]()
+    sfStore.lowercaseMap.put("paris", Array(10, 1, 2))
+    sfStore.quantizedCountStore = qc
+    sfStore.loaded()
+
+    val candidates = new MemoryCandidateMapStore()
+    candidates.candidates = Array(null, Array(12, 10), Array(13, 11))
+    candidates.candidateCounts = Array(null, Array(qc.addCount(5), qc.addCount(40)), Array(qc.addCount(20), qc.addCount(30)))
+    candidates.quantizedCountStore = qc
+    candidates.resourceStore = resourceStore
+    candidates.loaded()
+
+    //The unknown surface form gets the candidates of both normalized surface forms, the priors
+    //are 0.8 (10), 0.1 (12) for "Paris" and 0.5 (11), 0.33 (13) for "paris":
+    val searcher = new DBCandidateSearcher(resourceStore, sfStore, candidates)
+    val unknown = new SurfaceForm("PARIS")
+    assertEquals(2, searcher.getCandidateLists(unknown).size)
+    assertEquals(Set(10, 11, 12, 13), searcher.getCandidates(unknown).map(_.resource.id))
+    assertEquals(Set(10, 11, 13), searcher.getTopCandidates(unknown, 3).map(_.resource.id))
+    assertEquals(Set(10), searcher.getTopCandidates(unknown, 1).map(_.resource.id))
+    assertEquals(Set(12, 13), searcher.getTopCandidates(unknown, 2, (r: DBpediaResource) => r.id > 11).map(_.resource.id))
+  }
+
+}
@@ -0,0 +1,51 @@
+package org.dbpedia.spotlight.db
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue}
+import org.dbpedia.spotlight.db.memory.{MemoryQuantizedCountStore, MemorySurfaceFormStore}
+
+class FuzzySurfaceFormStoreTest {
+
+  val sfStore = {
+    val qc = new MemoryQuantizedCountStore()
+    val store = new MemorySurfaceFormStore()
+    store.stringForID = Array("Berlin", "BERLIN", "Barack Obama", "US")
+    store.annotatedCountForID = Array(qc.addCount(10), qc.addCount(2), qc.addCount(5), qc.addCount(8))
+    store.totalCountForID = Array(qc.addCount(20), qc.addCount(4), qc.addCount(10), qc.addCount(16))
+    store.lowercaseMap = new java.util.HashMap[String, Array[Int]]()
+    store.lowercaseMap.put("berlin", Array(30, 0, 1))
+    store.lowercaseMap.put("barack obama", Array(1, 2))
+    store.lowercaseMap.put("us", Array(100, 3))
+    store.quantizedCountStore = qc
+    store.loaded()
+    store
+  }
+
+  @Test
+  def testEditDistance() {
+    assertEquals(0, FuzzySurfaceFormStore.editDistance("berlin", "berlin", 1))
+    assertEquals(1, FuzzySurfaceFormStore.editDistance("berlin", "berln", 1))
+    assertEquals(1, FuzzySurfaceFormStore.editDistance("berlin", "bertin", 1))
+    assertTrue(FuzzySurfaceFormStore.editDistance("berlin", "brelin", 1) > 1)
+    assertEquals(2, FuzzySurfaceFormStore.editDistance("berlin", "brelin", 2))
+  }
+
+  @Test
+  def testCandidates() {
+    val store = new FuzzySurfaceFormStore(sfStore, 1)
+    assertEquals(4, store.size)
+
+    //Ill-cased:
+    assertEquals(List("Berlin", "BERLIN"), store.getRankedSurfaceFormCandidates("berlin").map(_._1.name).toList)
+
+    //Misspelled:
+    assertEquals(List("Barack Obama"), store.getRankedSurfaceFormCandidates("barak obama").map(_._1.name).toList)
+    assertEquals(Set("Berlin", "BERLIN"), store.getRankedSurfaceFormCandidates("Berlinn").map(_._1.name).toSet)
+
+    //Short forms are only found by their lowercase form:
+    assertEquals(List("US"), store.getRankedSurfaceFormCandidates("us").map(_._1.name).toList)
+    assertTrue(store.getRankedSurfaceFormCandidates("uk").isEmpty)
+    assertTrue(store.getRankedSurfaceFormCandidates("Hamburg").isEmpty)
+  }
+
+}
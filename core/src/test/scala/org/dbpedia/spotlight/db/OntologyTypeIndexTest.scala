@@ -0,0 +1,57 @@
+package org.dbpedia.spotlight.db
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, assertFalse}
+import org.dbpedia.spotlight.db.memory.MemoryOntologyTypeStore
+import org.dbpedia.spotlight.model.{OntologyType, FreebaseType, DBpediaType}
+
+class OntologyTypeIndexTest {
+
+  val person = new DBpediaType("Person")
+  val place = new DBpediaType("Place")
+  val freebasePerson = new FreebaseType("people", "person")
+
+  val typeStore = {
+    val store = new MemoryOntologyTypeStore()
+    store.idFromName = new java.util.HashMap[String, java.lang.Short]()
+    store.ontologyTypeFromID = new java.util.HashMap[java.lang.Short, OntologyType]()
+    List(person, place, freebasePerson).zipWithIndex.foreach { case (t, i) =>
+      store.idFromName.put(t.typeID, i.toShort)
+      store.ontologyTypeFromID.put(i.toShort, t)
+    }
+    store
+  }
+
+  //Every even resource is a person, resource 3 is a place and resource 5 a Freebase person:
+  def types(id: Int): Array[Short] = id match {
+    case 3 => Array(1.toShort)
+    case 5 => Array(2.toShort)
+    case _ if id % 2 == 0 => Array(0.toShort)
+    case _ => Array[Short]()
+  }
+
+  @Test
+  def testIndex() {
+    //Resource 7 was changed to a place:
+    val index = OntologyTypeIndex.build(100, typeStore, types, (id: Int) => if (id == 7) Some(Seq(place)) else None)
+
+    assertEquals(50, index.resources(person).size)
+    assertEquals(1, index.resources(place).size)
+    assertEquals(0, index.resources(new DBpediaType("Organisation")).size)
+
+    val persons = index.anyOf(List(person))
+    assertTrue(persons(4))
+    assertFalse(persons(3))
+
+    //Freebase types belong to their domain:
+    assertTrue(index.anyOf(List(new FreebaseType("people", null)))(5))
+    assertFalse(index.anyOf(List(new FreebaseType("people", null)))(4))
+
+    val personsOrPlaces = index.anyOf(List(place, person))
+    assertTrue(personsOrPlaces(3))
+    assertTrue(personsOrPlaces(4))
+    assertFalse(personsOrPlaces(9))
+    assertTrue(personsOrPlaces(7))
+  }
+
+}
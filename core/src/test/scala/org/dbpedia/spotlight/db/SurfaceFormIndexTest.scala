@@ -0,0 +1,42 @@
+package org.dbpedia.spotlight.db
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, assertFalse}
+
+class SurfaceFormIndexTest {
+
+  val surfaceForms = Array("Berlin", null, "Barack Obama", "US")
+  val text = "Barack Obama visited berlin and the US in 2012."
+
+  @Test
+  def testFind() {
+    val index = SurfaceFormIndex.build(surfaceForms.length, surfaceForms(_))
+    assertEquals(3, index.size)
+
+    assertEquals(2, index.find(text, 0, 12))
+    assertEquals(3, index.find(text, 36, 38))
+    assertEquals(SurfaceFormIndex.MISS, index.find(text, 21, 27))
+    assertEquals(SurfaceFormIndex.MISS, index.find(text, 0, 6))
+
+    //Ill-cased spans are only found by their lowercase form:
+    assertTrue(index.containsLowercase(text, 21, 27))
+    assertFalse(index.containsLowercase(text, 13, 20))
+
+    index.setAddedSurfaceForms(List(("visited", 4)))
+    assertEquals(4, index.find(text, 13, 20))
+    index.setAddedSurfaceForms(List())
+    assertEquals(SurfaceFormIndex.MISS, index.find(text, 13, 20))
+  }
+
+  @Test
+  def testSpotScore() {
+    val weights = Array(0.5, 0.2, -0.3, 0.1)
+
+    List((0, 12), (36, 38), (42, 46)).foreach { case (start: Int, end: Int) =>
+      val spot = text.substring(start, end)
+      val expected = (0 until weights.length).map( i => weights(i) * DBSpotter.spotFeatures(spot, 0.4)(i) ).sum
+      assertEquals(expected, DBSpotter.spotScore(weights, 0.4, text, start, end), 0.0001)
+    }
+  }
+
+}
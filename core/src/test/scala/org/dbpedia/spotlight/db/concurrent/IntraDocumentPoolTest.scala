@@ -0,0 +1,32 @@
+package org.dbpedia.spotlight.db.concurrent
+
+import java.util.concurrent.ConcurrentHashMap
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue}
+
+class IntraDocumentPoolTest {
+
+  @Test
+  def testOrder() {
+    val pool = new IntraDocumentPool(4, 10)
+    val threads = new ConcurrentHashMap[Thread, Boolean]()
+
+    //The results of a large text are in the order of its parts:
+    val parts = pool.map(1000, 1000) { i: Int =>
+      threads.put(Thread.currentThread(), true)
+      Thread.sleep((i * 7) % 3)
+      i * 2
+    }
+    assertEquals((0 until 1000).map(_ * 2).toList, parts.toList)
+    assertTrue(threads.size > 1)
+
+    //Texts below the threshold are processed on the calling thread:
+    threads.clear()
+    assertEquals(List(0, 1, 2), pool.map(3, 5) { i: Int => threads.put(Thread.currentThread(), true); i }.toList)
+    assertEquals(1, threads.size)
+    assertTrue(threads.containsKey(Thread.currentThread()))
+
+    assertEquals(List(0, 1), IntraDocumentPool.map(null, 2, 1000)(i => i).toList)
+  }
+
+}
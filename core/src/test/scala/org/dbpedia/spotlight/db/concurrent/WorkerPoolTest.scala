@@ -0,0 +1,114 @@
+package org.dbpedia.spotlight.db.concurrent
+
+import java.io.IOException
+import java.util.concurrent.{Callable, CountDownLatch, Executors, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, fail}
+import org.dbpedia.spotlight.model.{SurfaceForm, SurfaceFormOccurrence, Text}
+import org.dbpedia.spotlight.spot.Spotter
+import org.dbpedia.spotlight.metrics.Metrics
+import scala.collection.JavaConversions._
+
+class WorkerPoolTest {
+
+  //A worker that must not be used by two threads at the same time:
+  class Worker {
+    val users = new AtomicInteger(0)
+    val calls = new AtomicInteger(0)
+
+    def use(i: Int): Int = {
+      if (users.incrementAndGet() != 1)
+        throw new IllegalStateException("The worker is used by another thread.")
+      calls.incrementAndGet()
+      Thread.sleep(1)
+      users.decrementAndGet()
+      i
+    }
+  }
+
+  @Test
+  def testExclusiveWorkers() {
+    val workers = List(new Worker(), new Worker())
+    val pool = new WorkerPool[Worker](workers)
+    val executor = Executors.newFixedThreadPool(8)
+
+    val tasks = new java.util.ArrayList[Callable[Int]]()
+    (0 until 200).foreach( i => tasks.add(new Callable[Int] {
+      def call(): Int = pool.withWorker(_.use(i))
+    }))
+    val results = executor.invokeAll(tasks)
+    assertEquals((0 until 200).toList, results.map(_.get).toList)
+    executor.shutdown()
+
+    //All requests were run, a worker is returned to the pool after each request:
+    assertEquals(200, workers.map(_.calls.get).sum)
+    assertEquals(200L, pool.requests)
+    assertEquals(0, pool.queueDepth)
+    assertTrue(pool.maxQueueDepth <= 6)
+  }
+
+  @Test
+  def testTimeout() {
+    val pool = new WorkerPool[Worker](List(new Worker()))
+    pool.timeout = 0
+
+    //The worker is returned to the pool if the request fails:
+    try {
+      pool.withWorker { w: Worker => throw new IllegalArgumentException() }
+      fail()
+    } catch {
+      case e: IllegalArgumentException =>
+    }
+
+    //While the only worker is used, other requests time out:
+    val checkedOut = new CountDownLatch(1)
+    val done = new CountDownLatch(1)
+    val thread = new Thread() {
+      override def run() {
+        pool.withWorker { w: Worker =>
+          checkedOut.countDown()
+          done.await(10, TimeUnit.SECONDS)
+        }
+      }
+    }
+    thread.start()
+    checkedOut.await(10, TimeUnit.SECONDS)
+
+    try {
+      pool.withWorker(_.use(1))
+      fail("The request should time out.")
+    } catch {
+      case e: IOException =>
+    }
+    assertEquals(1L, pool.contendedRequests)
+
+    done.countDown()
+    thread.join()
+    assertEquals(1, pool.withWorker(_.use(1)))
+  }
+
+  @Test
+  def testSpotterWrapper() {
+    //Each spotter finds its own name in the text:
+    def spotter(name: String) = new Spotter {
+      def extract(text: Text): java.util.List[SurfaceFormOccurrence] =
+        List(new SurfaceFormOccurrence(new SurfaceForm(name), text, text.text.indexOf(name)))
+
+      def getName: String = name
+
+      def setName(name: String) {}
+    }
+
+    val wrapper = new SpotterWrapper(List(spotter("Berlin")))
+    val spots = wrapper.extract(new Text("Berlin is big."))
+    assertEquals(1, spots.size)
+    assertEquals("Berlin", spots.get(0).surfaceForm.name)
+    assertEquals(0, spots.get(0).textOffset)
+    assertEquals(1L, wrapper.pool.requests)
+
+    //The statistics of the pool are exposed on /metrics:
+    assertTrue(Metrics.text.contains("spotlight_worker_pool_requests_total{pool=\"spotter\"} 1\n"))
+  }
+
+}
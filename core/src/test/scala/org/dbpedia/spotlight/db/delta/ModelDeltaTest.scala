@@ -0,0 +1,47 @@
+package org.dbpedia.spotlight.db.delta
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue}
+import org.dbpedia.spotlight.db.memory.{MemoryQuantizedCountStore, MemoryCandidateMapStore}
+import org.dbpedia.spotlight.model.SurfaceForm
+import ModelDelta._
+
+class ModelDeltaTest {
+
+  @Test
+  def testParse() {
+    assertEquals(Some(AddSurfaceForm("Berlin", 10, 20)), parse("+sf\tBerlin\t10\t20"))
+    assertEquals(Some(AddResource("Berlin", 5, Seq("DBpedia:Place", "DBpedia:City"))), parse("+res\tBerlin\t5\tDBpedia:Place,DBpedia:City"))
+    assertEquals(Some(RemoveCandidate("Berlin", "Berlin_(band)")), parse("-cand\tBerlin\tBerlin_(band)"))
+    assertEquals(Some(Redirect("Berlin,_Germany", "Berlin")), parse("redirect\tBerlin,_Germany\tBerlin"))
+    assertEquals(None, parse("+sf\tBerlin"))
+  }
+
+  @Test
+  def testCandidateChanges() {
+    val qc = new MemoryQuantizedCountStore()
+    val store = new MemoryCandidateMapStore()
+    store.candidates = Array(null, Array(1, 2))
+    store.candidateCounts = Array(null, Array(qc.addCount(5), qc.addCount(10)))
+    store.quantizedCountStore = qc
+    store.loaded()
+
+    val sf = new SurfaceForm("Berlin", 1, 15, 20)
+
+    store.putCandidate(1, 3, 20)
+    store.putCandidate(1, 2, 0)
+
+    val l = store.getCandidateList(sf)
+    assertEquals(2, l.size)
+    assertEquals(3, l.resourceID(0))
+    assertEquals(20, l.support(0))
+    assertEquals(1, l.resourceID(1))
+
+    store.putCandidate(5, 3, 1)
+    assertEquals(1, store.getCandidateList(new SurfaceForm("Berlin Wall", 5, 1, 1)).size)
+
+    store.removeCandidates(1)
+    assertTrue(store.getCandidateList(sf).isEmpty)
+  }
+
+}
@@ -0,0 +1,46 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io.File
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.dbpedia.spotlight.db.memory.{MemoryQuantizedCountStore, MemoryContextStore}
+import org.dbpedia.spotlight.model.{TokenType, DBpediaResource}
+
+class MappedContextStoreTest {
+
+  def resource(id: Int) = {
+    val r = new DBpediaResource("Resource_" + id)
+    r.id = id
+    r
+  }
+
+  def token(id: Int) = new TokenType(id, "token_" + id, 1)
+
+  @Test
+  def testContextCounts() {
+    val qc = new MemoryQuantizedCountStore()
+    val memoryStore = new MemoryContextStore()
+    memoryStore.quantizedCountStore = qc
+    memoryStore.tokens = Array(Array(2, 5, 9, 14), null, Array(1))
+    memoryStore.counts = Array(Array(qc.addCount(3), qc.addCount(70), qc.addCount(1), qc.addCount(12)), null, Array(qc.addCount(4)))
+
+    val f = File.createTempFile("context", ".mmap")
+    f.deleteOnExit()
+    MappedStore.dumpContextStore(memoryStore, f)
+    val store = MappedStore.loadContextStore(f, null)
+
+    assertEquals(86, store.getTotalTokenCount(resource(0)))
+    assertEquals(3, store.getContextCount(resource(0), token(2)))
+    assertEquals(70, store.getContextCount(resource(0), token(5)))
+    assertEquals(12, store.getContextCount(resource(0), token(14)))
+    assertEquals(4, store.getContextCount(resource(2), token(1)))
+
+    //Tokens that are not in the context and resources without a context:
+    assertEquals(0, store.getContextCount(resource(0), token(1)))
+    assertEquals(0, store.getContextCount(resource(0), token(6)))
+    assertEquals(0, store.getContextCount(resource(0), token(20)))
+    assertEquals(0, store.getContextCount(resource(1), token(2)))
+    assertEquals(0, store.getContextCount(resource(3), token(2)))
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io.File
+import scala.util.Random
+import org.junit.Test
+import org.junit.Assert.assertEquals
+
+class MappedNGramStoreTest {
+
+  @Test
+  def testRoundtrip() {
+    val words = Array("the", "of", "Berlin", "wall", "fall")
+    val random = new Random(42)
+
+    //All bigrams and every third trigram of the words:
+    val bigrams = for (w1 <- 0 until words.length; w2 <- 0 until words.length) yield (w1, w2)
+    val trigrams = for (w1 <- 0 until words.length; w2 <- 0 until words.length; w3 <- 0 until words.length if (w1 + w2 + w3) % 3 == 0) yield (w1, w2, w3)
+    val shuffledBigrams = random.shuffle(bigrams)
+    val shuffledTrigrams = random.shuffle(trigrams)
+
+    val f = File.createTempFile("ngrams", ".mmap")
+    f.deleteOnExit()
+
+    MappedStore.dumpNGramStore(
+      words, Array(10L, 20L, 30L, 40L, 50L), Array(100L, 200L, 300L, 400L, 500L),
+      shuffledBigrams.map(_._1).toArray, shuffledBigrams.map(_._2).toArray, shuffledBigrams.map { case (w1, w2) => w1 * 10 + w2 + 0.5f }.toArray,
+      shuffledTrigrams.map(_._1).toArray, shuffledTrigrams.map(_._2).toArray, shuffledTrigrams.map(_._3).toArray, shuffledTrigrams.map { case (w1, w2, w3) => w1 * 100L + w2 * 10 + w3 }.toArray,
+      f
+    )
+
+    val store = MappedStore.loadNGramStore(f)
+
+    assertEquals(2, store.wordID("Berlin"))
+    assertEquals(-1, store.wordID("London"))
+    assertEquals(30L, store.getCountCorpus(2))
+    assertEquals(300L, store.getCountWeb(2))
+
+    bigrams.foreach { case (w1, w2) =>
+      assertEquals(w1 * 10 + w2 + 0.5f, store.getBigramSignificance(store.bigram(w1, w2)), 0.0f)
+    }
+    assertEquals(-1L, store.bigram(2, 7))
+
+    trigrams.foreach { case (w1, w2, w3) =>
+      assertEquals(w1 * 100L + w2 * 10 + w3, store.getTrigramCount(store.trigram(w1, w2, w3)))
+    }
+    assertEquals(-1L, store.trigram(0, 0, 1))
+
+    //Batch lookups return the same indices as single lookups:
+    val w1 = Array(4, 2, 0, 2, 9)
+    val w2 = Array(1, 3, 0, 3, 0)
+    val w3 = Array(1, 4, 0, 3, 0)
+    assertEquals((0 until 5).map(i => store.bigram(w1(i), w2(i))).toList, store.bigrams(w1, w2).toList)
+    assertEquals((0 until 5).map(i => store.trigram(w1(i), w2(i), w3(i))).toList, store.trigrams(w1, w2, w3).toList)
+  }
+
+}
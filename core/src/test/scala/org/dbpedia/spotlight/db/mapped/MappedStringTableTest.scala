@@ -0,0 +1,47 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io.File
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertNull}
+
+class MappedStringTableTest {
+
+  @Test
+  def testRoundtrip() {
+    val strings = Array[String](null, "Berlin", "Bärlin", "", "New York", "Paris")
+
+    val f = File.createTempFile("strings", ".mmap")
+    f.deleteOnExit()
+
+    val writer = new MappedFileWriter(f)
+    writer.writeInt(42)
+    MappedStringTable.write(writer, strings)
+    writer.writeIntArray(Array(1, 2, 3))
+    writer.close()
+
+    val file = new MappedFile(f)
+    val reader = new MappedFileReader(file)
+    assertEquals(42, reader.readInt())
+
+    val table = reader.readStringTable()
+    assertEquals(strings.length, table.size)
+
+    assertNull(table.get(0))
+    assertNull(table.get(3))
+    assertEquals("Bärlin", table.get(2))
+    assertEquals("Paris", table.get(5))
+
+    assertEquals(1, table.getID("Berlin"))
+    assertEquals(2, table.getID("Bärlin"))
+    assertEquals(4, table.getID("New York"))
+    assertEquals(-1, table.getID("London"))
+    assertEquals(-1, table.getID(""))
+
+    val ints = reader.readIntArray()
+    assertEquals(3L, ints.length)
+    assertEquals(3, ints(2))
+
+    file.close()
+  }
+
+}
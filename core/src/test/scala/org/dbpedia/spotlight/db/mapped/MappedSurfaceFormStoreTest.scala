@@ -0,0 +1,31 @@
+package org.dbpedia.spotlight.db.mapped
+
+import java.io.File
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.dbpedia.spotlight.db.memory.{MemoryQuantizedCountStore, MemorySurfaceFormStore}
+
+class MappedSurfaceFormStoreTest {
+
+  @Test
+  def testLargeTotalCounts() {
+    val qc = new MemoryQuantizedCountStore()
+    val memoryStore = new MemorySurfaceFormStore()
+    memoryStore.stringForID = Array("Berlin", "Paris")
+    memoryStore.annotatedCountForID = Array(qc.addCount(2000000000), qc.addCount(2000000000))
+    memoryStore.totalCountForID = Array(qc.addCount(10), qc.addCount(20))
+    memoryStore.lowercaseMap = new java.util.HashMap[String, Array[Int]]()
+    memoryStore.quantizedCountStore = qc
+
+    val f = File.createTempFile("sf", ".mmap")
+    f.deleteOnExit()
+    MappedStore.dumpSurfaceFormStore(memoryStore, f)
+    val store = MappedStore.loadSurfaceFormStore(f)
+
+    //The sum of the annotated counts does not fit in an Int, the total does not overflow:
+    assertEquals(Int.MaxValue, store.getTotalAnnotatedCount)
+    assertEquals(30, store.getTotalOccurrenceCount)
+    assertEquals(2000000000, store.getSurfaceForm("Paris").annotatedCount)
+  }
+
+}
@@ -0,0 +1,45 @@
+package org.dbpedia.spotlight.db.memory
+
+import org.junit.Test
+import org.junit.Assert.{assertArrayEquals, assertEquals, assertNull, assertTrue}
+import org.dbpedia.spotlight.model.SurfaceForm
+
+class MemoryCandidateMapStoreTest {
+
+  @Test
+  def testCandidateArrays() {
+    val qc = new MemoryQuantizedCountStore()
+    val store = new MemoryCandidateMapStore()
+    store.candidates = Array(Array(3, 1, 2), null, Array(7))
+    store.candidateCounts = Array(Array(qc.addCount(10), qc.addCount(50), qc.addCount(20)), null, Array(qc.addCount(5)))
+    store.quantizedCountStore = qc
+    store.loaded()
+
+    //The candidates of all surface forms are in one array, sorted by count for each surface form:
+    assertArrayEquals(Array(0, 3, 3, 4), store.candidateOffsets)
+    assertArrayEquals(Array(1, 2, 3, 7), store.candidateIDs)
+    assertArrayEquals(Array(50, 20, 10, 5), store.candidateSupport)
+    assertNull(store.candidates)
+    assertEquals(3, store.size)
+
+    val berlin = store.getCandidateList(new SurfaceForm("Berlin", 0, 100, 200))
+    assertEquals(List(1, 2, 3), (0 until berlin.size).map(berlin.resourceID).toList)
+    assertEquals(List(50, 20, 10), (0 until berlin.size).map(berlin.support).toList)
+    assertEquals(0.5, berlin.prior(0), 0.0001)
+
+    //The top candidates are a slice of the list:
+    val top = berlin.take(2)
+    assertEquals(List(1, 2), (0 until top.size).map(top.resourceID).toList)
+    assertEquals(berlin.size, berlin.take(10).size)
+
+    val paris = store.getCandidateList(new SurfaceForm("Paris", 2, 10, 20))
+    assertEquals(1, paris.size)
+    assertEquals(7, paris.resourceID(0))
+    assertEquals(5, paris.support(0))
+
+    //Surface forms without candidates and unknown surface forms:
+    assertTrue(store.getCandidateList(new SurfaceForm("Rome", 1, 10, 20)).isEmpty)
+    assertTrue(store.getCandidateList(new SurfaceForm("London", 3, 10, 20)).isEmpty)
+  }
+
+}
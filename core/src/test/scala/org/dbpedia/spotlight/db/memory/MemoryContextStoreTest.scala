@@ -0,0 +1,102 @@
+package org.dbpedia.spotlight.db.memory
+
+import java.io.{File, FileInputStream}
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, assertNull}
+import org.dbpedia.spotlight.model.DBpediaResource
+
+class MemoryContextStoreTest {
+
+  val quantizedCountStore = new MemoryQuantizedCountStore()
+
+  //Resource 1 has no context, resource 2 has a context with large token IDs and counts:
+  val contexts = Array(
+    Array((1, 1), (5, 3), (6, 1), (200, 2)),
+    null,
+    Array((3, 7), (128, 70000), (100000, 1), (2000000000, 5))
+  )
+
+  def createStore(): MemoryContextStore = {
+    val store = new MemoryContextStore()
+    store.quantizedCountStore = quantizedCountStore
+    store.tokens = contexts.map(c => if (c == null) null else c.map(_._1))
+    store.counts = contexts.map(c => if (c == null) null else c.map(p => quantizedCountStore.addCount(p._2)))
+    store.totalTokenCounts = new Array[Int](contexts.length)
+    store.calculateTotalTokenCounts()
+    store
+  }
+
+  def resource(id: Int) = {
+    val r = new DBpediaResource("r" + id)
+    r.id = id
+    r
+  }
+
+  def assertContexts(store: MemoryContextStore) {
+    assertEquals(3, store.size)
+    assertEquals(0, store.contextSize(1))
+    assertNull(store.contextTokens(1))
+    assertEquals(0, store.getTotalTokenCount(resource(1)))
+
+    List(0, 2).foreach { i: Int =>
+      assertEquals(contexts(i).length, store.contextSize(i))
+      val (tokens, counts) = store.getRawContextCounts(resource(i))
+      assertEquals(contexts(i).toList, tokens.zip(counts).toList)
+      assertEquals(contexts(i).map(_._2).sum, store.getTotalTokenCount(resource(i)))
+    }
+  }
+
+  @Test
+  def testCompress() {
+    val store = createStore()
+    store.compress()
+
+    assertTrue(store.isCompressed)
+    assertNull(store.tokens)
+    assertContexts(store)
+
+    val cursor = store.postings.cursor(2)
+    assertTrue(cursor.next())
+    assertEquals(3, cursor.token)
+    assertEquals(7, store.qc(cursor.count))
+  }
+
+  @Test
+  def testSerialization() {
+    val store = createStore()
+    store.compress()
+
+    val file = File.createTempFile("context", ".mem")
+    file.deleteOnExit()
+    MemoryStore.dump(store, file)
+
+    val loaded = MemoryStore.loadContextStore(new FileInputStream(file), null, quantizedCountStore)
+    assertTrue(loaded.isCompressed)
+    assertContexts(loaded)
+  }
+
+  @Test
+  def testCompressContextStore() {
+    val folder = File.createTempFile("model", "")
+    folder.delete()
+    folder.mkdir()
+    MemoryStore.dump(createStore(), new File(folder, "context.mem"))
+    MemoryStore.dump(quantizedCountStore, new File(folder, "quantized_counts.mem"))
+
+    //The uncompressed file is replaced by the compressed one, which is loaded as it is:
+    MemoryStore.compressContextStore(folder)
+    val loaded = MemoryStore.loadContextStore(new FileInputStream(new File(folder, "context.mem")), null, quantizedCountStore)
+    assertTrue(loaded.isCompressed)
+    assertNull(loaded.tokens)
+    assertContexts(loaded)
+
+    //Compressing again keeps the file:
+    MemoryStore.compressContextStore(folder)
+    assertContexts(MemoryStore.loadContextStore(new FileInputStream(new File(folder, "context.mem")), null, quantizedCountStore))
+    assertEquals(List("context.mem", "quantized_counts.mem"), folder.list().toList.sorted)
+
+    folder.listFiles().foreach(_.delete())
+    folder.delete()
+  }
+
+}
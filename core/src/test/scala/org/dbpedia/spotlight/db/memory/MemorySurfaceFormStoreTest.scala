@@ -0,0 +1,45 @@
+package org.dbpedia.spotlight.db.memory
+
+import java.io.{FileInputStream, File}
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertNull}
+
+class MemorySurfaceFormStoreTest {
+
+  @Test
+  def testCompactedLowercaseMap() {
+    val qc = new MemoryQuantizedCountStore()
+    val store = new MemorySurfaceFormStore()
+    store.stringForID = Array("Berlin", "Paris", "PARIS")
+    store.annotatedCountForID = Array(qc.addCount(10), qc.addCount(5), qc.addCount(2))
+    store.totalCountForID = Array(qc.addCount(20), qc.addCount(10), qc.addCount(4))
+    store.lowercaseMap = new java.util.HashMap[String, Array[Int]]()
+    store.lowercaseMap.put("berlin", Array(30, 0))
+    store.lowercaseMap.put("paris", Array(7, 1, 2))
+    store.quantizedCountStore = qc
+    store.loaded()
+
+    store.removeSurfaceForm("Paris")
+    val added = store.putSurfaceForm("Berlin Wall", 4, 8)
+
+    //The surface forms of the store include the changes:
+    assertEquals(List("Berlin", "PARIS", "Berlin Wall"), store.iterateSurfaceForms.map(_.name).toList)
+
+    val file = File.createTempFile("sf", ".mem")
+    file.deleteOnExit()
+    MemoryStore.dump(store.compacted(), file)
+    val compacted = MemoryStore.loadSurfaceFormStore(new FileInputStream(file), qc)
+
+    //The removed surface form is no candidate anymore, the count of its lowercase form is kept:
+    assertEquals(List("PARIS"), compacted.getRankedSurfaceFormCandidates("paris").map(_._1.name).toList)
+    assertEquals(7, compacted.getLowercaseSurfaceFormCount("paris"))
+    assertNull(store.getSurfaceFormByID(1))
+    assertNull(compacted.getSurfaceFormByID(1))
+
+    //The added surface form is found in a different case:
+    assertEquals(List("Berlin Wall"), compacted.getRankedSurfaceFormCandidates("BERLIN WALL").map(_._1.name).toList)
+    assertEquals(added, compacted.getSurfaceFormNormalized("berlin wall").id)
+    assertEquals(0, compacted.getLowercaseSurfaceFormCount("berlin wall"))
+  }
+
+}
@@ -0,0 +1,45 @@
+package org.dbpedia.spotlight.db.memory.util
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertNull}
+
+class StringPoolTest {
+
+  //More strings than fit into one block, with shared prefixes, non-ASCII and supplementary characters, a gap and a duplicate:
+  val strings: Array[String] = Array(null) ++
+    (1 to 40).map("http://dbpedia.org/resource/Berlin_" + _) ++
+    Array("Zürich", "Z", "", null, "Berlin", "日本", "\uD834\uDD1E", "Berlin")
+
+  @Test
+  def testLookup() {
+    val pool = StringPool(strings)
+
+    assertEquals(strings.length, pool.size)
+    (0 until strings.length).foreach { id: Int =>
+      assertEquals(strings(id), pool.get(id))
+      if (strings(id) != null && strings(id) != "Berlin")
+        assertEquals(id, pool.getID(strings(id)))
+    }
+    assertEquals(strings.toList, pool.toArray.toList)
+
+    //The highest ID of a duplicate:
+    assertEquals(strings.length - 1, pool.getID("Berlin"))
+
+    assertEquals(-1, pool.getID("Berlin_1"))
+    assertEquals(-1, pool.getID("http://dbpedia.org/resource/Berlin_41"))
+    assertEquals(-1, pool.getID("￿"))
+    assertEquals(-1, pool.getID("\uD834"))
+    assertEquals(-1, pool.getID("日"))
+    assertNull(pool.get(-1))
+    assertNull(pool.get(strings.length))
+  }
+
+  @Test
+  def testEmpty() {
+    val pool = StringPool(Array[String](null))
+    assertEquals(1, pool.size)
+    assertNull(pool.get(0))
+    assertEquals(-1, pool.getID("Berlin"))
+  }
+
+}
@@ -7,6 +7,7 @@ package org.dbpedia.spotlight.db.spotter
 import org.junit.Test
 import org.junit.Assert.assertEquals
 import org.dbpedia.spotlight.db.{FSADictionary, FSASpotter}
+import org.dbpedia.spotlight.model.{Token, TokenType}
 import scala.Array
 
 
@@ -67,4 +68,17 @@ class TestFSA  {
     assertEquals(testFSADict.searchTokenInTransitions(0, 400), 4)
   }
 
+  @Test
+  def testGenerateCandidates(){
+    val testFSADict:FSADictionary = TestFSA.getMockedFSA()
+    testFSADict.loaded()
+
+    val sentence = List(900, 200, 500, 400, 500, 100).zipWithIndex.map{ case (id, i) =>
+      new Token("t" + id, i, new TokenType(id, "t" + id, 1))
+    }
+
+    val spans = FSASpotter.generateCandidates(sentence, testFSADict).map(s => (s.getStart, s.getEnd)).sorted
+    assertEquals(List((1, 2), (1, 3), (3, 5), (5, 6)), spans.toList)
+  }
+
 }
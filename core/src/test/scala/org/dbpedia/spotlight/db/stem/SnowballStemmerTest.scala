@@ -14,4 +14,27 @@ class SnowballStemmerTest  {
     assertTrue( "buy".equals(snowballStemmer.stem("buying")))
     assertTrue( "poni".equals(snowballStemmer.stem("ponies")))
   }
+
+  @Test
+  def concurrentStemming() {
+    val snowballStemmer = new SnowballStemmer("EnglishStemmer")
+    val words = List("buying", "ponies", "cities", "running")
+    val expected = words.map(snowballStemmer.stem)
+
+    val failures = new java.util.concurrent.atomic.AtomicInteger()
+    val threads = (1 to 4).map { _ =>
+      new Thread() {
+        override def run() {
+          (1 to 1000).foreach { _ =>
+            if (words.map(snowballStemmer.stem) != expected)
+              failures.incrementAndGet()
+          }
+        }
+      }
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
+    assertEquals(0, failures.get())
+  }
 }
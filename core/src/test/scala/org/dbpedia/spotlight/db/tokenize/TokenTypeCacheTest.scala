@@ -0,0 +1,34 @@
+package org.dbpedia.spotlight.db.tokenize
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertSame}
+import org.dbpedia.spotlight.model.TokenType
+
+class TokenTypeCacheTest {
+
+  @Test
+  def testCache() {
+    val berlin = new TokenType(1, "berlin", 10)
+
+    var lookups = 0
+    val lookup = (token: String) => {
+      lookups += 1
+      if (token.toLowerCase == "berlin") berlin else TokenType.UNKNOWN
+    }
+
+    val cache = new TokenTypeCache(10)
+    assertSame(berlin, cache.get("Berlin", lookup))
+    assertSame(berlin, cache.get("Berlin", lookup))
+    assertSame(berlin, cache.get("berlin", lookup))
+    assertEquals(2, lookups)
+
+    //Unknown tokens are cached as well:
+    assertSame(TokenType.UNKNOWN, cache.get("Paris", lookup))
+    assertSame(TokenType.UNKNOWN, cache.get("Paris", lookup))
+    assertEquals(3, lookups)
+
+    assertEquals(2, cache.hits)
+    assertEquals(3, cache.misses)
+  }
+
+}
@@ -0,0 +1,50 @@
+package org.dbpedia.spotlight.metrics
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue}
+
+class MetricsTest {
+
+  @Test
+  def testQuantiles() {
+    val h = new Histogram()
+    (1 to 1000).foreach(i => h.record(i * 1000L))
+
+    assertEquals(1000, h.getCount)
+    assertEquals(500500000L, h.getSum)
+
+    val Seq(p50, p99) = h.quantiles(Seq(0.5, 0.99))
+    assertEquals(500000.0, p50, 500000.0 * (Histogram.GROWTH - 1))
+    assertEquals(990000.0, p99, 990000.0 * (Histogram.GROWTH - 1))
+
+    assertTrue(new Histogram().quantile(0.5).isNaN)
+  }
+
+  @Test
+  def testPrometheusFormat() {
+    val summary = Metrics.summary("test_duration_seconds", "Test durations.", Metrics.NANOSECONDS, "stage")
+    summary.labels("spot").record(2000000000L)
+    Metrics.counter("test_total", "Test counter.", "api").labels("/annotate").addAndGet(3)
+
+    val text = Metrics.text
+    assertTrue(text.contains("# TYPE test_duration_seconds summary\n"))
+    assertTrue(text.contains("test_duration_seconds_count{stage=\"spot\"} 1\n"))
+    assertTrue(text.contains("test_duration_seconds_sum{stage=\"spot\"} 2\n"))
+    assertTrue(text.contains("test_duration_seconds{stage=\"spot\",quantile=\"0.99\"} "))
+    assertTrue(text.contains("# TYPE test_total counter\ntest_total{api=\"/annotate\"} 3\n"))
+  }
+
+  @Test
+  def testGauge() {
+    var waiting = 2
+    Metrics.gauge("test_queue_depth", "Test gauge.", "pool").labels("spotter").set(waiting)
+    Metrics.counterFunction("test_requests_total", "Test counter function.").labels().set(42L)
+
+    //The value is read when the metrics are written:
+    waiting = 5
+    val text = Metrics.text
+    assertTrue(text.contains("# TYPE test_queue_depth gauge\ntest_queue_depth{pool=\"spotter\"} 5\n"))
+    assertTrue(text.contains("# TYPE test_requests_total counter\ntest_requests_total 42\n"))
+  }
+
+}
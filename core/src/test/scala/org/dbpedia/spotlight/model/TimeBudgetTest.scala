@@ -0,0 +1,31 @@
+package org.dbpedia.spotlight.model
+
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, assertFalse}
+
+class TimeBudgetTest {
+
+  @Test
+  def testDegradation() {
+    val text = new Text("Berlin is the capital of Germany.")
+    assertEquals(None, TimeBudget.of(text))
+
+    //A budget with plenty of time left is not degraded:
+    val budget = new TimeBudget(60000)
+    text.setFeature(budget.feature)
+    assertTrue(TimeBudget.of(text).get eq budget)
+    assertFalse(budget.passed(TimeBudget.STOP_SPOTTING, "spotting"))
+    assertFalse(budget.isPartial)
+
+    //Each step of an exceeded budget is recorded once:
+    val exceeded = new TimeBudget(0)
+    Thread.sleep(1)
+    assertTrue(exceeded.exhausted)
+    assertTrue(exceeded.passed(TimeBudget.PRIOR_ONLY, "context"))
+    assertTrue(exceeded.passed(TimeBudget.PRIOR_ONLY, "context"))
+    assertTrue(exceeded.passed(TimeBudget.CAP_CANDIDATES, "candidates"))
+    assertTrue(exceeded.isPartial)
+    assertEquals(List("candidates", "context"), exceeded.degradations.toList)
+  }
+
+}
@@ -0,0 +1,78 @@
+package org.dbpedia.spotlight.model
+
+import org.junit.Test
+import org.junit.Assert._
+
+class TokenBufferTest {
+
+  val text = "Berlin is big. Paris is old."
+  val berlin = new TokenType(1, "berlin", 10)
+  val paris = new TokenType(2, "paris", 20)
+
+  def buffer(initialCapacity: Int) = {
+    val tokens = new TokenBuffer(text, initialCapacity)
+    tokens.add(0, 6, berlin, "NNP")
+    tokens.add(7, 2, TokenType.STOPWORD, "VBZ")
+    tokens.add(10, 3, TokenType.UNKNOWN, "JJ")
+    tokens.add(13, 1, TokenType.UNKNOWN, ".")
+    tokens.endSentence()
+    tokens.endSentence() //empty sentences are ignored
+    tokens.add(15, 5, paris, "NNP")
+    tokens.add(21, 2, TokenType.STOPWORD, "VBZ")
+    tokens.add(24, 3, TokenType.UNKNOWN, "JJ")
+    tokens.add(27, 1, TokenType.UNKNOWN, ".")
+    tokens.endSentence()
+    tokens
+  }
+
+  @Test
+  def testBuffer() {
+    //The arrays of the first buffer have to grow:
+    List(buffer(1), buffer(100)).foreach { tokens: TokenBuffer =>
+      assertEquals(8, tokens.size)
+      assertEquals(2, tokens.sentenceCount)
+      assertEquals(4, tokens.sentenceStart(1))
+      assertEquals(8, tokens.sentenceEnd(1))
+
+      assertEquals("Paris", tokens.token(4))
+      assertEquals(20, tokens.end(4))
+      assertEquals(2, tokens.tokenTypeID(4))
+      assertEquals("VBZ", tokens.posTag(5))
+      assertEquals(List("Paris", "is", "old", "."), tokens.tokens(4, 8).toList)
+      assertEquals(List(1, 0), tokens.tokenTypeIDs(0, 2).toList)
+      assertTrue(tokens.isEndOfSentence(3))
+      assertFalse(tokens.isEndOfSentence(4))
+    }
+  }
+
+  @Test
+  def testTokens() {
+    val tokens = buffer(16).toTokens
+    assertEquals(8, tokens.size)
+    assertEquals("Berlin", tokens(0).token)
+    assertEquals(Some("NNP"), tokens(0).featureValue[String]("pos"))
+    assertTrue(tokens(3).feature("end-of-sentence").isDefined)
+    assertFalse(tokens(4).feature("end-of-sentence").isDefined)
+
+    val converted = TokenBuffer.fromTokens(text, tokens)
+    assertEquals(8, converted.size)
+    assertEquals(2, converted.sentenceCount)
+    assertEquals(4, converted.sentenceEnd(0))
+    assertEquals(paris, converted.tokenType(4))
+    assertEquals(".", converted.posTag(7))
+  }
+
+  @Test
+  def testClear() {
+    val tokens = buffer(16)
+    tokens.clear("Rome")
+    assertEquals(0, tokens.size)
+    assertEquals(0, tokens.sentenceCount)
+
+    tokens.add(0, 4, TokenType.UNKNOWN)
+    tokens.endSentence()
+    assertEquals("Rome", tokens.token(0))
+    assertNull(tokens.posTag(0))
+  }
+
+}
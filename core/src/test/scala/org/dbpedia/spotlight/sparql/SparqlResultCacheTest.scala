@@ -0,0 +1,87 @@
+package org.dbpedia.spotlight.sparql
+
+import java.net.URL
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, assertFalse}
+import org.dbpedia.spotlight.db.model.ResourceStore
+import org.dbpedia.spotlight.exceptions.DBpediaResourceNotFoundException
+import org.dbpedia.spotlight.model.DBpediaResource
+
+class SparqlResultCacheTest {
+
+  //Answers every query with Berlin and Paris:
+  class StubExecuter extends SparqlQueryExecuter("http://dbpedia.org", "http://localhost/sparql") {
+    var requests = 0
+
+    override def request(url: URL): String = {
+      requests += 1
+      """{"head": {"vars": ["city"]}, "results": {"bindings": [
+           {"city": {"type": "uri", "value": "http://dbpedia.org/resource/Berlin"}},
+           {"city": {"type": "uri", "value": "http://dbpedia.org/resource/Paris"}}
+         ]}}"""
+    }
+  }
+
+  //Knows Berlin (ID 1) and London (ID 2):
+  val resourceStore = new ResourceStore {
+    val ids = Map("Berlin" -> 1, "London" -> 2)
+
+    def getResource(id: Int): DBpediaResource = throw new DBpediaResourceNotFoundException("")
+
+    def getResourceByName(name: String): DBpediaResource = ids.get(name) match {
+      case Some(id) => val r = new DBpediaResource(name); r.id = id; r
+      case None => throw new DBpediaResourceNotFoundException(name)
+    }
+  }
+
+  def resource(uri: String, id: Int) = {
+    val r = new DBpediaResource(uri)
+    r.id = id
+    r
+  }
+
+  @Test
+  def testNormalize() {
+    assertEquals("SELECT ?c WHERE { ?c a <City> }", SparqlResultCache.normalize("  SELECT ?c\tWHERE {  ?c a <City> }\t"))
+    assertEquals("# cities\nSELECT ?c", SparqlResultCache.normalize("# cities \n  SELECT   ?c"))
+    assertEquals("FILTER(?l = \"New  York\\\"  City\")", SparqlResultCache.normalize("FILTER(?l   = \"New  York\\\"  City\")"))
+
+    //Quotes in comments do not start a string literal, '#' in IRIs does not start a comment:
+    assertEquals("SELECT ?c # the city's label\nWHERE { ?c rdfs:label \"New  York\" }",
+      SparqlResultCache.normalize("SELECT ?c # the city's   label\nWHERE {   ?c rdfs:label \"New  York\" }"))
+    assertEquals("?c a <http://dbpedia.org/ontology#City> . FILTER(?l = \"a  b\" && ?p < 5)",
+      SparqlResultCache.normalize("?c a <http://dbpedia.org/ontology#City> .   FILTER(?l = \"a  b\" && ?p  <  5)"))
+  }
+
+  @Test
+  def testCache() {
+    val executer = new StubExecuter()
+    val cache = new SparqlResultCache(executer, resourceStore)
+
+    val result = cache.get("SELECT ?city WHERE { ?city a <City> }")
+    assertEquals(1, executer.requests)
+    assertEquals(2, result.size)
+
+    //Resources with IDs, resources without IDs and resources that are not in the store:
+    assertTrue(result.contains(resource("Berlin", 1)))
+    assertFalse(result.contains(resource("London", 2)))
+    assertTrue(result.contains(resource("Berlin", 0)))
+    assertTrue(result.contains(resource("Paris", 0)))
+    assertFalse(result.contains(resource("Rome", 0)))
+
+    //The same query with different whitespace is answered from the cache:
+    cache.get("SELECT  ?city WHERE {\t?city a <City> }  ")
+    cache.get("SELECT ?city WHERE { ?city a <City> }")
+    assertEquals(1, executer.requests)
+    assertEquals(2, cache.hits())
+
+    cache.get("SELECT ?city WHERE { ?city a <Capital> }")
+    assertEquals(2, executer.requests)
+
+    //After the model changed, the queries are executed again:
+    cache.invalidateAll()
+    cache.get("SELECT ?city WHERE { ?city a <City> }")
+    assertEquals(3, executer.requests)
+  }
+
+}
@@ -0,0 +1,143 @@
+package org.dbpedia.spotlight.spot.cooccurrence.training;
+
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbpedia.spotlight.db.mapped.MappedStore;
+import org.dbpedia.spotlight.exceptions.ConfigurationException;
+import org.dbpedia.spotlight.exceptions.InitializationException;
+import org.dbpedia.spotlight.model.SpotlightConfiguration;
+import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProviderMapped;
+import org.dbpedia.spotlight.spot.cooccurrence.features.data.OccurrenceDataProviderSQL;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the words, bigrams and trigrams tables of the SQL occurrence database to a memory-mapped
+ * n-gram file for {@link OccurrenceDataProviderMapped}. Set org.dbpedia.spotlight.spot.cooccurrence.ngrams
+ * to the created file to use it instead of the database.
+ *
+ * The values are read exactly like {@link OccurrenceDataProviderSQL} reads them (e.g. the bigram
+ * significance as an integer), so that the classifiers receive the same features.
+ */
+public class OccurrenceDataConverter {
+
+	private static final Log LOG = LogFactory.getLog(OccurrenceDataConverter.class);
+
+	private static final int FETCH_SIZE = 10000;
+
+	private final Connection sqlConnection;
+
+	public OccurrenceDataConverter(Connection sqlConnection) {
+		this.sqlConnection = sqlConnection;
+	}
+
+	private ResultSet query(String sql) throws SQLException {
+		Statement statement = sqlConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		statement.setFetchSize(FETCH_SIZE);
+		return statement.executeQuery(sql);
+	}
+
+	/**
+	 * Write the n-gram file.
+	 *
+	 * @param out the n-gram file
+	 * @throws SQLException error when reading the database
+	 */
+	public void convert(File out) throws SQLException {
+
+		//Words, the database IDs are mapped to the IDs in the n-gram file:
+		LOG.info("Reading words...");
+		Long2IntOpenHashMap ids = new Long2IntOpenHashMap();
+		ids.defaultReturnValue(-1);
+		List<String> words = new ArrayList<String>();
+		LongArrayList countCorpus = new LongArrayList();
+		LongArrayList countWeb = new LongArrayList();
+
+		ResultSet resultSet = query("SELECT id, word, count_corpus, count_web FROM words;");
+		while (resultSet.next()) {
+			String word = resultSet.getString("word");
+			if (word == null || word.length() == 0)
+				continue;
+
+			ids.put(resultSet.getLong("id"), words.size());
+			words.add(word);
+			countCorpus.add(resultSet.getLong("count_corpus"));
+			countWeb.add(resultSet.getLong("count_web"));
+		}
+		resultSet.getStatement().close();
+		LOG.info(String.format("Done (%d words).", words.size()));
+
+		LOG.info("Reading bigrams...");
+		IntArrayList bigramWord1 = new IntArrayList();
+		IntArrayList bigramWord2 = new IntArrayList();
+		FloatArrayList bigramSignificance = new FloatArrayList();
+
+		resultSet = query("SELECT word1, word2, significance_web FROM bigrams;");
+		while (resultSet.next()) {
+			int word1 = ids.get(resultSet.getLong("word1"));
+			int word2 = ids.get(resultSet.getLong("word2"));
+			if (word1 < 0 || word2 < 0)
+				continue;
+
+			bigramWord1.add(word1);
+			bigramWord2.add(word2);
+			bigramSignificance.add(resultSet.getLong("significance_web"));
+		}
+		resultSet.getStatement().close();
+		LOG.info(String.format("Done (%d bigrams).", bigramSignificance.size()));
+
+		LOG.info("Reading trigrams...");
+		IntArrayList trigramWord1 = new IntArrayList();
+		IntArrayList trigramWord2 = new IntArrayList();
+		IntArrayList trigramWord3 = new IntArrayList();
+		LongArrayList trigramCounts = new LongArrayList();
+
+		resultSet = query("SELECT word1, word2, word3, count_web FROM trigrams;");
+		while (resultSet.next()) {
+			int word1 = ids.get(resultSet.getLong("word1"));
+			int word2 = ids.get(resultSet.getLong("word2"));
+			int word3 = ids.get(resultSet.getLong("word3"));
+			if (word1 < 0 || word2 < 0 || word3 < 0)
+				continue;
+
+			trigramWord1.add(word1);
+			trigramWord2.add(word2);
+			trigramWord3.add(word3);
+			trigramCounts.add(resultSet.getLong("count_web"));
+		}
+		resultSet.getStatement().close();
+		LOG.info(String.format("Done (%d trigrams).", trigramCounts.size()));
+
+		MappedStore.dumpNGramStore(
+				words.toArray(new String[words.size()]), countCorpus.toLongArray(), countWeb.toLongArray(),
+				bigramWord1.toIntArray(), bigramWord2.toIntArray(), bigramSignificance.toFloatArray(),
+				trigramWord1.toIntArray(), trigramWord2.toIntArray(), trigramWord3.toIntArray(), trigramCounts.toLongArray(),
+				out
+		);
+	}
+
+	public static void main(String[] args) throws ConfigurationException, InitializationException, SQLException {
+
+		if (args.length < 2) {
+			System.err.println("Usage:");
+			System.err.println(" mvn exec:java -Dexec.mainClass=org.dbpedia.spotlight.spot.cooccurrence.training.OccurrenceDataConverter -Dexec.args=\"conf/server.properties /data/spotlight/spotsel/ukwac_candidate.mmap\"");
+			System.exit(1);
+		}
+
+		SpotlightConfiguration configuration = new SpotlightConfiguration(args[0]);
+		OccurrenceDataProviderSQL sqlProvider = new OccurrenceDataProviderSQL(configuration.getSpotterConfiguration());
+
+		new OccurrenceDataConverter(sqlProvider.getConnection()).convert(new File(args[1]));
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.dbpedia.spotlight.db
+
+import java.io.File
+import org.dbpedia.spotlight.db.mapped.MappedStore
+
+/**
+ * Compacts the model deltas of a Spotlight model folder: the deltas are applied to the
+ * memory stores, which are written back to the model folder, and the delta files are moved
+ * to the subfolder deltas/compacted (see [[org.dbpedia.spotlight.db.delta.ModelUpdater]]).
+ * If the model has been converted to the memory-mapped format, it is converted again.
+ */
+
+object CompactSpotlightModel {
+
+  def main(args: Array[String]) {
+
+    val modelFolder: File = try {
+      new File(args(0))
+    } catch {
+      case e: Exception => {
+        e.printStackTrace()
+        System.err.println("Usage:")
+        System.err.println(" mvn scala:run -DmainClass=org.dbpedia.spotlight.db.CompactSpotlightModel -Dexec.args=\"/data/spotlight/en\"")
+        System.exit(1)
+        null
+      }
+    }
+
+    val modelDataFolder = new File(modelFolder, "model")
+    if (!modelDataFolder.isDirectory) {
+      System.err.println("Folder %s is not a Spotlight model folder!".format(modelFolder.toString))
+      System.exit(1)
+    }
+
+    SpotlightModel.fromFolder(modelFolder, preferMapped = false).updater match {
+      case Some(updater) => {
+        updater.compact(modelFolder)
+
+        if (new File(modelDataFolder, MappedStore.TOKENS_FILE).exists())
+          MappedStore.convert(modelDataFolder)
+      }
+      case None => {
+        System.err.println("The stores of %s can not be updated.".format(modelFolder.toString))
+        System.exit(1)
+      }
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package org.dbpedia.spotlight.db
+
+import java.io.File
+import org.dbpedia.spotlight.db.memory.MemoryStore
+
+/**
+ * Compresses the context store (context.mem) of an existing Spotlight model folder, so that
+ * the model is loaded with the compressed contexts directly (see MemoryStore.compressContextStore).
+ */
+
+object CompressContextStore {
+
+  def main(args: Array[String]) {
+
+    val modelFolder: File = try {
+      new File(args(0))
+    } catch {
+      case e: Exception => {
+        e.printStackTrace()
+        System.err.println("Usage:")
+        System.err.println(" mvn scala:run -DmainClass=org.dbpedia.spotlight.db.CompressContextStore -Dexec.args=\"/data/spotlight/en\"")
+        System.exit(1)
+        null
+      }
+    }
+
+    val modelDataFolder = new File(modelFolder, "model")
+    if (!new File(modelDataFolder, "context.mem").exists()) {
+      System.err.println("Folder %s is not a Spotlight model folder with a context store!".format(modelFolder.toString))
+      System.exit(1)
+    }
+
+    MemoryStore.compressContextStore(modelDataFolder)
+  }
+
+}
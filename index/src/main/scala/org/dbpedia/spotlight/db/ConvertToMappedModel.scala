@@ -0,0 +1,37 @@
+package org.dbpedia.spotlight.db
+
+import java.io.File
+import org.dbpedia.spotlight.db.mapped.MappedStore
+
+/**
+ * Converts the Kryo-serialized stores of an existing Spotlight model folder to
+ * the memory-mapped model format. The .mem files are kept, SpotlightModel will
+ * prefer the .mmap files if they exist.
+ */
+
+object ConvertToMappedModel {
+
+  def main(args: Array[String]) {
+
+    val modelFolder: File = try {
+      new File(args(0))
+    } catch {
+      case e: Exception => {
+        e.printStackTrace()
+        System.err.println("Usage:")
+        System.err.println(" mvn scala:run -DmainClass=org.dbpedia.spotlight.db.ConvertToMappedModel -Dexec.args=\"/data/spotlight/en\"")
+        System.exit(1)
+        null
+      }
+    }
+
+    val modelDataFolder = new File(modelFolder, "model")
+    if (!modelDataFolder.isDirectory) {
+      System.err.println("Folder %s is not a Spotlight model folder!".format(modelFolder.toString))
+      System.exit(1)
+    }
+
+    MappedStore.convert(modelDataFolder)
+  }
+
+}
@@ -18,6 +18,8 @@ import tokenize._
 import scala.Some
 import scala.collection.immutable.HashMap
 import scala.collection.mutable
+import java.util.concurrent.{ExecutionException, Callable, Future, ExecutorService, Executors}
+import org.dbpedia.spotlight.log.SpotlightLog
 
 /**
  * This script creates a Spotlight model folder from the results of
@@ -36,6 +38,30 @@ object CreateSpotlightModel {
 
   val OPENNLP_FOLDER = "opennlp"
 
+  //Number of indexing stages that may run at the same time. Running fewer stages
+  //concurrently requires less memory, 1 runs them one after the other.
+  val INDEXING_THREADS = Integer.getInteger("spotlight.index.threads", 3).intValue()
+
+  /**
+   * Runs an indexing stage and reports its duration. A stage may wait for the result of
+   * another stage via await, as long as that stage was started before it.
+   */
+  def stage[T](executor: ExecutorService, name: String)(body: => T): Future[T] = executor.submit(new Callable[T] {
+    def call(): T = {
+      SpotlightLog.info(CreateSpotlightModel.getClass, "Starting stage: %s", name)
+      val start = System.currentTimeMillis()
+      val result = body
+      SpotlightLog.info(CreateSpotlightModel.getClass, "Finished stage: %s (%d s)", name, (System.currentTimeMillis() - start) / 1000)
+      result
+    }
+  })
+
+  def await[T](stage: Future[T]): T = try {
+    stage.get()
+  } catch {
+    case e: ExecutionException => throw e.getCause
+  }
+
   def main(args: Array[String]) {
 
     val (localeCode: String, rawDataFolder: File, outputFolder: File, opennlpFolder: Option[File], stopwordsFile: File, stemmer: Stemmer) = try {
@@ -169,85 +195,116 @@ object CreateSpotlightModel {
     )
 
     memoryIndexer.tokenizer = Some(rawTokenizer)
-    memoryIndexer.addSurfaceForms(
-      SurfaceFormSource.fromPigFiles(
-        new File(rawDataFolder, "sfAndTotalCounts"),
-        wikiClosure=wikipediaToDBpediaClosure
-      ),
-      SurfaceFormSource.lowercaseCountsFromPigInputStream(new FileInputStream(new File(rawDataFolder, "sfAndTotalCounts"))),
-      minimumSFCounts(lang)
-    )
 
-    memoryIndexer.addResources(
-      DBpediaResourceSource.fromPigFiles(
-        wikipediaToDBpediaClosure,
-        new File(rawDataFolder, "uriCounts"),
-        if (new File(rawDataFolder, "instance_types.nt").exists())
-          new File(rawDataFolder, "instance_types.nt")
-        else if (new File(rawDataFolder, "instanceTypes.tsv").exists())
-          new File(rawDataFolder, "instanceTypes.tsv")
-        else
-          null,
-        namespace
-      )
-    )
+    //Independent stages are run concurrently, the stores created by one stage are
+    //passed on to the stages that depend on them.
+    val executor = Executors.newFixedThreadPool(INDEXING_THREADS)
+    val buildStart = System.currentTimeMillis()
+
+    try {
+
+      val sfStoreStage = stage(executor, "surface forms") {
+        memoryIndexer.buildSurfaceFormStore(
+          SurfaceFormSource.fromPigFiles(
+            new File(rawDataFolder, "sfAndTotalCounts"),
+            wikiClosure=wikipediaToDBpediaClosure
+          ),
+          SurfaceFormSource.lowercaseCountsFromPigInputStream(new FileInputStream(new File(rawDataFolder, "sfAndTotalCounts"))),
+          minimumSFCounts(lang)
+        )
+      }
 
-    val resStore = MemoryStore.loadResourceStore(new FileInputStream(new File(modelDataFolder, "res.mem")), quantizedCountStore)
-    val sfStore  = MemoryStore.loadSurfaceFormStore(new FileInputStream(new File(modelDataFolder, "sf.mem")), quantizedCountStore)
-
-    memoryIndexer.addCandidatesByID(
-      CandidateMapSource.fromPigFiles(
-        new File(rawDataFolder, "pairCounts"),
-        wikipediaToDBpediaClosure,
-        resStore,
-        sfStore
-      ),
-      sfStore.size
-    )
+      val resStoreStage = stage(executor, "resources") {
+        memoryIndexer.buildResourceStore(
+          DBpediaResourceSource.fromPigFiles(
+            wikipediaToDBpediaClosure,
+            new File(rawDataFolder, "uriCounts"),
+            if (new File(rawDataFolder, "instance_types.nt").exists())
+              new File(rawDataFolder, "instance_types.nt")
+            else if (new File(rawDataFolder, "instanceTypes.tsv").exists())
+              new File(rawDataFolder, "instanceTypes.tsv")
+            else
+              null,
+            namespace
+          )
+        )
+      }
 
-    memoryIndexer.addTokenTypes(
-      TokenSource.fromPigFile(
-        new File(rawDataFolder, "tokenCounts"),
-        additionalTokens = Some(TokenSource.fromSFStore(sfStore, rawTokenizer)),
-        minimumContextCounts(lang)
-      )
-    )
+      val candMapStage = stage(executor, "candidate map") {
+        val sfStore = await(sfStoreStage)
+        memoryIndexer.addCandidatePairCounts(
+          CandidateMapSource.pairCountsFromPigFile(
+            new File(rawDataFolder, "pairCounts"),
+            wikipediaToDBpediaClosure,
+            await(resStoreStage),
+            sfStore
+          ),
+          sfStore.size
+        )
+      }
 
-    val tokenStore = MemoryStore.loadTokenTypeStore(new FileInputStream(new File(modelDataFolder, "tokens.mem")))
+      val tokenStoreStage = stage(executor, "token types") {
+        memoryIndexer.buildTokenTypeStore(
+          TokenSource.fromPigFile(
+            new File(rawDataFolder, "tokenCounts"),
+            additionalTokens = Some(TokenSource.fromSFStore(await(sfStoreStage), rawTokenizer)),
+            minimumContextCounts(lang)
+          )
+        )
+      }
 
-    memoryIndexer.createContextStore(resStore.size)
-    memoryIndexer.addTokenOccurrences(
-      TokenOccurrenceSource.fromPigFile(
-        new File(rawDataFolder, "tokenCounts"),
-        tokenStore,
-        wikipediaToDBpediaClosure,
-        resStore,
-        minimumContextCounts(lang)
-      )
-    )
-    memoryIndexer.writeTokenOccurrences()
-    memoryIndexer.writeQuantizedCounts()
+      val contextStoreStage = stage(executor, "context store") {
+        val tokenStore = await(tokenStoreStage)
+        val resStore = await(resStoreStage)
+
+        memoryIndexer.createContextStore(resStore.size)
+        memoryIndexer.addTokenOccurrences(
+          TokenOccurrenceSource.fromPigFile(
+            new File(rawDataFolder, "tokenCounts"),
+            tokenStore,
+            wikipediaToDBpediaClosure,
+            resStore,
+            minimumContextCounts(lang)
+          )
+        )
+        memoryIndexer.writeTokenOccurrences()
+      }
 
-    val tokenizer: TextTokenizer = if (opennlpFolder.isDefined) {
-      val opennlpOut = new File(outputFolder, OPENNLP_FOLDER)
-      val oToken = new TokenizerME(new TokenizerModel(new FileInputStream(new File(opennlpOut, "token.bin"))))
-      val oSent = new SentenceDetectorME(new SentenceModel(new FileInputStream(new File(opennlpOut, "sent.bin"))))
-
-      new OpenNLPTokenizer(
-        oToken,
-        Set[String](),
-        stemmer,
-        oSent,
-        null,
-        tokenStore
-      )
+      val fsaDictStage = stage(executor, "FSA dictionary") {
+        val tokenStore = await(tokenStoreStage)
+
+        val tokenizer: TextTokenizer = if (opennlpFolder.isDefined) {
+          val opennlpOut = new File(outputFolder, OPENNLP_FOLDER)
+          val oToken = new TokenizerME(new TokenizerModel(new FileInputStream(new File(opennlpOut, "token.bin"))))
+          val oSent = new SentenceDetectorME(new SentenceModel(new FileInputStream(new File(opennlpOut, "sent.bin"))))
+
+          new OpenNLPTokenizer(
+            oToken,
+            Set[String](),
+            stemmer,
+            oSent,
+            null,
+            tokenStore
+          )
+
+        } else {
+          new LanguageIndependentTokenizer(Set[String](), stemmer, locale, tokenStore)
+        }
+        val fsaDict = FSASpotter.buildDictionary(await(sfStoreStage), tokenizer)
 
-    } else {
-      new LanguageIndependentTokenizer(Set[String](), stemmer, locale, tokenStore)
+        MemoryStore.dump(fsaDict, new File(outputFolder, "fsa_dict.mem"))
+      }
+
+      List(candMapStage, contextStoreStage, fsaDictStage).foreach(await(_))
+
+      //All counts have been quantized:
+      memoryIndexer.writeQuantizedCounts()
+
+    } finally {
+      executor.shutdownNow()
     }
-    val fsaDict = FSASpotter.buildDictionary(sfStore, tokenizer)
 
-    MemoryStore.dump(fsaDict, new File(outputFolder, "fsa_dict.mem"))
+    SpotlightLog.info(this.getClass, "Created model in %d s.", (System.currentTimeMillis() - buildStart) / 1000)
 
     if(new File(stopwordsFile.getParentFile, "spotter_thresholds.txt").exists())
       FileUtils.copyFile(new File(stopwordsFile.getParentFile, "spotter_thresholds.txt"), new File(outputFolder, "spotter_thresholds.txt"))
@@ -18,6 +18,9 @@ import scala.collection.mutable
 import org.dbpedia.spotlight.db.memory.util.StringToIDMapFactory
 import scala.Predef._
 import scala.Some
+import java.util.concurrent.ConcurrentHashMap
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap
+import org.dbpedia.spotlight.db.io.CandidateMapSource
 
 /**
  * Implements memory-based indexing. The memory stores are serialized and deserialized using Kryo.
@@ -33,6 +36,21 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
   with TokenOccurrenceIndexer
 {
 
+  //The stores may be created concurrently (see CreateSpotlightModel), hence the counts are
+  //collected in a concurrent map until they are written.
+  quantizedCountStore.countMap = new ConcurrentHashMap[Short, Int](quantizedCountStore.countMap)
+
+  /**
+   * Writes the store to the model folder and prepares it for use in the following
+   * indexing steps, so that it does not have to be read from disk again.
+   */
+  private def write[T <: MemoryStore](store: T, file: String): T = {
+    MemoryStore.dump(store, new File(baseDir, file))
+    store.quantizedCountStore = quantizedCountStore
+    store.loaded()
+    store
+  }
+
   //SURFACE FORMS
 
   def addSurfaceForm(sf: SurfaceForm, annotatedCount: Int, totalCount: Int) {
@@ -50,6 +68,10 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
   var tokenizer: Option[StringTokenizer] = None
 
   def addSurfaceForms(sfCount: Map[SurfaceForm, (Int, Int)], lowercaseCounts: Map[String, Int], MIN_SF_COUNT: Int) {
+    buildSurfaceFormStore(sfCount, lowercaseCounts, MIN_SF_COUNT)
+  }
+
+  def buildSurfaceFormStore(sfCount: Map[SurfaceForm, (Int, Int)], lowercaseCounts: Map[String, Int], MIN_SF_COUNT: Int): MemorySurfaceFormStore = {
 
     val sfStore = new MemorySurfaceFormStore()
 
@@ -141,7 +163,7 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
     sfStore.annotatedCountForID = annotatedCountForID.map(quantizedCountStore.addCount)
     sfStore.totalCountForID = totalCountForID.map(quantizedCountStore.addCount)
 
-    MemoryStore.dump(sfStore, new File(baseDir, "sf.mem"))
+    write(sfStore, "sf.mem")
   }
 
 
@@ -155,6 +177,10 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
   }
 
   def addResources(resourceCount: Map[DBpediaResource, Int]) {
+    buildResourceStore(resourceCount)
+  }
+
+  def buildResourceStore(resourceCount: Map[DBpediaResource, Int]): MemoryResourceStore = {
     val resStore = new MemoryResourceStore()
 
     val ontologyTypeStore = MemoryStoreIndexer.createOntologyTypeStore(
@@ -184,7 +210,7 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
     resStore.uriForID = uriForID.array
     resStore.typesForID = typesForID.array
 
-    MemoryStore.dump(resStore, new File(baseDir, "res.mem"))
+    write(resStore, "res.mem")
   }
 
 
@@ -248,11 +274,54 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
     MemoryStore.dump(candmapStore, new File(baseDir, "candmap.mem"))
   }
 
+  /**
+   * Adds the candidates from the primitive pair counts map created by
+   * [[org.dbpedia.spotlight.db.io.CandidateMapSource]].pairCountsFromPigInputStream.
+   */
+  def addCandidatePairCounts(pairCounts: Long2IntOpenHashMap, numberOfSurfaceForms: Int) {
+    val candmapStore = new MemoryCandidateMapStore()
+
+    //Count the candidates of each surface form first to allocate the arrays only once:
+    val candidateSizes = new Array[Int](numberOfSurfaceForms)
+    val keys = pairCounts.keySet().iterator()
+    while (keys.hasNext)
+      candidateSizes(CandidateMapSource.surfaceFormID(keys.nextLong())) += 1
+
+    val candidates      = new Array[Array[Int]](numberOfSurfaceForms)
+    val candidateCounts = new Array[Array[Short]](numberOfSurfaceForms)
+    (0 until numberOfSurfaceForms).foreach { sfID: Int =>
+      if (candidateSizes(sfID) > 0) {
+        candidates(sfID)      = new Array[Int](candidateSizes(sfID))
+        candidateCounts(sfID) = new Array[Short](candidateSizes(sfID))
+        candidateSizes(sfID)  = 0
+      }
+    }
+
+    val entries = pairCounts.long2IntEntrySet().fastIterator()
+    while (entries.hasNext) {
+      val entry = entries.next()
+      val sfID = CandidateMapSource.surfaceFormID(entry.getLongKey)
+
+      candidates(sfID)(candidateSizes(sfID))      = CandidateMapSource.resourceID(entry.getLongKey)
+      candidateCounts(sfID)(candidateSizes(sfID)) = quantizedCountStore.addCount(entry.getIntValue)
+      candidateSizes(sfID) += 1
+    }
+
+    candmapStore.candidates = candidates
+    candmapStore.candidateCounts = candidateCounts
+
+    MemoryStore.dump(candmapStore, new File(baseDir, "candmap.mem"))
+  }
+
   def addTokenType(token: TokenType, count: Int) {
     throw new NotImplementedException()
   }
 
   def addTokenTypes(tokenCount: Map[TokenType, Int]) {
+    buildTokenTypeStore(tokenCount)
+  }
+
+  def buildTokenTypeStore(tokenCount: Map[TokenType, Int]): MemoryTokenTypeStore = {
 
     val tokenTypeStore = new MemoryTokenTypeStore()
 
@@ -269,7 +338,7 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
     tokenTypeStore.tokenForId = tokens.array
     tokenTypeStore.counts = counts.array
 
-    MemoryStore.dump(tokenTypeStore, new File(baseDir, "tokens.mem"))
+    write(tokenTypeStore, "tokens.mem")
   }
 
 
@@ -338,6 +407,7 @@ class MemoryStoreIndexer(val baseDir: File, val quantizedCountStore: MemoryQuant
   }
 
   def writeQuantizedCounts() {
+    quantizedCountStore.countMap = new java.util.HashMap[Short, Int](quantizedCountStore.countMap)
     MemoryStore.dump(quantizedCountStore, new File(baseDir, "quantized_counts.mem"))
   }
 
@@ -13,6 +13,7 @@ import org.dbpedia.spotlight.log.SpotlightLog
 import org.dbpedia.spotlight.exceptions._
 import org.dbpedia.spotlight.db.memory.MemoryResourceStore
 import org.dbpedia.extraction.util.WikiUtil
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap
 
 
 /**
@@ -33,6 +34,63 @@ object CandidateMapSource {
 
     val candidateMap = new java.util.HashMap[Pair[Int, Int], Int]()
 
+    readPairCounts(pairCounts, wikipediaToDBpediaClosure, resStore, sfStore) {
+      (sfID: Int, resID: Int, count: Int) => {
+        val c = Pair(sfID, resID)
+        val initialCount = candidateMap.get(c) match {
+          case c: Int => c
+          case _ => 0
+        }
+
+        candidateMap.put(c, initialCount + count)
+      }
+    }
+
+    candidateMap
+  }
+
+  /**
+   * Reads the candidate counts into a primitive map from (surface form ID, resource ID), packed into
+   * a long by pairKey, to the count. This requires far less memory than fromPigInputStreams.
+   */
+  def pairCountsFromPigInputStream(
+    pairCounts: InputStream,
+    wikipediaToDBpediaClosure: WikipediaToDBpediaClosure,
+    resStore: ResourceStore,
+    sfStore: SurfaceFormStore
+  ): Long2IntOpenHashMap = {
+
+    val candidateMap = new Long2IntOpenHashMap()
+    candidateMap.defaultReturnValue(0)
+
+    readPairCounts(pairCounts, wikipediaToDBpediaClosure, resStore, sfStore) {
+      (sfID: Int, resID: Int, count: Int) =>
+        candidateMap.addTo(pairKey(sfID, resID), count)
+    }
+
+    candidateMap
+  }
+
+  def pairCountsFromPigFile(
+    pairCounts: File,
+    wikipediaToDBPediaClosure: WikipediaToDBpediaClosure,
+    resStore: ResourceStore,
+    sfStore: SurfaceFormStore
+  ): Long2IntOpenHashMap = pairCountsFromPigInputStream(new FileInputStream(pairCounts), wikipediaToDBPediaClosure, resStore, sfStore)
+
+  def pairKey(sfID: Int, resID: Int): Long = (sfID.toLong << 32) | (resID & 0xFFFFFFFFL)
+
+  def surfaceFormID(pairKey: Long): Int = (pairKey >>> 32).toInt
+
+  def resourceID(pairKey: Long): Int = pairKey.toInt
+
+  private def readPairCounts(
+    pairCounts: InputStream,
+    wikipediaToDBpediaClosure: WikipediaToDBpediaClosure,
+    resStore: ResourceStore,
+    sfStore: SurfaceFormStore
+  )(add: (Int, Int, Int) => Unit) {
+
     var uriNotFound = 0
     var sfNotFound  = 0
     var uriIgnored  = 0
@@ -44,13 +102,7 @@ object CandidateMapSource {
           val Array(sf, wikiurl, count) = line.trim().split('\t')
           val uri = wikipediaToDBpediaClosure.wikipediaToDBpediaURI(DBpediaResourceSource.normalizePigURI(wikiurl))
 
-          val c = Pair(sfStore.getSurfaceForm(sf).id, resStore.getResourceByName(uri).id)
-          val initialCount = candidateMap.get(c) match {
-            case c: Int => c
-            case _ => 0
-          }
-
-          candidateMap.put(c, initialCount + count.toInt)
+          add(sfStore.getSurfaceForm(sf).id, resStore.getResourceByName(uri).id, count.toInt)
         } catch {
           case e: NotADBpediaResourceException     => uriIgnored += 1
           case e: ArrayIndexOutOfBoundsException   => SpotlightLog.warn(this.getClass, "WARNING: Could not read line.")
@@ -65,8 +117,6 @@ object CandidateMapSource {
     SpotlightLog.warn(this.getClass, "DBpedia resource not found: %d", uriNotFound)
     SpotlightLog.warn(this.getClass, "Invalid DBpedia resources (e.g. disambiguation page): %d", uriIgnored)
     SpotlightLog.warn(this.getClass, "SF not found: %d", sfNotFound)
-
-    candidateMap
   }
 
   def fromPigFiles(
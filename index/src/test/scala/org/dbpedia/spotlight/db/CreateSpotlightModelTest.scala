@@ -0,0 +1,32 @@
+package org.dbpedia.spotlight.db
+
+import java.util.concurrent.Executors
+import org.junit.Test
+import org.junit.Assert.{assertEquals, fail}
+import CreateSpotlightModel.{stage, await}
+
+class CreateSpotlightModelTest {
+
+  @Test
+  def testStages() {
+    //With a single thread, the stages run in the order they were started:
+    val executor = Executors.newFixedThreadPool(1)
+    val sfStore = stage(executor, "surface forms") { List("Berlin", "Paris") }
+    val resStore = stage(executor, "resources") { List("Berlin", "Paris", "Rome") }
+    val candMap = stage(executor, "candidate map") { await(sfStore).size * await(resStore).size }
+    assertEquals(6, await(candMap))
+
+    //A failing stage fails the stages that depend on it with the original exception:
+    val failing = stage[String](executor, "failing") { throw new IllegalStateException("No input") }
+    val dependent = stage[String](executor, "dependent") { await(failing) }
+    try {
+      await(dependent)
+      fail("The stage should fail.")
+    } catch {
+      case e: IllegalStateException => assertEquals("No input", e.getMessage)
+    }
+
+    executor.shutdown()
+  }
+
+}
@@ -0,0 +1,80 @@
+package org.dbpedia.spotlight.db
+
+import java.io.{FileInputStream, File}
+import java.util.concurrent.{Callable, Executors}
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.apache.commons.io.FileUtils
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap
+import org.dbpedia.spotlight.db.io.CandidateMapSource
+import org.dbpedia.spotlight.db.memory.{MemoryStore, MemoryQuantizedCountStore}
+import org.dbpedia.spotlight.model.SurfaceForm
+import scala.collection.JavaConversions._
+
+class MemoryStoreIndexerTest {
+
+  def tempFolder(): File = {
+    val folder = File.createTempFile("model", "")
+    folder.delete()
+    folder.mkdir()
+    folder
+  }
+
+  @Test
+  def testPairKey() {
+    val key = CandidateMapSource.pairKey(123456, Int.MaxValue)
+    assertEquals(123456, CandidateMapSource.surfaceFormID(key))
+    assertEquals(Int.MaxValue, CandidateMapSource.resourceID(key))
+    assertEquals(0, CandidateMapSource.resourceID(CandidateMapSource.pairKey(7, 0)))
+  }
+
+  @Test
+  def testCandidatePairCounts() {
+    val folder = tempFolder()
+    val qc = new MemoryQuantizedCountStore()
+    val indexer = new MemoryStoreIndexer(folder, qc)
+
+    val pairCounts = new Long2IntOpenHashMap()
+    pairCounts.addTo(CandidateMapSource.pairKey(0, 5), 10)
+    pairCounts.addTo(CandidateMapSource.pairKey(0, 3), 40)
+    pairCounts.addTo(CandidateMapSource.pairKey(2, 7), 5)
+    pairCounts.addTo(CandidateMapSource.pairKey(0, 5), 2)
+
+    indexer.addCandidatePairCounts(pairCounts, 3)
+    val store = MemoryStore.loadCandidateMapStore(new FileInputStream(new File(folder, "candmap.mem")), null, qc)
+
+    //The candidates of each surface form are sorted by their summed counts:
+    val berlin = store.getCandidateList(new SurfaceForm("Berlin", 0, 100, 200))
+    assertEquals(List(3, 5), (0 until berlin.size).map(berlin.resourceID).toList)
+    assertEquals(List(40, 12), (0 until berlin.size).map(berlin.support).toList)
+    assertEquals(0, store.getCandidateList(new SurfaceForm("Rome", 1, 10, 20)).size)
+
+    val paris = store.getCandidateList(new SurfaceForm("Paris", 2, 10, 20))
+    assertEquals(List(7), (0 until paris.size).map(paris.resourceID).toList)
+
+    FileUtils.deleteDirectory(folder)
+  }
+
+  @Test
+  def testConcurrentQuantizedCounts() {
+    val folder = tempFolder()
+    val qc = new MemoryQuantizedCountStore()
+    new MemoryStoreIndexer(folder, qc)
+
+    //Stages that run at the same time get the same quantized value for a count:
+    val executor = Executors.newFixedThreadPool(4)
+    val tasks = new java.util.ArrayList[Callable[Seq[Short]]]()
+    (0 until 4).foreach( _ => tasks.add(new Callable[Seq[Short]] {
+      def call(): Seq[Short] = (1 to 1000).map(qc.addCount)
+    }))
+    val results = executor.invokeAll(tasks).map(_.get)
+    executor.shutdown()
+
+    assertEquals(1, results.distinct.size)
+    assertEquals(1000, qc.size)
+    (1 to 1000).foreach( count => assertEquals(count, qc.getCount(results.head(count - 1))) )
+
+    FileUtils.deleteDirectory(folder)
+  }
+
+}
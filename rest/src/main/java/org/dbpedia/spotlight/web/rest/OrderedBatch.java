@@ -0,0 +1,62 @@
+package org.dbpedia.spotlight.web.rest;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the tasks of a batch on an executor and returns their results in the order of the tasks. At most
+ * window tasks are submitted ahead of the result that is read next, the next task is only submitted when
+ * a result is taken. Large batches therefore do not fill the queue of the executor, which is shared by all
+ * batch requests.
+ */
+public class OrderedBatch<T> {
+
+    private final ExecutorService executor;
+    private final List<? extends Callable<T>> tasks;
+
+    private final LinkedList<Future<T>> inFlight = new LinkedList<Future<T>>();
+    private int submitted = 0;
+
+    public OrderedBatch(ExecutorService executor, List<? extends Callable<T>> tasks, int window) {
+        this.executor = executor;
+        this.tasks = tasks;
+
+        while (submitted < tasks.size() && inFlight.size() < Math.max(1, window))
+            submitNext();
+    }
+
+    public boolean hasNext() {
+        return !inFlight.isEmpty();
+    }
+
+    /**
+     * Waits for the result of the next task. If the task failed, its exception is thrown as the
+     * cause of the ExecutionException and the following tasks are not affected.
+     */
+    public T next() throws InterruptedException, ExecutionException {
+        Future<T> result = inFlight.removeFirst();
+        if (submitted < tasks.size())
+            submitNext();
+        return result.get();
+    }
+
+    /**
+     * Cancels the tasks that were submitted but not taken, the remaining tasks are not submitted.
+     */
+    public void cancel() {
+        for (Future<T> result : inFlight)
+            result.cancel(true);
+        inFlight.clear();
+        submitted = tasks.size();
+    }
+
+    private void submitNext() {
+        inFlight.add(executor.submit(tasks.get(submitted)));
+        submitted++;
+    }
+
+}
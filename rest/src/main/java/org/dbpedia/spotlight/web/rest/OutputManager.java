@@ -27,6 +27,7 @@ import org.dbpedia.spotlight.model.DBpediaResourceOccurrence;
 import org.dbpedia.spotlight.model.OntologyType;
 import org.dbpedia.spotlight.model.SurfaceForm;
 import org.dbpedia.spotlight.web.rest.nlp2rdf.NIFWrapper;
+import org.dbpedia.spotlight.web.rest.output.JSONWriter;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
@@ -37,6 +38,8 @@ import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -77,6 +80,14 @@ public class OutputManager {
     }
 
     protected String makeXML(String text, List<DBpediaResourceOccurrence> occList, double confidence, int support, String targetTypesString, String sparqlQuery, String policy, boolean coreferenceResolution) throws OutputException {
+        return makeXML(text, occList, confidence, support, targetTypesString, sparqlQuery, policy, coreferenceResolution, false);
+    }
+
+    /**
+     * @param partial true if the text was not annotated completely (see TimeBudget), the Annotation element
+     *                gets the attribute partial="true"
+     */
+    protected String makeXML(String text, List<DBpediaResourceOccurrence> occList, double confidence, int support, String targetTypesString, String sparqlQuery, String policy, boolean coreferenceResolution, boolean partial) throws OutputException {
         // PrintWriter from a Servlet
         String xml = "";
         try {
@@ -96,6 +107,8 @@ public class OutputManager {
         atts.addAttribute("","","sparql","CDATA",sparqlQuery);
         atts.addAttribute("","","policy","CDATA",policy);
         //atts.addAttribute("","","coreferenceResolution","CDATA",String.valueOf(coreferenceResolution));
+        if (partial)
+            atts.addAttribute("","","partial","CDATA","true");
         hd.startElement("","","Annotation",atts);
 
         getResourcesXml(occList, hd, atts);
@@ -110,6 +123,60 @@ public class OutputManager {
         return xml;
     }
 
+    /**
+     * Streams the annotation as JSON to out. The layout is the one produced by converting
+     * the output of makeXML with xml2json (attributes are prefixed with @, the root element
+     * is dropped), but the document is written directly without the XML representation.
+     */
+    protected void makeJSON(OutputStream out, String text, List<DBpediaResourceOccurrence> occList, double confidence, int support, String targetTypesString, String sparqlQuery, String policy, boolean coreferenceResolution) throws OutputException {
+        makeJSON(out, text, occList, confidence, support, targetTypesString, sparqlQuery, policy, coreferenceResolution, false);
+    }
+
+    /**
+     * @param partial true if the text was not annotated completely (see TimeBudget), the object gets the
+     *                member "@partial": "true"
+     */
+    protected void makeJSON(OutputStream out, String text, List<DBpediaResourceOccurrence> occList, double confidence, int support, String targetTypesString, String sparqlQuery, String policy, boolean coreferenceResolution, boolean partial) throws OutputException {
+        try {
+            JSONWriter json = new JSONWriter(out);
+
+            json.beginObject()
+                .member("@text", getText(text, occList))
+                .member("@confidence", String.valueOf(confidence))
+                .member("@support", String.valueOf(support))
+                .member("@types", nullToEmpty(targetTypesString))
+                .member("@sparql", nullToEmpty(sparqlQuery))
+                .member("@policy", nullToEmpty(policy));
+            if (partial)
+                json.member("@partial", "true");
+
+            if (occList != null && !occList.isEmpty()) {
+                json.name("Resources").beginArray();
+                for (DBpediaResourceOccurrence occ : occList) {
+                    json.beginObject()
+                        .member("@URI", Server.getPrefixedDBpediaURL(occ.resource()))
+                        .member("@support", String.valueOf(occ.resource().support()))
+                        .member("@types", occ.resource().types().mkString(","))
+                        .member("@surfaceForm", occ.surfaceForm().name())
+                        .member("@offset", String.valueOf(occ.textOffset()))
+                        .member("@similarityScore", String.valueOf(occ.similarityScore()))
+                        .member("@percentageOfSecondRank", String.valueOf(occ.percentageOfSecondRank()))
+                        .endObject();
+                }
+                json.endArray();
+            }
+
+            json.endObject();
+            json.flush();
+        } catch (IOException e) {
+            throw new OutputException("Error creating JSON output.", e);
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
     protected String makeNIF(String text, List<DBpediaResourceOccurrence> occList, String format, String prefix) throws OutputException {
     	return NIFWrapper.fromResourceOccs(text, occList, format, prefix);
     }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2013 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.web.rest;
+
+import org.dbpedia.spotlight.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the annotation requests of the REST server. Only a bounded number of texts is
+ * annotated at the same time, all other requests wait in a bounded queue or are rejected right away with
+ * a 503 response (see {@link ServiceUnavailableException}), so that the latency of the admitted requests
+ * stays predictable when the server is overloaded.
+ *
+ * Requests are put into one of two lanes by the length of their text: short texts (e.g. tweets) and long
+ * texts (e.g. web pages). Each lane has its own number of slots and its own queue, so that long texts
+ * cannot block the short ones. Within a lane, the waiting requests are queued by client and the clients
+ * are served round robin, so that a single client sending many requests cannot starve the others.
+ *
+ * A request that waits longer than its deadline is rejected. The Retry-After of a rejection is estimated
+ * from the average time the texts of the lane take to annotate and the number of waiting requests.
+ *
+ * Usage:
+ * <pre>
+ * RequestScheduler.Slot slot = scheduler.acquire(clientIp, text.length());
+ * try {
+ *     ...
+ * } finally {
+ *     slot.release();
+ * }
+ * </pre>
+ */
+public class RequestScheduler {
+
+    public static final int DEFAULT_LONG_TEXT = 2000;
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+    public static final long DEFAULT_DEADLINE_MILLIS = 10000;
+
+    // Maximum Retry-After in seconds:
+    private static final int MAX_RETRY_AFTER = 60;
+
+    private final Lane shortLane;
+    private final Lane longLane;
+    private final int longText;
+    private final int queueSize;
+    private final long deadlineNanos;
+
+    /**
+     * @param shortSlots number of short texts that are annotated at the same time
+     * @param longSlots number of long texts that are annotated at the same time
+     * @param longText minimum length of a long text in characters
+     * @param queueSize maximum number of waiting requests per lane
+     * @param deadlineMillis maximum time a request waits in the queue
+     */
+    public RequestScheduler(int shortSlots, int longSlots, int longText, int queueSize, long deadlineMillis) {
+        if (shortSlots < 1 || longSlots < 1)
+            throw new IllegalArgumentException("Each lane of the request scheduler needs at least one slot.");
+
+        this.shortLane = new Lane("short", shortSlots);
+        this.longLane = new Lane("long", longSlots);
+        this.longText = longText;
+        this.queueSize = queueSize;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    }
+
+    /**
+     * Returns the number of requests that can be admitted or waiting at the same time. The requests wait
+     * on the worker threads of the HTTP server, so it needs at least this many workers. Otherwise, requests
+     * would wait for a worker before they reach the scheduler.
+     */
+    public int capacity() {
+        return shortLane.slots + longLane.slots + 2 * queueSize;
+    }
+
+    /**
+     * A slot of a lane held by an admitted request.
+     */
+    public class Slot {
+        private final Lane lane;
+        private final long start = System.nanoTime();
+        private boolean released = false;
+
+        private Slot(Lane lane) {
+            this.lane = lane;
+        }
+
+        /**
+         * Gives the slot to the next waiting request.
+         */
+        public void release() {
+            synchronized (lane) {
+                if (released)
+                    return;
+                released = true;
+                lane.finished(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Waits for a slot of the lane of the text.
+     *
+     * @param clientIp the client of the request, waiting requests are served round robin by client
+     * @param textLength the length of the text of the request
+     * @throws ServiceUnavailableException if the queue of the lane is full, the deadline of the request
+     *                                     passed or the thread was interrupted
+     */
+    public Slot acquire(String clientIp, int textLength) throws ServiceUnavailableException {
+        Lane lane = textLength >= longText ? longLane : shortLane;
+        return lane.acquire(clientIp == null ? "" : clientIp);
+    }
+
+    /**
+     * A lane with a fixed number of slots and one queue of waiting requests per client.
+     * All fields are guarded by the lane.
+     */
+    private class Lane {
+
+        private final String name;
+        private final int slots;
+
+        private int running = 0;
+        private int waiting = 0;
+
+        // Waiting requests by client, the client that is served next comes first:
+        private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<String, ArrayDeque<Waiter>>();
+
+        // Exponential moving average of the time a request holds a slot:
+        private double averageNanos = 0;
+
+        Lane(String name, int slots) {
+            this.name = name;
+            this.slots = slots;
+        }
+
+        synchronized Slot acquire(String client) {
+            if (running < slots && waiting == 0) {
+                running++;
+                Metrics.schedulerWait().labels(name).record(0);
+                return new Slot(this);
+            }
+
+            if (waiting >= queueSize)
+                throw reject("queue_full", "The server is overloaded, please try again later.");
+
+            Waiter waiter = new Waiter();
+            ArrayDeque<Waiter> queue = queues.get(client);
+            if (queue == null) {
+                queue = new ArrayDeque<Waiter>();
+                queues.put(client, queue);
+            }
+            queue.add(waiter);
+            waiting++;
+
+            long start = System.nanoTime();
+            try {
+                long remaining = deadlineNanos;
+                while (!waiter.admitted) {
+                    if (remaining <= 0) {
+                        remove(client, waiter);
+                        throw reject("deadline", "The request waited too long for the server, please try again later.");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    remaining = deadlineNanos - (System.nanoTime() - start);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted)
+                    finished(0);
+                else
+                    remove(client, waiter);
+                throw reject("interrupted", "The request was interrupted while waiting for the server.");
+            }
+
+            Metrics.schedulerWait().labels(name).recordSince(start);
+            return new Slot(this);
+        }
+
+        private void remove(String client, Waiter waiter) {
+            ArrayDeque<Waiter> queue = queues.get(client);
+            queue.remove(waiter);
+            if (queue.isEmpty())
+                queues.remove(client);
+            waiting--;
+        }
+
+        /* Frees the slot of a request that held it for the given time and admits the next requests. */
+        void finished(long nanos) {
+            running--;
+            if (nanos > 0)
+                averageNanos = averageNanos == 0 ? nanos : 0.9 * averageNanos + 0.1 * nanos;
+
+            boolean admitted = false;
+            while (running < slots && waiting > 0) {
+                // Serve the first client and move it to the end of the round:
+                Iterator<Map.Entry<String, ArrayDeque<Waiter>>> clients = queues.entrySet().iterator();
+                Map.Entry<String, ArrayDeque<Waiter>> first = clients.next();
+                clients.remove();
+
+                first.getValue().poll().admitted = true;
+                if (!first.getValue().isEmpty())
+                    queues.put(first.getKey(), first.getValue());
+
+                waiting--;
+                running++;
+                admitted = true;
+            }
+
+            if (admitted)
+                notifyAll();
+        }
+
+        private ServiceUnavailableException reject(String reason, String message) {
+            Metrics.schedulerRejections().labels(name, reason).incrementAndGet();
+            return new ServiceUnavailableException(message, retryAfter());
+        }
+
+        /* Seconds until the waiting requests of the lane are expected to be done. */
+        int retryAfter() {
+            double seconds = averageNanos * (waiting + 1) / slots / 1e9;
+            return (int) Math.max(1, Math.min(MAX_RETRY_AFTER, Math.ceil(seconds)));
+        }
+
+        synchronized String describe() {
+            return String.format("%s[slots=%d, running=%d, waiting=%d, clients=%d]", name, slots, running, waiting, queues.size());
+        }
+    }
+
+    private static class Waiter {
+        boolean admitted = false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RequestScheduler[%s, %s, longText=%d, queueSize=%d]", shortLane.describe(), longLane.describe(), longText, queueSize);
+    }
+
+}
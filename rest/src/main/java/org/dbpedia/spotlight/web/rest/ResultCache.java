@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.web.rest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.dbpedia.spotlight.metrics.Metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the serialized responses of the REST API, so that texts that are annotated again with the same
+ * parameters (e.g. retries or syndicated texts) are not annotated again.
+ *
+ * Responses are cached by a SHA-256 hash of all request parameters including the text and the output
+ * format (see {@link #key(Object...)}). The cache is bounded by the size of the responses in bytes, the
+ * least recently used responses are evicted first. Concurrent requests for the same key are coalesced:
+ * the response is computed once and the other requests wait for it. Failed requests are not cached, neither
+ * are responses that report an error (see {@link NotCacheable}).
+ *
+ * All responses are dropped by {@link #invalidateAll()} when the model changes. Responses that were
+ * computed with the previous model are not stored after that, since the key includes a generation
+ * that is incremented by invalidateAll().
+ *
+ * Responses that must not be cached are returned by throwing {@link NotCacheable}.
+ */
+public class ResultCache {
+
+    // Approximate memory used by an entry in addition to the response:
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Cache<HashCode, byte[]> cache;
+
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * @param maximumBytes maximum size of the cached responses in bytes
+     */
+    public ResultCache(long maximumBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher(new Weigher<HashCode, byte[]>() {
+                    public int weigh(HashCode key, byte[] response) {
+                        return response.length + ENTRY_OVERHEAD;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the key of a request for the current model.
+     *
+     * @param parameters all parameters that determine the response (null is a valid value)
+     */
+    public HashCode key(Object... parameters) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putLong(generation.get());
+        for (Object parameter : parameters) {
+            if (parameter == null) {
+                hasher.putInt(-1);
+            } else {
+                String value = parameter.toString();
+                hasher.putInt(value.length());
+                hasher.putUnencodedChars(value);
+            }
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns the cached response for the key or computes it. If the response for the key is being
+     * computed by another request, this request waits for it.
+     *
+     * @param key key of the request (see {@link #key(Object...)})
+     * @param response computes the serialized response
+     * @throws Exception the exception thrown by response
+     */
+    public byte[] get(HashCode key, final Callable<byte[]> response) throws Exception {
+        final boolean[] computed = new boolean[1];
+
+        try {
+            byte[] cached = cache.get(key, new Callable<byte[]>() {
+                public byte[] call() throws Exception {
+                    computed[0] = true;
+                    return response.call();
+                }
+            });
+
+            if (computed[0]) {
+                misses.incrementAndGet();
+                Metrics.resultCache().labels("miss").incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+                Metrics.resultCache().labels("hit").incrementAndGet();
+            }
+
+            return cached;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotCacheable) {
+                misses.incrementAndGet();
+                Metrics.resultCache().labels("uncacheable").incrementAndGet();
+                return ((NotCacheable) e.getCause()).getResponse();
+            }
+            throw cause(e);
+        } catch (UncheckedExecutionException e) {
+            throw cause(e);
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Thrown by the computation of a response that must not be cached (e.g. an error message or a partial
+     * response because the time budget of the request ran out). The response is returned to all requests waiting for it, but it
+     * is not stored.
+     */
+    public static class NotCacheable extends Exception {
+        private final byte[] response;
+
+        public NotCacheable(byte[] response) {
+            super("The response can not be cached.");
+            this.response = response;
+        }
+
+        public byte[] getResponse() {
+            return response;
+        }
+    }
+
+    private static Exception cause(Exception e) {
+        return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+
+    /**
+     * Removes all responses, e.g. after model deltas were applied.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public double hitRate() {
+        long requests = hits() + misses();
+        return requests == 0 ? 1.0 : (double) hits() / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultCache[size=%d, hits=%d, misses=%d]", size(), hits(), misses());
+    }
+
+}
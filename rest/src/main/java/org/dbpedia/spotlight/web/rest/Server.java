@@ -22,7 +22,10 @@ import com.sun.grizzly.http.SelectorThread;
 import com.sun.jersey.api.container.grizzly.GrizzlyWebContainerFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.dbpedia.spotlight.db.OntologyTypeIndex;
 import org.dbpedia.spotlight.db.SpotlightModel;
+import org.dbpedia.spotlight.db.delta.ModelUpdater;
+import org.dbpedia.spotlight.db.model.ResourceStore;
 import org.dbpedia.spotlight.db.model.TextTokenizer;
 import org.dbpedia.spotlight.disambiguate.ParagraphDisambiguatorJ;
 import org.dbpedia.spotlight.exceptions.InitializationException;
@@ -31,7 +34,9 @@ import org.dbpedia.spotlight.model.DBpediaResource;
 import org.dbpedia.spotlight.model.SpotlightConfiguration;
 import org.dbpedia.spotlight.model.SpotlightFactory;
 import org.dbpedia.spotlight.model.SpotterConfiguration;
+import org.dbpedia.spotlight.model.TimeBudget;
 import org.dbpedia.spotlight.sparql.SparqlQueryExecuter;
+import org.dbpedia.spotlight.sparql.SparqlResultCache;
 import org.dbpedia.spotlight.spot.Spotter;
 import org.dbpedia.spotlight.model.SpotterConfiguration.SpotterPolicy;
 import org.dbpedia.spotlight.model.SpotlightConfiguration.DisambiguationPolicy;
@@ -45,6 +50,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Instantiates Web Service that will execute annotation and disambiguation tasks.
@@ -79,8 +91,33 @@ public class Server {
 
     private static SparqlQueryExecuter sparqlExecuter = null;
 
+    private static SparqlResultCache sparqlCache = null;
+
+    private static OntologyTypeIndex typeIndex = null;
+
     private static List<Double> similarityThresholds = new ArrayList<Double>();
 
+    // Number of documents of a batch request that are processed in parallel
+    private static int batchThreads = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService batchExecutor = null;
+
+    // Applies new model deltas to the loaded model
+    private static ScheduledExecutorService deltaExecutor = null;
+
+    // Responses of recent requests (optional)
+    private static ResultCache resultCache = null;
+
+    // Admission control for the annotation requests (optional)
+    private static RequestScheduler scheduler = null;
+
+    // System properties for the size of the worker thread pool, read by Grizzly when the server is created
+    private static final String GRIZZLY_MAX_THREADS = "com.sun.grizzly.maxThreads";
+    private static final String GRIZZLY_MIN_THREADS = "com.sun.grizzly.minWorkerThreads";
+
+    // Time budget in milliseconds for requests that do not specify one (0 for no budget)
+    private static long timeBudget = 0;
+
     public static void main(String[] args) throws IOException, InterruptedException, URISyntaxException, ClassNotFoundException, InitializationException {
 
         URI serverURI = null;
@@ -110,10 +147,14 @@ public class Server {
         initParams.put("com.sun.jersey.config.property.WadlGeneratorConfig", "org.dbpedia.spotlight.web.rest.wadl.ExternalUriWadlGeneratorConfig");
 
 
+        if (scheduler != null)
+            setWorkerThreads(scheduler.capacity() + Runtime.getRuntime().availableProcessors());
+
         SelectorThread threadSelector = GrizzlyWebContainerFactory.create(serverURI, initParams);
         threadSelector.start();
 
         System.err.println("Server started in " + System.getProperty("user.dir") + " listening on " + serverURI);
+        LOG.info(String.format("Metrics in the Prometheus text format are available at %s/metrics", serverURI.toString().replaceAll("/$", "")));
 
         Thread warmUp = new Thread() {
             public void run() {
@@ -220,22 +261,177 @@ public class Server {
         Server.namespacePrefix = namespacePrefix;
     }
 
-    private static void setSparqlExecuter(String endpoint, String graph)
+    private static void setSparqlExecuter(String endpoint, String graph, ResourceStore resourceStore, Properties properties)
     {
         if (endpoint == null || endpoint.equals(""))  endpoint= "http://dbpedia.org/sparql";
         if (graph == null || graph.equals(""))  graph= "http://dbpedia.org";
 
         Server.sparqlExecuter = new SparqlQueryExecuter(graph, endpoint);
+        Server.sparqlCache = new SparqlResultCache(sparqlExecuter, resourceStore,
+                Integer.parseInt(properties.getProperty("sparql_cache_size", String.valueOf(SparqlResultCache.DEFAULT_MAXIMUM_SIZE))),
+                Long.parseLong(properties.getProperty("sparql_cache_refresh", String.valueOf(SparqlResultCache.DEFAULT_REFRESH_SECONDS))),
+                Long.parseLong(properties.getProperty("sparql_cache_expire", String.valueOf(SparqlResultCache.DEFAULT_EXPIRE_SECONDS))));
     }
 
     public static SparqlQueryExecuter getSparqlExecute(){
         return sparqlExecuter;
     }
 
+    /**
+     * Returns the cache for the results of the SPARQL queries of the SPARQL filter.
+     */
+    public static SparqlResultCache getSparqlCache(){
+        return sparqlCache;
+    }
+
+    /**
+     * Returns the index of the resources by their ontology types for the type filter (null if the model has none).
+     */
+    public static OntologyTypeIndex getTypeIndex(){
+        return typeIndex;
+    }
+
+    /**
+     * Returns the cache for the responses of the REST API (null if responses are not cached).
+     */
+    public static ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    private static void setResultCache(int megabytes) {
+        if (megabytes > 0) {
+            LOG.info(String.format("Caching responses up to %d MB.", megabytes));
+            resultCache = new ResultCache(megabytes * 1024L * 1024L);
+        }
+    }
+
+    /**
+     * Returns the scheduler that admits the annotation requests (null if all requests are admitted).
+     */
+    public static RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Creates the scheduler if scheduler_slots is set to a positive number of slots, by default all requests
+     * are admitted.
+     */
+    private static void setScheduler(Properties properties) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int slots = Integer.parseInt(properties.getProperty("scheduler_slots", "0"));
+        if (slots <= 0)
+            return;
+
+        scheduler = new RequestScheduler(slots,
+                Integer.parseInt(properties.getProperty("scheduler_long_slots", String.valueOf(Math.max(1, processors / 2)))),
+                Integer.parseInt(properties.getProperty("scheduler_long_text", String.valueOf(RequestScheduler.DEFAULT_LONG_TEXT))),
+                Integer.parseInt(properties.getProperty("scheduler_queue_size", String.valueOf(RequestScheduler.DEFAULT_QUEUE_SIZE))),
+                Long.parseLong(properties.getProperty("scheduler_deadline_ms", String.valueOf(RequestScheduler.DEFAULT_DEADLINE_MILLIS))));
+        LOG.info("Admitting annotation requests with " + scheduler);
+    }
+
+    /**
+     * Sizes the worker thread pool of Grizzly, so that all requests the scheduler can hold get a worker
+     * and requests are rejected by the scheduler instead of waiting in the unbounded queue of Grizzly. A
+     * pool size set as a system property is kept.
+     */
+    private static void setWorkerThreads(int threads) {
+        if (System.getProperty(GRIZZLY_MAX_THREADS) != null) {
+            LOG.info(String.format("Using %s worker threads (request scheduler capacity: %d).", System.getProperty(GRIZZLY_MAX_THREADS), threads));
+            return;
+        }
+
+        System.setProperty(GRIZZLY_MAX_THREADS, String.valueOf(threads));
+        System.setProperty(GRIZZLY_MIN_THREADS, String.valueOf(threads));
+        LOG.info(String.format("Using %d worker threads for the request scheduler.", threads));
+    }
+
+    /**
+     * Returns the time budget for a request, the default of the server is used if the request did not
+     * specify a budget (millis <= 0). Returns null if there is no budget.
+     *
+     * @param millis the budget specified by the request in milliseconds
+     */
+    public static TimeBudget createTimeBudget(long millis) {
+        long budget = millis > 0 ? millis : timeBudget;
+        return budget > 0 ? new TimeBudget(budget) : null;
+    }
+
     private static void setSimilarityThresholds( List<Double> similarityThresholds){
        Server.similarityThresholds =  similarityThresholds;
     }
 
+    private static void setBatchThreads(int threads) {
+        batchThreads = threads;
+    }
+
+    /**
+     * Returns the number of documents of a batch request that are submitted to the batch executor
+     * ahead of the document whose result is written next.
+     */
+    public static int getBatchWindow() {
+        return 2 * batchThreads;
+    }
+
+    /**
+     * Returns the executor for the documents of batch requests. The threads are created
+     * on the first batch request.
+     */
+    public static synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            LOG.info(String.format("Starting %d threads for batch requests.", batchThreads));
+            batchExecutor = Executors.newFixedThreadPool(batchThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(0);
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "spotlight-batch-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return batchExecutor;
+    }
+
+    /**
+     * Checks the deltas folder of the model for new deltas every interval seconds. The deltas are
+     * applied to the stores of the running model, so the server keeps answering requests.
+     */
+    private static void startDeltaUpdates(final ModelUpdater updater, int interval) {
+        if (interval <= 0)
+            return;
+
+        LOG.info(String.format("Checking for model deltas in %s every %d seconds.", updater.deltaFolder(), interval));
+        deltaExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "spotlight-model-deltas");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        deltaExecutor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    int n = updater.update();
+                    if (n > 0) {
+                        LOG.info(String.format("Applied %d model deltas.", n));
+
+                        // Cached responses may contain annotations that have changed:
+                        if (resultCache != null)
+                            resultCache.invalidateAll();
+
+                        // The cached SPARQL results do not contain the IDs of new resources:
+                        if (sparqlCache != null)
+                            sparqlCache.invalidateAll();
+                    }
+                } catch (Exception e) {
+                    LOG.error("Could not apply model deltas: " + e.getMessage(), e);
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
     public static  List<Double> getSimilarityThresholds(){
        return similarityThresholds;
     }
@@ -276,7 +472,7 @@ public class Server {
         setDisambiguators(factory.disambiguators());
         setSpotters(factory.spotters());
         setNamespacePrefix(configuration.getDbpediaResource());
-        setSparqlExecuter(configuration.getSparqlEndpoint(), configuration.getSparqlMainGraph());
+        setSparqlExecuter(configuration.getSparqlEndpoint(), configuration.getSparqlMainGraph(), null, new Properties());
         setSimilarityThresholds(configuration.getSimilarityThresholds());
 
     }
@@ -300,7 +496,17 @@ public class Server {
         setTokenizer(db.tokenizer());
         setSpotters(db.spotters());
         setDisambiguators(db.disambiguators());
-        setSparqlExecuter(db.properties().getProperty("endpoint", ""),db.properties().getProperty("graph", ""));
+        setSparqlExecuter(db.properties().getProperty("endpoint", ""),db.properties().getProperty("graph", ""),
+            db.resourceStore().isDefined() ? db.resourceStore().get() : null, db.properties());
+        typeIndex = db.typeIndex().isDefined() ? db.typeIndex().get() : null;
+        setBatchThreads(Integer.parseInt(db.properties().getProperty("batch_threads",
+            db.properties().getProperty("opennlp_parallel", String.valueOf(batchThreads)))));
+        setResultCache(Integer.parseInt(db.properties().getProperty("result_cache_mb", "0")));
+        setScheduler(db.properties());
+        timeBudget = Long.parseLong(db.properties().getProperty("time_budget_ms", "0"));
+
+        if (db.updater().isDefined())
+            startDeltaUpdates(db.updater().get(), Integer.parseInt(db.properties().getProperty("delta_interval", "60")));
 
     }
 }
@@ -8,6 +8,7 @@ import org.dbpedia.spotlight.exceptions.InputException;
 import org.xml.sax.InputSource;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -23,6 +24,10 @@ public class ServerUtils {
         return Response.ok().entity(response).header("Access-Control-Allow-Origin","*").build();
     }
 
+    public static Response ok(StreamingOutput response) {
+        return Response.ok().entity(response).header("Access-Control-Allow-Origin","*").build();
+    }
+
     public static String print(Exception exception) {  //TODO need a nicer way to send error messages to client
         String eMessage = exception.getMessage();
         StackTraceElement[] elements = exception.getStackTrace();
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.web.rest;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Thrown when the server is overloaded and rejects a request (see {@link RequestScheduler}).
+ * The response is a 503 with a Retry-After header that tells the client when to try again.
+ */
+public class ServiceUnavailableException extends WebApplicationException {
+
+    private final int retryAfter;
+
+    /**
+     * @param message reason of the rejection
+     * @param retryAfter seconds after which the client should retry the request
+     */
+    public ServiceUnavailableException(String message, int retryAfter) {
+        super(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN)
+                .header("Retry-After", String.valueOf(retryAfter))
+                .header("Access-Control-Allow-Origin", "*")
+                .build());
+        this.retryAfter = retryAfter;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.valueOf(getResponse().getEntity());
+    }
+
+}
@@ -22,17 +22,27 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbpedia.spotlight.disambiguate.ParagraphDisambiguatorJ;
 import org.dbpedia.spotlight.exceptions.InputException;
+import org.dbpedia.spotlight.exceptions.OutputException;
 import org.dbpedia.spotlight.exceptions.SearchException;
 import org.dbpedia.spotlight.exceptions.SpottingException;
 import org.dbpedia.spotlight.filter.visitor.FilterElement;
 import org.dbpedia.spotlight.filter.visitor.FilterOccsImpl;
 import org.dbpedia.spotlight.filter.visitor.OccsFilter;
+import org.dbpedia.spotlight.metrics.Metrics;
 import org.dbpedia.spotlight.model.*;
 import org.dbpedia.spotlight.spot.Spotter;
+import org.dbpedia.spotlight.web.rest.output.JSONWriter;
 
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Controller that interfaces between the REST API and the DBpedia Spotlight core.
@@ -58,13 +68,15 @@ public class SpotlightInterface {
         if (spots.size()==0) return resources; // nothing to disambiguate
 
         if(Server.getTokenizer() != null)
-            Server.getTokenizer().tokenizeMaybe(spots.get(0).context());
+            tokenize(spots.get(0).context());
 
+        long start = System.nanoTime();
         try {
             resources = disambiguator.disambiguate(Factory.paragraph().fromJ(spots));
         } catch (UnsupportedOperationException e) {
             throw new SearchException(e);
         }
+        Metrics.stageDuration().labels("disambiguate").recordSince(start);
         return resources;
     }
 
@@ -111,12 +123,20 @@ public class SpotlightInterface {
         Spotter spotter = Server.getSpotter(spotterName);
 
         if(Server.getTokenizer() != null)
-            Server.getTokenizer().tokenizeMaybe(context);
+            tokenize(context);
 
+        long start = System.nanoTime();
         List<SurfaceFormOccurrence> spots = spotter.extract(context);
+        Metrics.stageDuration().labels("spot").recordSince(start);
         return spots;
     }
 
+    private void tokenize(Text context) {
+        long start = System.nanoTime();
+        Server.getTokenizer().tokenizeMaybe(context);
+        Metrics.stageDuration().labels("tokenize").recordSince(start);
+    }
+
     /**
      * Retrieves representation of an instance of org.dbpedia.spotlight.web.Annotation
      * @return an instance of java.lang.String
@@ -132,20 +152,102 @@ public class SpotlightInterface {
                                                           String spotterName,
                                                           String disambiguatorName
                                                           ) throws SearchException, InputException, SpottingException {
+        return getOccurrences(textString, confidence, support, ontologyTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, null);
+    }
+
+    /**
+     * Annotates the text within the time budget (null for no budget). If the budget runs out, the annotation
+     * is degraded (see TimeBudget) and the result is partial.
+     */
+    public List<DBpediaResourceOccurrence> getOccurrences(String textString,
+                                                          double confidence,
+                                                          int support,
+                                                          String ontologyTypesString,
+                                                          String sparqlQuery,
+                                                          String policy,
+                                                          boolean coreferenceResolution,
+                                                          String clientIp,
+                                                          String spotterName,
+                                                          String disambiguatorName,
+                                                          TimeBudget budget
+                                                          ) throws SearchException, InputException, SpottingException {
+
+        FilterElement filter = createFilter(confidence, support, ontologyTypesString, sparqlQuery, policy, coreferenceResolution);
+        return getOccurrences(textString, confidence, support, ontologyTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, filter, budget);
+    }
 
+    /**
+     * Creates the filter for the annotation parameters, the filter does not depend on the text
+     * and can be shared between several calls of getOccurrences with the same parameters.
+     */
+    public FilterElement createFilter(double confidence,
+                                      int support,
+                                      String ontologyTypesString,
+                                      String sparqlQuery,
+                                      String policy,
+                                      boolean coreferenceResolution) {
         boolean blacklist = policyIsBlacklist(policy);
+        return new OccsFilter(confidence, support, ontologyTypesString, sparqlQuery, blacklist, coreferenceResolution, Server.getSimilarityThresholds(), Server.getSparqlCache(), Server.getTypeIndex());
+    }
+
+    public List<DBpediaResourceOccurrence> getOccurrences(String textString,
+                                                          double confidence,
+                                                          int support,
+                                                          String ontologyTypesString,
+                                                          String sparqlQuery,
+                                                          String policy,
+                                                          boolean coreferenceResolution,
+                                                          String clientIp,
+                                                          String spotterName,
+                                                          String disambiguatorName,
+                                                          FilterElement filter,
+                                                          TimeBudget budget
+                                                          ) throws SearchException, InputException, SpottingException {
 
         announce(textString,confidence,support,ontologyTypesString,sparqlQuery,policy,coreferenceResolution,clientIp,spotterName,disambiguatorName);
 
+        // Wait for the scheduler before the request is counted, rejected requests are not annotated:
+        RequestScheduler scheduler = Server.getScheduler();
+        RequestScheduler.Slot slot = scheduler == null ? null : scheduler.acquire(clientIp, textString.length());
+
+        long start = System.nanoTime();
+        Metrics.requests().labels(apiName).incrementAndGet();
+        boolean annotated = false;
+        try {
+            List<DBpediaResourceOccurrence> occList = annotate(textString, confidence, spotterName, disambiguatorName, filter, budget);
+            annotated = true;
+
+            if (isPartial(budget))
+                LOG.info(String.format("Partial result, the time budget was exceeded (%s).", budget));
+            return occList;
+        } finally {
+            if (slot != null)
+                slot.release();
+            if (annotated)
+                Metrics.requestDuration().labels(apiName, spotterName, disambiguatorName).recordSince(start);
+            else
+                Metrics.errors().labels(apiName).incrementAndGet();
+        }
+    }
+
+    private List<DBpediaResourceOccurrence> annotate(String textString, double confidence, String spotterName, String disambiguatorName, FilterElement filter, TimeBudget budget) throws SearchException, InputException, SpottingException {
+
         // Get input text
         if (textString.trim().equals("")) {
             throw new InputException("No text was specified in the &text parameter.");
         }
+        Metrics.textLength().labels(apiName).record(textString.length());
+
         Text context = new Text(textString);
         context.setFeature(new Score("confidence", confidence));
+        if (filter instanceof OccsFilter)
+            context.setFeature(new Feature("type_filter", ((OccsFilter) filter).ontologyTypeFilter()));
+        if (budget != null)
+            context.setFeature(budget.feature());
 
         // Find spots to annotate/disambiguate
         List<SurfaceFormOccurrence> spots = spot(spotterName,context);
+        Metrics.spots().labels(apiName).record(spots.size());
 
         // Call annotation or disambiguation
         int maxLengthForOccurrenceCentric = 1200; //TODO configuration
@@ -157,8 +259,9 @@ public class SpotlightInterface {
         ParagraphDisambiguatorJ disambiguator = Server.getDisambiguator(disambiguatorName);
         List<DBpediaResourceOccurrence> occList = disambiguate(spots, disambiguator);
 
-        FilterElement filter = new OccsFilter(confidence, support, ontologyTypesString, sparqlQuery, blacklist, coreferenceResolution, Server.getSimilarityThresholds(), Server.getSparqlExecute());
+        long filterStart = System.nanoTime();
         occList = filter.accept(new FilterOccsImpl() ,occList);
+        Metrics.stageDuration().labels("filter").recordSince(filterStart);
 
 
 
@@ -172,107 +275,174 @@ public class SpotlightInterface {
         return occList;
     }
 
+    /**
+     * Returns the response from the result cache of the server, the response is only computed if it is not
+     * in the cache (or if the server has no result cache). Partial responses and error messages are not cached,
+     * response throws {@link ResultCache.NotCacheable} for them.
+     *
+     * @param budget the time budget of the request (may be null)
+     * @param response computes the response
+     * @param parameters the output format and all request parameters that determine the response
+     */
+    private String cached(final TimeBudget budget, final Callable<String> response, Object... parameters) throws Exception {
+        ResultCache cache = Server.getResultCache();
+        if (cache == null) {
+            try {
+                return response.call();
+            } catch (ResultCache.NotCacheable e) {
+                return new String(e.getResponse(), "UTF-8");
+            }
+        }
+
+        byte[] cached = cache.get(cache.key(withApiName(parameters)), new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                return notCacheableIfPartial(budget, response.call().getBytes("UTF-8"));
+            }
+        });
+        return new String(cached, "UTF-8");
+    }
+
+    // A later request may have the time to annotate the whole text:
+    private static byte[] notCacheableIfPartial(TimeBudget budget, byte[] response) throws ResultCache.NotCacheable {
+        if (isPartial(budget))
+            throw new ResultCache.NotCacheable(response);
+        return response;
+    }
+
+    // Error messages are returned as the response, but the next request is annotated again:
+    private static ResultCache.NotCacheable notCacheable(String error) throws java.io.UnsupportedEncodingException {
+        return new ResultCache.NotCacheable(error.getBytes("UTF-8"));
+    }
+
+    private static boolean isPartial(TimeBudget budget) {
+        return budget != null && budget.isPartial();
+    }
+
+    // The parameters of a request and the name of the API:
+    private Object[] withApiName(Object[] parameters) {
+        Object[] key = new Object[parameters.length + 1];
+        key[0] = apiName;
+        System.arraycopy(parameters, 0, key, 1, parameters.length);
+        return key;
+    }
+
     public String getHTML(String text,
                           String inUrl,
-                          double confidence,
-                          int support,
-                          String dbpediaTypesString,
-                          String sparqlQuery,
-                          String policy,
-                          boolean coreferenceResolution,
-                          String clientIp,
-                          String spotter,
-                          String disambiguator
+                          final double confidence,
+                          final int support,
+                          final String dbpediaTypesString,
+                          final String sparqlQuery,
+                          final String policy,
+                          final boolean coreferenceResolution,
+                          final String clientIp,
+                          final String spotter,
+                          final String disambiguator,
+                          final long budget
     ) throws Exception {
-        String result;
-        String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
-
-        try {
-            List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter, disambiguator);
-            result = outputManager.makeHTML(textToProcess, occs);
-        }
-        catch (InputException e) { //TODO throw exception up to Annotate for WebApplicationException to handle.
-            LOG.info("ERROR: "+e.getMessage());
-            result = "<html><body><b>ERROR:</b> <i>"+e.getMessage()+"</i></body></html>";
-        }
-        LOG.info("HTML format");
-        LOG.debug("****************************************************************");
-        return result;
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+        final TimeBudget timeBudget = Server.createTimeBudget(budget);
+
+        return cached(timeBudget, new Callable<String>() {
+            public String call() throws Exception {
+                String result;
+                try {
+                    List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter, disambiguator, timeBudget);
+                    long outputStart = System.nanoTime();
+                    result = outputManager.makeHTML(textToProcess, occs);
+                    Metrics.outputDuration().labels("html").recordSince(outputStart);
+                }
+                catch (InputException e) { //TODO throw exception up to Annotate for WebApplicationException to handle.
+                    LOG.info("ERROR: "+e.getMessage());
+                    throw notCacheable("<html><body><b>ERROR:</b> <i>"+e.getMessage()+"</i></body></html>");
+                }
+                LOG.info("HTML format");
+                LOG.debug("****************************************************************");
+                return result;
+            }
+        }, "html", textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotter, disambiguator);
     }
 
     public String getRDFa(String text,
                           String inUrl,
-                          double confidence,
-                          int support,
-                          String dbpediaTypesString,
-                          String sparqlQuery,
-                          String policy,
-                          boolean coreferenceResolution,
-                          String clientIp,
-                          String spotter,
-                          String disambiguator
+                          final double confidence,
+                          final int support,
+                          final String dbpediaTypesString,
+                          final String sparqlQuery,
+                          final String policy,
+                          final boolean coreferenceResolution,
+                          final String clientIp,
+                          final String spotter,
+                          final String disambiguator,
+                          final long budget
     ) throws Exception {
-        String result;
-        String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
-
-        try {
-            List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter, disambiguator);
-            result = outputManager.makeRDFa(textToProcess, occs);
-        }
-        catch (InputException e) { //TODO throw exception up to Annotate for WebApplicationException to handle.
-            LOG.info("ERROR: "+e.getMessage());
-            result = "<html><body><b>ERROR:</b> <i>"+e.getMessage()+"</i></body></html>";
-        }
-        LOG.info("RDFa format");
-        LOG.debug("****************************************************************");
-        return result;
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+        final TimeBudget timeBudget = Server.createTimeBudget(budget);
+
+        return cached(timeBudget, new Callable<String>() {
+            public String call() throws Exception {
+                String result;
+                try {
+                    List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter, disambiguator, timeBudget);
+                    long outputStart = System.nanoTime();
+                    result = outputManager.makeRDFa(textToProcess, occs);
+                    Metrics.outputDuration().labels("rdfa").recordSince(outputStart);
+                }
+                catch (InputException e) { //TODO throw exception up to Annotate for WebApplicationException to handle.
+                    LOG.info("ERROR: "+e.getMessage());
+                    throw notCacheable("<html><body><b>ERROR:</b> <i>"+e.getMessage()+"</i></body></html>");
+                }
+                LOG.info("RDFa format");
+                LOG.debug("****************************************************************");
+                return result;
+            }
+        }, "rdfa", textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotter, disambiguator);
     }
 
     public String getXML(String text,
                          String inUrl,
-                         double confidence,
-                         int support,
-                         String dbpediaTypesString,
-                         String sparqlQuery,
-                         String policy,
-                         boolean coreferenceResolution,
-                         String clientIp,
-                         String spotter,
-                         String disambiguator
+                         final double confidence,
+                         final int support,
+                         final String dbpediaTypesString,
+                         final String sparqlQuery,
+                         final String policy,
+                         final boolean coreferenceResolution,
+                         final String clientIp,
+                         final String spotter,
+                         final String disambiguator,
+                         final long budget
    ) throws Exception {
-        String result;
-        String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
-
-//        try {
-            List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator);
-            result = outputManager.makeXML(textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution);
-//        }
-//        catch (Exception e) { //TODO throw exception up to Annotate for WebApplicationException to handle.
-//            LOG.info("ERROR: "+e.getMessage());
-//            result = outputManager.makeErrorXML(e.getMessage(), text, confidence, support, dbpediaTypesString, spqarlQuery, policy, coreferenceResolution);
-//        }
-        LOG.info("XML format");
-        LOG.debug("****************************************************************");
-
-        return result;
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+        final TimeBudget timeBudget = Server.createTimeBudget(budget);
+
+        return cached(timeBudget, new Callable<String>() {
+            public String call() throws Exception {
+                List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator, timeBudget);
+                long outputStart = System.nanoTime();
+                String result = outputManager.makeXML(textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, isPartial(timeBudget));
+                Metrics.outputDuration().labels("xml").recordSince(outputStart);
+                LOG.info("XML format");
+                LOG.debug("****************************************************************");
+                return result;
+            }
+        }, "xml", textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotter, disambiguator);
     }
 
     public String getNIF(String text,
                          String inUrl,
-                         double confidence,
-                         int support,
-                         String dbpediaTypesString,
-                         String sparqlQuery,
-                         String policy,
-                         boolean coreferenceResolution,
-                         String clientIp,
-                         String spotter,
-                         String disambiguator,
-			 String format,
+                         final double confidence,
+                         final int support,
+                         final String dbpediaTypesString,
+                         final String sparqlQuery,
+                         final String policy,
+                         final boolean coreferenceResolution,
+                         final String clientIp,
+                         final String spotter,
+                         final String disambiguator,
+                         final long budget,
+			 final String format,
 			 String prefix,
 			 String requestedURL) throws Exception {
-        String result;
-        String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
 
 	    // when no prefix argument specified and url param is used the prefix
 	    // is set to the given url
@@ -282,59 +452,191 @@ public class SpotlightInterface {
 	        // is set to the spotlight url + the given text
 	    else if (prefix == null && !text.equals(""))
 	        prefix = requestedURL.concat("/?text=").concat(URLEncoder.encode(text, "UTF-8"));
-	
-	    List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator);
-	    result = outputManager.makeNIF(textToProcess, occs, format, prefix);
-
-	    LOG.info("NIF format: " + format);
-        LOG.debug("****************************************************************");
 
-        return result;
+        final String nifPrefix = prefix;
+        final TimeBudget timeBudget = Server.createTimeBudget(budget);
+        return cached(timeBudget, new Callable<String>() {
+            public String call() throws Exception {
+                List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator, timeBudget);
+                long outputStart = System.nanoTime();
+                String result = outputManager.makeNIF(textToProcess, occs, format, nifPrefix);
+                Metrics.outputDuration().labels("nif").recordSince(outputStart);
+
+                LOG.info("NIF format: " + format);
+                LOG.debug("****************************************************************");
+                return result;
+            }
+        }, "nif", format, nifPrefix, textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotter, disambiguator);
     }
     
     //FIXME
     public String getCandidateXML(String text,
                                   String inUrl,
-                         double confidence,
-                         int support,
-                         String dbpediaTypesString,
-                         String sparqlQuery,
-                         String policy,
-                         boolean coreferenceResolution,
-                         String clientIp,
-                         String spotter,
-                         String disambiguator
+                         final double confidence,
+                         final int support,
+                         final String dbpediaTypesString,
+                         final String sparqlQuery,
+                         final String policy,
+                         final boolean coreferenceResolution,
+                         final String clientIp,
+                         final String spotter,
+                         final String disambiguator
    ) throws Exception {
-        String result;
-
-        String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
-
-        List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator);
-        result = outputManager.makeXML(textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution);
-        LOG.info("XML format");
-        LOG.debug("****************************************************************");
-        return result;
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+
+        return cached(null, new Callable<String>() {
+            public String call() throws Exception {
+                List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotter,disambiguator);
+                long outputStart = System.nanoTime();
+                String result = outputManager.makeXML(textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution);
+                Metrics.outputDuration().labels("xml").recordSince(outputStart);
+                LOG.info("XML format");
+                LOG.debug("****************************************************************");
+                return result;
+            }
+        }, "xml", textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotter, disambiguator);
     }
 
-    public String getJSON(String text,
+    public StreamingOutput getJSON(String text,
                           String inUrl,
-                          double confidence,
-                          int support,
-                          String dbpediaTypesString,
-                          String sparqlQuery,
-                          String policy,
-                          boolean coreferenceResolution,
-                          String clientIp,
-                          String spotterName,
-                          String disambiguator
+                          final double confidence,
+                          final int support,
+                          final String dbpediaTypesString,
+                          final String sparqlQuery,
+                          final String policy,
+                          final boolean coreferenceResolution,
+                          final String clientIp,
+                          final String spotterName,
+                          final String disambiguator,
+                          final long budget
     ) throws Exception {
-        String result;
-        String xml = getXML(text,inUrl, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName,disambiguator);
-        result = outputManager.xml2json(xml);
+        final String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
+        final TimeBudget timeBudget = Server.createTimeBudget(budget);
+
+        ResultCache cache = Server.getResultCache();
+        if (cache != null) {
+            // The cached response is serialized before the response is committed:
+            final byte[] response = cache.get(cache.key(withApiName(new Object[]{"json", textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, spotterName, disambiguator})), new Callable<byte[]>() {
+                public byte[] call() throws Exception {
+                    List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguator, timeBudget);
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    long outputStart = System.nanoTime();
+                    outputManager.makeJSON(out, textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, isPartial(timeBudget));
+                    Metrics.outputDuration().labels("json").recordSince(outputStart);
+                    return notCacheableIfPartial(timeBudget, out.toByteArray());
+                }
+            });
+            LOG.info("JSON format");
+
+            return new StreamingOutput() {
+                public void write(OutputStream out) throws IOException, WebApplicationException {
+                    out.write(response);
+                }
+            };
+        }
+
+        // Annotate before the response is committed, errors are still reported as a bad request:
+        final List<DBpediaResourceOccurrence> occs = getOccurrences(textToProcess, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguator, timeBudget);
         LOG.info("JSON format");
         LOG.debug("****************************************************************");
 
-        return result;
+        return new StreamingOutput() {
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                try {
+                    long outputStart = System.nanoTime();
+                    outputManager.makeJSON(out, textToProcess, occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, isPartial(timeBudget));
+                    Metrics.outputDuration().labels("json").recordSince(outputStart);
+                } catch (OutputException e) {
+                    throw new WebApplicationException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Annotates a batch of documents with the same parameters. The documents are annotated in parallel
+     * on the batch executor of the Server, the results are streamed in the order of the documents as one
+     * JSON object per line (the same object as for a single document). If a single document fails, its line
+     * contains the error message instead. Only Server.getBatchWindow() documents are in flight at once, and
+     * the time budget of each document starts when a thread starts annotating it.
+     */
+    public StreamingOutput getBatchJSON(final List<String> texts,
+                                        final double confidence,
+                                        final int support,
+                                        final String dbpediaTypesString,
+                                        final String sparqlQuery,
+                                        final String policy,
+                                        final boolean coreferenceResolution,
+                                        final String clientIp,
+                                        final String spotterName,
+                                        final String disambiguator,
+                                        final long budget
+    ) throws Exception {
+
+        // The filter (including the SPARQL query) is created once for all documents:
+        final FilterElement filter = createFilter(confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution);
+
+        final List<Callable<BatchResult>> tasks = new ArrayList<Callable<BatchResult>>(texts.size());
+        for (final String text : texts) {
+            tasks.add(new Callable<BatchResult>() {
+                public BatchResult call() throws Exception {
+                    TimeBudget timeBudget = Server.createTimeBudget(budget);
+                    return new BatchResult(getOccurrences(text, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguator, filter, timeBudget), timeBudget);
+                }
+            });
+        }
+        LOG.info(String.format("JSON format, batch of %d documents", texts.size()));
+
+        return new StreamingOutput() {
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                OrderedBatch<BatchResult> results = new OrderedBatch<BatchResult>(Server.getBatchExecutor(), tasks, Server.getBatchWindow());
+                try {
+                    for (String text : texts) {
+                        writeBatchResult(out, text, results, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution);
+                        out.write('\n');
+                        out.flush();
+                    }
+                } finally {
+                    // If the client went away, there is no need to annotate the remaining documents:
+                    results.cancel();
+                }
+            }
+        };
+    }
+
+    // The annotations of a document of a batch and the time budget they were annotated in:
+    private static class BatchResult {
+        final List<DBpediaResourceOccurrence> occs;
+        final TimeBudget budget;
+
+        BatchResult(List<DBpediaResourceOccurrence> occs, TimeBudget budget) {
+            this.occs = occs;
+            this.budget = budget;
+        }
+    }
+
+    private void writeBatchResult(OutputStream out, String text, OrderedBatch<BatchResult> results, double confidence, int support, String dbpediaTypesString, String sparqlQuery, String policy, boolean coreferenceResolution) throws IOException {
+        BatchResult result;
+        try {
+            result = results.next();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the batch results.");
+        } catch (ExecutionException e) {
+            LOG.info("ERROR: " + e.getCause().getMessage());
+            JSONWriter json = new JSONWriter(out);
+            json.beginObject().member("@error", String.valueOf(e.getCause().getMessage())).endObject();
+            json.flush();
+            return;
+        }
+
+        try {
+            long outputStart = System.nanoTime();
+            outputManager.makeJSON(out, text, result.occs, confidence, support, dbpediaTypesString, sparqlQuery, policy, coreferenceResolution, isPartial(result.budget));
+            Metrics.outputDuration().labels("json").recordSince(outputStart);
+        } catch (OutputException e) {
+            throw new WebApplicationException(e);
+        }
     }
 
     public String getApiName() {
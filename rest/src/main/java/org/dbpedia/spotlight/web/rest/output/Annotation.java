@@ -23,6 +23,8 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 import org.dbpedia.spotlight.model.SurfaceFormOccurrence;
 import org.dbpedia.spotlight.model.Text;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -63,6 +65,31 @@ public class Annotation {
     public String toJSON() {
         return serializer.toJSON(this);
     }
+
+    /**
+     * Streams the JSON representation to out. The layout is the same as in toJSON(),
+     * but there is no intermediate XML or String representation.
+     */
+    public void writeJSON(OutputStream out) throws IOException {
+        JSONWriter json = new JSONWriter(out);
+        json.beginObject().name("annotation").beginObject();
+        json.member("@text", text);
+
+        if (spots != null && !spots.isEmpty()) {
+            json.name("surfaceForm");
+            if (spots.size() == 1) {
+                spots.get(0).writeJSON(json);
+            } else {
+                json.beginArray();
+                for (Spot spot : spots)
+                    spot.writeJSON(json);
+                json.endArray();
+            }
+        }
+
+        json.endObject().endObject();
+        json.flush();
+    }
     @Override
     public String toString() {
         return toXML();
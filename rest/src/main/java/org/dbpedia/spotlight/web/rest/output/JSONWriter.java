@@ -0,0 +1,146 @@
+/**
+ * Copyright 2011 DBpedia Spotlight
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dbpedia.spotlight.web.rest.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Minimal streaming JSON writer. Values are written directly to the underlying
+ * stream, separators between members and array elements are inserted automatically.
+ *
+ * The writer does not validate the structure of the document, callers are expected
+ * to pair begin and end calls and to write a name before each value in an object.
+ */
+public class JSONWriter {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Writer out;
+
+    // first[depth] is true if nothing has been written in the current object or array yet
+    private final boolean[] first = new boolean[MAX_DEPTH];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JSONWriter(OutputStream out) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(out, "UTF-8")));
+    }
+
+    public JSONWriter(Writer out) {
+        this.out = out;
+        this.first[0] = true;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else {
+            if (!first[depth])
+                out.write(',');
+            first[depth] = false;
+        }
+    }
+
+    public JSONWriter beginObject() throws IOException {
+        separate();
+        out.write('{');
+        first[++depth] = true;
+        return this;
+    }
+
+    public JSONWriter endObject() throws IOException {
+        depth--;
+        out.write('}');
+        return this;
+    }
+
+    public JSONWriter beginArray() throws IOException {
+        separate();
+        out.write('[');
+        first[++depth] = true;
+        return this;
+    }
+
+    public JSONWriter endArray() throws IOException {
+        depth--;
+        out.write(']');
+        return this;
+    }
+
+    public JSONWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JSONWriter value(String value) throws IOException {
+        separate();
+        if (value == null)
+            out.write("null");
+        else
+            string(value);
+        return this;
+    }
+
+    /**
+     * Writes a name/value pair, the value is written as a JSON string.
+     */
+    public JSONWriter member(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void string(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            String replacement;
+            if (c == '"')
+                replacement = "\\\"";
+            else if (c == '\\')
+                replacement = "\\\\";
+            else if (c == '\n')
+                replacement = "\\n";
+            else if (c == '\r')
+                replacement = "\\r";
+            else if (c == '\t')
+                replacement = "\\t";
+            else if (c < 0x20 || c == '\u2028' || c == '\u2029')
+                replacement = String.format("\\u%04x", (int) c);
+            else
+                continue;
+
+            out.write(s, start, i - start);
+            out.write(replacement);
+            start = i + 1;
+        }
+        out.write(s, start, n - start);
+        out.write('"');
+    }
+
+}
@@ -21,6 +21,8 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import org.dbpedia.extraction.util.WikiUtil;
 import org.dbpedia.spotlight.model.DBpediaResourceOccurrence;
 
+import java.io.IOException;
+
 @XStreamAlias("resource")
 public class Resource {
 
@@ -89,4 +91,18 @@ public class Resource {
         return resource;
     }
 
+
+    public void writeJSON(JSONWriter json) throws IOException {
+        json.beginObject()
+            .member("@label", label)
+            .member("@uri", uri)
+            .member("@contextualScore", String.valueOf(contextualScore))
+            .member("@percentageOfSecondRank", String.valueOf(percentageOfSecondRank))
+            .member("@support", String.valueOf(support))
+            .member("@priorScore", String.valueOf(priorScore))
+            .member("@finalScore", String.valueOf(finalScore))
+            .member("@types", types)
+            .endObject();
+    }
+
 }
@@ -24,6 +24,7 @@ import org.dbpedia.spotlight.model.DBpediaResourceOccurrence;
 import org.dbpedia.spotlight.model.Feature;
 import org.dbpedia.spotlight.model.SurfaceFormOccurrence;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -89,4 +90,27 @@ public class Spot {
     public void setNerType(String nerType) {
         this.nerType = nerType;
     }
+
+    public void writeJSON(JSONWriter json) throws IOException {
+        json.beginObject()
+            .member("@name", name)
+            .member("@offset", String.valueOf(offset));
+        if (nerType != null)
+            json.member("@nerType", nerType);
+
+        // Same layout as the XStream/Jettison output: a single resource is written as an object
+        if (resources != null && !resources.isEmpty()) {
+            json.name("resource");
+            if (resources.size() == 1) {
+                resources.get(0).writeJSON(json);
+            } else {
+                json.beginArray();
+                for (Resource resource : resources)
+                    resource.writeJSON(json);
+                json.endArray();
+            }
+        }
+        json.endObject();
+    }
+
 }
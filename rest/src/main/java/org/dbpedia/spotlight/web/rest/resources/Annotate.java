@@ -63,14 +63,17 @@ public class Annotate {
                             @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
                             @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                             @DefaultValue("Default") @QueryParam("spotter") String spotterName,
-                            @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName, 
+                            @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                            @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                             @Context HttpServletRequest request) {
 
         String clientIp = request.getRemoteAddr();
 
         try {
-            String response = annotationInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName,  disambiguatorName);
+            String response = annotationInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName,  disambiguatorName, budget);
             return ServerUtils.ok(response);
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
@@ -89,11 +92,14 @@ public class Annotate {
                           @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                           @DefaultValue("Default") @QueryParam("spotter") String spotterName,
                           @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request) {
         String clientIp = request.getRemoteAddr();
 
         try {
-            return ServerUtils.ok(annotationInterface.getRDFa(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName));
+            return ServerUtils.ok(annotationInterface.getRDFa(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.APPLICATION_XHTML_XML).build());
         }
@@ -111,11 +117,14 @@ public class Annotate {
                          @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                          @DefaultValue("Default") @QueryParam("spotter") String spotterName,
                          @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                         @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request) {
         String clientIp = request.getRemoteAddr();
 
         try {
-	    return ServerUtils.ok(annotationInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName));
+	    return ServerUtils.ok(annotationInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, budget));
+       } catch (WebApplicationException e) {
+            throw e;
        } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_XML).build());
         }
@@ -133,6 +142,7 @@ public class Annotate {
 			   @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
 			   @DefaultValue("Default") @QueryParam("spotter") String spotterName,
 			   @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+			   @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
 			   @QueryParam("prefix") String prefix,
 			   @Context HttpServletRequest request) {
         String clientIp = request.getRemoteAddr();
@@ -147,7 +157,9 @@ public class Annotate {
 	    format = "rdfxml";
 
 	try {
-	    return ServerUtils.ok(annotationInterface.getNIF(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, format, prefix, request.getRequestURL().toString()));
+	    return ServerUtils.ok(annotationInterface.getNIF(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, budget, format, prefix, request.getRequestURL().toString()));
+       } catch (WebApplicationException e) {
+            throw e;
        } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(accept).build());
         }
@@ -165,11 +177,14 @@ public class Annotate {
                           @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                           @DefaultValue("Default") @QueryParam("spotter") String spotterName,
                           @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request) {
         String clientIp = request.getRemoteAddr();
 
         try {
-            return ServerUtils.ok(annotationInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName));
+            return ServerUtils.ok(annotationInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, budget));
+       } catch (WebApplicationException e) {
+            throw e;
        } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.APPLICATION_JSON).build());
         }
@@ -191,9 +206,10 @@ public class Annotate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("spotter") String spotterName,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request              
       ) {
-        return getHTML(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotterName,disambiguatorName,request);
+        return getHTML(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotterName,disambiguatorName,budget,request);
     }
     
     @POST
@@ -210,9 +226,10 @@ public class Annotate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("spotter") String spotter,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request              
       ) {
-        return getRDFa(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,request);
+        return getRDFa(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,budget,request);
     }
     
     @POST
@@ -229,9 +246,10 @@ public class Annotate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("spotter") String spotter,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request              
       ) {
-        return getXML(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,request);
+        return getXML(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,budget,request);
     }
     
     @POST
@@ -248,12 +266,13 @@ public class Annotate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("spotter") String spotter,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @FormParam("prefix") String prefix,
       @DefaultValue("offset") @FormParam("urirecipe") String recipe,
       @DefaultValue("10") @FormParam("context-length") int ctxLength,
       @Context HttpServletRequest request
       ) {
-	return getNIF(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,prefix,request);
+	return getNIF(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,budget,prefix,request);
     }
 
     @POST
@@ -270,9 +289,10 @@ public class Annotate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("spotter") String spotter,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request              
       ) {
-        return getJSON(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,request);
+        return getJSON(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,spotter,disambiguatorName,budget,request);
       }
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.web.rest.resources;
+
+import net.sf.json.JSONArray;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbpedia.spotlight.exceptions.InputException;
+import org.dbpedia.spotlight.model.SpotlightConfiguration;
+import org.dbpedia.spotlight.web.rest.Server;
+import org.dbpedia.spotlight.web.rest.ServerUtils;
+import org.dbpedia.spotlight.web.rest.SpotlightInterface;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST Web Service for annotating many short documents (e.g. tweets or titles) in a single request.
+ *
+ * The documents are sent in the request body, either as a JSON array of strings or as plain text
+ * with one document per line. All other parameters are shared by all documents. The response contains
+ * one JSON object per line and document (in the order of the request), see SpotlightInterface.getBatchJSON.
+ */
+
+@ApplicationPath(Server.APPLICATION_PATH)
+@Path("/annotate/batch")
+public class AnnotateBatch {
+
+    Log LOG = LogFactory.getLog(this.getClass());
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Maximum number of documents per request
+    private static final int MAX_DOCUMENTS = 10000;
+
+    // Annotation interface
+    private static SpotlightInterface annotationInterface =  new SpotlightInterface("/annotate/batch");
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({NDJSON, MediaType.APPLICATION_JSON})
+    public Response postJSONArray(String documents,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_CONFIDENCE) @QueryParam("confidence") Double confidence,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_SUPPORT) @QueryParam("support") int support,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_TYPES) @QueryParam("types") String dbpediaTypes,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_SPARQL) @QueryParam("sparql") String sparqlQuery,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
+                          @DefaultValue("Default") @QueryParam("spotter") String spotterName,
+                          @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
+                          @Context HttpServletRequest request) {
+
+        try {
+            List<String> texts = new ArrayList<String>();
+            for (Object document : JSONArray.fromObject(documents))
+                texts.add(String.valueOf(document));
+
+            return annotate(texts, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, spotterName, disambiguatorName, budget, request);
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_PLAIN).build());
+        }
+    }
+
+    @POST
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces({NDJSON, MediaType.APPLICATION_JSON})
+    public Response postLines(String documents,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_CONFIDENCE) @QueryParam("confidence") Double confidence,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_SUPPORT) @QueryParam("support") int support,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_TYPES) @QueryParam("types") String dbpediaTypes,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_SPARQL) @QueryParam("sparql") String sparqlQuery,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
+                          @DefaultValue("Default") @QueryParam("spotter") String spotterName,
+                          @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
+                          @Context HttpServletRequest request) {
+
+        List<String> texts = new ArrayList<String>();
+        for (String line : documents.split("\n")) {
+            if (!line.trim().equals(""))
+                texts.add(line);
+        }
+
+        return annotate(texts, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, spotterName, disambiguatorName, budget, request);
+    }
+
+    private Response annotate(List<String> texts, double confidence, int support, String dbpediaTypes, String sparqlQuery, String policy, boolean coreferenceResolution, String spotterName, String disambiguatorName, long budget, HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+
+        try {
+            if (texts.isEmpty())
+                throw new InputException("No documents were specified in the request body.");
+            if (texts.size() > MAX_DOCUMENTS)
+                throw new InputException(String.format("Too many documents in a single request (%d, maximum is %d).", texts.size(), MAX_DOCUMENTS));
+
+            return ServerUtils.ok(annotationInterface.getBatchJSON(texts, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, spotterName, disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_PLAIN).build());
+        }
+    }
+
+}
@@ -28,11 +28,11 @@ import org.dbpedia.spotlight.exceptions.ItemNotFoundException;
 import org.dbpedia.spotlight.exceptions.SearchException;
 import org.dbpedia.spotlight.exceptions.SpottingException;
 import org.dbpedia.spotlight.filter.annotations.FilterPolicy$;
-import org.dbpedia.spotlight.filter.visitor.FilterElement;
 import org.dbpedia.spotlight.filter.visitor.FilterOccsImpl;
 import org.dbpedia.spotlight.filter.visitor.OccsFilter;
 import org.dbpedia.spotlight.model.*;
 import org.dbpedia.spotlight.spot.Spotter;
+import org.dbpedia.spotlight.web.rest.RequestScheduler;
 import org.dbpedia.spotlight.web.rest.Server;
 import org.dbpedia.spotlight.web.rest.ServerUtils;
 import org.dbpedia.spotlight.web.rest.output.Annotation;
@@ -46,7 +46,10 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
@@ -78,8 +81,15 @@ public class Candidates {
         Annotation annotation = new Annotation(text);
         List<Spot> spots = new LinkedList<Spot>();
 
+        /*The previous addition of filter to the Candidates requests (which has usability questioned) produce the error described at issue #136.
+          To solve it, this feature for this argument (Candidates) is disabled, setting coreferenceResolution to false ever. Ignoring the user's configuration.
+        */
+        Boolean unableCoreferenceResolution = false;
+        OccsFilter filter = new OccsFilter(confidence, support, ontologyTypesString, sparqlQuery, blacklist, unableCoreferenceResolution, Server.getSimilarityThresholds(), Server.getSparqlCache(), Server.getTypeIndex());
+
         Text textObject = new Text(text);
         textObject.setFeature(new Score("confidence", confidence));
+        textObject.setFeature(new Feature("type_filter", filter.ontologyTypeFilter()));
 
         if(Server.getTokenizer() != null)
             Server.getTokenizer().tokenizeMaybe(textObject);
@@ -94,12 +104,6 @@ public class Candidates {
 
         Enumeration.Value listColor = blacklist ? FilterPolicy$.MODULE$.Blacklist() : FilterPolicy$.MODULE$.Whitelist();
 
-        /*The previous addition of filter to the Candidates requests (which has usability questioned) produce the error described at issue #136.
-          To solve it, this feature for this argument (Candidates) is disabled, setting coreferenceResolution to false ever. Ignoring the user's configuration.
-        */
-        Boolean unableCoreferenceResolution = false;
-        FilterElement filter = new OccsFilter(confidence, support, ontologyTypesString, sparqlQuery, blacklist, unableCoreferenceResolution, Server.getSimilarityThresholds(), Server.getSparqlExecute());
-
         Map<SurfaceFormOccurrence,List<DBpediaResourceOccurrence>> filteredEntityCandidates = new HashMap<SurfaceFormOccurrence,List<DBpediaResourceOccurrence>>();;
 
         for (Map.Entry<SurfaceFormOccurrence,List<DBpediaResourceOccurrence>> entry : entityCandidates.entrySet())
@@ -186,6 +190,8 @@ public class Candidates {
             LOG.info("XML format");
             String content = a.toXML();
             return ServerUtils.ok(content);
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(e.getMessage()).type(MediaType.TEXT_XML).build());
         }
@@ -208,10 +214,15 @@ public class Candidates {
 
         try {
             String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
-            Annotation a = getAnnotation(textToProcess, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, spotter, disambiguatorName, clientIp);
+            final Annotation a = getAnnotation(textToProcess, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, spotter, disambiguatorName, clientIp);
             LOG.info("JSON format");
-            String content = a.toJSON();
-            return ServerUtils.ok(content);
+            return ServerUtils.ok(new StreamingOutput() {
+                public void write(OutputStream out) throws IOException {
+                    a.writeJSON(out);
+                }
+            });
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(e.getMessage()).type(MediaType.APPLICATION_JSON).build());
         }
@@ -340,7 +351,15 @@ public class Candidates {
 
         /* Running Annotation */
 
-        Annotation annotation = process(text, confidence, support, ontologyTypesString, sparqlQuery, blacklist, coreferenceResolution, spotter, disambiguator);
+        RequestScheduler scheduler = Server.getScheduler();
+        RequestScheduler.Slot slot = scheduler == null ? null : scheduler.acquire(clientIp, text.length());
+        Annotation annotation;
+        try {
+            annotation = process(text, confidence, support, ontologyTypesString, sparqlQuery, blacklist, coreferenceResolution, spotter, disambiguator);
+        } finally {
+            if (slot != null)
+                slot.release();
+        }
 
         LOG.debug("Shown: "+annotation.toXML());
         LOG.debug("****************************************************************");
@@ -57,11 +57,14 @@ public class Disambiguate {
                           @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
                           @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                           @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request
     ) {
         String clientIp = request.getRemoteAddr();
         try {
-            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
@@ -79,11 +82,14 @@ public class Disambiguate {
                           @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
                           @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                           @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request
     ) {
         String clientIp = request.getRemoteAddr();
         try {
-            return ServerUtils.ok(disambigInterface.getRDFa(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getRDFa(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.APPLICATION_XHTML_XML).build());
@@ -101,12 +107,15 @@ public class Disambiguate {
                          @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
                          @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                          @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                         @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                          @Context HttpServletRequest request
     ) {
         String clientIp = request.getRemoteAddr();
 
         try {
-            return ServerUtils.ok(disambigInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_XML).build());
@@ -124,6 +133,7 @@ public class Disambiguate {
 			      @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
 			      @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
 			      @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+			      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
 			      @QueryParam("prefix") String prefix,
 			      @DefaultValue("offset") @QueryParam("urirecipe") String recipe,
 			      @DefaultValue("10") @QueryParam("context-length") int ctxLength,
@@ -141,7 +151,9 @@ public class Disambiguate {
             format = "rdfxml";
 
         try {
-            return ServerUtils.ok(disambigInterface.getNIF(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, format, prefix, request.getRequestURL().toString()));
+            return ServerUtils.ok(disambigInterface.getNIF(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget, format, prefix, request.getRequestURL().toString()));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(accept).build());
@@ -159,12 +171,15 @@ public class Disambiguate {
                           @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @QueryParam("policy") String policy,
                           @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @QueryParam("coreferenceResolution") boolean coreferenceResolution,
                           @DefaultValue("Default") @QueryParam("disambiguator") String disambiguatorName,
+                          @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @QueryParam("budget") long budget,
                           @Context HttpServletRequest request
     ) {
         String clientIp = request.getRemoteAddr();
 
         try {
-            return ServerUtils.ok(disambigInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.APPLICATION_JSON).build());
@@ -186,11 +201,14 @@ public class Disambiguate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @FormParam("policy") String policy,
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request
       ) {
         String clientIp = request.getRemoteAddr();
         try {
-            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
@@ -211,11 +229,14 @@ public class Disambiguate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @FormParam("policy") String policy,
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request
       ) {
         try {
             String clientIp = request.getRemoteAddr();
-            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getHTML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
@@ -236,11 +257,14 @@ public class Disambiguate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @FormParam("policy") String policy,
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request
       ) {
         try {
             String clientIp = request.getRemoteAddr();
-            return ServerUtils.ok(disambigInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getXML(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_XML).build());
@@ -261,12 +285,13 @@ public class Disambiguate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @FormParam("policy") String policy,
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @FormParam("prefix") String prefix,
       @DefaultValue("offset") @FormParam("urirecipe") String recipe,
       @DefaultValue("10") @FormParam("context-length") int ctxLength,
       @Context HttpServletRequest request
       ) {
-	return getNIF(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,disambiguatorName,prefix,recipe,ctxLength,request);
+	return getNIF(text,inUrl,confidence,support,dbpediaTypes,sparqlQuery,policy,coreferenceResolution,disambiguatorName,budget,prefix,recipe,ctxLength,request);
     }
     
     @POST
@@ -282,11 +307,14 @@ public class Disambiguate {
       @DefaultValue(SpotlightConfiguration.DEFAULT_POLICY) @FormParam("policy") String policy,
       @DefaultValue(SpotlightConfiguration.DEFAULT_COREFERENCE_RESOLUTION) @FormParam("coreferenceResolution") boolean coreferenceResolution,
       @DefaultValue("Default") @FormParam("disambiguator") String disambiguatorName,
+      @DefaultValue(SpotlightConfiguration.DEFAULT_BUDGET) @FormParam("budget") long budget,
       @Context HttpServletRequest request
       ) {
         String clientIp = request.getRemoteAddr();
         try {
-            return ServerUtils.ok(disambigInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName));
+            return ServerUtils.ok(disambigInterface.getJSON(text, inUrl, confidence, support, dbpediaTypes, sparqlQuery, policy, coreferenceResolution, clientIp, SpotterPolicy.SpotXmlParser.name(), disambiguatorName, budget));
+        } catch (WebApplicationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.APPLICATION_JSON).build());
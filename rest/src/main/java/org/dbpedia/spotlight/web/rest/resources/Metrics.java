@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 DBpedia Spotlight Development Team
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  Check our project website for information on how to acknowledge the authors and how to contribute to the project: http://spotlight.dbpedia.org
+ */
+
+package org.dbpedia.spotlight.web.rest.resources;
+
+import org.dbpedia.spotlight.web.rest.Server;
+import org.dbpedia.spotlight.web.rest.ServerUtils;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST Web Service for the metrics of the server (latency of the annotation stages, text length,
+ * number of spots and candidates) in the Prometheus text format.
+ *
+ * See {@link org.dbpedia.spotlight.metrics.Metrics}.
+ */
+
+@ApplicationPath(Server.APPLICATION_PATH)
+@Path("/metrics")
+public class Metrics {
+
+    public static final String PROMETHEUS_TEXT_FORMAT = "text/plain; version=0.0.4";
+
+    @GET
+    @Produces(PROMETHEUS_TEXT_FORMAT)
+    public Response get() {
+        return ServerUtils.ok(org.dbpedia.spotlight.metrics.Metrics.text());
+    }
+
+}
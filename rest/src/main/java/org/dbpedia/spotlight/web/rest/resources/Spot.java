@@ -34,7 +34,10 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -134,8 +137,12 @@ public class Spot {
         try {
             String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
             List<SurfaceFormOccurrence> spots = annotationInterface.spot(spotterName, new Text(textToProcess));
-            String response = new Annotation(new Text(text), spots).toJSON();
-            return ServerUtils.ok(response);
+            final Annotation annotation = new Annotation(new Text(text), spots);
+            return ServerUtils.ok(new StreamingOutput() {
+                public void write(OutputStream out) throws IOException {
+                    annotation.writeJSON(out);
+                }
+            });
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
@@ -194,8 +201,12 @@ public class Spot {
         try {
             String textToProcess = ServerUtils.getTextToProcess(text, inUrl);
             List<SurfaceFormOccurrence> spots = annotationInterface.spot(spotterName, new Text(text));
-            String response = new Annotation(new Text(text), spots).toJSON();
-            return ServerUtils.ok(response);
+            final Annotation annotation = new Annotation(new Text(text), spots);
+            return ServerUtils.ok(new StreamingOutput() {
+                public void write(OutputStream out) throws IOException {
+                    annotation.writeJSON(out);
+                }
+            });
         } catch (Exception e) {
             e.printStackTrace();
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST). entity(ServerUtils.print(e)).type(MediaType.TEXT_HTML).build());
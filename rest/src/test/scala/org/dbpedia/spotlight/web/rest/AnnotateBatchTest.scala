@@ -0,0 +1,66 @@
+package org.dbpedia.spotlight.web.rest
+
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.{Callable, Executors}
+import java.util.concurrent.atomic.AtomicInteger
+import org.dbpedia.spotlight.exceptions.InputException
+import org.dbpedia.spotlight.filter.visitor.FilterElement
+import org.dbpedia.spotlight.model.{DBpediaResourceOccurrence, TimeBudget}
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue}
+import scala.collection.JavaConversions._
+
+class AnnotateBatchTest {
+
+  //Annotates nothing, the first documents take longest and "fail" is an error:
+  val annotator = new SpotlightInterface("/annotate/batch") {
+    override def getOccurrences(textString: String, confidence: Double, support: Int, ontologyTypesString: String,
+                                sparqlQuery: String, policy: String, coreferenceResolution: Boolean, clientIp: String,
+                                spotterName: String, disambiguatorName: String, filter: FilterElement,
+                                budget: TimeBudget): java.util.List[DBpediaResourceOccurrence] = {
+      if (textString == "fail")
+        throw new InputException("Could not annotate " + textString)
+      Thread.sleep(if (textString == "Berlin") 200 else 10)
+      new java.util.ArrayList[DBpediaResourceOccurrence]()
+    }
+  }
+
+  @Test
+  def testOrderAndErrors() {
+    val texts = List("Berlin", "fail", "Paris", "Rome")
+    val out = new ByteArrayOutputStream()
+    annotator.getBatchJSON(texts, 0.5, 0, "", "", "whitelist", true, "127.0.0.1", "Default", "Default", 0).write(out)
+
+    val lines = new String(out.toByteArray, "UTF-8").split("\n")
+    assertEquals(4, lines.length)
+    assertTrue(lines(0).startsWith("{\"@text\":\"Berlin\""))
+    assertEquals("{\"@error\":\"Could not annotate fail\"}", lines(1))
+    assertTrue(lines(2).startsWith("{\"@text\":\"Paris\""))
+    assertTrue(lines(3).startsWith("{\"@text\":\"Rome\""))
+  }
+
+  @Test
+  def testWindow() {
+    val executor = Executors.newFixedThreadPool(4)
+    val started = new AtomicInteger(0)
+    val tasks = (0 until 20).map( i => new Callable[Integer] {
+      def call(): Integer = {
+        started.incrementAndGet()
+        i
+      }
+    })
+
+    val batch = new OrderedBatch[Integer](executor, tasks, 3)
+    var taken = 0
+    while (batch.hasNext) {
+      assertEquals(taken, batch.next().intValue)
+      taken += 1
+
+      //Only the tasks of the window are submitted ahead of the taken results:
+      assertTrue(started.get <= taken + 3)
+    }
+    assertEquals(20, taken)
+    executor.shutdown()
+  }
+
+}
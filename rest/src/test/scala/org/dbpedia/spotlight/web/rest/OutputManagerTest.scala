@@ -0,0 +1,43 @@
+package org.dbpedia.spotlight.web.rest
+
+import java.io.ByteArrayOutputStream
+import java.util.Collections
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.dbpedia.spotlight.model._
+
+class OutputManagerTest {
+
+  val outputManager = new OutputManager()
+
+  def json(text: String, occs: java.util.List[DBpediaResourceOccurrence], types: String, partial: Boolean): String = {
+    val out = new ByteArrayOutputStream()
+    outputManager.makeJSON(out, text, occs, 0.5, 0, types, null, "whitelist", true, partial)
+    new String(out.toByteArray, "UTF-8")
+  }
+
+  @Test
+  def testJSON() {
+    val text = new Text("Berlin is the capital of \"Germany\".\n")
+    val berlin = new DBpediaResource("Berlin", 100, 0.0, List(new DBpediaType("Place"), new DBpediaType("City")))
+    val occ = new DBpediaResourceOccurrence("", berlin, new SurfaceForm("Berlin"), text, 0, Provenance.Undefined, 0.9, 0.1)
+
+    //The JSON object is written compactly on a single line, all values are strings:
+    assertEquals(
+      "{\"@text\":\"Berlin is the capital of \\\"Germany\\\".\\n\",\"@confidence\":\"0.5\",\"@support\":\"0\"," +
+      "\"@types\":\"DBpedia:Place\",\"@sparql\":\"\",\"@policy\":\"whitelist\"," +
+      "\"Resources\":[{\"@URI\":\"http://dbpedia.org/resource/Berlin\",\"@support\":\"100\"," +
+      "\"@types\":\"DBpedia:Place,DBpedia:City\",\"@surfaceForm\":\"Berlin\",\"@offset\":\"0\"," +
+      "\"@similarityScore\":\"0.9\",\"@percentageOfSecondRank\":\"0.1\"}]}",
+      json(text.text, Collections.singletonList(occ), "DBpedia:Place", false)
+    )
+
+    //Without annotations, there is no Resources member:
+    assertEquals(
+      "{\"@text\":\"Nothing here.\",\"@confidence\":\"0.5\",\"@support\":\"0\",\"@types\":\"\",\"@sparql\":\"\"," +
+      "\"@policy\":\"whitelist\",\"@partial\":\"true\"}",
+      json("Nothing here.", Collections.emptyList[DBpediaResourceOccurrence](), null, true)
+    )
+  }
+
+}
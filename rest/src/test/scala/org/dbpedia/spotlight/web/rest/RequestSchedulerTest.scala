@@ -0,0 +1,62 @@
+package org.dbpedia.spotlight.web.rest
+
+import java.util.Collections
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertTrue, fail}
+import scala.collection.JavaConversions._
+
+class RequestSchedulerTest {
+
+  @Test
+  def testRejection() {
+    val scheduler = new RequestScheduler(1, 1, 100, 1, 50)
+    assertEquals(4, scheduler.capacity)
+    val slot = scheduler.acquire("1.1.1.1", 10)
+
+    //Long texts have their own lane:
+    scheduler.acquire("1.1.1.1", 500).release()
+
+    //The request waits for the first one until its deadline passes:
+    try {
+      scheduler.acquire("2.2.2.2", 10)
+      fail("The request should not be admitted after its deadline.")
+    } catch {
+      case e: ServiceUnavailableException =>
+        assertEquals(503, e.getResponse.getStatus)
+        assertTrue(e.getRetryAfter >= 1)
+    }
+
+    slot.release()
+    scheduler.acquire("2.2.2.2", 10).release()
+  }
+
+  @Test
+  def testFairQueueing() {
+    val scheduler = new RequestScheduler(1, 1, 100, 10, 10000)
+    val admitted = Collections.synchronizedList(new java.util.ArrayList[String]())
+    val slot = scheduler.acquire("0.0.0.0", 10)
+
+    //Three requests of one client are queued before the request of another client:
+    val executor = Executors.newFixedThreadPool(4)
+    val requests = List("a" -> "1.1.1.1", "b" -> "1.1.1.1", "c" -> "1.1.1.1", "d" -> "2.2.2.2").map { case (name, client) =>
+      val request = executor.submit(new Callable[String] {
+        def call(): String = {
+          val s = scheduler.acquire(client, 10)
+          admitted.add(name)
+          s.release()
+          name
+        }
+      })
+      Thread.sleep(50)
+      request
+    }
+
+    slot.release()
+    requests.foreach(_.get(10, TimeUnit.SECONDS))
+    executor.shutdown()
+
+    assertEquals(List("a", "d", "b", "c"), admitted.toList)
+  }
+
+}
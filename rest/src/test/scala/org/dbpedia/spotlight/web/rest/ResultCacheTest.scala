@@ -0,0 +1,89 @@
+package org.dbpedia.spotlight.web.rest
+
+import java.util.concurrent.{CountDownLatch, Executors, Callable, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+import org.junit.Test
+import org.junit.Assert.{assertEquals, assertArrayEquals, assertFalse}
+
+class ResultCacheTest {
+
+  //Counts the computations of the response:
+  class Response(value: String) extends Callable[Array[Byte]] {
+    val calls = new AtomicInteger(0)
+
+    def call(): Array[Byte] = {
+      calls.incrementAndGet()
+      value.getBytes("UTF-8")
+    }
+  }
+
+  @Test
+  def testCache() {
+    val cache = new ResultCache(1024 * 1024)
+    val response = new Response("Berlin")
+
+    val key = cache.key("/annotate", "json", "Berlin is big.", 0.5: java.lang.Double, null)
+    assertArrayEquals("Berlin".getBytes("UTF-8"), cache.get(key, response))
+    cache.get(cache.key("/annotate", "json", "Berlin is big.", 0.5: java.lang.Double, null), response)
+    assertEquals(1, response.calls.get)
+    assertEquals(1, cache.hits())
+
+    //Any other parameter is another request:
+    assertFalse(key.equals(cache.key("/annotate", "xml", "Berlin is big.", 0.5: java.lang.Double, null)))
+    cache.get(cache.key("/annotate", "json", "Berlin is big.", 0.6: java.lang.Double, null), response)
+    assertEquals(2, response.calls.get)
+
+    //Responses computed before the model changed are not used anymore:
+    cache.invalidateAll()
+    cache.get(cache.key("/annotate", "json", "Berlin is big.", 0.5: java.lang.Double, null), response)
+    assertEquals(3, response.calls.get)
+  }
+
+  @Test
+  def testErrorsAreNotCached() {
+    val cache = new ResultCache(1024 * 1024)
+    val error = new Response("ERROR") {
+      override def call(): Array[Byte] = throw new ResultCache.NotCacheable(super.call())
+    }
+
+    //The error message is returned, but the next request computes the response again:
+    val key = cache.key("/annotate", "html", "")
+    assertArrayEquals("ERROR".getBytes("UTF-8"), cache.get(key, error))
+    assertArrayEquals("ERROR".getBytes("UTF-8"), cache.get(key, error))
+    assertEquals(2, error.calls.get)
+    assertEquals(0, cache.size())
+
+    val response = new Response("Berlin")
+    assertArrayEquals("Berlin".getBytes("UTF-8"), cache.get(key, response))
+    assertEquals(1, cache.size())
+  }
+
+  @Test
+  def testConcurrentRequests() {
+    val cache = new ResultCache(1024 * 1024)
+    val started = new CountDownLatch(1)
+    val response = new Response("Berlin") {
+      override def call(): Array[Byte] = {
+        started.await(10, TimeUnit.SECONDS)
+        super.call()
+      }
+    }
+
+    val executor = Executors.newFixedThreadPool(4)
+    val results = (1 to 4).map { _ =>
+      executor.submit(new Callable[Array[Byte]] {
+        def call(): Array[Byte] = cache.get(cache.key("/annotate", "Berlin is big."), response)
+      })
+    }
+    Thread.sleep(100)
+    started.countDown()
+
+    results.foreach( r => assertArrayEquals("Berlin".getBytes("UTF-8"), r.get(10, TimeUnit.SECONDS)) )
+    executor.shutdown()
+
+    assertEquals(1, response.calls.get)
+    assertEquals(3, cache.hits())
+    assertEquals(1, cache.misses())
+  }
+
+}